@@ -0,0 +1,364 @@
+package com.pricetracker.app.archive;
+
+import com.pricetracker.app.entity.Product;
+import com.pricetracker.app.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Optional archive of raw fetched pages, for looking at the HTML behind a failed or suspicious extraction.
+ *
+ * Pages are gzip-compressed and appended to segment files ({@code pages-N.seg}). Each segment has a
+ * memory-mapped index file ({@code pages-N.idx}) of fixed-width entries
+ * (product ID, fetch time, offset, length) that is loaded into memory on startup, so looking a page
+ * up is a hash lookup followed by one positional read. Segments rotate by size and are deleted after
+ * the retention period, checked on startup, on every rotation and periodically, so an archive that
+ * rarely rotates still honours it. Pages are written by a single background thread; the scrape thread only
+ * enqueues, and pages are dropped rather than blocking it when the queue is full.
+ */
+@Component
+public class PageArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(PageArchive.class);
+
+    static final int INDEX_ENTRY_BYTES = 32;
+    private static final int ENTRY_COMMITTED = 1;
+    private static final String SEGMENT_PREFIX = "pages-";
+    private static final String DATA_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long segmentMaxBytes;
+    private final int indexEntriesPerSegment;
+    private final Duration retention;
+    private final int queueCapacity;
+    private final ProductRepository productRepository;
+
+    // productId -> fetch time (epoch millis) -> location of the page
+    private final Map<Long, ConcurrentSkipListMap<Long, Location>> index = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor writer;
+
+    // Only touched by the writer thread (and by open/close)
+    private Segment current;
+    private long nextSegmentId = 1;
+
+    public PageArchive(
+            @Value("${app.archive.enabled:false}") boolean enabled,
+            @Value("${app.archive.directory:./data/page-archive}") String directory,
+            @Value("${app.archive.segment-max-mb:64}") long segmentMaxMb,
+            @Value("${app.archive.index-entries-per-segment:65536}") int indexEntriesPerSegment,
+            @Value("${app.archive.retention-days:14}") long retentionDays,
+            @Value("${app.archive.queue-capacity:100}") int queueCapacity,
+            ProductRepository productRepository) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.segmentMaxBytes = segmentMaxMb * 1024 * 1024;
+        this.indexEntriesPerSegment = indexEntriesPerSegment;
+        this.retention = Duration.ofDays(retentionDays);
+        this.queueCapacity = queueCapacity;
+        this.productRepository = productRepository;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            log.info("Page archive disabled");
+            return;
+        }
+
+        Files.createDirectories(directory);
+        loadIndexes();
+        deleteExpiredSegments();
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("page-archive-");
+        threadFactory.setDaemon(true);
+        writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), threadFactory, (task, executor) ->
+                log.debug("Page archive queue full, dropping page"));
+
+        log.info("Page archive opened at {} with {} archived products", directory, index.size());
+    }
+
+    @PreDestroy
+    public void close() {
+        if (writer == null) {
+            return;
+        }
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Page archive writer did not finish in time, pending pages are lost");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeCurrentSegment();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Delete the segments past the retention period. Runs on the writer thread, which owns the open segment;
+     * skipped if the writer is busy with a full queue, a later run catches up.
+     */
+    @Scheduled(fixedDelayString = "${app.archive.retention-check-interval-ms:3600000}")
+    public void enforceRetention() {
+        if (writer == null || writer.getQueue().remainingCapacity() == 0) {
+            return;
+        }
+        writer.execute(() -> {
+            try {
+                deleteExpiredSegments();
+            } catch (IOException e) {
+                log.warn("Failed to delete expired page archive segments: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Archive a fetched page. Returns immediately; the page is written in the background.
+     * Pages of URLs that do not belong to a tracked product are not kept.
+     *
+     * @param productUrl the URL the page was requested for
+     * @param fetchedAt the time the page was fetched
+     * @param body the raw response body
+     */
+    public void archive(String productUrl, Instant fetchedAt, byte[] body) {
+        if (writer == null || body == null) {
+            return;
+        }
+        writer.execute(() -> {
+            try {
+                Optional<Product> product = productRepository.findByProductUrl(productUrl);
+                if (product.isEmpty()) {
+                    log.debug("Not archiving page of untracked URL {}", productUrl);
+                    return;
+                }
+                write(product.get().getId(), fetchedAt.toEpochMilli(), body);
+            } catch (Exception e) {
+                log.warn("Failed to archive page of {}: {}", productUrl, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * List the fetch times of the archived pages of a product, oldest first.
+     */
+    public List<Instant> listPages(Long productId) {
+        NavigableMap<Long, Location> pages = index.get(productId);
+        if (pages == null) {
+            return Collections.emptyList();
+        }
+        return pages.keySet().stream().map(Instant::ofEpochMilli).toList();
+    }
+
+    /**
+     * Read an archived page.
+     *
+     * @param productId the ID of the product
+     * @param fetchedAt the exact fetch time, as returned by {@link #listPages(Long)}
+     * @return the raw page, or empty if it is not (or no longer) archived
+     */
+    public Optional<byte[]> read(Long productId, Instant fetchedAt) throws IOException {
+        NavigableMap<Long, Location> pages = index.get(productId);
+        Location location = pages != null ? pages.get(fetchedAt.toEpochMilli()) : null;
+        if (location == null) {
+            return Optional.empty();
+        }
+
+        ByteBuffer compressed = ByteBuffer.allocate(location.length());
+        try (FileChannel channel = FileChannel.open(dataPath(location.segmentId()), StandardOpenOption.READ)) {
+            while (compressed.hasRemaining()) {
+                if (channel.read(compressed, location.offset() + compressed.position()) < 0) {
+                    throw new IOException("Archived page truncated in segment " + location.segmentId());
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.array()))) {
+            return Optional.of(in.readAllBytes());
+        }
+    }
+
+    private void write(long productId, long fetchedAtMillis, byte[] body) throws IOException {
+        byte[] compressed = gzip(body);
+        if (current == null || current.isFull(compressed.length)) {
+            rotate();
+        }
+
+        long offset = current.dataSize;
+        ByteBuffer data = ByteBuffer.wrap(compressed);
+        while (data.hasRemaining()) {
+            current.data.write(data);
+        }
+        current.dataSize += compressed.length;
+
+        // The commit marker is written last, a torn entry is ignored when the index is loaded
+        MappedByteBuffer idx = current.index;
+        int position = current.entryCount * INDEX_ENTRY_BYTES;
+        idx.putLong(position, productId);
+        idx.putLong(position + 8, fetchedAtMillis);
+        idx.putLong(position + 16, offset);
+        idx.putInt(position + 24, compressed.length);
+        idx.putInt(position + 28, ENTRY_COMMITTED);
+        current.entryCount++;
+
+        index.computeIfAbsent(productId, id -> new ConcurrentSkipListMap<>())
+            .put(fetchedAtMillis, new Location(current.id, offset, compressed.length));
+    }
+
+    private void rotate() throws IOException {
+        closeCurrentSegment();
+        deleteExpiredSegments();
+
+        long id = nextSegmentId++;
+        FileChannel data = FileChannel.open(dataPath(id),
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        MappedByteBuffer idx;
+        try (FileChannel indexChannel = FileChannel.open(indexPath(id),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            idx = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) indexEntriesPerSegment * INDEX_ENTRY_BYTES);
+        }
+        current = new Segment(id, data, idx);
+        log.debug("Opened page archive segment {}", id);
+    }
+
+    private void closeCurrentSegment() {
+        if (current == null) {
+            return;
+        }
+        try {
+            current.index.force();
+            current.data.close();
+        } catch (IOException e) {
+            log.warn("Failed to close page archive segment {}: {}", current.id, e.getMessage());
+        }
+        current = null;
+    }
+
+    private void loadIndexes() throws IOException {
+        for (long segmentId : segmentIds()) {
+            nextSegmentId = Math.max(nextSegmentId, segmentId + 1);
+            try (FileChannel channel = FileChannel.open(indexPath(segmentId), StandardOpenOption.READ)) {
+                MappedByteBuffer idx = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                for (int position = 0; position + INDEX_ENTRY_BYTES <= idx.capacity(); position += INDEX_ENTRY_BYTES) {
+                    if (idx.getInt(position + 28) != ENTRY_COMMITTED) {
+                        break;
+                    }
+                    index.computeIfAbsent(idx.getLong(position), id -> new ConcurrentSkipListMap<>())
+                        .put(idx.getLong(position + 8),
+                            new Location(segmentId, idx.getLong(position + 16), idx.getInt(position + 24)));
+                }
+            } catch (NoSuchFileException e) {
+                log.warn("Page archive segment {} has no index, its pages are not reachable", segmentId);
+            }
+        }
+    }
+
+    private void deleteExpiredSegments() throws IOException {
+        Instant cutoff = Instant.now().minus(retention);
+        for (long segmentId : segmentIds()) {
+            Path data = dataPath(segmentId);
+            if (Files.getLastModifiedTime(data).toInstant().isBefore(cutoff)) {
+                // Nothing was written to it within the retention period either, the next page opens a new one
+                if (current != null && current.id == segmentId) {
+                    closeCurrentSegment();
+                }
+                index.values().forEach(pages -> pages.values().removeIf(l -> l.segmentId() == segmentId));
+                index.values().removeIf(Map::isEmpty);
+                Files.deleteIfExists(data);
+                Files.deleteIfExists(indexPath(segmentId));
+                log.info("Deleted expired page archive segment {}", segmentId);
+            }
+        }
+    }
+
+    private List<Long> segmentIds() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(DATA_SUFFIX))
+                .forEach(name -> ids.add(Long.parseLong(
+                    name.substring(SEGMENT_PREFIX.length(), name.length() - DATA_SUFFIX.length()))));
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private Path dataPath(long segmentId) {
+        return directory.resolve(SEGMENT_PREFIX + segmentId + DATA_SUFFIX);
+    }
+
+    private Path indexPath(long segmentId) {
+        return directory.resolve(SEGMENT_PREFIX + segmentId + INDEX_SUFFIX);
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(512, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private record Location(long segmentId, long offset, int length) {}
+
+    private final class Segment {
+        private final long id;
+        private final FileChannel data;
+        private final MappedByteBuffer index;
+        private long dataSize;
+        private int entryCount;
+
+        private Segment(long id, FileChannel data, MappedByteBuffer index) {
+            this.id = id;
+            this.data = data;
+            this.index = index;
+        }
+
+        private boolean isFull(int nextLength) {
+            return entryCount >= indexEntriesPerSegment || (dataSize > 0 && dataSize + nextLength > segmentMaxBytes);
+        }
+    }
+}
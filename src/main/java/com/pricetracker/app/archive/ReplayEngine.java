@@ -0,0 +1,322 @@
+package com.pricetracker.app.archive;
+
+import com.pricetracker.app.entity.PriceHistory;
+import com.pricetracker.app.entity.Product;
+import com.pricetracker.app.repository.PriceHistoryRepository;
+import com.pricetracker.app.repository.ProductRepository;
+import com.pricetracker.app.scraping.PageDecoder;
+import com.pricetracker.app.scraping.ScraperStrategy;
+import com.pricetracker.app.scraping.SelectorStats;
+import org.jsoup.nodes.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiPredicate;
+import java.util.stream.Stream;
+
+/**
+ * Replays stored pages through a scraper strategy without touching the network, to validate selector
+ * changes against real pages before deploying them.
+ *
+ * Pages come from the {@link PageArchive} or from a directory of HTML fixtures. They are loaded, parsed and
+ * extracted in parallel on a dedicated ForkJoinPool, and the extracted price, name and image URL are compared
+ * with the values recorded for each page.
+ */
+@Service
+public class ReplayEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplayEngine.class);
+
+    private static final int MAX_MISMATCH_SAMPLES = 50;
+    private static final String DEFAULT_FIXTURE_URL = "https://www.amazon.in/dp/fixture";
+
+    // The price history entry of a check is saved shortly after its page was fetched
+    private static final Duration RECORDING_GRACE = Duration.ofMinutes(1);
+
+    private final PageArchive pageArchive;
+    private final ProductRepository productRepository;
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final Path fixturesRoot;
+
+    public ReplayEngine(
+            PageArchive pageArchive,
+            ProductRepository productRepository,
+            PriceHistoryRepository priceHistoryRepository,
+            @Value("${app.replay.fixtures-root:./data/replay-fixtures}") String fixturesRoot) {
+        this.pageArchive = pageArchive;
+        this.productRepository = productRepository;
+        this.priceHistoryRepository = priceHistoryRepository;
+        this.fixturesRoot = Paths.get(fixturesRoot).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Replay pages through a strategy.
+     *
+     * @param strategy the strategy to validate
+     * @param pages the pages to replay
+     * @param parallelism the number of worker threads
+     * @return the agreement, throughput and latency of the replay
+     */
+    public ReplayReport replay(ScraperStrategy strategy, List<ReplayPage> pages, int parallelism) {
+        String strategyName = strategy.getClass().getSimpleName();
+        log.info("Replaying {} pages through {} with parallelism {}", pages.size(), strategyName, parallelism);
+
+        long start = System.nanoTime();
+        List<PageResult> results;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            results = pool.submit(() -> pages.parallelStream()
+                .map(page -> replayPage(strategy, page))
+                .toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Replay interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Replay failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        ReplayReport report = summarize(strategyName, results, elapsedNanos);
+        log.info("Replay of {} pages through {} finished in {} ms: price agreement {}, {} failures",
+            report.pages(), strategyName, report.elapsedMillis(), report.price().agreement(), report.failures());
+        return report;
+    }
+
+    /**
+     * Archived pages, newest first, with the price in effect at fetch time and the product's current
+     * name and image URL as recorded values.
+     *
+     * @param maxPages the maximum number of pages to return
+     */
+    public List<ReplayPage> archivedPages(int maxPages) {
+        List<ReplayPage> pages = new ArrayList<>();
+        for (Product product : productRepository.findAll()) {
+            List<Instant> fetchTimes = pageArchive.listPages(product.getId());
+            if (fetchTimes.isEmpty()) {
+                continue;
+            }
+
+            List<PriceHistory> history = priceHistoryRepository.findByProductIdOrderByTimestampAsc(product.getId());
+            for (int i = fetchTimes.size() - 1; i >= 0 && pages.size() < maxPages; i--) {
+                Instant fetchedAt = fetchTimes.get(i);
+                Long productId = product.getId();
+                pages.add(new ReplayPage(
+                    productId + "@" + fetchedAt,
+                    product.getProductUrl(),
+                    () -> pageArchive.read(productId, fetchedAt)
+                        .orElseThrow(() -> new IOException("Page no longer archived")),
+                    new ReplayPage.Recorded(priceAt(history, fetchedAt), product.getName(), product.getImageUrl())));
+            }
+            if (pages.size() >= maxPages) {
+                break;
+            }
+        }
+        return pages;
+    }
+
+    /**
+     * HTML fixtures of a directory under the fixtures root ({@code app.replay.fixtures-root}). The recorded
+     * values of {@code name.html} are read from an optional {@code name.properties} with the keys url, price,
+     * name and imageUrl.
+     *
+     * @param directory the directory, relative to the fixtures root
+     * @throws IllegalArgumentException if the directory is not inside the fixtures root
+     */
+    public List<ReplayPage> fixturePages(String directory) throws IOException {
+        Path resolved = fixturesRoot.resolve(directory).normalize();
+        if (!resolved.startsWith(fixturesRoot)) {
+            throw new IllegalArgumentException("Fixtures directory must be inside the fixtures root");
+        }
+        // Symbolic links are followed only as far as they stay inside the root
+        Path realRoot = fixturesRoot.toRealPath();
+        if (!resolved.toRealPath().startsWith(realRoot)) {
+            throw new IllegalArgumentException("Fixtures directory must be inside the fixtures root");
+        }
+
+        List<Path> htmlFiles;
+        try (Stream<Path> files = Files.list(resolved)) {
+            htmlFiles = files.filter(path -> path.getFileName().toString().endsWith(".html"))
+                .filter(path -> isInside(path, realRoot))
+                .sorted()
+                .toList();
+        }
+
+        List<ReplayPage> pages = new ArrayList<>();
+        for (Path htmlFile : htmlFiles) {
+            String fileName = htmlFile.getFileName().toString();
+            Path expectedFile = htmlFile.resolveSibling(fileName.substring(0, fileName.length() - ".html".length()) + ".properties");
+            Properties expected = new Properties();
+            if (Files.exists(expectedFile) && isInside(expectedFile, realRoot)) {
+                try (Reader reader = Files.newBufferedReader(expectedFile)) {
+                    expected.load(reader);
+                }
+            }
+
+            String price = expected.getProperty("price");
+            pages.add(new ReplayPage(
+                fileName,
+                expected.getProperty("url", DEFAULT_FIXTURE_URL),
+                () -> Files.readAllBytes(htmlFile),
+                new ReplayPage.Recorded(price != null ? new BigDecimal(price) : null,
+                    expected.getProperty("name"), expected.getProperty("imageUrl"))));
+        }
+        return pages;
+    }
+
+    private static boolean isInside(Path path, Path realRoot) {
+        try {
+            return path.toRealPath().startsWith(realRoot);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private PageResult replayPage(ScraperStrategy strategy, ReplayPage page) {
+        byte[] html;
+        try {
+            html = page.source().load();
+        } catch (IOException e) {
+            return PageResult.failed(page.label(), e.getMessage());
+        }
+
+        long start = System.nanoTime();
+        try {
+            // Charset is detected from the page itself; the archive does not keep response headers
+            Document doc = PageDecoder.parse(html, null, page.url());
+            Optional<BigDecimal> price = SelectorStats.replaying(() -> strategy.extractPrice(doc));
+            Optional<String> name = strategy.extractName(doc);
+            Optional<String> imageUrl = strategy.extractImageUrl(doc);
+            long nanos = System.nanoTime() - start;
+
+            ReplayPage.Recorded recorded = page.recorded();
+            List<ReplayReport.Mismatch> mismatches = new ArrayList<>(0);
+            return new PageResult(nanos,
+                compare(page.label(), "price", recorded.price(), price,
+                    (expected, actual) -> expected.compareTo(actual) == 0, mismatches),
+                compare(page.label(), "name", recorded.name(), name,
+                    (expected, actual) -> normalize(expected).equals(normalize(actual)), mismatches),
+                compare(page.label(), "imageUrl", recorded.imageUrl(), imageUrl, Objects::equals, mismatches),
+                mismatches);
+        } catch (RuntimeException e) {
+            return PageResult.failed(page.label(), e.getMessage());
+        }
+    }
+
+    private static <T> Outcome compare(String label, String field, T recorded, Optional<T> extracted,
+                                       BiPredicate<T, T> matcher, List<ReplayReport.Mismatch> mismatches) {
+        if (recorded == null) {
+            return Outcome.NOT_RECORDED;
+        }
+        if (extracted.isEmpty()) {
+            mismatches.add(new ReplayReport.Mismatch(label, field, recorded.toString(), null));
+            return Outcome.MISSING;
+        }
+        if (matcher.test(recorded, extracted.get())) {
+            return Outcome.MATCHED;
+        }
+        mismatches.add(new ReplayReport.Mismatch(label, field, recorded.toString(), extracted.get().toString()));
+        return Outcome.MISMATCHED;
+    }
+
+    private static ReplayReport summarize(String strategy, List<PageResult> results, long elapsedNanos) {
+        int failures = 0;
+        int[] price = new int[Outcome.values().length];
+        int[] name = new int[Outcome.values().length];
+        int[] imageUrl = new int[Outcome.values().length];
+        long[] latencies = new long[results.size()];
+        int measured = 0;
+        List<ReplayReport.Mismatch> mismatches = new ArrayList<>();
+
+        for (PageResult result : results) {
+            for (ReplayReport.Mismatch mismatch : result.mismatches()) {
+                if (mismatches.size() < MAX_MISMATCH_SAMPLES) {
+                    mismatches.add(mismatch);
+                }
+            }
+            if (result.price() == null) {
+                failures++;
+                continue;
+            }
+            price[result.price().ordinal()]++;
+            name[result.name().ordinal()]++;
+            imageUrl[result.imageUrl().ordinal()]++;
+            latencies[measured++] = result.nanos();
+        }
+
+        long[] sorted = Arrays.copyOf(latencies, measured);
+        Arrays.sort(sorted);
+        long elapsedMillis = Duration.ofNanos(elapsedNanos).toMillis();
+        double pagesPerSecond = elapsedNanos > 0 ? results.size() * 1e9 / elapsedNanos : 0;
+
+        return new ReplayReport(strategy, results.size(), failures,
+            agreement(price), agreement(name), agreement(imageUrl),
+            elapsedMillis, pagesPerSecond,
+            new ReplayReport.LatencyPercentiles(
+                percentileMicros(sorted, 0.50), percentileMicros(sorted, 0.90),
+                percentileMicros(sorted, 0.99), percentileMicros(sorted, 1.0)),
+            mismatches);
+    }
+
+    private static ReplayReport.FieldAgreement agreement(int[] counts) {
+        return new ReplayReport.FieldAgreement(
+            counts[Outcome.MATCHED.ordinal()], counts[Outcome.MISMATCHED.ordinal()], counts[Outcome.MISSING.ordinal()]);
+    }
+
+    private static long percentileMicros(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1000;
+    }
+
+    private static BigDecimal priceAt(List<PriceHistory> history, Instant fetchedAt) {
+        Instant cutoff = fetchedAt.plus(RECORDING_GRACE);
+        BigDecimal price = null;
+        for (PriceHistory entry : history) {
+            if (entry.getTimestamp().isAfter(cutoff)) {
+                break;
+            }
+            price = entry.getPrice();
+        }
+        return price;
+    }
+
+    private static String normalize(String text) {
+        return text.strip().replaceAll("\\s+", " ");
+    }
+
+    private enum Outcome { MATCHED, MISMATCHED, MISSING, NOT_RECORDED }
+
+    /**
+     * Outcome of one page; the field outcomes are null if the page failed.
+     */
+    private record PageResult(long nanos, Outcome price, Outcome name, Outcome imageUrl,
+                              List<ReplayReport.Mismatch> mismatches) {
+
+        static PageResult failed(String label, String error) {
+            return new PageResult(0, null, null, null,
+                List.of(new ReplayReport.Mismatch(label, "error", null, error)));
+        }
+    }
+}
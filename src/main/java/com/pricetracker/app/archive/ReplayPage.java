@@ -0,0 +1,28 @@
+package com.pricetracker.app.archive;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * A stored page to replay through a scraper strategy, with the values recorded for it.
+ * The page is only loaded when it is replayed, so large batches are not held in memory.
+ *
+ * @param label identifies the page in the report (fixture file name, or product ID and fetch time)
+ * @param url the URL the page was fetched from, used as base URI when parsing
+ * @param source loads the raw page
+ * @param recorded the values recorded for the page; null fields are not compared
+ */
+public record ReplayPage(
+    String label,
+    String url,
+    Source source,
+    Recorded recorded
+) {
+
+    @FunctionalInterface
+    public interface Source {
+        byte[] load() throws IOException;
+    }
+
+    public record Recorded(BigDecimal price, String name, String imageUrl) {}
+}
@@ -0,0 +1,53 @@
+package com.pricetracker.app.archive;
+
+import java.util.List;
+
+/**
+ * Result of replaying stored pages through a scraper strategy.
+ *
+ * @param strategy the simple class name of the replayed strategy
+ * @param pages the number of pages replayed
+ * @param failures pages that could not be loaded or parsed
+ * @param price agreement of extracted prices with the recorded prices
+ * @param name agreement of extracted names with the recorded names
+ * @param imageUrl agreement of extracted image URLs with the recorded image URLs
+ * @param elapsedMillis wall-clock time of the whole replay
+ * @param pagesPerSecond replay throughput
+ * @param latency per-page parse and extraction time
+ * @param mismatches a sample of disagreeing pages
+ */
+public record ReplayReport(
+    String strategy,
+    int pages,
+    int failures,
+    FieldAgreement price,
+    FieldAgreement name,
+    FieldAgreement imageUrl,
+    long elapsedMillis,
+    double pagesPerSecond,
+    LatencyPercentiles latency,
+    List<Mismatch> mismatches
+) {
+
+    /**
+     * Comparison counts for one extracted field. Pages without a recorded value are not counted.
+     */
+    public record FieldAgreement(int matched, int mismatched, int missing) {
+
+        /**
+         * Share of compared pages where the extracted value equals the recorded one, or 1 if none were compared.
+         */
+        public double agreement() {
+            int compared = matched + mismatched + missing;
+            return compared == 0 ? 1.0 : (double) matched / compared;
+        }
+    }
+
+    public record LatencyPercentiles(long p50Micros, long p90Micros, long p99Micros, long maxMicros) {}
+
+    /**
+     * @param field "price", "name", "imageUrl" or "error"
+     * @param actual the extracted value, or null if nothing was extracted
+     */
+    public record Mismatch(String label, String field, String recorded, String actual) {}
+}
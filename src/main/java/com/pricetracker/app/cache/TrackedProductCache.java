@@ -0,0 +1,183 @@
+package com.pricetracker.app.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pricetracker.app.dto.response.TrackedProductResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for the tracked product views served to users.
+ *
+ * Entries live in a local Caffeine cache and, when a CacheManager bean named
+ * {@value #DISTRIBUTED_CACHE_MANAGER} is defined, in a shared second tier as well.
+ * Every key carries a per-user generation. Invalidating a user replaces that generation,
+ * which makes all of the user's entries unreachable in one step without tracking their keys.
+ * Unreachable entries simply expire.
+ */
+@Component
+public class TrackedProductCache {
+
+    private static final Logger log = LoggerFactory.getLogger(TrackedProductCache.class);
+
+    /**
+     * Bean name of an optional CacheManager used as the shared (distributed) tier.
+     */
+    public static final String DISTRIBUTED_CACHE_MANAGER = "distributedCacheManager";
+
+    public static final String RESPONSES_CACHE = "trackedProductResponses";
+    public static final String GENERATIONS_CACHE = "trackedProductGenerations";
+
+    private final Cache<String, Object> localResponses;
+    private final Cache<Long, Long> localGenerations;
+    private final org.springframework.cache.Cache sharedResponses;
+    private final org.springframework.cache.Cache sharedGenerations;
+
+    public TrackedProductCache(
+            @Value("${app.cache.tracked-products.ttl-seconds:300}") long ttlSeconds,
+            @Value("${app.cache.tracked-products.max-size:10000}") long maxSize,
+            @Qualifier(DISTRIBUTED_CACHE_MANAGER) Optional<CacheManager> distributedCacheManager) {
+
+        this.localResponses = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+            .maximumSize(maxSize)
+            .build();
+
+        // Generations outlive the entries they guard, so a dropped generation can never resurrect them
+        this.localGenerations = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofSeconds(ttlSeconds * 2))
+            .maximumSize(maxSize)
+            .build();
+
+        this.sharedResponses = distributedCacheManager.map(m -> m.getCache(RESPONSES_CACHE)).orElse(null);
+        this.sharedGenerations = distributedCacheManager.map(m -> m.getCache(GENERATIONS_CACHE)).orElse(null);
+
+        log.info("Tracked product cache initialized (ttl {}s, max size {}, distributed tier {})",
+            ttlSeconds, maxSize, sharedResponses != null ? "enabled" : "disabled");
+    }
+
+    /**
+     * Get a page of a user's tracked products, loading it on a miss.
+     */
+    @SuppressWarnings("unchecked")
+    public Page<TrackedProductResponse> getPage(Long userId, Pageable pageable,
+                                                Supplier<Page<TrackedProductResponse>> loader) {
+        String key = "page:" + userId + ":" + generation(userId) + ":" + describe(pageable);
+        return (Page<TrackedProductResponse>) get(key, loader::get);
+    }
+
+    /**
+     * Get a single tracked product of a user, loading it on a miss.
+     * Absent results are not cached.
+     */
+    public Optional<TrackedProductResponse> getTrackedProduct(Long userId, Long trackedProductId,
+                                                              Supplier<Optional<TrackedProductResponse>> loader) {
+        String key = "item:" + userId + ":" + generation(userId) + ":" + trackedProductId;
+        return Optional.ofNullable((TrackedProductResponse) get(key, () -> loader.get().orElse(null)));
+    }
+
+    /**
+     * Invalidate every cached view of a user.
+     * Inside a transaction this happens after commit, so a concurrent read cannot re-cache the old state.
+     */
+    public void evictUser(Long userId) {
+        runAfterCommit(() -> renewGeneration(userId));
+    }
+
+    /**
+     * Invalidate every cached view of the given users, e.g. all users tracking a re-priced product.
+     */
+    public void evictUsers(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        runAfterCommit(() -> userIds.forEach(this::renewGeneration));
+    }
+
+    private Object get(String key, Supplier<Object> loader) {
+        Object value = localResponses.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+
+        if (sharedResponses != null) {
+            org.springframework.cache.Cache.ValueWrapper shared = sharedResponses.get(key);
+            if (shared != null && shared.get() != null) {
+                localResponses.put(key, shared.get());
+                return shared.get();
+            }
+        }
+
+        value = loader.get();
+        if (value != null) {
+            localResponses.put(key, value);
+            if (sharedResponses != null) {
+                sharedResponses.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    private long generation(Long userId) {
+        if (sharedGenerations != null) {
+            Long shared = sharedGenerations.get(userId, Long.class);
+            if (shared != null) {
+                return shared;
+            }
+            org.springframework.cache.Cache.ValueWrapper existing =
+                sharedGenerations.putIfAbsent(userId, newGeneration());
+            return existing != null && existing.get() != null
+                ? (Long) existing.get()
+                : sharedGenerations.get(userId, Long.class);
+        }
+        return localGenerations.get(userId, id -> newGeneration());
+    }
+
+    private void renewGeneration(Long userId) {
+        long generation = newGeneration();
+        if (sharedGenerations != null) {
+            sharedGenerations.put(userId, generation);
+        }
+        localGenerations.put(userId, generation);
+        log.debug("Invalidated cached tracked products for user {}", userId);
+    }
+
+    private static long newGeneration() {
+        // Random rather than sequential, so a forgotten generation is never reissued
+        return ThreadLocalRandom.current().nextLong();
+    }
+
+    private static String describe(Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return "unpaged:" + pageable.getSort();
+        }
+        return pageable.getPageNumber() + ":" + pageable.getPageSize() + ":" + pageable.getSort();
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.pricetracker.app.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Properties class for binding the scrape budget from application.yml
+ * 
+ * Limits how many scheduled price checks each marketplace host gets per window,
+ * under the "app.scheduling.budget" prefix.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.scheduling.budget")
+public class ScrapeBudgetProperties {
+
+    private boolean enabled = false;
+    private int windowMinutes = 60;
+    private Integer defaultRequestsPerWindow;
+    private Map<String, Integer> hosts = new HashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getWindowMinutes() {
+        return windowMinutes;
+    }
+
+    public void setWindowMinutes(int windowMinutes) {
+        this.windowMinutes = windowMinutes;
+    }
+
+    /**
+     * Requests per window of hosts without their own limit, or null for no limit.
+     */
+    public Integer getDefaultRequestsPerWindow() {
+        return defaultRequestsPerWindow;
+    }
+
+    public void setDefaultRequestsPerWindow(Integer defaultRequestsPerWindow) {
+        this.defaultRequestsPerWindow = defaultRequestsPerWindow;
+    }
+
+    /**
+     * Requests per window by host name.
+     */
+    public Map<String, Integer> getHosts() {
+        return hosts;
+    }
+
+    public void setHosts(Map<String, Integer> hosts) {
+        this.hosts = hosts;
+    }
+}
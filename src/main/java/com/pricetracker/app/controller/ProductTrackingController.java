@@ -3,6 +3,7 @@ package com.pricetracker.app.controller;
 import com.pricetracker.app.dto.request.TrackProductRequest;
 import com.pricetracker.app.dto.request.UpdateTrackedProductRequest;
 import com.pricetracker.app.dto.response.ApiResponse;
+import com.pricetracker.app.dto.response.PriceAnalyticsResponse;
 import com.pricetracker.app.dto.response.PriceHistoryResponse;
 import com.pricetracker.app.dto.response.ProductResponse;
 import com.pricetracker.app.dto.response.TrackedProductResponse;
@@ -12,6 +13,7 @@ import com.pricetracker.app.entity.TrackedProduct;
 import com.pricetracker.app.exception.ResourceNotFoundException;
 import com.pricetracker.app.repository.PriceHistoryRepository;
 import com.pricetracker.app.repository.ProductRepository;
+import com.pricetracker.app.service.PriceAnalyticsService;
 import com.pricetracker.app.service.ProductTrackingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -39,6 +41,7 @@ public class ProductTrackingController {
     private final ProductTrackingService productTrackingService;
     private final PriceHistoryRepository priceHistoryRepository;
     private final ProductRepository productRepository;
+    private final PriceAnalyticsService priceAnalyticsService;
     
     /**
      * Add a new product URL to track for a user.
@@ -69,8 +72,7 @@ public class ProductTrackingController {
             @Parameter(description = "User ID") @PathVariable Long userId,
             Pageable pageable) {
         
-        Page<TrackedProduct> trackedProducts = productTrackingService.getTrackedProductsForUser(userId, pageable);
-        Page<TrackedProductResponse> response = trackedProducts.map(this::mapToTrackedProductResponse);
+        Page<TrackedProductResponse> response = productTrackingService.getTrackedProductResponsesForUser(userId, pageable);
         
         return ResponseEntity.ok(ApiResponse.success(response, "Tracked products retrieved successfully"));
     }
@@ -84,10 +86,9 @@ public class ProductTrackingController {
             @Parameter(description = "Tracked product ID") @PathVariable Long trackedProductId,
             @Parameter(description = "User ID") @PathVariable Long userId) {
         
-        TrackedProduct trackedProduct = productTrackingService.getTrackedProductById(userId, trackedProductId)
+        TrackedProductResponse response = productTrackingService.getTrackedProductResponseById(userId, trackedProductId)
                 .orElseThrow(() -> new ResourceNotFoundException("TrackedProduct", "id", trackedProductId));
         
-        TrackedProductResponse response = mapToTrackedProductResponse(trackedProduct);
         return ResponseEntity.ok(ApiResponse.success(response, "Tracked product retrieved successfully"));
     }
     
@@ -146,8 +147,22 @@ public class ProductTrackingController {
         return ResponseEntity.ok(ApiResponse.success(response, "Price history retrieved successfully"));
     }
     
+    /**
+     * Get aggregated price analytics for a specific product.
+     * Served from incrementally maintained aggregates rather than a scan over the price history.
+     */
+    @GetMapping("/product/{productId}/analytics")
+    @Operation(summary = "Get price analytics", description = "Retrieve all-time low/high, rolling lows, moving averages, volatility and drop frequency for a product")
+    public ResponseEntity<ApiResponse<PriceAnalyticsResponse>> getPriceAnalytics(
+            @Parameter(description = "Product ID") @PathVariable Long productId) {
+        
+        PriceAnalyticsResponse response = priceAnalyticsService.getAnalytics(productId);
+        return ResponseEntity.ok(ApiResponse.success(response, "Price analytics retrieved successfully"));
+    }
+    
     /**
      * Map a TrackedProduct entity to a TrackedProductResponse DTO.
+     * The product must already be initialized, since open-in-view is disabled.
      */
     private TrackedProductResponse mapToTrackedProductResponse(TrackedProduct trackedProduct) {
         Product product = trackedProduct.getProduct();
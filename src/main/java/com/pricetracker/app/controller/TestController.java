@@ -1,15 +1,21 @@
 package com.pricetracker.app.controller;
 
+import com.pricetracker.app.archive.PageArchive;
+import com.pricetracker.app.archive.ReplayEngine;
+import com.pricetracker.app.archive.ReplayPage;
+import com.pricetracker.app.archive.ReplayReport;
 import com.pricetracker.app.dto.response.ApiResponse;
 import com.pricetracker.app.entity.PriceHistory;
 import com.pricetracker.app.entity.Product;
 import com.pricetracker.app.repository.PriceHistoryRepository;
 import com.pricetracker.app.repository.ProductRepository;
 import com.pricetracker.app.scraping.AmazonScraperStrategy;
+import com.pricetracker.app.scraping.PriceScrapeResult;
 import com.pricetracker.app.scraping.ProductDetails;
 import com.pricetracker.app.scraping.ScraperService;
 import com.pricetracker.app.scraping.ScraperStrategy;
 import com.pricetracker.app.scheduling.PriceCheckScheduler;
+import com.pricetracker.app.scheduling.ScrapeRetryQueue;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,8 +25,14 @@ import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -37,6 +49,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Test controller for debugging purposes.
@@ -54,6 +68,9 @@ public class TestController {
     private final PriceHistoryRepository priceHistoryRepository;
     private final PriceCheckScheduler priceCheckScheduler;
     private final AmazonScraperStrategy amazonScraperStrategy;
+    private final PageArchive pageArchive;
+    private final ReplayEngine replayEngine;
+    private final ScrapeRetryQueue scrapeRetryQueue;
 
     /**
      * Test endpoint to check if scraping works from a given URL.
@@ -65,12 +82,19 @@ public class TestController {
     public ApiResponse<Map<String, Object>> testScrape(@RequestParam String url) {
         Map<String, Object> result = new HashMap<>();
         
+        // Both scrapes go through the scrape dispatcher, within its per-host limit
+        CompletableFuture<PriceScrapeResult> priceScrape = scraperService.scrapePriceAsync(url);
+        CompletableFuture<Optional<ProductDetails>> detailsScrape = scraperService.scrapeProductDetailsAsync(url);
+        
         // Test scraping just the price
-        Optional<BigDecimal> priceResult = scraperService.scrapePrice(url);
-        result.put("priceResult", priceResult.isPresent() ? priceResult.get() : "Not found");
+        PriceScrapeResult priceResult = priceScrape.join();
+        result.put("priceResult", priceResult.isSuccess() ? priceResult.price() : "Not found");
+        if (!priceResult.isSuccess()) {
+            result.put("priceFailure", priceResult.failureType() + ": " + priceResult.failureReason());
+        }
         
         // Test scraping full product details
-        Optional<ProductDetails> detailsResult = scraperService.scrapeProductDetails(url);
+        Optional<ProductDetails> detailsResult = detailsScrape.join();
         if (detailsResult.isPresent()) {
             ProductDetails details = detailsResult.get();
             result.put("name", details.name().isPresent() ? details.name().get() : "Not found");
@@ -83,6 +107,27 @@ public class TestController {
         return ApiResponse.success(result, "Scrape test completed");
     }
     
+    /**
+     * Test endpoint to scrape the prices of many URLs at once, as a batch on the scrape dispatcher.
+     * 
+     * @param urls the URLs to scrape
+     * @return the price or failure of each URL
+     */
+    @PostMapping("/scrape-batch")
+    public ApiResponse<Map<String, Object>> testScrapeBatch(@RequestBody List<String> urls) {
+        Map<String, Object> results = new ConcurrentHashMap<>();
+        long start = System.nanoTime();
+        
+        scraperService.scrapePrices(urls, (url, result) -> results.put(url, result.isSuccess()
+            ? result.price()
+            : result.failureType() + ": " + result.failureReason())).join();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("results", results);
+        response.put("elapsedMillis", (System.nanoTime() - start) / 1_000_000);
+        return ApiResponse.success(response, "Batch scrape of " + urls.size() + " URLs completed");
+    }
+    
     /**
      * Test endpoint specifically for Amazon India scraper functionality.
      * Can test with a URL or an HTML file
@@ -248,6 +293,133 @@ public class TestController {
         return ApiResponse.success(result, "Latest price history retrieved");
     }
 
+    /**
+     * List the archived raw pages of a product
+     * 
+     * @param productId the ID of the product
+     * @return the fetch times of the archived pages, oldest first
+     */
+    @GetMapping("/archive/{productId}")
+    public ApiResponse<List<Map<String, Object>>> listArchivedPages(@PathVariable Long productId) {
+        if (!pageArchive.isEnabled()) {
+            return ApiResponse.error("Page archive is disabled", 404);
+        }
+        
+        List<Map<String, Object>> result = pageArchive.listPages(productId).stream()
+            .map(fetchedAt -> Map.<String, Object>of(
+                "fetchedAt", fetchedAt,
+                "epochMillis", fetchedAt.toEpochMilli()))
+            .toList();
+        
+        return ApiResponse.success(result, "Archived pages retrieved");
+    }
+    
+    /**
+     * Get an archived raw page, to replay an extraction against the HTML that was actually served
+     * 
+     * @param productId the ID of the product
+     * @param epochMillis the fetch time, as listed by /test/archive/{productId}
+     * @return the page as it was fetched, as a download; it is third-party HTML, so browsers must not render it
+     */
+    @GetMapping("/archive/{productId}/{epochMillis}")
+    public ResponseEntity<byte[]> getArchivedPage(@PathVariable Long productId, @PathVariable long epochMillis) {
+        try {
+            return pageArchive.read(productId, Instant.ofEpochMilli(epochMillis))
+                .map(page -> ResponseEntity.ok()
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("product-" + productId + "-" + epochMillis + ".html").build().toString())
+                    .header("X-Content-Type-Options", "nosniff")
+                    .header("Content-Security-Policy", "sandbox")
+                    .body(page))
+                .orElse(ResponseEntity.notFound().build());
+        } catch (IOException e) {
+            log.error("Error reading archived page: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Replay stored pages through a scraper strategy offline, to validate selector changes
+     * 
+     * @param strategy simple class name of the registered strategy to replay through
+     * @param fixturesDir directory of HTML fixtures to replay, relative to app.replay.fixtures-root; archived pages
+     *                    are replayed if not provided
+     * @param maxPages maximum number of archived pages to replay
+     * @param parallelism number of worker threads, defaults to the number of processors
+     * @return agreement with the recorded values, throughput and latency percentiles
+     */
+    @PostMapping("/replay")
+    public ApiResponse<ReplayReport> replay(
+            @RequestParam(defaultValue = "AmazonScraperStrategy") String strategy,
+            @RequestParam(required = false) String fixturesDir,
+            @RequestParam(defaultValue = "1000") int maxPages,
+            @RequestParam(defaultValue = "0") int parallelism) {
+        
+        Optional<ScraperStrategy> scraperStrategy = scraperService.getStrategies().stream()
+            .filter(s -> s.getClass().getSimpleName().equals(strategy))
+            .findFirst();
+        if (scraperStrategy.isEmpty()) {
+            return ApiResponse.error("No registered strategy named " + strategy, 400);
+        }
+        
+        try {
+            List<ReplayPage> pages = fixturesDir != null
+                ? replayEngine.fixturePages(fixturesDir)
+                : replayEngine.archivedPages(maxPages);
+            int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+            
+            ReplayReport report = replayEngine.replay(scraperStrategy.get(), pages, threads);
+            return ApiResponse.success(report, "Replay completed");
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(e.getMessage(), 400);
+        } catch (Exception e) {
+            log.error("Error replaying pages: {}", e.getMessage(), e);
+            return ApiResponse.error("Error replaying pages: " + e.getMessage(), 500);
+        }
+    }
+
+    /**
+     * List the products whose scraping was given up on
+     * 
+     * @return the dead-lettered products with their failure counters
+     */
+    @GetMapping("/dead-letters")
+    public ApiResponse<List<Map<String, Object>>> getDeadLetters() {
+        List<Map<String, Object>> result = productRepository.findByDeadLetteredAtIsNotNull().stream()
+            .map(product -> {
+                Map<String, Object> entry = new HashMap<>();
+                entry.put("productId", product.getId());
+                entry.put("productUrl", product.getProductUrl());
+                entry.put("deadLetteredAt", product.getDeadLetteredAt());
+                entry.put("consecutiveFailures", product.getConsecutiveFailures());
+                entry.put("totalFailures", product.getTotalFailures());
+                entry.put("lastFailureAt", product.getLastFailureAt());
+                entry.put("lastFailureReason", product.getLastFailureReason());
+                return entry;
+            })
+            .toList();
+        
+        return ApiResponse.success(result, "Dead-lettered products retrieved");
+    }
+    
+    /**
+     * Bring a dead-lettered product back into the price check schedule, e.g. after fixing its URL
+     * 
+     * @param productId the ID of the product
+     * @return confirmation of the revival
+     */
+    @PostMapping("/dead-letters/{productId}/revive")
+    public ApiResponse<String> reviveDeadLetter(@PathVariable Long productId) {
+        Optional<Product> product = productRepository.findById(productId);
+        if (product.isEmpty() || product.get().getDeadLetteredAt() == null) {
+            return ApiResponse.error("No dead-lettered product with ID " + productId, 404);
+        }
+        
+        scrapeRetryQueue.revive(product.get());
+        return ApiResponse.success("Product " + productId + " revived");
+    }
+
     /**
      * Test endpoint specifically for Amazon India shortened URLs.
      * This endpoint handles the CAPTCHA issue and expanded URL tracking.
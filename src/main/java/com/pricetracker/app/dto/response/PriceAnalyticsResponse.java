@@ -0,0 +1,46 @@
+package com.pricetracker.app.dto.response;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * DTO for returning aggregated price analytics of a product.
+ */
+public record PriceAnalyticsResponse(
+    Long productId,
+
+    BigDecimal currentPrice,
+
+    long sampleCount,
+
+    BigDecimal allTimeLow,
+
+    Instant allTimeLowAt,
+
+    BigDecimal allTimeHigh,
+
+    Instant allTimeHighAt,
+
+    BigDecimal lowest30Days,
+
+    BigDecimal lowest90Days,
+
+    BigDecimal averagePrice,
+
+    BigDecimal movingAverage7Days,
+
+    BigDecimal movingAverage30Days,
+
+    BigDecimal priceStdDev,
+
+    /** Standard deviation of relative price changes, as a fraction (0.05 = 5%). */
+    double volatility,
+
+    long dropCount,
+
+    double dropsPer30Days,
+
+    Instant firstRecordedAt,
+
+    Instant lastChangedAt
+) {}
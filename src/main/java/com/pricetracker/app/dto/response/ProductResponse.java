@@ -1,5 +1,6 @@
 package com.pricetracker.app.dto.response;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.Instant;
 
@@ -20,4 +21,4 @@ public record ProductResponse(
     Instant createdAt,
     
     Instant updatedAt
-) {} 
\ No newline at end of file
+) implements Serializable {} 
\ No newline at end of file
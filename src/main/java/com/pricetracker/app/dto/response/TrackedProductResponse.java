@@ -1,5 +1,6 @@
 package com.pricetracker.app.dto.response;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.Instant;
 
@@ -20,4 +21,34 @@ public record TrackedProductResponse(
     Instant createdAt,
     
     Instant updatedAt
-) {} 
\ No newline at end of file
+) implements Serializable {
+    /**
+     * Flat constructor used by JPQL constructor expressions, which cannot nest
+     * a ProductResponse directly. Lets a single JOIN query produce the full response.
+     */
+    public TrackedProductResponse(
+            Long id,
+            Long productId,
+            String productUrl,
+            String productName,
+            String productImageUrl,
+            BigDecimal productLastCheckedPrice,
+            Instant productCreatedAt,
+            Instant productUpdatedAt,
+            BigDecimal desiredPrice,
+            Boolean notificationEnabled,
+            Integer checkIntervalMinutes,
+            Instant createdAt,
+            Instant updatedAt) {
+        this(
+            id,
+            new ProductResponse(productId, productUrl, productName, productImageUrl,
+                productLastCheckedPrice, productCreatedAt, productUpdatedAt),
+            desiredPrice,
+            notificationEnabled,
+            checkIntervalMinutes,
+            createdAt,
+            updatedAt
+        );
+    }
+} 
\ No newline at end of file
@@ -15,7 +15,8 @@ import java.time.Instant;
 @Entity
 @Table(name = "price_history", indexes = {
     @Index(name = "idx_price_history_product", columnList = "product_id"),
-    @Index(name = "idx_price_history_timestamp", columnList = "timestamp")
+    @Index(name = "idx_price_history_timestamp", columnList = "timestamp"),
+    @Index(name = "idx_price_history_product_timestamp", columnList = "product_id, timestamp")
 })
 @Getter
 @Setter
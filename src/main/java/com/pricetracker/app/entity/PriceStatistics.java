@@ -0,0 +1,114 @@
+package com.pricetracker.app.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Entity holding running price aggregates for a product.
+ * One row per product, updated incrementally every time a new price history point is written,
+ * so analytics can be served without scanning price_history.
+ */
+@Entity
+@Table(name = "price_statistics")
+@Getter
+@Setter
+@NoArgsConstructor
+public class PriceStatistics {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(nullable = false)
+    private long sampleCount;
+
+    @Column
+    private Instant firstRecordedAt;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal lastPrice;
+
+    @Column
+    private Instant lastRecordedAt;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal allTimeLow;
+
+    @Column
+    private Instant allTimeLowAt;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal allTimeHigh;
+
+    @Column
+    private Instant allTimeHighAt;
+
+    @Column(name = "low_30_days", precision = 10, scale = 2)
+    private BigDecimal low30Days;
+
+    @Column(name = "low_30_days_at")
+    private Instant low30DaysAt;
+
+    @Column(name = "low_90_days", precision = 10, scale = 2)
+    private BigDecimal low90Days;
+
+    @Column(name = "low_90_days_at")
+    private Instant low90DaysAt;
+
+    /**
+     * Running mean of recorded prices (Welford).
+     */
+    @Column(nullable = false)
+    private double meanPrice;
+
+    /**
+     * Running sum of squared deviations from the mean (Welford), used for the standard deviation.
+     */
+    @Column(name = "price_m2", nullable = false)
+    private double priceM2;
+
+    /**
+     * Time-weighted exponential moving averages of the price in effect.
+     */
+    @Column(name = "ewma_7_days", nullable = false)
+    private double ewma7Days;
+
+    @Column(name = "ewma_30_days", nullable = false)
+    private double ewma30Days;
+
+    /**
+     * Running mean and squared deviations of relative price changes, used for volatility.
+     */
+    @Column(nullable = false)
+    private long changeCount;
+
+    @Column(nullable = false)
+    private double changeMean;
+
+    @Column(name = "change_m2", nullable = false)
+    private double changeM2;
+
+    @Column(nullable = false)
+    private long dropCount;
+
+    /**
+     * Exponentially decayed count of price changes as of lastRecordedAt, used to estimate the change rate.
+     * The default lets a schema update add the column to a table that already has rows.
+     */
+    @Column(nullable = false, columnDefinition = "double precision default 0 not null")
+    private double decayedChangeCount;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = Instant.now();
+    }
+}
@@ -34,6 +34,24 @@ public class Product {
     @Column(name = "last_checked_price", precision = 10, scale = 2)
     private BigDecimal lastCheckedPrice;
 
+    // Failed scrapes since the last successful one; reset by a success. The column defaults let a schema
+    // update add the failure counters to a table that already has products.
+    @Column(name = "consecutive_failures", nullable = false, columnDefinition = "integer default 0 not null")
+    private int consecutiveFailures;
+
+    @Column(name = "total_failures", nullable = false, columnDefinition = "bigint default 0 not null")
+    private long totalFailures;
+
+    @Column(name = "last_failure_at")
+    private Instant lastFailureAt;
+
+    @Column(name = "last_failure_reason")
+    private String lastFailureReason;
+
+    // Set when scraping keeps failing permanently; dead-lettered products are only re-probed now and then
+    @Column(name = "dead_lettered_at")
+    private Instant deadLetteredAt;
+
     @Column(nullable = false, updatable = false)
     private Instant createdAt;
 
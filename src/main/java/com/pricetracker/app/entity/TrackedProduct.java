@@ -13,6 +13,8 @@ import java.time.Instant;
 @Entity
 @Table(name = "tracked_products", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"user_id", "product_id"})
+}, indexes = {
+    @Index(name = "idx_tracked_products_product_desired_price", columnList = "product_id, desired_price")
 })
 @Getter
 @Setter
@@ -0,0 +1,37 @@
+package com.pricetracker.app.metrics;
+
+import com.pricetracker.app.scraping.ExtractionRuleStore;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint for the extraction rules in use.
+ *
+ * GET /actuator/rules shows the version and source of the rules and why the last reload was rejected, if it
+ * was; POST /actuator/rules reloads the rules file without waiting for the next change check.
+ *
+ * Not exposed over the web by default: add rules to management.endpoints.web.exposure.include only where the
+ * actuator is not reachable without authentication.
+ */
+@Component
+@Endpoint(id = "rules")
+public class ExtractionRulesEndpoint {
+
+    private final ExtractionRuleStore ruleStore;
+
+    public ExtractionRulesEndpoint(ExtractionRuleStore ruleStore) {
+        this.ruleStore = ruleStore;
+    }
+
+    @ReadOperation
+    public ExtractionRuleStore.Status rules() {
+        return ruleStore.status();
+    }
+
+    @WriteOperation
+    public ExtractionRuleStore.Status reload() {
+        return ruleStore.reload();
+    }
+}
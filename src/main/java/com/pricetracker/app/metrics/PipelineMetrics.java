@@ -0,0 +1,270 @@
+package com.pricetracker.app.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics of the price tracking pipeline: scrape, extract, persist and notify.
+ *
+ * Timers and summaries publish histograms, so latency percentiles can be computed per marketplace or strategy
+ * from /actuator/prometheus. Scrape metrics are tagged by marketplace, the host suffix a scraper strategy
+ * claims (see ScraperStrategyIndex#marketplaceOf), never by the host of a tracked URL, so the number of
+ * series stays bounded whatever URLs users track. Queue depth of the taskExecutor is published by Spring Boot's executor
+ * metrics ({@code executor.queued{name="taskExecutor"}}).
+ */
+@Component
+public class PipelineMetrics {
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_CAPTCHA = "captcha";
+    public static final String OUTCOME_HTTP_ERROR = "http_error";
+    public static final String OUTCOME_TIMEOUT = "timeout";
+    public static final String OUTCOME_UNKNOWN_HOST = "unknown_host";
+    public static final String OUTCOME_IO_ERROR = "io_error";
+
+    private final MeterRegistry registry;
+    private final AtomicInteger schedulerBacklog = new AtomicInteger();
+    private final AtomicLong schedulerLagSeconds = new AtomicLong();
+    private final AtomicInteger schedulerOverloaded = new AtomicInteger();
+    private final AtomicInteger retriesPending = new AtomicInteger();
+    private final Map<String, AtomicInteger> budgetRemaining = new ConcurrentHashMap<>();
+
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+
+        Gauge.builder("scheduler.backlog", schedulerBacklog, AtomicInteger::get)
+            .description("Products due for a price check that have not been checked yet")
+            .register(registry);
+        Gauge.builder("scheduler.lag", schedulerLagSeconds, AtomicLong::get)
+            .description("How late the most recent price check ran after its product became due")
+            .baseUnit("seconds")
+            .register(registry);
+        Gauge.builder("scheduler.overloaded", schedulerOverloaded, AtomicInteger::get)
+            .description("1 while the price check scheduler cannot keep up and applies its overload policy")
+            .register(registry);
+        Gauge.builder("scheduler.retry.pending", retriesPending, AtomicInteger::get)
+            .description("Products waiting in the retry lane after a failed scrape")
+            .register(registry);
+    }
+
+    /**
+     * Record the network part of fetching a page, up to the response body being read.
+     */
+    public void recordFetch(String marketplace, String outcome, long nanos) {
+        Timer.builder("scraper.fetch")
+            .description("Page fetch latency")
+            .tag("marketplace", marketplace)
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record parsing a fetched page into a document.
+     */
+    public void recordParse(String marketplace, long nanos) {
+        Timer.builder("scraper.parse")
+            .description("HTML parse time")
+            .tag("marketplace", marketplace)
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record extracting a price from a parsed document.
+     */
+    public void recordExtraction(String strategy, boolean found, long nanos) {
+        Timer.builder("scraper.extraction")
+            .description("Price extraction time")
+            .tag("strategy", strategy)
+            .tag("found", Boolean.toString(found))
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the position (0 = first) of the selector that yielded a price.
+     */
+    public void recordSelectorHit(String strategy, int position) {
+        DistributionSummary.builder("scraper.selector.hit.position")
+            .description("Position of the price selector that matched")
+            .tag("strategy", strategy)
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(position);
+    }
+
+    public void incrementCaptcha(String marketplace) {
+        Counter.builder("scraper.captcha")
+            .description("CAPTCHA pages served instead of product pages")
+            .tag("marketplace", marketplace)
+            .register(registry)
+            .increment();
+    }
+
+    /**
+     * Record a fetch by whether its session was reused, to compare how often new and returning sessions
+     * get the page on the first try.
+     *
+     * @param outcome the outcome of the fetch for its proxy: success, blocked or failure
+     */
+    public void recordSessionFetch(String marketplace, boolean reused, String outcome) {
+        Counter.builder("scraper.session.fetches")
+            .description("Page fetches by session reuse and outcome")
+            .tag("marketplace", marketplace)
+            .tag("session", reused ? "reused" : "new")
+            .tag("outcome", outcome)
+            .register(registry)
+            .increment();
+    }
+
+    public void incrementHttpError(String marketplace, int status) {
+        Counter.builder("scraper.http.errors")
+            .description("HTTP error responses")
+            .tag("marketplace", marketplace)
+            .tag("status", Integer.toString(status))
+            .register(registry)
+            .increment();
+    }
+
+    /**
+     * Record a detected price change.
+     *
+     * @param direction "drop", "rise" or "initial"
+     */
+    public void incrementPriceChange(String direction) {
+        Counter.builder("price.changes")
+            .description("Detected product price changes")
+            .tag("direction", direction)
+            .register(registry)
+            .increment();
+    }
+
+    /**
+     * Record persisting a price change (product, history, aggregates).
+     */
+    public void recordPersist(long nanos) {
+        Timer.builder("price.persist")
+            .description("Time to persist a price change")
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void incrementNotificationsClaimed(int count) {
+        Counter.builder("notifications.claimed")
+            .description("Subscribers claimed for a price alert")
+            .register(registry)
+            .increment(count);
+    }
+
+    public void recordNotificationSent(boolean success, long nanos) {
+        Timer.builder("notifications.send")
+            .description("Price alert delivery time")
+            .tag("outcome", success ? OUTCOME_SUCCESS : "failure")
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void setSchedulerBacklog(int backlog) {
+        schedulerBacklog.set(backlog);
+    }
+
+    public void setSchedulerLag(Duration lag) {
+        schedulerLagSeconds.set(Math.max(0, lag.toSeconds()));
+    }
+
+    /**
+     * Record how late a price check started after its product became due.
+     * Percentiles are published directly, so they can be read from /actuator/metrics as well.
+     */
+    public void recordCheckLag(Duration lag) {
+        Timer.builder("scheduler.check.lag")
+            .description("Delay between a product becoming due and its price check starting")
+            .publishPercentiles(0.5, 0.9, 0.99)
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(lag.isNegative() ? Duration.ZERO : lag);
+    }
+
+    /**
+     * Record due checks the scheduler did not run because it was overloaded.
+     *
+     * @param reason "shed" for checks skipped by the overload policy, "deadline" for checks left when a run hit its deadline
+     */
+    public void incrementChecksDropped(String reason, int count) {
+        Counter.builder("scheduler.checks.dropped")
+            .description("Due price checks not run because the scheduler was overloaded or no proxy was available")
+            .tag("reason", reason)
+            .register(registry)
+            .increment(count);
+    }
+
+    public void setSchedulerOverloaded(boolean overloaded) {
+        schedulerOverloaded.set(overloaded ? 1 : 0);
+    }
+
+    /**
+     * Record a failed price scrape and what the scheduler did about it.
+     *
+     * @param failureType transient, blocked or permanent
+     * @param action "retry" if queued in the retry lane, "wait" if left to its next interval, "dead_letter" if given up on
+     */
+    public void recordScrapeFailure(String failureType, String action) {
+        Counter.builder("scheduler.scrape.failures")
+            .description("Failed price scrapes by failure type and the action taken")
+            .tag("type", failureType)
+            .tag("action", action)
+            .register(registry)
+            .increment();
+    }
+
+    public void setRetriesPending(int pending) {
+        retriesPending.set(pending);
+    }
+
+    /**
+     * Record the scrape budget plan of a host for one scheduler run.
+     *
+     * @param host the host if it has a budget configured, else "other"
+     * @param remaining requests left in the host's window after the plan, or -1 if the host has no limit
+     */
+    public void recordBudgetPlan(String host, int granted, int deferred, int remaining) {
+        Counter.builder("scheduler.budget.granted")
+            .description("Due price checks scheduled within the scrape budget")
+            .tag("host", host)
+            .register(registry)
+            .increment(granted);
+        Counter.builder("scheduler.budget.deferred")
+            .description("Due price checks deferred because the scrape budget was exhausted")
+            .tag("host", host)
+            .register(registry)
+            .increment(deferred);
+
+        if (remaining >= 0) {
+            budgetRemaining.computeIfAbsent(host, h -> {
+                AtomicInteger value = new AtomicInteger();
+                Gauge.builder("scheduler.budget.remaining", value, AtomicInteger::get)
+                    .description("Requests left in the scrape budget window")
+                    .tag("host", h)
+                    .register(registry);
+                return value;
+            }).set(remaining);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.pricetracker.app.metrics;
+
+import com.pricetracker.app.scraping.ProxyPool;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint with the state of the egress proxies.
+ *
+ * GET /actuator/proxies shows the load, success and blocked rates of every proxy and which are quarantined,
+ * so a proxy that keeps getting blocked can be replaced in the proxies file.
+ *
+ * Not exposed over the web by default, as it lists proxy addresses: add proxies to
+ * management.endpoints.web.exposure.include only where the actuator is not reachable without authentication.
+ */
+@Component
+@Endpoint(id = "proxies")
+public class ProxyPoolEndpoint {
+
+    private final ProxyPool proxyPool;
+
+    public ProxyPoolEndpoint(ProxyPool proxyPool) {
+        this.proxyPool = proxyPool;
+    }
+
+    @ReadOperation
+    public List<ProxyPool.ProxyStatus> proxies() {
+        return proxyPool.status();
+    }
+}
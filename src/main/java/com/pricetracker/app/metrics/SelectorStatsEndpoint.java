@@ -0,0 +1,30 @@
+package com.pricetracker.app.metrics;
+
+import com.pricetracker.app.scraping.SelectorStats;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint with the hit statistics of the price selectors, per strategy and marketplace.
+ *
+ * GET /actuator/selectors shows which selectors actually produce prices, so dead selectors can be removed
+ * and the priorities reviewed; mismatches count learned selectors that lost to one before them in priority.
+ */
+@Component
+@Endpoint(id = "selectors")
+public class SelectorStatsEndpoint {
+
+    private final SelectorStats selectorStats;
+
+    public SelectorStatsEndpoint(SelectorStats selectorStats) {
+        this.selectorStats = selectorStats;
+    }
+
+    @ReadOperation
+    public List<SelectorStats.SelectorStat> selectors() {
+        return selectorStats.snapshot();
+    }
+}
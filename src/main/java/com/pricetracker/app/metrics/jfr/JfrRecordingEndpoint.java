@@ -0,0 +1,164 @@
+package com.pricetracker.app.metrics.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint that takes a bounded Java Flight Recorder recording on demand and returns the file.
+ *
+ * POST /actuator/jfr?durationSeconds=30&settings=profile starts a recording that stops by itself after the
+ * duration; GET /actuator/jfr answers 202 while it runs, then streams the recording. No request thread waits
+ * for the recording. Only one recording runs at a time; duration and size are capped by configuration.
+ *
+ * Not exposed over the web by default: add jfr to management.endpoints.web.exposure.include only where the
+ * actuator is not reachable without authentication.
+ */
+@Component
+@Endpoint(id = "jfr")
+public class JfrRecordingEndpoint {
+
+    private static final Logger log = LoggerFactory.getLogger(JfrRecordingEndpoint.class);
+
+    private static final int DEFAULT_DURATION_SECONDS = 30;
+    private static final int STATUS_ACCEPTED = 202;
+    private static final List<String> SETTINGS = List.of("default", "profile");
+
+    private static final List<Class<? extends Event>> APPLICATION_EVENTS = List.of(
+        ScrapeFetchEvent.class,
+        ScrapeParseEvent.class,
+        PriceExtractEvent.class,
+        PriceCheckCycleEvent.class,
+        NotificationDispatchEvent.class
+    );
+
+    private final int maxDurationSeconds;
+    private final long maxSizeBytes;
+
+    // Guarded by this; the recording started last, until it has been dumped
+    private Recording current;
+    private Instant currentEndsAt;
+    private Path lastDump;
+
+    public JfrRecordingEndpoint(
+            @Value("${app.jfr.max-duration-seconds:120}") int maxDurationSeconds,
+            @Value("${app.jfr.max-size-mb:100}") long maxSizeMb) {
+        this.maxDurationSeconds = maxDurationSeconds;
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+    }
+
+    /**
+     * Start a recording, unless one is running already.
+     */
+    @WriteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> start(@Nullable Integer durationSeconds,
+                                                                       @Nullable String settings) {
+        String settingsName = settings != null ? settings : "profile";
+        if (!SETTINGS.contains(settingsName)) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        if (isRunning()) {
+            return new WebEndpointResponse<>(Map.of("endsAt", currentEndsAt),
+                WebEndpointResponse.STATUS_TOO_MANY_REQUESTS);
+        }
+
+        int duration = Math.max(1, Math.min(
+            durationSeconds != null ? durationSeconds : DEFAULT_DURATION_SECONDS, maxDurationSeconds));
+        try {
+            Recording jfr = new Recording(Configuration.getConfiguration(settingsName));
+            jfr.setName("price-tracker-on-demand");
+            jfr.setMaxSize(maxSizeBytes);
+            jfr.setToDisk(true);
+            jfr.setDuration(Duration.ofSeconds(duration));
+            for (Class<? extends Event> eventType : APPLICATION_EVENTS) {
+                jfr.enable(eventType).withoutThreshold();
+            }
+            jfr.start();
+
+            // A finished recording nobody fetched is replaced
+            closeCurrent();
+            current = jfr;
+            currentEndsAt = Instant.now().plusSeconds(duration);
+            log.info("Started {}s JFR recording with '{}' settings", duration, settingsName);
+            return new WebEndpointResponse<>(Map.of("durationSeconds", duration, "settings", settingsName,
+                "endsAt", currentEndsAt), STATUS_ACCEPTED);
+        } catch (IOException | ParseException e) {
+            log.error("Failed to start JFR recording: {}", e.getMessage(), e);
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * The latest recording: 202 while it is running, the file once it has finished, 404 if none was taken.
+     */
+    @ReadOperation(produces = "application/octet-stream")
+    public synchronized WebEndpointResponse<Resource> recording() {
+        if (isRunning()) {
+            return new WebEndpointResponse<>(STATUS_ACCEPTED);
+        }
+        if (current != null) {
+            try {
+                // Only the latest dump is kept, the previous one has been served already
+                deleteLastDump();
+                Path dump = Files.createTempFile("price-tracker-", ".jfr");
+                dump.toFile().deleteOnExit();
+                current.dump(dump);
+                lastDump = dump;
+                log.info("JFR recording written to {} ({} bytes)", dump, Files.size(dump));
+            } catch (IOException e) {
+                log.error("Failed to write JFR recording: {}", e.getMessage(), e);
+                return new WebEndpointResponse<>(WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR);
+            } finally {
+                closeCurrent();
+            }
+        }
+        return lastDump != null ? new WebEndpointResponse<>(new FileSystemResource(lastDump))
+            : new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+    }
+
+    private boolean isRunning() {
+        return current != null
+            && (current.getState() == RecordingState.NEW || current.getState() == RecordingState.DELAYED
+                || current.getState() == RecordingState.RUNNING);
+    }
+
+    private void closeCurrent() {
+        if (current != null) {
+            current.close();
+            current = null;
+            currentEndsAt = null;
+        }
+    }
+
+    private void deleteLastDump() {
+        if (lastDump != null) {
+            try {
+                Files.deleteIfExists(lastDump);
+            } catch (IOException e) {
+                log.warn("Could not delete previous JFR recording {}: {}", lastDump, e.getMessage());
+            }
+            lastDump = null;
+        }
+    }
+}
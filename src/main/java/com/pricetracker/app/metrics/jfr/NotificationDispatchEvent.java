@@ -0,0 +1,26 @@
+package com.pricetracker.app.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event covering the delivery of a batch of price alerts for a product.
+ */
+@Name("com.pricetracker.NotificationDispatch")
+@Label("Notification Dispatch")
+@Category({"Price Tracker", "Notification"})
+@Description("Delivery of price alerts for a product")
+public class NotificationDispatchEvent extends Event {
+
+    @Label("Product ID")
+    public long productId;
+
+    @Label("Recipients")
+    public int recipients;
+
+    @Label("Failures")
+    public int failures;
+}
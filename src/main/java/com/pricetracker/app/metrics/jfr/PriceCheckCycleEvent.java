@@ -0,0 +1,40 @@
+package com.pricetracker.app.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event covering one run of the scheduled price check.
+ */
+@Name("com.pricetracker.PriceCheckCycle")
+@Label("Price Check Cycle")
+@Category({"Price Tracker", "Scheduling"})
+@Description("One run of the scheduled price check")
+public class PriceCheckCycleEvent extends Event {
+
+    @Label("Products")
+    public int products;
+
+    @Label("Due")
+    public int due;
+
+    @Label("Deferred")
+    @Description("Due checks deferred by the scrape budget")
+    public int deferred;
+
+    @Label("Shed")
+    @Description("Due checks skipped by the overload policy")
+    public int shed;
+
+    @Label("Overloaded")
+    public boolean overloaded;
+
+    @Label("Checked")
+    public int checked;
+
+    @Label("Skipped")
+    public int skipped;
+}
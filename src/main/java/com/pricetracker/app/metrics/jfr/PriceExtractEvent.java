@@ -0,0 +1,65 @@
+package com.pricetracker.app.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event covering price extraction from a parsed document.
+ *
+ * The event in progress is bound to the extracting thread, so strategies can report the selector that
+ * matched without the event being passed through the ScraperStrategy API.
+ */
+@Name("com.pricetracker.PriceExtract")
+@Label("Price Extract")
+@Category({"Price Tracker", "Scraping"})
+@Description("Extraction of a price from a product page")
+public class PriceExtractEvent extends Event {
+
+    private static final ThreadLocal<PriceExtractEvent> CURRENT = new ThreadLocal<>();
+
+    @Label("Strategy")
+    public String strategy;
+
+    @Label("Selector")
+    public String selector;
+
+    @Label("Found")
+    public boolean found;
+
+    /**
+     * Begin an extraction event on the current thread.
+     */
+    public static PriceExtractEvent start(String strategy) {
+        PriceExtractEvent event = new PriceExtractEvent();
+        if (event.isEnabled()) {
+            event.strategy = strategy;
+            event.begin();
+            CURRENT.set(event);
+        }
+        return event;
+    }
+
+    /**
+     * Record the selector that matched for the extraction in progress on the current thread, if any.
+     */
+    public static void selectorMatched(String selector) {
+        PriceExtractEvent event = CURRENT.get();
+        if (event != null) {
+            event.selector = selector;
+        }
+    }
+
+    /**
+     * End the event and commit it if it passes the recording's threshold.
+     */
+    public void finish(boolean found) {
+        CURRENT.remove();
+        if (isEnabled()) {
+            this.found = found;
+            commit();
+        }
+    }
+}
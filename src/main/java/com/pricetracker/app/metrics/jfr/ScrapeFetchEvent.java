@@ -0,0 +1,31 @@
+package com.pricetracker.app.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event covering the network fetch of a product page, up to the body being read.
+ */
+@Name("com.pricetracker.ScrapeFetch")
+@Label("Scrape Fetch")
+@Category({"Price Tracker", "Scraping"})
+@Description("Fetch of a product page")
+public class ScrapeFetchEvent extends Event {
+
+    @Label("Host")
+    public String host;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("HTTP Status")
+    public int status;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,25 @@
+package com.pricetracker.app.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event covering parsing a fetched page into a document.
+ */
+@Name("com.pricetracker.ScrapeParse")
+@Label("Scrape Parse")
+@Category({"Price Tracker", "Scraping"})
+@Description("HTML parse of a fetched product page")
+public class ScrapeParseEvent extends Event {
+
+    @Label("Host")
+    public String host;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
@@ -1,6 +1,10 @@
 package com.pricetracker.app.notification;
 
+import com.pricetracker.app.entity.Product;
 import com.pricetracker.app.entity.TrackedProduct;
+import com.pricetracker.app.metrics.PipelineMetrics;
+import com.pricetracker.app.metrics.jfr.NotificationDispatchEvent;
+import com.pricetracker.app.repository.TrackedProductRepository.NotificationClaim;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
@@ -15,9 +19,11 @@ import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -29,32 +35,78 @@ public class EmailNotificationService implements NotificationService {
     
     private final JavaMailSender mailSender;
     private final TemplateEngine templateEngine;
+    private final PipelineMetrics metrics;
     
     @Override
     @Async("taskExecutor")
     public void sendPriceAlert(TrackedProduct trackedProduct, BigDecimal currentPrice) {
+        NotificationDispatchEvent event = new NotificationDispatchEvent();
+        event.begin();
+        boolean sent = send(trackedProduct.getUserId(), trackedProduct.getDesiredPrice(), trackedProduct.getProduct(),
+            currentPrice, trackedProduct.getUpdatedAt());
+        commit(event, trackedProduct.getProduct(), 1, sent ? 0 : 1);
+    }
+    
+    @Override
+    @Async("taskExecutor")
+    public void sendPriceAlerts(Product product, BigDecimal currentPrice, List<NotificationClaim> claims) {
+        // The claim already recorded the notification and returned what is needed to address it
+        log.info("Sending {} price alert emails for product {}", claims.size(), product.getId());
+        
+        NotificationDispatchEvent event = new NotificationDispatchEvent();
+        event.begin();
+        Instant notifiedAt = Instant.now();
+        int failures = 0;
+        for (NotificationClaim claim : claims) {
+            if (!send(claim.getUserId(), claim.getDesiredPrice(), product, currentPrice, notifiedAt)) {
+                failures++;
+            }
+        }
+        commit(event, product, claims.size(), failures);
+    }
+    
+    private static void commit(NotificationDispatchEvent event, Product product, int recipients, int failures) {
+        if (event.shouldCommit()) {
+            event.productId = product.getId();
+            event.recipients = recipients;
+            event.failures = failures;
+            event.commit();
+        }
+    }
+    
+    /**
+     * @return true if the email was handed to the mail server
+     */
+    private boolean send(Long userId, BigDecimal desiredPrice, Product product, BigDecimal currentPrice,
+                         Instant timestamp) {
+        long start = System.nanoTime();
         try {
-            MimeMessage message = createPriceAlertMessage(trackedProduct, currentPrice);
+            MimeMessage message = createPriceAlertMessage(userId, desiredPrice, product, currentPrice, timestamp);
             mailSender.send(message);
+            metrics.recordNotificationSent(true, System.nanoTime() - start);
             log.info("Price alert email sent for product {} to user {}", 
-                trackedProduct.getProduct().getId(), trackedProduct.getUserId());
+                product.getId(), userId);
+            return true;
         } catch (MailException | MessagingException e) {
+            metrics.recordNotificationSent(false, System.nanoTime() - start);
             log.error("Failed to send price alert email for product {} to user {}: {}", 
-                trackedProduct.getProduct().getId(), trackedProduct.getUserId(), e.getMessage());
+                product.getId(), userId, e.getMessage());
+            return false;
         }
     }
     
-    private MimeMessage createPriceAlertMessage(TrackedProduct trackedProduct, BigDecimal currentPrice) 
+    private MimeMessage createPriceAlertMessage(Long userId, BigDecimal desiredPrice, Product product, 
+                                                BigDecimal currentPrice, Instant timestamp) 
             throws MessagingException {
         MimeMessage message = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
         
-        helper.setTo(getUserEmail(trackedProduct.getUserId())); 
-        helper.setSubject("Price Alert: " + trackedProduct.getProduct().getName());
+        helper.setTo(getUserEmail(userId)); 
+        helper.setSubject("Price Alert: " + product.getName());
         
         // Create context for template
         Context context = new Context();
-        context.setVariables(createTemplateVariables(trackedProduct, currentPrice));
+        context.setVariables(createTemplateVariables(desiredPrice, product, currentPrice, timestamp));
         
         // Process template
         String htmlContent = templateEngine.process("price-alert", context);
@@ -63,17 +115,18 @@ public class EmailNotificationService implements NotificationService {
         return message;
     }
     
-    private Map<String, Object> createTemplateVariables(TrackedProduct trackedProduct, BigDecimal currentPrice) {
+    private Map<String, Object> createTemplateVariables(BigDecimal desiredPrice, Product product, 
+                                                       BigDecimal currentPrice, Instant timestamp) {
         Map<String, Object> variables = new HashMap<>();
-        variables.put("productName", trackedProduct.getProduct().getName());
-        variables.put("productUrl", trackedProduct.getProduct().getProductUrl());
+        variables.put("productName", product.getName());
+        variables.put("productUrl", product.getProductUrl());
         variables.put("currentPrice", currentPrice);
-        variables.put("desiredPrice", trackedProduct.getDesiredPrice());
-        variables.put("timestamp", formatInstant(trackedProduct.getUpdatedAt()));
+        variables.put("desiredPrice", desiredPrice);
+        variables.put("timestamp", formatInstant(timestamp));
         return variables;
     }
     
-    private String formatInstant(java.time.Instant instant) {
+    private String formatInstant(Instant instant) {
         return DATE_FORMATTER.format(instant.atZone(ZoneId.systemDefault()));
     }
     
@@ -1,7 +1,10 @@
 package com.pricetracker.app.notification;
 
+import com.pricetracker.app.entity.Product;
 import com.pricetracker.app.entity.TrackedProduct;
+import com.pricetracker.app.repository.TrackedProductRepository.NotificationClaim;
 import java.math.BigDecimal;
+import java.util.List;
 
 /**
  * Service interface for sending notifications about price changes.
@@ -15,4 +18,13 @@ public interface NotificationService {
      * @param currentPrice the current price of the product
      */
     void sendPriceAlert(TrackedProduct trackedProduct, BigDecimal currentPrice);
+    
+    /**
+     * Send price alert notifications to a batch of subscribers already claimed for a price drop.
+     * 
+     * @param product the product whose price dropped
+     * @param currentPrice the current price of the product
+     * @param claims the claimed tracked products
+     */
+    void sendPriceAlerts(Product product, BigDecimal currentPrice, List<NotificationClaim> claims);
 } 
\ No newline at end of file
@@ -8,6 +8,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository for managing PriceHistory entities.
@@ -34,4 +35,43 @@ public interface PriceHistoryRepository extends JpaRepository<PriceHistory, Long
      */
     List<PriceHistory> findByProductIdAndTimestampBetweenOrderByTimestampDesc(
         Long productId, Instant startDate, Instant endDate);
-} 
\ No newline at end of file
+    
+    /**
+     * Find all price history records for a product in chronological order.
+     * Only used to seed aggregates for products recorded before statistics existed.
+     * 
+     * @param productId the ID of the product
+     * @return a list of price history records, oldest first
+     */
+    List<PriceHistory> findByProductIdOrderByTimestampAsc(Long productId);
+    
+    /**
+     * Find the lowest-priced record for a product since the given instant (most recent on ties).
+     * 
+     * @param productId the ID of the product
+     * @param since the start of the window
+     * @return an Optional containing the lowest record, or empty if nothing was recorded in the window
+     */
+    Optional<PriceHistory> findFirstByProductIdAndTimestampGreaterThanEqualOrderByPriceAscTimestampDesc(
+        Long productId, Instant since);
+    
+    /**
+     * Find the last record of a product before the given instant, i.e. the price in effect at that instant.
+     * 
+     * @param productId the ID of the product
+     * @param before the instant
+     * @return an Optional containing the record, or empty if nothing was recorded before it
+     */
+    Optional<PriceHistory> findFirstByProductIdAndTimestampLessThanOrderByTimestampDesc(
+        Long productId, Instant before);
+    
+    /**
+     * Find the first record of a product since the given instant.
+     * 
+     * @param productId the ID of the product
+     * @param since the instant
+     * @return an Optional containing the record, or empty if nothing was recorded since
+     */
+    Optional<PriceHistory> findFirstByProductIdAndTimestampGreaterThanEqualOrderByTimestampAsc(
+        Long productId, Instant since);
+}
@@ -0,0 +1,12 @@
+package com.pricetracker.app.repository;
+
+import com.pricetracker.app.entity.PriceStatistics;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for managing PriceStatistics entities, keyed by product ID.
+ */
+@Repository
+public interface PriceStatisticsRepository extends JpaRepository<PriceStatistics, Long> {
+}
@@ -4,6 +4,7 @@ import com.pricetracker.app.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -19,4 +20,11 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      * @return an Optional containing the product if found
      */
     Optional<Product> findByProductUrl(String productUrl);
+    
+    /**
+     * Find the products whose scraping was given up on.
+     * 
+     * @return the dead-lettered products
+     */
+    List<Product> findByDeadLetteredAtIsNotNull();
 } 
\ No newline at end of file
@@ -1,11 +1,19 @@
 package com.pricetracker.app.repository;
 
+import com.pricetracker.app.dto.response.TrackedProductResponse;
 import com.pricetracker.app.entity.TrackedProduct;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +23,12 @@ import java.util.Optional;
 @Repository
 public interface TrackedProductRepository extends JpaRepository<TrackedProduct, Long> {
     
+    String TRACKED_PRODUCT_RESPONSE_SELECT = 
+        "SELECT new com.pricetracker.app.dto.response.TrackedProductResponse(" +
+        "tp.id, p.id, p.productUrl, p.name, p.imageUrl, p.lastCheckedPrice, p.createdAt, p.updatedAt, " +
+        "tp.desiredPrice, tp.notificationEnabled, tp.checkIntervalMinutes, tp.createdAt, tp.updatedAt) " +
+        "FROM TrackedProduct tp JOIN tp.product p ";
+    
     /**
      * Find a tracked product by user ID and product ID.
      * 
@@ -49,9 +63,74 @@ public interface TrackedProductRepository extends JpaRepository<TrackedProduct,
      * @return a list of tracked products with notifications enabled
      */
     List<TrackedProduct> findByProductIdAndNotificationEnabledTrue(Long productId);
+    
+    /**
+     * Claim the tracked products of a product that should be notified about a price, in one statement.
+     * Subscribers whose desired price is at or above the price and whose notification cooldown has passed
+     * are marked as notified and returned. A row is claimed by only one caller even when several schedulers
+     * run concurrently, because the row lock taken by the UPDATE makes the cooldown condition re-evaluate.
+     * The claim commits in a transaction of its own, so the row locks are released right away rather than
+     * held until the caller's transaction ends.
+     * PostgreSQL-specific (UPDATE ... RETURNING).
+     * 
+     * @param productId the ID of the product
+     * @param price the current price of the product
+     * @param notifiedAt the notification time to record
+     * @param cooldownCutoff subscribers last notified at or after this instant are still in cooldown
+     * @return the claimed subscribers, with what is needed to address them
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "UPDATE tracked_products SET last_notified_at = :notifiedAt " +
+                   "WHERE product_id = :productId AND notification_enabled = true " +
+                   "AND desired_price >= :price " +
+                   "AND (last_notified_at IS NULL OR last_notified_at < :cooldownCutoff) " +
+                   "RETURNING id, user_id AS \"userId\", desired_price AS \"desiredPrice\"",
+           nativeQuery = true)
+    List<NotificationClaim> claimForNotification(@Param("productId") Long productId,
+                                                 @Param("price") BigDecimal price,
+                                                 @Param("notifiedAt") Instant notifiedAt,
+                                                 @Param("cooldownCutoff") Instant cooldownCutoff);
+    
+    /**
+     * A tracked product claimed for a price alert.
+     */
+    interface NotificationClaim {
+        Long getId();
+        Long getUserId();
+        BigDecimal getDesiredPrice();
+    }
 
+    /**
+     * Find a tracked product by ID for a user, with its product fetched in the same query.
+     * 
+     * @param id the ID of the tracked product
+     * @param userId the ID of the user
+     * @return an Optional containing the tracked product if found
+     */
+    @EntityGraph(attributePaths = "product")
     Optional<TrackedProduct> findByIdAndUserId(Long id, Long userId);
     
+    /**
+     * Find all tracked products for a user as response DTOs, joined with their products in a single query.
+     * 
+     * @param userId the ID of the user
+     * @param pageable pagination information
+     * @return a page of tracked product responses
+     */
+    @Query(value = TRACKED_PRODUCT_RESPONSE_SELECT + "WHERE tp.userId = :userId",
+           countQuery = "SELECT COUNT(tp) FROM TrackedProduct tp WHERE tp.userId = :userId")
+    Page<TrackedProductResponse> findResponsesByUserId(@Param("userId") Long userId, Pageable pageable);
+    
+    /**
+     * Find a tracked product for a user as a response DTO, joined with its product in a single query.
+     * 
+     * @param id the ID of the tracked product
+     * @param userId the ID of the user
+     * @return an Optional containing the tracked product response if found
+     */
+    @Query(TRACKED_PRODUCT_RESPONSE_SELECT + "WHERE tp.id = :id AND tp.userId = :userId")
+    Optional<TrackedProductResponse> findResponseByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+    
     /**
      * Find all tracked products for a specific product.
      * 
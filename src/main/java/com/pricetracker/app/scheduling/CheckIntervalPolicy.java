@@ -0,0 +1,109 @@
+package com.pricetracker.app.scheduling;
+
+import com.pricetracker.app.entity.PriceStatistics;
+import com.pricetracker.app.entity.Product;
+import com.pricetracker.app.entity.TrackedProduct;
+import com.pricetracker.app.repository.PriceStatisticsRepository;
+import com.pricetracker.app.service.PriceAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Decides how often the price of a product is checked.
+ *
+ * By default a product is checked at the shortest interval requested by its trackers. In adaptive mode the
+ * interval follows the product's estimated rate of price changes instead, so that a check is expected to
+ * find a configured fraction of a change: products whose price rarely changes are checked less often, up to
+ * a ceiling, and volatile ones more often, down to a floor.
+ */
+@Component
+@RequiredArgsConstructor
+public class CheckIntervalPolicy {
+
+    static final int MIN_INTERVAL_MINUTES = 5;
+    private static final int DEFAULT_INTERVAL_MINUTES = 60;
+    private static final double MINUTES_PER_DAY = Duration.ofDays(1).toMinutes();
+
+    private final PriceStatisticsRepository priceStatisticsRepository;
+    private final PriceAnalyticsService priceAnalyticsService;
+
+    @Value("${app.scheduling.adaptive.enabled:false}")
+    private boolean adaptive;
+
+    @Value("${app.scheduling.adaptive.min-interval-minutes:5}")
+    private int minIntervalMinutes;
+
+    @Value("${app.scheduling.adaptive.max-interval-minutes:1440}")
+    private int maxIntervalMinutes;
+
+    @Value("${app.scheduling.adaptive.target-changes-per-check:0.1}")
+    private double targetChangesPerCheck;
+
+    @Value("${app.scheduling.adaptive.min-observation-days:3}")
+    private long minObservationDays;
+
+    /**
+     * Load the price statistics the intervals of a scheduler run are based on, in one query.
+     *
+     * @return statistics by product ID; empty when adaptive intervals are disabled
+     */
+    public Map<Long, PriceStatistics> loadStatistics(List<Product> products) {
+        if (!adaptive || products.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return priceStatisticsRepository.findAllById(products.stream().map(Product::getId).toList()).stream()
+            .collect(Collectors.toMap(PriceStatistics::getProductId, Function.identity()));
+    }
+
+    /**
+     * Get the check interval of a product.
+     *
+     * @param product the product
+     * @param trackedProducts the trackers of the product
+     * @param stats the product's price statistics, or null if none were recorded
+     * @param now the current time
+     * @return the interval in minutes
+     */
+    public int intervalMinutes(Product product, List<TrackedProduct> trackedProducts,
+                               PriceStatistics stats, Instant now) {
+        int requested = requestedIntervalMinutes(trackedProducts);
+        if (!adaptive || product.getCreatedAt() == null) {
+            return requested;
+        }
+
+        // Too little history for an estimate, use what the trackers asked for
+        if (Duration.between(product.getCreatedAt(), now).toDays() < minObservationDays) {
+            return requested;
+        }
+
+        double changesPerDay = priceAnalyticsService.estimateChangesPerDay(stats, product.getCreatedAt(), now);
+        double adaptiveMinutes = changesPerDay > 0
+            ? targetChangesPerCheck / changesPerDay * MINUTES_PER_DAY
+            : maxIntervalMinutes;
+
+        int floor = Math.max(minIntervalMinutes, MIN_INTERVAL_MINUTES);
+        return (int) Math.max(floor, Math.min(adaptiveMinutes, maxIntervalMinutes));
+    }
+
+    /**
+     * The minimum check interval among the trackers of a product, floored at 5 minutes.
+     */
+    private int requestedIntervalMinutes(List<TrackedProduct> trackedProducts) {
+        int minInterval = trackedProducts.stream()
+            .mapToInt(TrackedProduct::getCheckIntervalMinutes)
+            .min()
+            .orElse(DEFAULT_INTERVAL_MINUTES);
+
+        // Enforce a minimum check interval of 5 minutes to prevent excessive checking
+        return Math.max(minInterval, MIN_INTERVAL_MINUTES);
+    }
+}
@@ -0,0 +1,116 @@
+package com.pricetracker.app.scheduling;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Spreads price checks evenly over time.
+ *
+ * Every product gets a stable phase offset within its check interval, derived from a hash of its ID, and is
+ * due on the slots {@code offset + k * interval}. Products with the same interval, added in a burst or all
+ * unchecked after a restart, therefore come due spread across the interval instead of in the same tick,
+ * which keeps the request rate to each host flat. Runs with spare capacity prefetch checks that are due soon.
+ *
+ * The time of the last check is not kept across restarts, so a product's first check after startup is spread
+ * over at most the startup spread rather than over its whole interval; otherwise a product with a daily
+ * interval could wait up to a day for its first check.
+ */
+@Component
+public class CheckPhasing {
+
+    private final boolean enabled;
+    private final Duration prefetchHorizon;
+    private final int tickCapacity;
+    private final Duration startupSpread;
+
+    // When products without a check since startup were first seen, their first slot is planned from there
+    private final Map<Long, Instant> firstSeen = new ConcurrentHashMap<>();
+
+    public CheckPhasing(
+            @Value("${app.scheduling.smoothing.enabled:true}") boolean enabled,
+            @Value("${app.scheduling.smoothing.prefetch-horizon-minutes:10}") long prefetchHorizonMinutes,
+            @Value("${app.scheduling.smoothing.tick-capacity:20}") int tickCapacity,
+            @Value("${app.scheduling.smoothing.startup-spread-minutes:60}") long startupSpreadMinutes) {
+        this.enabled = enabled;
+        this.prefetchHorizon = Duration.ofMinutes(prefetchHorizonMinutes);
+        this.tickCapacity = tickCapacity;
+        this.startupSpread = Duration.ofMinutes(Math.max(1, startupSpreadMinutes));
+    }
+
+    /**
+     * Get when a product is due for its next check.
+     *
+     * @param productId the ID of the product
+     * @param intervalMinutes the check interval of the product
+     * @param lastCheck the time of the last check, or null if not checked since startup
+     * @param now the start of the current scheduler run
+     * @return the due time; not after now if the product is due
+     */
+    public Instant dueAt(Long productId, int intervalMinutes, Instant lastCheck, Instant now) {
+        if (!enabled) {
+            return lastCheck != null ? lastCheck.plus(Duration.ofMinutes(intervalMinutes)) : now;
+        }
+
+        Duration interval = Duration.ofMinutes(intervalMinutes);
+        if (lastCheck == null) {
+            Instant seen = firstSeen.computeIfAbsent(productId, id -> now);
+            if (interval.compareTo(startupSpread) <= 0) {
+                return nextSlot(productId, interval, seen);
+            }
+            // Long intervals get their first check within the startup spread, then settle on their slots
+            return seen.plusSeconds(phaseOffsetSeconds(productId, startupSpread.toSeconds()));
+        }
+
+        // Half an interval after the last check, so prefetched or late checks do not cause a double check
+        firstSeen.remove(productId);
+        return nextSlot(productId, interval, lastCheck.plus(interval.dividedBy(2)));
+    }
+
+    /**
+     * Whether a product that is not due yet may be prefetched in a run with spare capacity.
+     */
+    public boolean isPrefetchCandidate(Instant dueAt, Instant now) {
+        return enabled && dueAt.isAfter(now) && !dueAt.isAfter(now.plus(prefetchHorizon));
+    }
+
+    /**
+     * The number of checks a run can still take for prefetching.
+     *
+     * @param scheduled the number of due checks already scheduled in the run
+     */
+    public int idleCapacity(int scheduled) {
+        return enabled ? Math.max(0, tickCapacity - scheduled) : 0;
+    }
+
+    /**
+     * The first slot of a product at or after an instant.
+     */
+    static Instant nextSlot(Long productId, Duration interval, Instant notBefore) {
+        long intervalSeconds = Math.max(1, interval.toSeconds());
+        long offsetSeconds = phaseOffsetSeconds(productId, intervalSeconds);
+
+        long since = notBefore.getEpochSecond() - offsetSeconds;
+        long slots = Math.floorDiv(since, intervalSeconds);
+        long slot = slots * intervalSeconds + offsetSeconds;
+        if (slot < notBefore.getEpochSecond() || (slot == notBefore.getEpochSecond() && notBefore.getNano() > 0)) {
+            slot += intervalSeconds;
+        }
+        return Instant.ofEpochSecond(slot);
+    }
+
+    /**
+     * Stable offset of a product within its interval. IDs are mixed first, so consecutive IDs spread out.
+     */
+    static long phaseOffsetSeconds(Long productId, long intervalSeconds) {
+        long z = productId + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return Math.floorMod(z, intervalSeconds);
+    }
+}
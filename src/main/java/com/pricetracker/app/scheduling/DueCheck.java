@@ -0,0 +1,17 @@
+package com.pricetracker.app.scheduling;
+
+import com.pricetracker.app.entity.Product;
+import com.pricetracker.app.entity.TrackedProduct;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A product that is due for a price check.
+ *
+ * @param product the product
+ * @param trackedProducts the trackers of the product
+ * @param dueAt when the check became due
+ * @param intervalMinutes the check interval of the product
+ */
+public record DueCheck(Product product, List<TrackedProduct> trackedProducts, Instant dueAt, int intervalMinutes) {}
@@ -1,13 +1,22 @@
 package com.pricetracker.app.scheduling;
 
+import com.pricetracker.app.cache.TrackedProductCache;
 import com.pricetracker.app.entity.PriceHistory;
+import com.pricetracker.app.entity.PriceStatistics;
 import com.pricetracker.app.entity.Product;
 import com.pricetracker.app.entity.TrackedProduct;
+import com.pricetracker.app.metrics.PipelineMetrics;
+import com.pricetracker.app.metrics.jfr.PriceCheckCycleEvent;
 import com.pricetracker.app.notification.NotificationService;
 import com.pricetracker.app.repository.PriceHistoryRepository;
 import com.pricetracker.app.repository.ProductRepository;
 import com.pricetracker.app.repository.TrackedProductRepository;
+import com.pricetracker.app.repository.TrackedProductRepository.NotificationClaim;
+import com.pricetracker.app.scraping.PriceScrapeResult;
+import com.pricetracker.app.scraping.ProxyPool;
+import com.pricetracker.app.scraping.ScrapeFailureType;
 import com.pricetracker.app.scraping.ScraperService;
+import com.pricetracker.app.service.PriceAnalyticsService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,6 +28,9 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +46,15 @@ public class PriceCheckScheduler {
     private final TrackedProductRepository trackedProductRepository;
     private final ScraperService scraperService;
     private final NotificationService notificationService;
+    private final PriceAnalyticsService priceAnalyticsService;
+    private final TrackedProductCache trackedProductCache;
+    private final PipelineMetrics metrics;
+    private final CheckIntervalPolicy checkIntervalPolicy;
+    private final ScrapeBudgetPlanner scrapeBudgetPlanner;
+    private final CheckPhasing checkPhasing;
+    private final SchedulerOverloadPolicy overloadPolicy;
+    private final ScrapeRetryQueue retryQueue;
+    private final ProxyPool proxyPool;
     
     @Value("${app.scraper.default-delay-ms:1000}")
     private long defaultDelayMs;
@@ -48,6 +69,8 @@ public class PriceCheckScheduler {
     @Transactional
     public void checkPrices() {
         log.info("Starting scheduled price check at {}", Instant.now());
+        PriceCheckCycleEvent cycleEvent = new PriceCheckCycleEvent();
+        cycleEvent.begin();
         
         // Get all products with their tracked products data
         List<Product> products = productRepository.findAll();
@@ -56,9 +79,21 @@ public class PriceCheckScheduler {
         Instant now = Instant.now();
         int checkedCount = 0;
         int skippedCount = 0;
+        Map<Long, PriceStatistics> statistics = checkIntervalPolicy.loadStatistics(products);
         
+        // First find the products that are due, so the backlog of this run is known up front
+        List<DueCheck> dueChecks = new ArrayList<>();
+        List<DueCheck> prefetchCandidates = new ArrayList<>();
         for (Product product : products) {
             try {
+                // Products whose scraping was given up on wait for their next re-probe
+                Instant reprobeAt = retryQueue.reprobeAt(product);
+                if (reprobeAt != null && reprobeAt.isAfter(now)) {
+                    log.debug("Product {} is dead-lettered until {}, skipping", product.getId(), reprobeAt);
+                    skippedCount++;
+                    continue;
+                }
+                
                 // Get all tracked instances of this product
                 List<TrackedProduct> trackedProducts = trackedProductRepository.findByProductId(product.getId());
                 
@@ -68,72 +103,181 @@ public class PriceCheckScheduler {
                     continue;
                 }
                 
-                // Find the minimum check interval among all users tracking this product
-                int minCheckIntervalMinutes = getMinCheckInterval(trackedProducts);
+                // Requested by the trackers, or adapted to how often the price changes
+                int checkIntervalMinutes = overloadPolicy.adjustIntervalMinutes(checkIntervalPolicy.intervalMinutes(
+                    product, trackedProducts, statistics.get(product.getId()), now));
                 
-                // Check if enough time has passed since the last check
-                Instant lastCheckTime = lastCheckTimeMap.getOrDefault(product.getId(), Instant.EPOCH);
-                long minutesSinceLastCheck = Duration.between(lastCheckTime, now).toMinutes();
+                // Due on the product's phase slots, so checks are spread across the interval
+                Instant lastCheckTime = lastCheckTimeMap.get(product.getId());
+                Instant dueAt = checkPhasing.dueAt(product.getId(), checkIntervalMinutes, lastCheckTime, now);
                 
-                log.info("Product {} ({}): min interval {}min, last checked {}min ago", 
-                    product.getId(), product.getName(), minCheckIntervalMinutes, minutesSinceLastCheck);
+                // A pending retry of a failed scrape comes due before the regular slot
+                Instant retryAt = retryQueue.retryAt(product.getId());
+                if (retryAt != null && retryAt.isBefore(dueAt)) {
+                    dueAt = retryAt;
+                }
+                if (reprobeAt != null) {
+                    dueAt = reprobeAt;
+                }
                 
-                if (minutesSinceLastCheck >= minCheckIntervalMinutes) {
-                    // Time to check this product
-                    log.info("Checking price for product {} after {}min (interval: {}min)", 
-                        product.getId(), minutesSinceLastCheck, minCheckIntervalMinutes);
-                    
-                    checkProductPrice(product);
-                    lastCheckTimeMap.put(product.getId(), now);
-                    checkedCount++;
-                    Thread.sleep(defaultDelayMs); // Add delay between requests
+                log.info("Product {} ({}): interval {}min, last checked {}, due at {}", 
+                    product.getId(), product.getName(), checkIntervalMinutes, lastCheckTime, dueAt);
+                
+                if (!dueAt.isAfter(now)) {
+                    dueChecks.add(new DueCheck(product, trackedProducts, dueAt, checkIntervalMinutes));
                 } else {
-                    log.info("Skipping check for product {} ({}min since last check, interval: {}min)", 
-                        product.getId(), minutesSinceLastCheck, minCheckIntervalMinutes);
+                    if (checkPhasing.isPrefetchCandidate(dueAt, now)) {
+                        prefetchCandidates.add(new DueCheck(product, trackedProducts, dueAt, checkIntervalMinutes));
+                    }
+                    log.info("Skipping check for product {} (due at {}, interval: {}min)", 
+                        product.getId(), dueAt, checkIntervalMinutes);
                     skippedCount++;
                 }
+            } catch (Exception e) {
+                log.error("Error checking price for product {}: {}", product.getId(), e.getMessage(), e);
+                skippedCount++;
+            }
+        }
+        
+        // Deferred checks stay due and are planned again next run
+        ScrapePlan plan = scrapeBudgetPlanner.plan(dueChecks, now);
+        skippedCount += plan.deferred().size();
+        List<DueCheck> scheduled = new ArrayList<>(plan.scheduled());
+        
+        // Spare capacity goes to the checks that are due soonest, as long as the budget allows
+        int idleCapacity = checkPhasing.idleCapacity(scheduled.size());
+        if (idleCapacity > 0 && plan.deferred().isEmpty() && !prefetchCandidates.isEmpty()) {
+            List<DueCheck> prefetch = prefetchCandidates.stream()
+                .sorted(Comparator.comparing(DueCheck::dueAt))
+                .limit(idleCapacity)
+                .toList();
+            List<DueCheck> prefetched = scrapeBudgetPlanner.plan(prefetch, now).scheduled();
+            log.info("Prefetching {} checks that are due soon", prefetched.size());
+            scheduled.addAll(prefetched);
+            skippedCount -= prefetched.size();
+        }
+        
+        // Shed checks count as done, so they wait for their next interval, but do not use up the budget
+        SchedulerOverloadPolicy.OverloadDecision decision = overloadPolicy.apply(scheduled, now);
+        for (DueCheck shed : decision.shed()) {
+            lastCheckTimeMap.put(shed.product().getId(), now);
+            scrapeBudgetPlanner.refund(shed, now);
+        }
+        if (!decision.shed().isEmpty()) {
+            log.warn("Shedding {} low-value checks until their next interval", decision.shed().size());
+            metrics.incrementChecksDropped("shed", decision.shed().size());
+            skippedCount += decision.shed().size();
+        }
+        
+        int backlog = decision.run().size();
+        metrics.setSchedulerBacklog(backlog);
+        
+        // Checks not started by the deadline stay due, so runs do not queue up behind each other
+        Instant deadline = overloadPolicy.deadline(now);
+        boolean deadlineHit = false;
+        Duration maxLag = Duration.ZERO;
+        int started = 0;
+        
+        for (DueCheck dueCheck : decision.run()) {
+            Product product = dueCheck.product();
+            try {
+                // Time to check this product
+                Instant startedAt = Instant.now();
+                if (startedAt.isAfter(deadline)) {
+                    log.warn("Price check run reached its deadline with {} checks left for the next run", backlog);
+                    metrics.incrementChecksDropped("deadline", backlog);
+                    skippedCount += backlog;
+                    deadlineHit = true;
+                    break;
+                }
+                started++;
+                
+                Duration lag = Duration.between(dueCheck.dueAt(), startedAt);
+                metrics.setSchedulerLag(lag);
+                metrics.recordCheckLag(lag);
+                if (lag.compareTo(maxLag) > 0) {
+                    maxLag = lag;
+                }
+                log.info("Checking price for product {} (due at {})", product.getId(), dueCheck.dueAt());
+                
+                PriceScrapeResult result = checkProductPrice(product, dueCheck.trackedProducts());
+                if (result.failureType() == ScrapeFailureType.EGRESS && proxyPool.isExhausted()) {
+                    // Every further check would wait for a proxy in vain, so they stay due with this one
+                    started--;
+                    log.warn("No proxy available, stopping the price check run with {} checks left for the next run",
+                        backlog);
+                    metrics.incrementChecksDropped("no_proxy", backlog);
+                    skippedCount += backlog;
+                    break;
+                }
+                lastCheckTimeMap.put(product.getId(), now);
+                checkedCount++;
+                metrics.setSchedulerBacklog(--backlog);
+                Thread.sleep(defaultDelayMs); // Add delay between requests
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 log.error("Price check interrupted", e);
                 break;
             } catch (Exception e) {
                 log.error("Error checking price for product {}: {}", product.getId(), e.getMessage(), e);
+                metrics.setSchedulerBacklog(--backlog);
                 skippedCount++;
             }
         }
         
+        // Checks left for the next run, or not sent for want of a proxy, are charged when they are planned again
+        for (DueCheck unstarted : decision.run().subList(started, decision.run().size())) {
+            scrapeBudgetPlanner.refund(unstarted, now);
+        }
+        
+        overloadPolicy.recordRun(maxLag, deadlineHit);
         log.info("Completed scheduled price check: {} checked, {} skipped", checkedCount, skippedCount);
+        
+        if (cycleEvent.shouldCommit()) {
+            cycleEvent.products = products.size();
+            cycleEvent.due = dueChecks.size();
+            cycleEvent.deferred = plan.deferred().size();
+            cycleEvent.shed = decision.shed().size();
+            cycleEvent.overloaded = overloadPolicy.isOverloaded();
+            cycleEvent.checked = checkedCount;
+            cycleEvent.skipped = skippedCount;
+            cycleEvent.commit();
+        }
     }
     
-    private int getMinCheckInterval(List<TrackedProduct> trackedProducts) {
-        // Get the minimum interval from all tracked products for this product
-        int minInterval = trackedProducts.stream()
-            .mapToInt(TrackedProduct::getCheckIntervalMinutes)
-            .min()
-            .orElse(60); // Default to 60 minutes if no interval is set
-        
-        // Enforce a minimum check interval of 5 minutes to prevent excessive checking
-        return Math.max(minInterval, 5);
-    }
-    
-    private void checkProductPrice(Product product) {
+    private PriceScrapeResult checkProductPrice(Product product, List<TrackedProduct> trackedProducts) {
         log.debug("Checking price for product: {}", product.getProductUrl());
         
-        scraperService.scrapePrice(product.getProductUrl())
+        PriceScrapeResult result = scraperService.scrapePriceResult(product.getProductUrl());
+        if (!result.isSuccess()) {
+            retryQueue.recordFailure(product, result, Instant.now());
+            return result;
+        }
+        retryQueue.recordSuccess(product);
+        
+        result.price()
             .ifPresent(scrapedPrice -> {
-                if (isPriceChanged(product.getLastCheckedPrice(), scrapedPrice)) {
-                    updateProductPrice(product, scrapedPrice);
+                BigDecimal previous = product.getLastCheckedPrice();
+                
+                if (isPriceChanged(previous, scrapedPrice)) {
+                    boolean drop = isPriceDrop(previous, scrapedPrice);
+                    metrics.incrementPriceChange(previous == null ? "initial" : drop ? "drop" : "rise");
+                    
+                    long persistStart = System.nanoTime();
+                    updateProductPrice(product, scrapedPrice, trackedProducts);
+                    metrics.recordPersist(System.nanoTime() - persistStart);
                     
                     // Check if any notifications need to be sent
-                    if (isPriceDrop(product.getLastCheckedPrice(), scrapedPrice)) {
+                    if (drop) {
                         log.debug("Price drop detected for product {}: {} -> {}", 
-                            product.getId(), product.getLastCheckedPrice(), scrapedPrice);
+                            product.getId(), previous, scrapedPrice);
                         sendNotifications(product, scrapedPrice);
                     } else {
                         log.debug("Price changed but not a drop for product {}, no notifications needed", product.getId());
                     }
                 }
             });
+        return result;
     }
     
     private boolean isPriceChanged(BigDecimal oldPrice, BigDecimal newPrice) {
@@ -150,7 +294,7 @@ public class PriceCheckScheduler {
         return newPrice.compareTo(oldPrice) < 0;
     }
     
-    private void updateProductPrice(Product product, BigDecimal newPrice) {
+    private void updateProductPrice(Product product, BigDecimal newPrice, List<TrackedProduct> trackedProducts) {
         log.info("Price changed for product {}: {} -> {}", 
             product.getId(), product.getLastCheckedPrice(), newPrice);
         
@@ -159,55 +303,42 @@ public class PriceCheckScheduler {
         productRepository.save(product);
         
         // Create price history record
+        Instant recordedAt = Instant.now();
         PriceHistory priceHistory = new PriceHistory();
         priceHistory.setProduct(product);
         priceHistory.setPrice(newPrice);
-        priceHistory.setTimestamp(Instant.now());
+        priceHistory.setTimestamp(recordedAt);
         priceHistoryRepository.save(priceHistory);
+        
+        // Fold the new point into the product's running aggregates
+        priceAnalyticsService.recordPrice(product, newPrice, recordedAt);
+        
+        // Only the users tracking this product see the new price, so only their cached views are stale
+        trackedProductCache.evictUsers(trackedProducts.stream().map(TrackedProduct::getUserId).toList());
     }
     
     private void sendNotifications(Product product, BigDecimal currentPrice) {
         log.info("Looking for users to notify about price drop for product {}", product.getId());
         
-        List<TrackedProduct> trackedProducts = trackedProductRepository
-            .findByProductIdAndNotificationEnabledTrue(product.getId());
-        
-        log.debug("Found {} tracked products with notifications enabled for product {}", 
-            trackedProducts.size(), product.getId());
-        
         Instant now = Instant.now();
-        Duration cooldownDuration = Duration.ofHours(notificationCooldownHours);
+        // A tracker is out of cooldown if it was last notified before this instant
+        Instant cooldownCutoff = now.minus(notificationCooldownHours, ChronoUnit.HOURS);
         
-        for (TrackedProduct trackedProduct : trackedProducts) {
-            log.debug("Checking tracked product ID: {}, Desired price: {}, Current price: {}", 
-                trackedProduct.getId(), trackedProduct.getDesiredPrice(), currentPrice);
-                
-            if (currentPrice.compareTo(trackedProduct.getDesiredPrice()) <= 0) {
-                log.debug("Price {} is below or equal to desired price {} for tracked product {}", 
-                    currentPrice, trackedProduct.getDesiredPrice(), trackedProduct.getId());
-                
-                // Check if we should send a notification (based on cooldown)
-                boolean shouldNotify = trackedProduct.getLastNotifiedAt() == null || 
-                    Duration.between(trackedProduct.getLastNotifiedAt(), now).compareTo(cooldownDuration) > 0;
-                
-                log.debug("Cooldown check for tracked product {}: lastNotifiedAt={}, shouldNotify={}", 
-                    trackedProduct.getId(), trackedProduct.getLastNotifiedAt(), shouldNotify);
-                
-                if (shouldNotify) {
-                    log.debug("Sending price drop notification to user {} for product {}", 
-                        trackedProduct.getUserId(), product.getId());
-                    
-                    notificationService.sendPriceAlert(trackedProduct, currentPrice);
-                    trackedProduct.setLastNotifiedAt(now);
-                    trackedProductRepository.save(trackedProduct);
-                } else {
-                    log.debug("Skipping notification for user {} for product {} (cooldown period active)", 
-                        trackedProduct.getUserId(), product.getId());
-                }
-            } else {
-                log.debug("Price {} is NOT below desired price {} for tracked product {}, no notification needed", 
-                    currentPrice, trackedProduct.getDesiredPrice(), trackedProduct.getId());
-            }
+        // Threshold and cooldown are matched and recorded by one UPDATE, so concurrent checks
+        // cannot notify the same subscriber twice
+        List<NotificationClaim> claims = trackedProductRepository
+            .claimForNotification(product.getId(), currentPrice, now, cooldownCutoff);
+        
+        if (claims.isEmpty()) {
+            log.debug("No subscribers to notify for product {} at price {}", product.getId(), currentPrice);
+            return;
         }
+        
+        log.info("Claimed {} subscribers to notify for product {} at price {}", 
+            claims.size(), product.getId(), currentPrice);
+        metrics.incrementNotificationsClaimed(claims.size());
+        
+        // The claim is committed on its own already, so the alerts go out whatever becomes of this cycle
+        notificationService.sendPriceAlerts(product, currentPrice, claims);
     }
-} 
\ No newline at end of file
+}
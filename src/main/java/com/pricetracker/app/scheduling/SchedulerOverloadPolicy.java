@@ -0,0 +1,148 @@
+package com.pricetracker.app.scheduling;
+
+import com.pricetracker.app.metrics.PipelineMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Keeps the price check scheduler from drifting behind when it cannot keep up.
+ *
+ * A run stops starting checks at its deadline, a fraction of the scheduling rate, so runs do not pile up
+ * behind each other; unstarted checks stay due for the next run. The scheduler is overloaded when the most
+ * overdue check of a run is later than the lag threshold, or a run hit its deadline. While overloaded, the
+ * configured policy applies:
+ * <ul>
+ *   <li>reorder: run the most overdue checks first instead of the most valuable</li>
+ *   <li>shed: skip the least valuable share of the due checks until their next interval</li>
+ *   <li>widen: stretch check intervals by a factor</li>
+ * </ul>
+ */
+@Component
+public class SchedulerOverloadPolicy {
+
+    private static final Logger log = LoggerFactory.getLogger(SchedulerOverloadPolicy.class);
+
+    public enum Mode { NONE, REORDER, SHED, WIDEN }
+
+    private final Mode mode;
+    private final Duration lagThreshold;
+    private final double shedFraction;
+    private final double widenFactor;
+    private final Duration runBudget;
+    private final PipelineMetrics metrics;
+
+    private volatile boolean overloaded;
+
+    public SchedulerOverloadPolicy(
+            @Value("${app.scheduling.overload.policy:reorder}") String mode,
+            @Value("${app.scheduling.overload.lag-threshold-minutes:15}") long lagThresholdMinutes,
+            @Value("${app.scheduling.overload.shed-fraction:0.25}") double shedFraction,
+            @Value("${app.scheduling.overload.widen-factor:2.0}") double widenFactor,
+            @Value("${app.scheduling.overload.deadline-fraction:0.9}") double deadlineFraction,
+            @Value("${app.scheduling.checkRateMs:60000}") long checkRateMs,
+            PipelineMetrics metrics) {
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        this.lagThreshold = Duration.ofMinutes(lagThresholdMinutes);
+        this.shedFraction = shedFraction;
+        this.widenFactor = widenFactor;
+        this.runBudget = Duration.ofMillis((long) (checkRateMs * deadlineFraction));
+        this.metrics = metrics;
+    }
+
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+
+    /**
+     * The time after which a run starts no more checks.
+     */
+    public Instant deadline(Instant runStart) {
+        return runStart.plus(runBudget);
+    }
+
+    /**
+     * Widen a check interval while overloaded, if that is the policy.
+     */
+    public int adjustIntervalMinutes(int intervalMinutes) {
+        if (overloaded && mode == Mode.WIDEN) {
+            return (int) Math.ceil(intervalMinutes * widenFactor);
+        }
+        return intervalMinutes;
+    }
+
+    /**
+     * Apply the policy to the scheduled checks of a run.
+     *
+     * @param scheduled the checks of the run, most valuable first
+     * @param now the start of the run
+     * @return the checks to run in order, and the shed ones
+     */
+    public OverloadDecision apply(List<DueCheck> scheduled, Instant now) {
+        Duration maxLag = scheduled.stream()
+            .map(dueCheck -> Duration.between(dueCheck.dueAt(), now))
+            .max(Comparator.naturalOrder())
+            .orElse(Duration.ZERO);
+        if (maxLag.compareTo(lagThreshold) > 0) {
+            overloaded = true;
+        }
+        metrics.setSchedulerOverloaded(overloaded);
+
+        if (!overloaded) {
+            return new OverloadDecision(scheduled, List.of());
+        }
+
+        log.warn("Price check scheduler overloaded (most overdue check {} min late), applying {} policy",
+            maxLag.toMinutes(), mode.name().toLowerCase(Locale.ROOT));
+
+        switch (mode) {
+            case REORDER -> {
+                return new OverloadDecision(
+                    scheduled.stream().sorted(Comparator.comparing(DueCheck::dueAt)).toList(), List.of());
+            }
+            case SHED -> {
+                List<DueCheck> byValue = scheduled.stream()
+                    .sorted(Comparator.comparingDouble((DueCheck dueCheck) -> ScrapeBudgetPlanner.value(dueCheck, now)))
+                    .toList();
+                int shedCount = (int) Math.floor(byValue.size() * shedFraction);
+                List<DueCheck> shed = byValue.subList(0, shedCount);
+                List<DueCheck> kept = new ArrayList<>(scheduled);
+                kept.removeAll(shed);
+                return new OverloadDecision(kept, shed);
+            }
+            default -> {
+                return new OverloadDecision(scheduled, List.of());
+            }
+        }
+    }
+
+    /**
+     * Record the outcome of a run; the scheduler stays overloaded while runs hit their deadline or start late.
+     *
+     * @param maxLag lag of the most overdue check that was started
+     * @param deadlineHit whether the run stopped at its deadline with checks left
+     */
+    public void recordRun(Duration maxLag, boolean deadlineHit) {
+        boolean wasOverloaded = overloaded;
+        overloaded = deadlineHit || maxLag.compareTo(lagThreshold) > 0;
+        metrics.setSchedulerOverloaded(overloaded);
+
+        if (wasOverloaded && !overloaded) {
+            log.info("Price check scheduler caught up");
+        }
+    }
+
+    /**
+     * @param run the checks to run, in order
+     * @param shed the checks skipped until their next interval
+     */
+    public record OverloadDecision(List<DueCheck> run, List<DueCheck> shed) {}
+}
@@ -0,0 +1,184 @@
+package com.pricetracker.app.scheduling;
+
+import com.pricetracker.app.config.ScrapeBudgetProperties;
+import com.pricetracker.app.entity.TrackedProduct;
+import com.pricetracker.app.metrics.PipelineMetrics;
+import com.pricetracker.app.scraping.ScraperStrategyIndex;
+import com.pricetracker.app.util.MinorUnits;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plans the checks of a scheduler run within a per-host request budget.
+ *
+ * Each host gets a number of requests per sliding window. When more checks are due than a host's remaining
+ * budget allows, the most valuable ones are scheduled and the rest stay due for a later run. The value of a
+ * check grows with the number of trackers, with how close the price is to the closest desired price, and with
+ * how overdue the check is, so deferred checks move up over time.
+ *
+ * Only checks granted by the planner count against the budget, and grants of checks that do not run, because
+ * they are shed or not started by the run's deadline, are refunded.
+ */
+@Component
+@RequiredArgsConstructor
+public class ScrapeBudgetPlanner {
+
+    private static final Logger log = LoggerFactory.getLogger(ScrapeBudgetPlanner.class);
+    private static final String UNKNOWN_HOST = "unknown";
+
+    private final ScrapeBudgetProperties properties;
+    private final PipelineMetrics metrics;
+
+    // Grant times within the current window, by host
+    private final Map<String, Deque<Instant>> grants = new HashMap<>();
+
+    /**
+     * Plan the checks of a run.
+     *
+     * @param dueChecks the checks that are due
+     * @param now the start of the run
+     * @return the checks to run now, most valuable first, and the deferred ones
+     */
+    public synchronized ScrapePlan plan(List<DueCheck> dueChecks, Instant now) {
+        if (!properties.isEnabled()) {
+            return new ScrapePlan(dueChecks, List.of());
+        }
+
+        Map<String, List<DueCheck>> byHost = new LinkedHashMap<>();
+        for (DueCheck dueCheck : dueChecks) {
+            byHost.computeIfAbsent(hostOf(dueCheck), h -> new ArrayList<>()).add(dueCheck);
+        }
+
+        Instant windowStart = now.minus(Duration.ofMinutes(properties.getWindowMinutes()));
+        List<ScoredCheck> scheduled = new ArrayList<>();
+        List<DueCheck> deferred = new ArrayList<>();
+
+        for (Map.Entry<String, List<DueCheck>> entry : byHost.entrySet()) {
+            String host = entry.getKey();
+            List<ScoredCheck> candidates = entry.getValue().stream()
+                .map(dueCheck -> new ScoredCheck(dueCheck, value(dueCheck, now)))
+                .sorted(Comparator.comparingDouble(ScoredCheck::value).reversed())
+                .toList();
+
+            Deque<Instant> hostGrants = grants.computeIfAbsent(host, h -> new ArrayDeque<>());
+            while (!hostGrants.isEmpty() && hostGrants.peekFirst().isBefore(windowStart)) {
+                hostGrants.pollFirst();
+            }
+
+            Integer limit = limitFor(host);
+            int remaining = limit != null ? Math.max(0, limit - hostGrants.size()) : candidates.size();
+            int granted = Math.min(remaining, candidates.size());
+
+            for (int i = 0; i < candidates.size(); i++) {
+                if (i < granted) {
+                    scheduled.add(candidates.get(i));
+                    hostGrants.addLast(now);
+                } else {
+                    deferred.add(candidates.get(i).dueCheck());
+                }
+            }
+
+            int deferredCount = candidates.size() - granted;
+            // Hosts without a budget of their own come from user input, their metrics are pooled
+            if (properties.getHosts().containsKey(host)) {
+                metrics.recordBudgetPlan(host, granted, deferredCount, limit - hostGrants.size());
+            } else {
+                metrics.recordBudgetPlan(ScraperStrategyIndex.OTHER_MARKETPLACE, granted, deferredCount, -1);
+            }
+            if (deferredCount > 0) {
+                log.warn("Scrape budget of {} exhausted: {} of {} due checks scheduled, {} deferred ({} requests per {} min)",
+                    host, granted, candidates.size(), deferredCount, limit, properties.getWindowMinutes());
+            } else {
+                log.info("Scrape budget of {}: {} due checks scheduled, {} requests used in window{}",
+                    host, granted, hostGrants.size(), limit != null ? " of " + limit : "");
+            }
+        }
+
+        return new ScrapePlan(
+            scheduled.stream()
+                .sorted(Comparator.comparingDouble(ScoredCheck::value).reversed())
+                .map(ScoredCheck::dueCheck)
+                .toList(),
+            deferred);
+    }
+
+    /**
+     * Give back the grant of a planned check that did not run.
+     *
+     * @param dueCheck the check, as returned by {@link #plan}
+     * @param plannedAt the start of the run it was planned in
+     */
+    public synchronized void refund(DueCheck dueCheck, Instant plannedAt) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Deque<Instant> hostGrants = grants.get(hostOf(dueCheck));
+        if (hostGrants != null) {
+            hostGrants.removeLastOccurrence(plannedAt);
+        }
+    }
+
+    private static String hostOf(DueCheck dueCheck) {
+        String host = ScraperStrategyIndex.hostOf(dueCheck.product().getProductUrl());
+        return host != null ? host : UNKNOWN_HOST;
+    }
+
+    private Integer limitFor(String host) {
+        Integer limit = properties.getHosts().get(host);
+        return limit != null ? limit : properties.getDefaultRequestsPerWindow();
+    }
+
+    /**
+     * The value of running a check now: trackers, closeness to a desired price and staleness, each
+     * contributing on a comparable scale.
+     */
+    static double value(DueCheck dueCheck, Instant now) {
+        double trackers = Math.log1p(dueCheck.trackedProducts().size());
+
+        double overdueMinutes = Math.max(0, Duration.between(dueCheck.dueAt(), now).toMinutes());
+        double staleness = Math.log1p(overdueMinutes / Math.max(1, dueCheck.intervalMinutes()));
+
+        return trackers + closeness(dueCheck) + staleness;
+    }
+
+    /**
+     * How close the current price is to the closest desired price, from 0 (far above) to 1 (at or below).
+     * A product without a known price is treated as at a desired price.
+     */
+    private static double closeness(DueCheck dueCheck) {
+        BigDecimal current = dueCheck.product().getLastCheckedPrice();
+        if (current == null || current.signum() <= 0) {
+            return 1.0;
+        }
+
+        // Compared in minor units, as this runs for every tracker of every due check
+        long currentMinorUnits = MinorUnits.of(current);
+        if (currentMinorUnits <= 0) {
+            return 1.0;
+        }
+        double closest = 0.0;
+        for (TrackedProduct trackedProduct : dueCheck.trackedProducts()) {
+            if (trackedProduct.isNotificationEnabled() && trackedProduct.getDesiredPrice() != null) {
+                double ratio = (double) MinorUnits.of(trackedProduct.getDesiredPrice()) / currentMinorUnits;
+                closest = Math.max(closest, Math.min(1.0, ratio));
+            }
+        }
+        return closest;
+    }
+
+    private record ScoredCheck(DueCheck dueCheck, double value) {}
+}
@@ -0,0 +1,8 @@
+package com.pricetracker.app.scheduling;
+
+import java.util.List;
+
+/**
+ * The checks of a scheduler run that fit the scrape budget, most valuable first, and those deferred to a later run.
+ */
+public record ScrapePlan(List<DueCheck> scheduled, List<DueCheck> deferred) {}
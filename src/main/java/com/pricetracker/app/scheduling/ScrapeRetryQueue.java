@@ -0,0 +1,202 @@
+package com.pricetracker.app.scheduling;
+
+import com.pricetracker.app.entity.Product;
+import com.pricetracker.app.metrics.PipelineMetrics;
+import com.pricetracker.app.repository.ProductRepository;
+import com.pricetracker.app.scraping.PriceScrapeResult;
+import com.pricetracker.app.scraping.ScrapeFailureType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Retry lane for failed price scrapes, and the dead-letter state of products that keep failing.
+ *
+ * What happens after a failure depends on its type:
+ * <ul>
+ *   <li>transient: retried after exponentially growing delays, up to a number of attempts, so a product
+ *       recovers from a timeout or server error long before its next regular check</li>
+ *   <li>blocked: not retried early, as that only adds load on a host that is already pushing back</li>
+ *   <li>no price: not retried early, and never dead-lettered, as unavailable products usually come back</li>
+ *   <li>permanent: not retried early, and dead-lettered after a few in a row</li>
+ * </ul>
+ * Products are also dead-lettered after too many failures in a row of the other types. Dead-lettered products
+ * are skipped by the scheduler, so broken URLs do not take scrape capacity, except for a re-probe once per
+ * re-probe interval; a successful re-probe revives the product.
+ */
+@Component
+public class ScrapeRetryQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(ScrapeRetryQueue.class);
+
+    public enum Action { RETRY, WAIT, DEAD_LETTER }
+
+    private final ProductRepository productRepository;
+    private final PipelineMetrics metrics;
+    private final boolean enabled;
+    private final int maxAttempts;
+    private final Duration baseDelay;
+    private final Duration maxDelay;
+    private final int permanentFailuresToDeadLetter;
+    private final int failuresToDeadLetter;
+    private final Duration reprobeInterval;
+
+    // Pending retry per product ID; the retry lane lives in memory, like the last check times of the scheduler
+    private final Map<Long, PendingRetry> pending = new ConcurrentHashMap<>();
+
+    public ScrapeRetryQueue(
+            ProductRepository productRepository,
+            PipelineMetrics metrics,
+            @Value("${app.scheduling.retry.enabled:true}") boolean enabled,
+            @Value("${app.scheduling.retry.max-attempts:3}") int maxAttempts,
+            @Value("${app.scheduling.retry.base-delay-seconds:60}") long baseDelaySeconds,
+            @Value("${app.scheduling.retry.max-delay-minutes:30}") long maxDelayMinutes,
+            @Value("${app.scheduling.retry.permanent-failures-to-dead-letter:3}") int permanentFailuresToDeadLetter,
+            @Value("${app.scheduling.retry.failures-to-dead-letter:20}") int failuresToDeadLetter,
+            @Value("${app.scheduling.retry.reprobe-interval-hours:24}") long reprobeIntervalHours) {
+        this.productRepository = productRepository;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.maxAttempts = maxAttempts;
+        this.baseDelay = Duration.ofSeconds(baseDelaySeconds);
+        this.maxDelay = Duration.ofMinutes(maxDelayMinutes);
+        this.permanentFailuresToDeadLetter = permanentFailuresToDeadLetter;
+        this.failuresToDeadLetter = failuresToDeadLetter;
+        this.reprobeInterval = Duration.ofHours(reprobeIntervalHours);
+    }
+
+    /**
+     * When a product is due for a retry.
+     *
+     * @return the time of the pending retry, or null if there is none
+     */
+    public Instant retryAt(Long productId) {
+        PendingRetry retry = pending.get(productId);
+        return retry != null ? retry.retryAt() : null;
+    }
+
+    /**
+     * When a dead-lettered product is due for a re-probe.
+     *
+     * @return the time of the re-probe, or null if the product is not dead-lettered
+     */
+    public Instant reprobeAt(Product product) {
+        Instant deadLetteredAt = product.getDeadLetteredAt();
+        return deadLetteredAt != null ? deadLetteredAt.plus(reprobeInterval) : null;
+    }
+
+    /**
+     * Record a successful scrape, which ends the product's retries and failure streak, and revives it if it was
+     * dead-lettered.
+     */
+    public void recordSuccess(Product product) {
+        if (pending.remove(product.getId()) != null) {
+            metrics.setRetriesPending(pending.size());
+        }
+        if (product.getDeadLetteredAt() != null) {
+            revive(product);
+        } else if (product.getConsecutiveFailures() > 0) {
+            log.info("Product {} recovered after {} failed scrapes", product.getId(), product.getConsecutiveFailures());
+            product.setConsecutiveFailures(0);
+            productRepository.save(product);
+        }
+    }
+
+    /**
+     * Record a failed scrape: update the product's failure counters, then queue a retry or dead-letter it.
+     *
+     * @param product the product whose scrape failed
+     * @param result the classified failure
+     * @param now the time of the failure
+     * @return what was done about the failure
+     */
+    public Action recordFailure(Product product, PriceScrapeResult result, Instant now) {
+        ScrapeFailureType type = result.failureType() != null ? result.failureType() : ScrapeFailureType.TRANSIENT;
+
+        // A blocked host or a failed proxy says nothing about the URL, so neither extends the failure streak
+        if (type != ScrapeFailureType.BLOCKED && type != ScrapeFailureType.EGRESS) {
+            product.setConsecutiveFailures(product.getConsecutiveFailures() + 1);
+        }
+        product.setTotalFailures(product.getTotalFailures() + 1);
+        product.setLastFailureAt(now);
+        product.setLastFailureReason(truncate(result.failureReason()));
+
+        Action action = decide(product, type);
+        switch (action) {
+            case DEAD_LETTER -> {
+                pending.remove(product.getId());
+                product.setDeadLetteredAt(now);
+                log.warn("Dead-lettering product {} after {} failed scrapes in a row, last: {} ({})",
+                    product.getId(), product.getConsecutiveFailures(), type, result.failureReason());
+            }
+            case RETRY -> {
+                int attempt = pending.containsKey(product.getId()) ? pending.get(product.getId()).attempt() + 1 : 1;
+                Instant retryAt = now.plus(backoff(attempt));
+                pending.put(product.getId(), new PendingRetry(attempt, retryAt));
+                log.info("Retrying product {} at {} (attempt {} of {}) after {} failure: {}",
+                    product.getId(), retryAt, attempt, maxAttempts, type, result.failureReason());
+            }
+            case WAIT -> {
+                pending.remove(product.getId());
+                log.info("Product {} waits for its next check after {} failure: {}",
+                    product.getId(), type, result.failureReason());
+            }
+        }
+        productRepository.save(product);
+
+        metrics.recordScrapeFailure(type.name().toLowerCase(Locale.ROOT), action.name().toLowerCase(Locale.ROOT));
+        metrics.setRetriesPending(pending.size());
+        return action;
+    }
+
+    /**
+     * Bring a dead-lettered product back into the regular schedule.
+     */
+    public void revive(Product product) {
+        log.info("Reviving dead-lettered product {}", product.getId());
+        product.setDeadLetteredAt(null);
+        product.setConsecutiveFailures(0);
+        productRepository.save(product);
+    }
+
+    private Action decide(Product product, ScrapeFailureType type) {
+        // A failed re-probe keeps the product dead-lettered until the next one
+        if (product.getDeadLetteredAt() != null) {
+            return Action.DEAD_LETTER;
+        }
+        if (type == ScrapeFailureType.NO_PRICE) {
+            return Action.WAIT;
+        }
+        int failures = product.getConsecutiveFailures();
+        if (failures >= failuresToDeadLetter
+                || (type == ScrapeFailureType.PERMANENT && failures >= permanentFailuresToDeadLetter)) {
+            return Action.DEAD_LETTER;
+        }
+        if (!enabled || type != ScrapeFailureType.TRANSIENT) {
+            return Action.WAIT;
+        }
+        PendingRetry retry = pending.get(product.getId());
+        return retry == null || retry.attempt() < maxAttempts ? Action.RETRY : Action.WAIT;
+    }
+
+    /**
+     * Delay before a retry attempt: the base delay, doubled per attempt, capped at the maximum delay.
+     */
+    Duration backoff(int attempt) {
+        Duration delay = baseDelay.multipliedBy(1L << Math.min(attempt - 1, 30));
+        return delay.compareTo(maxDelay) > 0 ? maxDelay : delay;
+    }
+
+    private static String truncate(String reason) {
+        return reason != null && reason.length() > 255 ? reason.substring(0, 255) : reason;
+    }
+
+    private record PendingRetry(int attempt, Instant retryAt) {}
+}
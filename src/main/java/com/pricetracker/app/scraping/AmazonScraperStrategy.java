@@ -7,9 +7,10 @@ import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Matcher;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 /**
@@ -18,67 +19,30 @@ import java.util.regex.Pattern;
 @Component
 public class AmazonScraperStrategy extends BaseScraperStrategy {
     
-    // Max length for price text to avoid related products sections
-    private static final int MAX_PRICE_TEXT_LENGTH = 100;
+    // Amazon marketplaces
+    private static final Set<String> AMAZON_HOSTS = Set.of(
+        "amazon.in", "amazon.com", "amazon.co.uk", "amazon.de", "amazon.fr", "amazon.it", "amazon.es",
+        "amazon.nl", "amazon.se", "amazon.pl", "amazon.com.tr", "amazon.ae", "amazon.sa", "amazon.eg",
+        "amazon.ca", "amazon.com.mx", "amazon.com.br", "amazon.co.jp", "amazon.sg", "amazon.com.au"
+    );
     
-    // Regular expression to extract Indian price from text
-    private static final Pattern INDIAN_PRICE_PATTERN = Pattern.compile("(?:₹|Rs\\.?|INR)?\\s*([\\d,]+(?:\\.\\d+)?)");
+    // Amazon's link shorteners
+    private static final Set<String> SHORTENER_HOSTS = Set.of("amzn.in", "amzn.to", "amzn.eu", "amzn.asia", "a.co");
     
-    // List of CSS selectors for Amazon price elements (in order of priority)
-    private static final String[] PRICE_SELECTORS = {
-        // Main price display (most reliable)
-        ".a-price .a-offscreen", 
-        ".a-section.a-spacing-none.aok-align-center .a-price .a-offscreen",
-        
-        // Amazon India specific price selectors
-        ".a-price-whole", 
-        "#priceblock_ourprice",
-        "#priceblock_dealprice", 
-        ".apexPriceToPay .a-offscreen",
-        ".priceToPay .a-offscreen", 
-        ".priceToPay span[data-a-size='xl']",
-        
-        // Deal prices
-        "#dealprice_savings .a-offscreen",
-        
-        // Power adapter specific selectors based on the provided example
-        "span.a-price span.a-offscreen", 
-        "#corePrice_desktop .a-offscreen",
-        
-        // Fallbacks for various layouts
-        ".a-color-price",
-        ".a-text-price .a-offscreen",
-        ".a-lineitem .a-color-price",
-        "#usedBuySection .a-color-price"
-    };
-    
-    // List of CSS selectors for Amazon product title elements
-    private static final String[] NAME_SELECTORS = {
-        "#productTitle",
-        "#title",
-        ".product-title-word-break",
-        ".product-title",
-        "h1.a-size-large",
-        "[data-feature-name='title']"
-    };
+    // Selectors, patterns and text fixes come from the "amazon" extraction rules
+    @Override
+    protected String rulesName() {
+        return "amazon";
+    }
     
-    // List of CSS selectors for Amazon product image elements
-    private static final String[] IMAGE_SELECTORS = {
-        "#landingImage",
-        "#imgBlkFront",
-        ".a-dynamic-image",
-        "#main-image",
-        "#imgTagWrapperId img",
-        ".imgTagWrapper img"
-    };
+    @Override
+    public Set<String> hostSuffixes() {
+        return AMAZON_HOSTS;
+    }
     
     @Override
-    public boolean canHandle(String url) {
-        return url != null && (
-            url.contains("amazon.") || 
-            url.contains("amzn.") || 
-            url.contains("a.co")
-        );
+    public Set<String> shortenerHosts() {
+        return SHORTENER_HOSTS;
     }
     
     @Override
@@ -87,34 +51,82 @@ public class AmazonScraperStrategy extends BaseScraperStrategy {
             log.warn("Detected CAPTCHA verification page during price extraction - aborting");
             return Optional.empty();
         }
+        ExtractionPlan plan = plan();
+        return extractPrice(doc, plan, plan.getSelectors().match(doc));
+    }
+    
+    @Override
+    public Optional<String> extractName(Document doc) {
+        if (isCaptchaPage(doc)) {
+            log.warn("Detected CAPTCHA verification page during name extraction - aborting");
+            return Optional.empty();
+        }
+        ExtractionPlan plan = plan();
+        return extractName(plan, plan.getSelectors().match(doc));
+    }
+    
+    @Override
+    public Optional<String> extractImageUrl(Document doc) {
+        if (isCaptchaPage(doc)) {
+            log.warn("Detected CAPTCHA verification page during image extraction - aborting");
+            return Optional.empty();
+        }
+        ExtractionPlan plan = plan();
+        return extractImageUrl(plan, plan.getSelectors().match(doc));
+    }
+    
+    /**
+     * Extract name, image and price from one walk over the page.
+     */
+    @Override
+    public Optional<ProductDetails> scrapeProductDetails(Document doc) {
+        if (isCaptchaPage(doc)) {
+            log.warn("Detected CAPTCHA verification page during product details extraction - aborting");
+            return Optional.empty();
+        }
+        
+        ExtractionPlan plan = plan();
+        SelectorSet.Matches matches = plan.getSelectors().match(doc);
+        Optional<String> name = extractName(plan, matches);
+        Optional<String> imageUrl = extractImageUrl(plan, matches);
+        Optional<BigDecimal> price = extractPrice(doc, plan, matches);
+        
+        // If we couldn't extract any of the essential details, return empty
+        if (name.isEmpty() && imageUrl.isEmpty() && price.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new ProductDetails(name, imageUrl, price));
+    }
+    
+    private Optional<BigDecimal> extractPrice(Document doc, ExtractionPlan plan, SelectorSet.Matches matches) {
+        PriceTokenizer.Convention convention = PriceTokenizer.conventionFor(doc.baseUri());
         
         // 1. Try Amazon India price extraction first for Indian sites
-        if (isAmazonIndia(doc)) {
-            Optional<BigDecimal> indiaPrice = extractIndianPrice(doc);
+        if (isAmazonIndia(doc, plan)) {
+            Optional<BigDecimal> indiaPrice = extractIndianPrice(doc, plan, matches, convention);
             if (indiaPrice.isPresent()) {
                 return indiaPrice;
             }
         }
         
         // 2. Try with our specific selectors
-        Optional<BigDecimal> price = extractPriceWithSelectors(doc, PRICE_SELECTORS);
+        Optional<BigDecimal> price = extractPriceWithSelectors(doc, matches, plan.getPriceSelectors());
         if (price.isPresent()) {
             return price;
         }
         
         // 3. Try a different approach for Amazon - search for all elements with a price class
-        for (Element element : doc.select("[class*=price], [class*=Price], [id*=price], [id*=Price]")) {
+        for (Element element : ExtractionPlan.all(matches, plan.getAnyPriceSelector())) {
             String priceText = element.text().trim();
             
             // Skip texts that are likely not main product prices
-            if (priceText.length() > MAX_PRICE_TEXT_LENGTH || priceText.isEmpty()) {
+            if (priceText.length() > plan.getMaxPriceTextLength() || priceText.isEmpty()) {
                 continue;
             }
             
             log.debug("Found potential price element from generic selectors: '{}'", priceText);
             
-            // Use the COMMON_PRICE_PATTERN from parent class via helper method
-            Optional<BigDecimal> extractedPrice = tryParsePrice(priceText);
+            Optional<BigDecimal> extractedPrice = tryParsePrice(plan, priceText, convention);
             if (extractedPrice.isPresent()) {
                 return extractedPrice;
             }
@@ -123,15 +135,9 @@ public class AmazonScraperStrategy extends BaseScraperStrategy {
         return Optional.empty();
     }
     
-    @Override
-    public Optional<String> extractName(Document doc) {
-        if (isCaptchaPage(doc)) {
-            log.warn("Detected CAPTCHA verification page during name extraction - aborting");
-            return Optional.empty();
-        }
-        
-        for (String selector : NAME_SELECTORS) {
-            Element element = doc.selectFirst(selector);
+    private Optional<String> extractName(ExtractionPlan plan, SelectorSet.Matches matches) {
+        for (String selector : plan.getNameSelectors()) {
+            Element element = matches.first(selector);
             if (element != null) {
                 String name = element.text().trim();
                 if (!name.isEmpty()) {
@@ -141,7 +147,7 @@ public class AmazonScraperStrategy extends BaseScraperStrategy {
         }
         
         // Fallback to first h1 if no specific selector worked
-        Element h1 = doc.selectFirst("h1");
+        Element h1 = ExtractionPlan.first(matches, plan.getHeadingSelector());
         if (h1 != null && !h1.text().isEmpty()) {
             return Optional.of(h1.text().trim());
         }
@@ -149,15 +155,9 @@ public class AmazonScraperStrategy extends BaseScraperStrategy {
         return Optional.empty();
     }
     
-    @Override
-    public Optional<String> extractImageUrl(Document doc) {
-        if (isCaptchaPage(doc)) {
-            log.warn("Detected CAPTCHA verification page during image extraction - aborting");
-            return Optional.empty();
-        }
-        
-        for (String selector : IMAGE_SELECTORS) {
-            Element element = doc.selectFirst(selector);
+    private Optional<String> extractImageUrl(ExtractionPlan plan, SelectorSet.Matches matches) {
+        for (String selector : plan.getImageSelectors()) {
+            Element element = matches.first(selector);
             if (element != null) {
                 // Try different image attributes in order of preference
                 if (element.hasAttr("data-old-hires")) {
@@ -179,8 +179,7 @@ public class AmazonScraperStrategy extends BaseScraperStrategy {
         }
         
         // Fallback approach - find any large image in the document
-        Elements imgs = doc.select("img[width][height]");
-        for (Element img : imgs) {
+        for (Element img : ExtractionPlan.all(matches, plan.getSizedImageSelector())) {
             try {
                 int width = Integer.parseInt(img.attr("width"));
                 int height = Integer.parseInt(img.attr("height"));
@@ -196,109 +195,83 @@ public class AmazonScraperStrategy extends BaseScraperStrategy {
     }
     
     /**
-     * Helper method that uses the common price pattern but doesn't override parent method
+     * Helper method that parses a price written with a decimal point
      */
     private Optional<BigDecimal> tryParsePrice(String text) {
+        return tryParsePrice(plan(), text, PriceTokenizer.Convention.DECIMAL_POINT);
+    }
+    
+    private Optional<BigDecimal> tryParsePrice(ExtractionPlan plan, String text, PriceTokenizer.Convention convention) {
         if (text == null || text.isEmpty()) {
             return Optional.empty();
         }
         
         // Skip excessively long text
-        if (text.length() > MAX_PRICE_TEXT_LENGTH) {
+        if (text.length() > plan.getMaxPriceTextLength()) {
             log.debug("Skipping oversized price text (length {})", text.length());
             return Optional.empty();
         }
         
-        try {
-            // First try direct digit extraction - simplest and most reliable
-            Matcher digitMatcher = Pattern.compile("(\\d{1,3}(,\\d{3})*(\\.\\d+)?)").matcher(text);
-            if (digitMatcher.find()) {
-                String priceStr = digitMatcher.group(1).replace(",", "");
-                log.debug("Directly extracted price digits from text: '{}'", priceStr);
-                return Optional.of(new BigDecimal(priceStr));
-            }
-            
-            // If direct extraction fails, try cleaning
-            String cleanedText = text;
-            
-            // Special handling for corrupted Rupee symbol
-            if (text.contains("Γé╣") || text.contains("Γ") || text.contains("é╣")) {
-                cleanedText = text.replace("Γé╣", "Rs.")
-                               .replaceAll("[^\\x00-\\x7F]", ""); // Remove all non-ASCII chars
-                log.debug("Aggressive clean of corrupted text: '{}'", cleanedText);
-            }
-            
-            // Try the Indian format on cleaned text
-            if (cleanedText.contains("₹") || cleanedText.contains("Rs.") || cleanedText.contains("INR")) {
-                Matcher matcher = INDIAN_PRICE_PATTERN.matcher(cleanedText);
-                if (matcher.find()) {
-                    String priceStr = matcher.group(1).replace(",", ""); // Remove commas
-                    return Optional.of(new BigDecimal(priceStr));
-                }
-            }
-            
-            // Last resort - just find any sequence of digits with optional commas and decimal point
-            Matcher lastResortMatcher = Pattern.compile("(\\d+(?:,\\d+)*(?:\\.\\d+)?)").matcher(cleanedText);
-            if (lastResortMatcher.find()) {
-                String priceStr = lastResortMatcher.group(1).replace(",", "");
-                log.debug("Last resort price extraction: '{}'", priceStr);
-                return Optional.of(new BigDecimal(priceStr));
-            }
-        } catch (Exception e) {
-            log.debug("Failed to parse price from text: '{}' - Error: {}", text, e.getMessage());
-        }
+        // Text fixes of the rules, if any; pages are decoded in their declared charset, and the scanner skips noise
+        String cleanedText = ExtractionPlan.containsAny(text, plan.getCorruptedTextMarkers()) ? plan.replace(text) : text;
         
-        return Optional.empty();
+        long price = PriceTokenizer.scan(cleanedText, convention);
+        if (price == PriceTokenizer.NO_PRICE) {
+            log.debug("No price in text: '{}'", text);
+            return Optional.empty();
+        }
+        return Optional.of(PriceTokenizer.toBigDecimal(price));
     }
     
     /**
      * Special extraction logic for Amazon India prices
      */
-    private Optional<BigDecimal> extractIndianPrice(Document doc) {
+    private Optional<BigDecimal> extractIndianPrice(Document doc, ExtractionPlan plan, SelectorSet.Matches matches,
+                                                    PriceTokenizer.Convention convention) {
         log.debug("Extracting Amazon India price with enhanced strategy");
         
         // First check the power adapter specific selectors from the example
-        Element dealPrice = doc.selectFirst(".a-section.a-spacing-none.aok-align-center .a-price .a-offscreen");
+        Element dealPrice = ExtractionPlan.first(matches, plan.getDealPriceSelector());
         if (dealPrice != null) {
             String dealPriceText = dealPrice.text().trim();
             log.debug("Found USB-C Power Adapter price: '{}'", dealPriceText);
             
-            Optional<BigDecimal> price = tryParsePrice(dealPriceText);
+            Optional<BigDecimal> price = tryParsePrice(plan, dealPriceText, convention);
             if (price.isPresent()) {
                 return price;
             }
         }
         
         // Try specific BuyBox price location (where Add to Cart button is)
-        Element buyBoxPrice = doc.selectFirst("#corePrice_desktop .a-offscreen, .priceToPay .a-offscreen");
+        Element buyBoxPrice = ExtractionPlan.first(matches, plan.getBuyBoxPriceSelector());
         if (buyBoxPrice != null) {
             String buyBoxPriceText = buyBoxPrice.text().trim();
             log.debug("Found BuyBox price: '{}'", buyBoxPriceText);
             
-            Optional<BigDecimal> price = tryParsePrice(buyBoxPriceText);
+            Optional<BigDecimal> price = tryParsePrice(plan, buyBoxPriceText, convention);
             if (price.isPresent()) {
                 return price;
             }
         }
         
         // Try other price selectors with specific Indian rupee format check
-        for (String selector : PRICE_SELECTORS) {
-            Element element = doc.selectFirst(selector);
+        Pattern localPriceShape = plan.getLocalPriceShapePattern();
+        for (String selector : plan.getPriceSelectors()) {
+            Element element = matches.first(selector);
             if (element != null) {
                 String priceText = element.text().trim();
                 
                 // Skip if text is too long (likely not a clean price)
-                if (priceText.length() > MAX_PRICE_TEXT_LENGTH) {
+                if (priceText.length() > plan.getMaxPriceTextLength()) {
                     continue;
                 }
                 
-                // Look specifically for Indian rupee symbol, corrupted rupee symbol, or pattern
-                if (priceText.contains("₹") || priceText.contains("Rs.") || 
-                    priceText.contains("Γé╣") || // Check for corrupted Rupee symbol
-                    priceText.matches(".*\\d+,\\d{3}.*")) {
+                // Look specifically for Indian rupee symbol or pattern
+                if (ExtractionPlan.containsAny(priceText, plan.getLocalPriceMarkers())
+                        || (localPriceShape != null && localPriceShape.matcher(priceText).find())) {
                     log.debug("Found potential Indian price: '{}'", priceText);
                     
-                    Optional<BigDecimal> price = tryParsePrice(priceText);
+                    Optional<BigDecimal> price = tryParsePrice(plan, priceText, convention);
                     if (price.isPresent()) {
                         return price;
                     }
@@ -306,13 +279,17 @@ public class AmazonScraperStrategy extends BaseScraperStrategy {
             }
         }
         
-        // Last resort - try to find any text with the corrupted Rupee symbol pattern
-        Elements potentialPriceElements = doc.select("*:containsOwn(Γé╣)");
+        // Last resort, only if the rules name one - elements with a mis-decoded price. Matched on its own, as
+        // reading the own text of every element is too expensive for the shared walk
+        if (plan.getCorruptedPriceEvaluator() == null) {
+            return Optional.empty();
+        }
+        Elements potentialPriceElements = doc.select(plan.getCorruptedPriceEvaluator());
         for (Element element : potentialPriceElements) {
             String priceText = element.text().trim();
-            if (priceText.length() <= MAX_PRICE_TEXT_LENGTH) {
-                log.debug("Found text with corrupted Rupee symbol: '{}'", priceText);
-                Optional<BigDecimal> price = tryParsePrice(priceText);
+            if (priceText.length() <= plan.getMaxPriceTextLength()) {
+                log.debug("Found text with mis-decoded price: '{}'", priceText);
+                Optional<BigDecimal> price = tryParsePrice(plan, priceText, convention);
                 if (price.isPresent()) {
                     return price;
                 }
@@ -325,27 +302,9 @@ public class AmazonScraperStrategy extends BaseScraperStrategy {
     /**
      * Check if the document is from Amazon India
      */
-    private boolean isAmazonIndia(Document doc) {
+    private boolean isAmazonIndia(Document doc, ExtractionPlan plan) {
         String url = doc.baseUri();
-        return url != null && (url.contains("amazon.in") || url.contains(".in/"));
-    }
-    
-    @Override
-    public boolean isCaptchaPage(Document doc) {
-        // Check for common CAPTCHA page elements
-        boolean hasCaptchaTitle = !doc.select("title:contains(Robot Check), title:contains(CAPTCHA), title:contains(Enter the characters)").isEmpty();
-        boolean hasCaptchaImage = !doc.select("img[src*=captcha], form[action*=validateCaptcha]").isEmpty();
-        boolean hasCaptchaText = !doc.select("h4:contains(Enter the characters), p:contains(not a robot), h4:contains(Type the characters)").isEmpty();
-        boolean hasVerificationForm = !doc.select("form[action*=verify]").isEmpty();
-        
-        boolean result = hasCaptchaTitle || hasCaptchaImage || hasCaptchaText || hasVerificationForm;
-        
-        if (result) {
-            log.warn("Detected CAPTCHA page with the following signals: title={}, image={}, text={}, form={}", 
-                    hasCaptchaTitle, hasCaptchaImage, hasCaptchaText, hasVerificationForm);
-        }
-        
-        return result;
+        return url != null && ExtractionPlan.containsAny(url, plan.getLocalHostMarkers());
     }
     
     /**
@@ -360,12 +319,14 @@ public class AmazonScraperStrategy extends BaseScraperStrategy {
         }
         
         // Try all our selectors and collect values
-        for (String selector : PRICE_SELECTORS) {
-            Elements elements = doc.select(selector);
+        ExtractionPlan plan = plan();
+        SelectorSet.Matches matches = plan.getSelectors().match(doc);
+        for (String selector : plan.getPriceSelectors()) {
+            List<Element> elements = matches.all(selector);
             if (!elements.isEmpty()) {
                 for (Element element : elements) {
                     String text = element.text().trim();
-                    if (!text.isEmpty() && text.length() < MAX_PRICE_TEXT_LENGTH) {
+                    if (!text.isEmpty() && text.length() < plan.getMaxPriceTextLength()) {
                         priceTexts.put(selector, text);
                     }
                 }
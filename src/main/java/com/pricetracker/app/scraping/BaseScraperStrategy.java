@@ -1,17 +1,25 @@
 package com.pricetracker.app.scraping;
 
+import com.pricetracker.app.metrics.PipelineMetrics;
+import com.pricetracker.app.metrics.jfr.PriceExtractEvent;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
+import org.jsoup.select.Collector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.math.BigDecimal;
 import java.net.HttpURLConnection;
+import java.net.Proxy;
 import java.net.URI;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.Function;
 
 /**
  * Base implementation of ScraperStrategy with common functionality.
@@ -24,9 +32,61 @@ public abstract class BaseScraperStrategy implements ScraperStrategy {
     // Max length for price text to avoid related products sections 
     protected static final int MAX_PRICE_TEXT_LENGTH = 100;
     
-    // Common pattern for price extraction (handles various currency formats)
-    protected static final Pattern COMMON_PRICE_PATTERN = 
-            Pattern.compile("(?:[₹$€£¥]|Rs\\.?|USD|EUR|GBP|INR)?\\s*([\\d,]+(?:\\.\\d+)?)");
+    // Optional, strategies created outside the application context run without metrics
+    private PipelineMetrics metrics;
+    
+    // Optional as well, without it the winning selectors are not counted
+    private SelectorStats selectorStats;
+    
+    // Without a store the built-in rules are used
+    private ExtractionRuleStore ruleStore;
+    
+    // Without a pool shortened links are expanded over a direct connection
+    private ProxyPool proxyPool;
+    
+    @Autowired(required = false)
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+    
+    @Autowired(required = false)
+    public void setSelectorStats(SelectorStats selectorStats) {
+        this.selectorStats = selectorStats;
+    }
+    
+    @Autowired(required = false)
+    public void setRuleStore(ExtractionRuleStore ruleStore) {
+        this.ruleStore = ruleStore;
+    }
+    
+    @Autowired(required = false)
+    public void setProxyPool(ProxyPool proxyPool) {
+        this.proxyPool = proxyPool;
+    }
+    
+    /**
+     * Name of the strategy's entry in the extraction rules.
+     */
+    protected String rulesName() {
+        return ExtractionRules.DEFAULT;
+    }
+    
+    /**
+     * The current extraction plan of the strategy. Read it once per extraction, so one extraction never mixes
+     * the rules before and after a reload.
+     */
+    protected ExtractionPlan plan() {
+        return (ruleStore != null ? ruleStore : ExtractionRuleStore.builtIn()).plan(rulesName());
+    }
+    
+    /**
+     * Handles the URLs on the strategy's host suffixes and shortener hosts.
+     */
+    @Override
+    public boolean canHandle(String url) {
+        return ScraperStrategyIndex.hostMatches(url, hostSuffixes())
+            || ScraperStrategyIndex.hostMatches(url, shortenerHosts());
+    }
     
     /**
      * {@inheritDoc}
@@ -34,16 +94,14 @@ public abstract class BaseScraperStrategy implements ScraperStrategy {
     @Override
     public boolean isCaptchaPage(Document doc) {
         // Check for common CAPTCHA page elements
-        boolean hasCaptchaTitle = !doc.select("title:contains(Robot Check), title:contains(CAPTCHA), title:contains(Enter the characters)").isEmpty();
-        boolean hasCaptchaImage = !doc.select("img[src*=captcha], form[action*=validateCaptcha]").isEmpty();
-        boolean hasCaptchaText = !doc.select("h4:contains(Enter the characters), p:contains(not a robot), h4:contains(Type the characters)").isEmpty();
-        boolean hasVerificationForm = !doc.select("form[action*=verify]").isEmpty();
+        Map<String, Boolean> signals = new LinkedHashMap<>();
+        plan().getCaptchaSignals().forEach((signal, evaluator) ->
+            signals.put(signal, Collector.findFirst(evaluator, doc) != null));
         
-        boolean result = hasCaptchaTitle || hasCaptchaImage || hasCaptchaText || hasVerificationForm;
+        boolean result = signals.containsValue(true);
         
         if (result) {
-            log.warn("Detected CAPTCHA page with following signals: title={}, image={}, text={}, form={}", 
-                    hasCaptchaTitle, hasCaptchaImage, hasCaptchaText, hasVerificationForm);
+            log.warn("Detected CAPTCHA page with following signals: {}", signals);
         }
         
         return result;
@@ -55,15 +113,25 @@ public abstract class BaseScraperStrategy implements ScraperStrategy {
     @Override
     public String expandShortenedUrl(String shortenedUrl) {
         HttpURLConnection connection = null;
+        ProxyPool.Lease lease = null;
+        ProxyPool.Outcome outcome = ProxyPool.Outcome.FAILURE;
         try {
             URL url = new URI(shortenedUrl).toURL();
-            connection = (HttpURLConnection) url.openConnection();
+            
+            // Through the proxies like the page fetch, so the shortener does not see the direct address
+            lease = proxyPool != null ? proxyPool.acquire(url.getHost()) : null;
+            Proxy proxy = lease != null ? lease.proxy() : null;
+            connection = (HttpURLConnection) (proxy != null ? url.openConnection(proxy) : url.openConnection());
             connection.setInstanceFollowRedirects(false);
-            connection.setRequestProperty("User-Agent", 
-                "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36");
+            connection.setRequestProperty("User-Agent", lease != null && lease.userAgent() != null
+                ? lease.userAgent()
+                : "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36");
             connection.setRequestMethod("HEAD");
             
             int responseCode = connection.getResponseCode();
+            outcome = ScrapeFailureType.classifyStatus(responseCode) == ScrapeFailureType.BLOCKED
+                ? ProxyPool.Outcome.BLOCKED
+                : ProxyPool.Outcome.SUCCESS;
             if (responseCode >= 300 && responseCode < 400) {
                 String expandedUrl = connection.getHeaderField("Location");
                 if (expandedUrl != null && !expandedUrl.isEmpty()) {
@@ -81,17 +149,31 @@ public abstract class BaseScraperStrategy implements ScraperStrategy {
             if (connection != null) {
                 connection.disconnect();
             }
+            if (lease != null) {
+                lease.release(outcome);
+            }
         }
         return shortenedUrl; // Return original if expansion fails
     }
     
     /**
-     * Helper method to parse a price from text using the common price pattern.
+     * Helper method to parse a price from text written with a decimal point.
      * 
      * @param text the text to parse
      * @return an Optional containing the parsed price, or empty if parsing failed
      */
     protected Optional<BigDecimal> parsePrice(String text) {
+        return parsePrice(text, PriceTokenizer.Convention.DECIMAL_POINT);
+    }
+    
+    /**
+     * Helper method to parse a price from text, read in the conventions of the page's marketplace.
+     * 
+     * @param text the text to parse
+     * @param convention decimal and grouping conventions of the marketplace
+     * @return an Optional containing the parsed price, or empty if parsing failed
+     */
+    protected Optional<BigDecimal> parsePrice(String text, PriceTokenizer.Convention convention) {
         if (text == null || text.isEmpty()) {
             return Optional.empty();
         }
@@ -102,39 +184,15 @@ public abstract class BaseScraperStrategy implements ScraperStrategy {
             return Optional.empty();
         }
         
-        try {
-            // More aggressive approach to clean the text with byte-level examination
-            String cleanedText = text;
-            
-            // Handle the specific corrupted Rupee symbol pattern
-            if (text.contains("Γé╣")) {
-                // Replace the corrupted pattern with standard rupee symbol or Rs.
-                cleanedText = text.replace("Γé╣", "Rs.");
-                log.debug("Replaced corrupted Rupee symbol in text");
-            }
-            
-            log.debug("Original price text: '{}', Cleaned text: '{}'", text, cleanedText);
-            
-            // Try to extract numeric part directly with a more aggressive approach
-            // Look for patterns like digits with commas and decimal points
-            Matcher digitMatcher = Pattern.compile("(\\d{1,3}(,\\d{3})*(\\.\\d+)?)").matcher(cleanedText);
-            if (digitMatcher.find()) {
-                String priceStr = digitMatcher.group(1).replace(",", "");
-                log.debug("Extracted price digits: '{}'", priceStr);
-                return Optional.of(new BigDecimal(priceStr));
-            }
-            
-            // Fallback to the regular pattern matcher if direct extraction fails
-            Matcher matcher = COMMON_PRICE_PATTERN.matcher(cleanedText);
-            if (matcher.find()) {
-                String priceStr = matcher.group(1).replace(",", ""); // Remove commas
-                return Optional.of(new BigDecimal(priceStr));
-            }
-        } catch (Exception e) {
-            log.debug("Failed to parse price from text: '{}' - Error: {}", text, e.getMessage());
-        }
+        // Text fixes of the rules, if any; no copy unless one applies
+        String cleanedText = plan().replace(text);
         
-        return Optional.empty();
+        long price = PriceTokenizer.scan(cleanedText, convention);
+        if (price == PriceTokenizer.NO_PRICE) {
+            log.debug("No price in text: '{}'", text);
+            return Optional.empty();
+        }
+        return Optional.of(PriceTokenizer.toBigDecimal(price));
     }
     
     /**
@@ -145,34 +203,124 @@ public abstract class BaseScraperStrategy implements ScraperStrategy {
      * @return Optional containing the price if found, empty otherwise
      */
     protected Optional<BigDecimal> extractPriceWithSelectors(Document doc, String[] selectors) {
+        return extractPriceWithSelectors(doc.baseUri(), doc::selectFirst, Arrays.asList(selectors), false);
+    }
+    
+    /**
+     * Helper method to extract price from the matches of a selector set.
+     * 
+     * Selectors are tried in the order learned from the winning selectors, which finds the price with the
+     * first selector for most pages. Looking up a selector in the matches costs nothing, so a learned winner
+     * is only accepted once none of the selectors before it in priority order yields a price; the price is
+     * always the one the priority order gives.
+     * 
+     * @param doc the document the matches are from
+     * @param matches the matches of a selector set that includes the selectors
+     * @param selectors CSS selectors to try, in priority order
+     * @return Optional containing the price if found, empty otherwise
+     */
+    protected Optional<BigDecimal> extractPriceWithSelectors(Document doc, SelectorSet.Matches matches,
+                                                             List<String> selectors) {
+        return extractPriceWithSelectors(doc.baseUri(), matches::first, selectors, true);
+    }
+    
+    private Optional<BigDecimal> extractPriceWithSelectors(String url, Function<String, Element> selectFirst,
+                                                           List<String> selectors, boolean learnedOrder) {
+        String strategy = getClass().getSimpleName();
+        PriceTokenizer.Convention convention = PriceTokenizer.conventionFor(url);
+        // Replayed pages are extracted in priority order, as they were before anything was learned
+        boolean learned = learnedOrder && selectorStats != null && SelectorStats.isRecording()
+            && url != null && !url.isEmpty();
+        PriceMatch match = learned
+            ? verifiedPrice(strategy, url, selectFirst, selectors, convention)
+            : firstPrice(selectFirst, selectors, convention);
+        if (match == null) {
+            return Optional.empty();
+        }
+        
+        // Replayed pages are not live traffic, so they do not count towards the selector hits
+        PriceExtractEvent.selectorMatched(match.selector());
+        if (metrics != null && SelectorStats.isRecording()) {
+            metrics.recordSelectorHit(strategy, selectors.indexOf(match.selector()));
+        }
+        if (selectorStats != null && url != null && !url.isEmpty()) {
+            selectorStats.recordHit(strategy, url, match.selector());
+        }
+        return Optional.of(match.price());
+    }
+    
+    private PriceMatch firstPrice(Function<String, Element> selectFirst, List<String> selectors,
+                                  PriceTokenizer.Convention convention) {
         for (String selector : selectors) {
-            try {
-                Element element = doc.selectFirst(selector);
-                if (element != null) {
-                    String priceText = element.text().trim();
-                    
-                    // Skip excessively long text
-                    if (priceText.length() > MAX_PRICE_TEXT_LENGTH) {
-                        log.debug("Skipping oversized price text for selector {} (length {})", 
-                                selector, priceText.length());
-                        continue;
-                    }
-                    
-                    log.debug("Found potential price element with selector {}: '{}'", 
-                            selector, priceText);
-                    
-                    Optional<BigDecimal> price = parsePrice(priceText);
-                    if (price.isPresent()) {
-                        return price;
-                    }
+            BigDecimal price = priceOf(selectFirst, selector, convention);
+            if (price != null) {
+                return new PriceMatch(selector, price);
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * The price of the first selector in the learned order that yields one, if no selector before it in
+     * priority order yields one too; otherwise the first of those, and the learned order is corrected.
+     */
+    private PriceMatch verifiedPrice(String strategy, String url, Function<String, Element> selectFirst,
+                                     List<String> selectors, PriceTokenizer.Convention convention) {
+        // Selectors already tried without a price, by priority
+        boolean[] missed = new boolean[selectors.size()];
+        for (String candidate : selectorStats.order(strategy, url, selectors)) {
+            int rank = selectors.indexOf(candidate);
+            BigDecimal price = priceOf(selectFirst, candidate, convention);
+            if (price == null) {
+                missed[rank] = true;
+                continue;
+            }
+            for (int i = 0; i < rank; i++) {
+                if (missed[i]) {
+                    continue;
                 }
-            } catch (Exception e) {
-                log.debug("Error extracting price with selector {}: {}", selector, e.getMessage());
+                BigDecimal higher = priceOf(selectFirst, selectors.get(i), convention);
+                if (higher != null) {
+                    log.debug("Learned selector {} disagrees with {} before it in priority order", candidate,
+                        selectors.get(i));
+                    selectorStats.recordMismatch(strategy, url, candidate);
+                    return new PriceMatch(selectors.get(i), higher);
+                }
+                missed[i] = true;
+            }
+            return new PriceMatch(candidate, price);
+        }
+        return null;
+    }
+    
+    private BigDecimal priceOf(Function<String, Element> selectFirst, String selector,
+                               PriceTokenizer.Convention convention) {
+        try {
+            Element element = selectFirst.apply(selector);
+            if (element == null) {
+                return null;
+            }
+            String priceText = element.text().trim();
+            
+            // Skip excessively long text
+            if (priceText.length() > MAX_PRICE_TEXT_LENGTH) {
+                log.debug("Skipping oversized price text for selector {} (length {})", 
+                        selector, priceText.length());
+                return null;
             }
+            
+            log.debug("Found potential price element with selector {}: '{}'", 
+                    selector, priceText);
+            
+            return parsePrice(priceText, convention).orElse(null);
+        } catch (Exception e) {
+            log.debug("Error extracting price with selector {}: {}", selector, e.getMessage());
+            return null;
         }
-        return Optional.empty();
     }
     
+    private record PriceMatch(String selector, BigDecimal price) {}
+    
     /**
      * Checks if the text is likely to be a main product price (not a secondary price).
      * 
@@ -0,0 +1,11 @@
+package com.pricetracker.app.scraping;
+
+/**
+ * Thrown when a site answers with a CAPTCHA page instead of the requested page.
+ */
+public class CaptchaException extends ScrapingException {
+    
+    public CaptchaException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,228 @@
+package com.pricetracker.app.scraping;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+import org.jsoup.select.Selector;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Stream;
+
+/**
+ * The extraction rules of a strategy, compiled: selectors parsed into a {@link SelectorSet} and evaluators,
+ * patterns compiled. Plans are immutable, so a strategy reads the current plan once per extraction and uses
+ * it throughout, even if the rules are reloaded meanwhile.
+ */
+public final class ExtractionPlan {
+
+    private static final int DEFAULT_MAX_PRICE_TEXT_LENGTH = 100;
+
+    private final int version;
+    private final int maxPriceTextLength;
+    private final List<String> priceSelectors;
+    private final List<String> nameSelectors;
+    private final List<String> imageSelectors;
+    private final String dealPriceSelector;
+    private final String buyBoxPriceSelector;
+    private final String anyPriceSelector;
+    private final String headingSelector;
+    private final String sizedImageSelector;
+    private final SelectorSet selectors;
+    private final Map<String, Evaluator> captchaSignals;
+    private final Map<String, String> textReplacements;
+    private final List<String> corruptedTextMarkers;
+    private final Evaluator corruptedPriceEvaluator;
+    private final List<String> localHostMarkers;
+    private final List<String> localPriceMarkers;
+    private final Pattern localPriceShapePattern;
+
+    private ExtractionPlan(int version, ExtractionRules.StrategyRules rules) {
+        this.version = version;
+        this.maxPriceTextLength = rules.maxPriceTextLength() != null
+            ? rules.maxPriceTextLength() : DEFAULT_MAX_PRICE_TEXT_LENGTH;
+        this.priceSelectors = copy(rules.priceSelectors());
+        this.nameSelectors = copy(rules.nameSelectors());
+        this.imageSelectors = copy(rules.imageSelectors());
+        this.dealPriceSelector = rules.dealPriceSelector();
+        this.buyBoxPriceSelector = rules.buyBoxPriceSelector();
+        this.anyPriceSelector = rules.anyPriceSelector();
+        this.headingSelector = rules.headingSelector();
+        this.sizedImageSelector = rules.sizedImageSelector();
+
+        // Every selector used on the page is matched in one walk
+        this.selectors = SelectorSet.compile(Stream.of(
+                priceSelectors.stream(), nameSelectors.stream(), imageSelectors.stream(),
+                Stream.of(dealPriceSelector, buyBoxPriceSelector, anyPriceSelector, headingSelector,
+                    sizedImageSelector))
+            .flatMap(s -> s)
+            .filter(Objects::nonNull)
+            .toList());
+
+        Map<String, Evaluator> signals = new LinkedHashMap<>();
+        if (rules.captchaSignals() != null) {
+            rules.captchaSignals().forEach((signal, selector) -> signals.put(signal, parse(selector)));
+        }
+        this.captchaSignals = Collections.unmodifiableMap(signals);
+        this.textReplacements = rules.textReplacements() != null
+            ? Collections.unmodifiableMap(new LinkedHashMap<>(rules.textReplacements())) : Map.of();
+        this.corruptedTextMarkers = copy(rules.corruptedTextMarkers());
+        this.corruptedPriceEvaluator = rules.corruptedPriceSelector() != null
+            ? parse(rules.corruptedPriceSelector()) : null;
+        this.localHostMarkers = copy(rules.localHostMarkers());
+        this.localPriceMarkers = copy(rules.localPriceMarkers());
+        this.localPriceShapePattern = compilePattern(rules.localPriceShapePattern());
+    }
+
+    /**
+     * Compile the rules of a strategy.
+     *
+     * @throws IllegalArgumentException if a selector or pattern does not parse, or a list has empty entries
+     */
+    public static ExtractionPlan compile(int version, ExtractionRules.StrategyRules rules) {
+        try {
+            return new ExtractionPlan(version, rules);
+        } catch (Selector.SelectorParseException | PatternSyntaxException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        } catch (NullPointerException e) {
+            throw new IllegalArgumentException("Rules contain an empty selector or marker", e);
+        }
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getMaxPriceTextLength() {
+        return maxPriceTextLength;
+    }
+
+    public List<String> getPriceSelectors() {
+        return priceSelectors;
+    }
+
+    public List<String> getNameSelectors() {
+        return nameSelectors;
+    }
+
+    public List<String> getImageSelectors() {
+        return imageSelectors;
+    }
+
+    public String getDealPriceSelector() {
+        return dealPriceSelector;
+    }
+
+    public String getBuyBoxPriceSelector() {
+        return buyBoxPriceSelector;
+    }
+
+    public String getAnyPriceSelector() {
+        return anyPriceSelector;
+    }
+
+    public String getHeadingSelector() {
+        return headingSelector;
+    }
+
+    public String getSizedImageSelector() {
+        return sizedImageSelector;
+    }
+
+    /**
+     * Every selector of the plan, compiled into one set.
+     */
+    public SelectorSet getSelectors() {
+        return selectors;
+    }
+
+    public Map<String, Evaluator> getCaptchaSignals() {
+        return captchaSignals;
+    }
+
+    public Map<String, String> getTextReplacements() {
+        return textReplacements;
+    }
+
+    public List<String> getCorruptedTextMarkers() {
+        return corruptedTextMarkers;
+    }
+
+    /**
+     * @return the evaluator of the corrupted price selector, or null if the rules have none
+     */
+    public Evaluator getCorruptedPriceEvaluator() {
+        return corruptedPriceEvaluator;
+    }
+
+    public List<String> getLocalHostMarkers() {
+        return localHostMarkers;
+    }
+
+    public List<String> getLocalPriceMarkers() {
+        return localPriceMarkers;
+    }
+
+    /**
+     * @return the local price shape pattern, or null if the rules have none
+     */
+    public Pattern getLocalPriceShapePattern() {
+        return localPriceShapePattern;
+    }
+
+    /**
+     * Apply the text replacements of the plan.
+     */
+    public String replace(String text) {
+        String replaced = text;
+        for (Map.Entry<String, String> replacement : textReplacements.entrySet()) {
+            if (replaced.contains(replacement.getKey())) {
+                replaced = replaced.replace(replacement.getKey(), replacement.getValue());
+            }
+        }
+        return replaced;
+    }
+
+    /**
+     * Whether a text contains any of the given markers.
+     */
+    public static boolean containsAny(String text, List<String> markers) {
+        for (String marker : markers) {
+            if (text.contains(marker)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The first element a selector of the plan matched; null if it matched none or the plan has no such selector.
+     */
+    public static Element first(SelectorSet.Matches matches, String selector) {
+        return selector != null ? matches.first(selector) : null;
+    }
+
+    /**
+     * The elements a selector of the plan matched; empty if the plan has no such selector.
+     */
+    public static List<Element> all(SelectorSet.Matches matches, String selector) {
+        return selector != null ? matches.all(selector) : List.of();
+    }
+
+    private static Evaluator parse(String selector) {
+        return QueryParser.parse(selector);
+    }
+
+    private static Pattern compilePattern(String regex) {
+        return regex != null ? Pattern.compile(regex) : null;
+    }
+
+    private static List<String> copy(List<String> values) {
+        return values != null ? List.copyOf(values) : List.of();
+    }
+}
@@ -0,0 +1,170 @@
+package com.pricetracker.app.scraping;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The compiled extraction rules in use, reloadable at runtime.
+ *
+ * Rules come from {@code extraction-rules.json} on the classpath, or from the rules file configured in
+ * {@code app.scraper.rules.location}. The file is checked for changes periodically and can be reloaded on
+ * demand; a rule set is compiled completely before it is swapped in as a whole, so a broken selector or
+ * pattern is rejected and the previous rules stay in use. Fixing a selector therefore takes no restart,
+ * and the in-memory scheduler state survives it.
+ */
+@Component
+public class ExtractionRuleStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ExtractionRuleStore.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    static final String BUILT_IN_RULES = "extraction-rules.json";
+
+    private final Path location;
+    private volatile Snapshot current;
+    private volatile String lastError;
+    private volatile FileTime lastModified;
+
+    public ExtractionRuleStore(@Value("${app.scraper.rules.location:}") String location) {
+        this.location = location == null || location.isBlank() ? null : Path.of(location);
+        this.current = BuiltIn.SNAPSHOT;
+        if (this.location != null) {
+            reload();
+        }
+    }
+
+    /**
+     * Store with the built-in rules, for strategies created outside the application context.
+     */
+    public static ExtractionRuleStore builtIn() {
+        return BuiltIn.STORE;
+    }
+
+    /**
+     * The plan of a strategy, or the default plan if the rules have none for it.
+     */
+    public ExtractionPlan plan(String strategy) {
+        Map<String, ExtractionPlan> plans = current.plans();
+        ExtractionPlan plan = plans.get(strategy);
+        return plan != null ? plan : plans.get(ExtractionRules.DEFAULT);
+    }
+
+    /**
+     * The version, source and load time of the rules in use, and the error of the last failed reload.
+     */
+    public Status status() {
+        Snapshot snapshot = current;
+        return new Status(snapshot.version(), snapshot.source(), snapshot.loadedAt(),
+            List.copyOf(snapshot.plans().keySet()), lastError);
+    }
+
+    /**
+     * Reload the rules file if it changed since it was last read.
+     */
+    @Scheduled(fixedDelayString = "${app.scraper.rules.reload-interval-ms:30000}")
+    public void reloadIfChanged() {
+        if (location == null) {
+            return;
+        }
+        try {
+            FileTime modified = Files.getLastModifiedTime(location);
+            if (!modified.equals(lastModified)) {
+                reload();
+            }
+        } catch (IOException e) {
+            log.debug("Rules file {} is not readable: {}", location, e.getMessage());
+        }
+    }
+
+    /**
+     * Read and compile the rules file, and swap the new rules in if they compile.
+     *
+     * @return the status after the reload; its error is set if the rules were rejected
+     */
+    public synchronized Status reload() {
+        if (location == null) {
+            return status();
+        }
+        try {
+            FileTime modified = Files.getLastModifiedTime(location);
+            ExtractionRules rules;
+            try (InputStream in = Files.newInputStream(location)) {
+                rules = objectMapper.readValue(in, ExtractionRules.class);
+            }
+            Snapshot snapshot = compile(rules, location.toString());
+            lastModified = modified;
+            int previousVersion = current.version();
+            current = snapshot;
+            lastError = null;
+            log.info("Loaded extraction rules version {} from {} (previously version {})",
+                snapshot.version(), location, previousVersion);
+        } catch (IOException | IllegalArgumentException e) {
+            lastError = e.getMessage();
+            log.error("Rejected extraction rules from {}, keeping version {}: {}",
+                location, current.version(), e.getMessage());
+        }
+        return status();
+    }
+
+    /**
+     * Compile every strategy of a rule set; any failure rejects the whole set.
+     *
+     * @throws IllegalArgumentException if the rules do not compile or have no default entry
+     */
+    static Snapshot compile(ExtractionRules rules, String source) {
+        if (rules.strategies() == null || !rules.strategies().containsKey(ExtractionRules.DEFAULT)) {
+            throw new IllegalArgumentException("Rules have no \"" + ExtractionRules.DEFAULT + "\" entry");
+        }
+        Map<String, ExtractionPlan> plans = new HashMap<>();
+        rules.strategies().forEach((strategy, strategyRules) -> {
+            if (strategyRules == null) {
+                throw new IllegalArgumentException("Rules of " + strategy + " are empty");
+            }
+            try {
+                plans.put(strategy, ExtractionPlan.compile(rules.version(), strategyRules));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid rules for " + strategy + ": " + e.getMessage(), e);
+            }
+        });
+        return new Snapshot(rules.version(), source, Instant.now(), Map.copyOf(plans));
+    }
+
+    record Snapshot(int version, String source, Instant loadedAt, Map<String, ExtractionPlan> plans) {}
+
+    /**
+     * @param lastError why the last reload was rejected, or null if it succeeded
+     */
+    public record Status(int version, String source, Instant loadedAt, List<String> strategies, String lastError) {}
+
+    // Loaded on first use, the built-in rules must compile for the application to work at all
+    private static final class BuiltIn {
+
+        static final Snapshot SNAPSHOT = load();
+        static final ExtractionRuleStore STORE = new ExtractionRuleStore(null);
+
+        private static Snapshot load() {
+            try (InputStream in = ExtractionRuleStore.class.getClassLoader().getResourceAsStream(BUILT_IN_RULES)) {
+                if (in == null) {
+                    throw new IllegalStateException("Built-in extraction rules " + BUILT_IN_RULES + " not found");
+                }
+                return compile(objectMapper.readValue(in, ExtractionRules.class), "classpath:" + BUILT_IN_RULES);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to read built-in extraction rules: " + e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.pricetracker.app.scraping;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Declarative extraction rules, as read from the rules file: the selectors, patterns and text fixes of each
+ * strategy. Rules are compiled into {@link ExtractionPlan}s before use.
+ *
+ * @param version version of the rule set, bumped on every change so the running version can be told apart
+ * @param strategies rules by strategy name; the "default" entry is used by strategies without their own
+ */
+public record ExtractionRules(int version, Map<String, StrategyRules> strategies) {
+
+    public static final String DEFAULT = "default";
+
+    /**
+     * Rules of one strategy. Every field is optional; a strategy uses the ones it knows about.
+     *
+     * @param maxPriceTextLength longer texts are not taken as prices, as they are usually whole sections
+     * @param priceSelectors price selectors in priority order
+     * @param nameSelectors product name selectors in priority order
+     * @param imageSelectors product image selectors in priority order
+     * @param dealPriceSelector deal price, preferred on local marketplaces
+     * @param buyBoxPriceSelector buy box price, preferred on local marketplaces after the deal price
+     * @param anyPriceSelector last resort elements that may hold a price
+     * @param headingSelector last resort product name
+     * @param sizedImageSelector last resort product images, with explicit dimensions
+     * @param captchaSignals selectors by signal name, any of which marks a CAPTCHA page
+     * @param textReplacements character sequences replaced before parsing, e.g. mis-decoded currency symbols
+     * @param corruptedTextMarkers texts containing any of these get the text replacements before parsing
+     * @param corruptedPriceSelector last resort elements with a mis-decoded price, matched on its own
+     * @param localHostMarkers URL parts of the local marketplace, whose prices get the local price rules
+     * @param localPriceMarkers texts with any of these are local prices
+     * @param localPriceShapePattern texts matching this are local prices too, e.g. by digit grouping
+     */
+    public record StrategyRules(
+        Integer maxPriceTextLength,
+        List<String> priceSelectors,
+        List<String> nameSelectors,
+        List<String> imageSelectors,
+        String dealPriceSelector,
+        String buyBoxPriceSelector,
+        String anyPriceSelector,
+        String headingSelector,
+        String sizedImageSelector,
+        Map<String, String> captchaSignals,
+        Map<String, String> textReplacements,
+        List<String> corruptedTextMarkers,
+        String corruptedPriceSelector,
+        List<String> localHostMarkers,
+        List<String> localPriceMarkers,
+        String localPriceShapePattern
+    ) {}
+}
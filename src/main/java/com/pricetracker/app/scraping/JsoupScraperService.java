@@ -1,5 +1,11 @@
 package com.pricetracker.app.scraping;
 
+import com.pricetracker.app.archive.PageArchive;
+import com.pricetracker.app.metrics.PipelineMetrics;
+import com.pricetracker.app.metrics.jfr.PriceExtractEvent;
+import com.pricetracker.app.metrics.jfr.ScrapeFetchEvent;
+import com.pricetracker.app.metrics.jfr.ScrapeParseEvent;
+import org.jsoup.Connection;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.HttpStatusException;
@@ -10,16 +16,24 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.math.BigDecimal;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
 
 /**
  * Implementation of ScraperService using Jsoup library and strategy pattern for site-specific scraping.
@@ -30,8 +44,8 @@ public class JsoupScraperService implements ScraperService {
     private static final Logger log = LoggerFactory.getLogger(JsoupScraperService.class);
     private static final Random random = new Random();
     
-    // List of registered scraper strategies (thread-safe)
-    private final List<ScraperStrategy> scraperStrategies = new CopyOnWriteArrayList<>();
+    // Registered scraper strategies by host; replaced as a whole when a strategy is registered
+    private volatile ScraperStrategyIndex strategyIndex = new ScraperStrategyIndex(List.of());
     
     // Common browser user agents for rotation
     private static final String[] BROWSER_USER_AGENTS = {
@@ -44,24 +58,47 @@ public class JsoupScraperService implements ScraperService {
     @Value("${app.scraper.default-delay-ms:1000}")
     private int defaultDelayMs;
     
+    private final PipelineMetrics metrics;
+    private final PageArchive pageArchive;
+    private final ScrapeDispatcher dispatcher;
+    private final ProxyPool proxyPool;
+    private final ScrapeSessions sessions;
+    
     /**
-     * Constructor to initialize with required strategies.
+     * Constructor to initialize with every ScraperStrategy bean, plus the strategies provided through
+     * {@link ServiceLoader}, so a marketplace is added by dropping its strategy on the classpath.
      */
     @Autowired
-    public JsoupScraperService(AmazonScraperStrategy amazonScraperStrategy) {
-        registerStrategy(amazonScraperStrategy);
-        log.info("JsoupScraperService initialized with {} strategies", scraperStrategies.size());
+    public JsoupScraperService(List<ScraperStrategy> strategies, PipelineMetrics metrics,
+                               PageArchive pageArchive, ScrapeDispatcher dispatcher, ProxyPool proxyPool,
+                               ScrapeSessions sessions) {
+        this.metrics = metrics;
+        this.pageArchive = pageArchive;
+        this.dispatcher = dispatcher;
+        this.proxyPool = proxyPool;
+        this.sessions = sessions;
+        strategies.forEach(this::registerStrategy);
+        for (ScraperStrategy strategy : ServiceLoader.load(ScraperStrategy.class)) {
+            boolean isBean = strategies.stream().anyMatch(bean -> bean.getClass() == strategy.getClass());
+            if (!isBean) {
+                registerStrategy(strategy);
+            }
+        }
+        log.info("JsoupScraperService initialized with {} strategies", strategyIndex.strategies().size());
     }
     
     @Override
-    public void registerStrategy(ScraperStrategy strategy) {
-        scraperStrategies.add(strategy);
-        log.info("Registered scraper strategy: {}", strategy.getClass().getSimpleName());
+    public synchronized void registerStrategy(ScraperStrategy strategy) {
+        List<ScraperStrategy> strategies = new ArrayList<>(strategyIndex.strategies());
+        strategies.add(strategy);
+        strategyIndex = new ScraperStrategyIndex(strategies);
+        log.info("Registered scraper strategy: {} for hosts {}", 
+            strategy.getClass().getSimpleName(), strategy.hostSuffixes());
     }
     
     @Override
     public List<ScraperStrategy> getStrategies() {
-        return new ArrayList<>(scraperStrategies);
+        return new ArrayList<>(strategyIndex.strategies());
     }
     
     @Override
@@ -70,48 +107,78 @@ public class JsoupScraperService implements ScraperService {
             return Optional.empty();
         }
         
-        // First expand shortened URLs
-        String expandedUrl = expandShortenedUrl(url);
-        if (!expandedUrl.equals(url)) {
-            log.debug("URL expanded from {} to {}", url, expandedUrl);
-            url = expandedUrl;
-        }
-        
-        // Find first strategy that can handle this URL
-        for (ScraperStrategy strategy : scraperStrategies) {
-            if (strategy.canHandle(url)) {
-                log.debug("Found strategy {} for URL: {}", 
-                        strategy.getClass().getSimpleName(), url);
-                return Optional.of(strategy);
-            }
+        // Dispatch by host; shortened URLs are owned by the strategy that expands them, so no expansion is needed
+        Optional<ScraperStrategy> strategy = strategyIndex.find(url);
+        if (strategy.isPresent()) {
+            log.debug("Found strategy {} for URL: {}", strategy.get().getClass().getSimpleName(), url);
+        } else {
+            log.debug("No specific strategy found for URL: {}", url);
         }
-        
-        log.debug("No specific strategy found for URL: {}", url);
-        return Optional.empty();
+        return strategy;
     }
     
     @Override
     public Optional<BigDecimal> scrapePrice(String productUrl) {
+        return scrapePriceResult(productUrl).price();
+    }
+    
+    @Override
+    public PriceScrapeResult scrapePriceResult(String productUrl) {
         try {
             Document doc = fetchDocument(productUrl);
             
             // Find appropriate strategy
             Optional<ScraperStrategy> strategyOpt = findStrategyForUrl(productUrl);
             if (strategyOpt.isPresent()) {
-                log.debug("Using {} for URL: {}", 
-                        strategyOpt.get().getClass().getSimpleName(), productUrl);
-                return strategyOpt.get().extractPrice(doc);
+                String strategyName = strategyOpt.get().getClass().getSimpleName();
+                log.debug("Using {} for URL: {}", strategyName, productUrl);
+                long start = System.nanoTime();
+                PriceExtractEvent extractEvent = PriceExtractEvent.start(strategyName);
+                Optional<BigDecimal> price = Optional.empty();
+                try {
+                    price = strategyOpt.get().extractPrice(doc);
+                } finally {
+                    extractEvent.finish(price.isPresent());
+                }
+                metrics.recordExtraction(strategyName, price.isPresent(), System.nanoTime() - start);
+                return toResult(price);
             }
             
             // If no specific strategy, use generic price extraction
             log.debug("No specific strategy found, using generic price extraction for URL: {}", productUrl);
-            return extractGenericPrice(doc);
+            long start = System.nanoTime();
+            PriceExtractEvent extractEvent = PriceExtractEvent.start("generic");
+            Optional<BigDecimal> price = Optional.empty();
+            try {
+                price = extractGenericPrice(doc);
+            } finally {
+                extractEvent.finish(price.isPresent());
+            }
+            metrics.recordExtraction("generic", price.isPresent(), System.nanoTime() - start);
+            return toResult(price);
         } catch (Exception e) {
             logScrapingError("price", productUrl, e);
-            return Optional.empty();
+            return PriceScrapeResult.failure(ScrapeFailureType.classify(e), failureReason(e));
         }
     }
     
+    private static PriceScrapeResult toResult(Optional<BigDecimal> price) {
+        // The page loaded but has no price, e.g. the product is out of stock or currently unavailable
+        return price.map(PriceScrapeResult::success)
+            .orElseGet(() -> PriceScrapeResult.failure(ScrapeFailureType.NO_PRICE, "no price found"));
+    }
+    
+    private static String failureReason(Exception e) {
+        if (e instanceof HttpStatusException httpError) {
+            return "HTTP " + httpError.getStatusCode();
+        }
+        if (e instanceof CaptchaException) {
+            return "CAPTCHA";
+        }
+        return e.getMessage() != null ? e.getClass().getSimpleName() + ": " + e.getMessage()
+            : e.getClass().getSimpleName();
+    }
+    
     @Override
     public Optional<ProductDetails> scrapeProductDetails(String productUrl) {
         try {
@@ -127,10 +194,11 @@ public class JsoupScraperService implements ScraperService {
             
             // If no specific strategy, build details from generic extraction
             log.debug("No specific strategy found, using generic extraction for URL: {}", productUrl);
+            StructuredData structuredData = StructuredData.of(doc);
             return Optional.of(new ProductDetails(
-                extractGenericName(doc),
-                extractGenericImageUrl(doc),
-                extractGenericPrice(doc)
+                structuredData.name().or(() -> extractGenericName(doc)),
+                structuredData.imageUrl().or(() -> extractGenericImageUrl(doc)),
+                structuredData.price().or(() -> extractDomPrice(doc))
             ));
         } catch (Exception e) {
             logScrapingError("product details", productUrl, e);
@@ -138,8 +206,41 @@ public class JsoupScraperService implements ScraperService {
         }
     }
     
+    @Override
+    public CompletableFuture<PriceScrapeResult> scrapePriceAsync(String productUrl) {
+        return dispatcher.submit(productUrl, () -> scrapePriceResult(productUrl));
+    }
+    
+    @Override
+    public CompletableFuture<Optional<ProductDetails>> scrapeProductDetailsAsync(String productUrl) {
+        return dispatcher.submit(productUrl, () -> scrapeProductDetails(productUrl));
+    }
+    
+    @Override
+    public CompletableFuture<Void> scrapePrices(Collection<String> productUrls,
+                                                BiConsumer<String, PriceScrapeResult> onResult) {
+        List<CompletableFuture<PriceScrapeResult>> scrapes = new ArrayList<>(productUrls.size());
+        List<CompletableFuture<Void>> handedOver = new ArrayList<>(productUrls.size());
+        for (String productUrl : productUrls) {
+            CompletableFuture<PriceScrapeResult> scrape = scrapePriceAsync(productUrl);
+            scrapes.add(scrape);
+            handedOver.add(scrape.thenAccept(result -> onResult.accept(productUrl, result)));
+        }
+        
+        CompletableFuture<Void> batch = CompletableFuture.allOf(handedOver.toArray(CompletableFuture[]::new));
+        // Cancelling the batch reaches the scrapes themselves, not just the callbacks waiting on them
+        batch.whenComplete((ignored, e) -> {
+            if (batch.isCancelled()) {
+                scrapes.forEach(scrape -> scrape.cancel(true));
+            }
+        });
+        return batch;
+    }
+    
     @Override
     public Document fetchDocument(String url) throws IOException {
+        String requestedUrl = url;
+        
         // First expand shortened URLs
         String expandedUrl = expandShortenedUrl(url);
         if (!expandedUrl.equals(url)) {
@@ -153,13 +254,34 @@ public class JsoupScraperService implements ScraperService {
             log.debug("Adding delay of {}ms before request", delay);
             Thread.sleep(delay);
         } catch (InterruptedException e) {
+            // Cancelled, e.g. by cancelling an async scrape; do not go on to make the request
             Thread.currentThread().interrupt();
+            InterruptedIOException interrupted = new InterruptedIOException("Interrupted before fetching " + url);
+            interrupted.initCause(e);
+            throw interrupted;
         }
         
-        // Select a random user agent
-        String userAgent = getRandomUserAgent();
+        String host = ScraperStrategyIndex.hostOf(url);
+        // Metrics are tagged by marketplace rather than host, hosts come from user input
+        String marketplace = strategyIndex.marketplaceOf(url);
+        
+        long requestStart = System.nanoTime();
+        long fetchNanos = -1;
+        ScrapeFetchEvent fetchEvent = new ScrapeFetchEvent();
+        fetchEvent.host = host;
         
+        // Taken after the delay, so a waiting request does not hold a proxy slot
+        ProxyPool.Lease lease = proxyPool.acquire(host);
+        ProxyPool.Outcome proxyOutcome = ProxyPool.Outcome.FAILURE;
+        ScrapeSessions.ScrapeSession session = null;
+        
+        // Everything after acquiring is inside the try, so the proxy slot is given back whatever fails
         try {
+            // The cookies and user agent the host saw from this exit before, or a new session
+            session = sessions.open(host, lease, this::getRandomUserAgent);
+            String userAgent = session.userAgent();
+            fetchEvent.begin();
+            
             // Create a map of headers that mimic a real browser
             Map<String, String> headers = new HashMap<>();
             headers.put("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8");
@@ -175,72 +297,136 @@ public class JsoupScraperService implements ScraperService {
             headers.put("Pragma", "no-cache");
             headers.put("Cache-Control", "no-cache");
             
-            log.debug("Fetching document from URL: {} with user agent: {}", url, userAgent);
+            log.debug("Fetching document from URL: {} via {} with user agent: {}", url, lease.name(), userAgent);
             
-            Document doc = Jsoup.connect(url)
+            // Fetch and parse separately, so network latency and parse time are measured on their own
+            long fetchStart = System.nanoTime();
+            Connection connection = Jsoup.connect(url)
                 .userAgent(userAgent)
                 .headers(headers)
                 .timeout(15000) // Extended timeout (15 seconds)
                 .followRedirects(true)
                 .maxBodySize(0) // Unlimited body size
                 .ignoreContentType(false)
-                .ignoreHttpErrors(false)
-                .get();
+                .ignoreHttpErrors(false);
+            connection.cookieStore(session.cookieStore());
+            if (lease.proxy() != null) {
+                connection.proxy(lease.proxy());
+            }
+            Connection.Response response = connection.execute();
+            response.bufferUp();
+            proxyOutcome = ProxyPool.Outcome.SUCCESS;
+            fetchNanos = System.nanoTime() - fetchStart;
+            fetchEvent.end();
+            fetchEvent.status = response.statusCode();
+            byte[] body = response.bodyAsBytes();
+            fetchEvent.bytes = body != null ? body.length : 0;
+            
+            // Archived under the URL the product is tracked by, CAPTCHA pages included
+            pageArchive.archive(requestedUrl, Instant.now(), body);
+            
+            ScrapeParseEvent parseEvent = new ScrapeParseEvent();
+            parseEvent.host = fetchEvent.host;
+            parseEvent.bytes = fetchEvent.bytes;
+            parseEvent.begin();
+            long parseStart = System.nanoTime();
+            // Decoded once, in the charset the headers, byte order mark or meta tags declare
+            Document doc = PageDecoder.parse(body != null ? body : new byte[0], response.contentType(),
+                response.url().toExternalForm());
+            metrics.recordParse(marketplace, System.nanoTime() - parseStart);
+            parseEvent.commit();
             
             // Check if this is a CAPTCHA page
-            for (ScraperStrategy strategy : scraperStrategies) {
-                if (strategy.canHandle(url) && strategy.isCaptchaPage(doc)) {
-                    log.warn("Detected CAPTCHA page for URL: {}", url);
-                    throw new ScrapingException("CAPTCHA verification required for URL: " + url);
-                }
+            Optional<ScraperStrategy> strategy = strategyIndex.find(url);
+            if (strategy.isPresent() && strategy.get().isCaptchaPage(doc)) {
+                log.warn("Detected CAPTCHA page for URL: {}", url);
+                metrics.incrementCaptcha(marketplace);
+                metrics.recordFetch(marketplace, PipelineMetrics.OUTCOME_CAPTCHA, fetchNanos);
+                commitFetchEvent(fetchEvent, PipelineMetrics.OUTCOME_CAPTCHA);
+                proxyOutcome = ProxyPool.Outcome.BLOCKED;
+                throw new CaptchaException("CAPTCHA verification required for URL: " + url);
             }
             
+            metrics.recordFetch(marketplace, PipelineMetrics.OUTCOME_SUCCESS, fetchNanos);
+            commitFetchEvent(fetchEvent, PipelineMetrics.OUTCOME_SUCCESS);
             return doc;
         } catch (ScrapingException e) {
             throw e;
         } catch (SocketTimeoutException e) {
             log.warn("Connection timed out for URL: {}", url);
+            metrics.recordFetch(marketplace, PipelineMetrics.OUTCOME_TIMEOUT, elapsedSince(requestStart, fetchNanos));
+            commitFetchEvent(fetchEvent, PipelineMetrics.OUTCOME_TIMEOUT);
+            throwIfProxyFailure(e, lease);
             throw e;
         } catch (UnknownHostException e) {
             log.warn("Unknown host for URL: {}", url);
+            metrics.recordFetch(marketplace, PipelineMetrics.OUTCOME_UNKNOWN_HOST, elapsedSince(requestStart, fetchNanos));
+            commitFetchEvent(fetchEvent, PipelineMetrics.OUTCOME_UNKNOWN_HOST);
+            throwIfProxyFailure(e, lease);
             throw e;
         } catch (HttpStatusException e) {
             log.warn("HTTP error {} for URL: {}", e.getStatusCode(), url);
+            metrics.incrementHttpError(marketplace, e.getStatusCode());
+            metrics.recordFetch(marketplace, PipelineMetrics.OUTCOME_HTTP_ERROR, elapsedSince(requestStart, fetchNanos));
+            fetchEvent.status = e.getStatusCode();
+            commitFetchEvent(fetchEvent, PipelineMetrics.OUTCOME_HTTP_ERROR);
+            // A missing page is the host's answer, the proxy did its job
+            proxyOutcome = ScrapeFailureType.classifyStatus(e.getStatusCode()) == ScrapeFailureType.BLOCKED
+                ? ProxyPool.Outcome.BLOCKED : ProxyPool.Outcome.SUCCESS;
             throw e;
         } catch (IOException e) {
             log.warn("IO error for URL: {}", url, e);
+            metrics.recordFetch(marketplace, PipelineMetrics.OUTCOME_IO_ERROR, elapsedSince(requestStart, fetchNanos));
+            commitFetchEvent(fetchEvent, PipelineMetrics.OUTCOME_IO_ERROR);
+            throwIfProxyFailure(e, lease);
             throw e;
+        } finally {
+            try {
+                if (session != null) {
+                    metrics.recordSessionFetch(marketplace, session.isReused(),
+                        proxyOutcome.name().toLowerCase(Locale.ROOT));
+                    sessions.close(session, proxyOutcome);
+                }
+            } finally {
+                lease.release(proxyOutcome);
+            }
         }
     }
     
-    @Override
-    public String expandShortenedUrl(String shortenedUrl) {
-        // Find a strategy that can handle this URL
-        for (ScraperStrategy strategy : scraperStrategies) {
-            if (strategy.canHandle(shortenedUrl)) {
-                String expandedUrl = strategy.expandShortenedUrl(shortenedUrl);
-                if (!expandedUrl.equals(shortenedUrl)) {
-                    return expandedUrl;
-                }
-            }
+    /**
+     * Through a proxy, the host is resolved and connected to by the proxy, so failing to resolve or connect is
+     * the proxy's failure rather than the URL's.
+     */
+    private static void throwIfProxyFailure(IOException e, ProxyPool.Lease lease) {
+        if (lease.proxy() == null) {
+            return;
         }
-        
-        // Fall back to default implementation in BaseScraperStrategy
-        try {
-            // Use our BaseScraperStrategy's implementation as a fallback
-            ScraperStrategy defaultStrategy = scraperStrategies.stream()
-                .filter(s -> s instanceof BaseScraperStrategy)
-                .findFirst()
-                .orElse(null);
-            
-            if (defaultStrategy != null) {
-                return defaultStrategy.expandShortenedUrl(shortenedUrl);
-            }
-        } catch (Exception e) {
-            log.warn("Error expanding URL {}: {}", shortenedUrl, e.getMessage());
+        boolean connectTimeout = e instanceof SocketTimeoutException && e.getMessage() != null
+            && e.getMessage().toLowerCase(Locale.ROOT).contains("connect");
+        if (e instanceof ConnectException || e instanceof NoRouteToHostException || e instanceof UnknownHostException
+                || connectTimeout) {
+            throw new ProxyFailureException("Could not reach proxy " + lease.name() + ": " + e.getMessage(), e);
         }
-        
-        return shortenedUrl; // Return original if expansion fails
+    }
+    
+    private static void commitFetchEvent(ScrapeFetchEvent event, String outcome) {
+        if (event.shouldCommit()) {
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+    
+    private static long elapsedSince(long start, long measuredNanos) {
+        // Use the measured fetch time if the failure happened after the fetch (e.g. while parsing)
+        return measuredNanos >= 0 ? measuredNanos : System.nanoTime() - start;
+    }
+    
+    @Override
+    public String expandShortenedUrl(String shortenedUrl) {
+        // Only links on a shortener host are expanded, anything else would be a wasted round trip
+        return strategyIndex.findShortener(shortenedUrl)
+            .map(strategy -> strategy.expandShortenedUrl(shortenedUrl))
+            .orElse(shortenedUrl);
     }
     
     private String getRandomUserAgent() {
@@ -252,25 +438,28 @@ public class JsoupScraperService implements ScraperService {
      * Generic price extraction for sites without a specific strategy
      */
     private Optional<BigDecimal> extractGenericPrice(Document doc) {
+        // The price the page declares for search engines, guessing from the DOM only for pages without one
+        return StructuredData.of(doc).price().or(() -> extractDomPrice(doc));
+    }
+    
+    /**
+     * Price extraction from the DOM by common selectors and currency symbols
+     */
+    private Optional<BigDecimal> extractDomPrice(Document doc) {
         try {
             // Try a variety of common price selectors used by popular e-commerce sites
             String selectors = "#price, .price, [data-price], .product-price, .current-price, .price-current, " +
                 "span.price, div.price, span[itemprop=price], [class*=price]:not(del):not(s), " +
                 ".regular-price, .offer-price, .sale-price, .our-price, .special-price";
             
+            PriceTokenizer.Convention convention = PriceTokenizer.conventionFor(doc.baseUri());
             for (String selector : selectors.split(", ")) {
-                var elements = doc.select(selector);
-                if (!elements.isEmpty()) {
-                    String priceText = elements.first().text()
-                        .replaceAll("[^\\d.,]", "") // Remove non-numeric characters except . and ,
-                        .replace(",", "."); // Normalize decimal separator
-                    
-                    // Additional handling for multiple dots (e.g., 1.234.56)
-                    if (priceText.indexOf('.') != priceText.lastIndexOf('.')) {
-                        priceText = priceText.replaceAll("\\.(?=.*\\.)", "");
+                var element = doc.selectFirst(selector);
+                if (element != null) {
+                    Optional<BigDecimal> price = PriceTokenizer.parse(element.text(), convention);
+                    if (price.isPresent()) {
+                        return price;
                     }
-                    
-                    return Optional.of(new BigDecimal(priceText));
                 }
             }
             
@@ -284,18 +473,9 @@ public class JsoupScraperService implements ScraperService {
                      text.contains("¥") || text.contains("₹") || 
                      text.toLowerCase().contains("price"))) {
                     
-                    String priceText = text.replaceAll("[^\\d.,]", "")
-                                          .replace(",", ".");
-                    
-                    // Additional handling for multiple dots
-                    if (priceText.indexOf('.') != priceText.lastIndexOf('.')) {
-                        priceText = priceText.replaceAll("\\.(?=.*\\.)", "");
-                    }
-                    
-                    try {
-                        return Optional.of(new BigDecimal(priceText));
-                    } catch (NumberFormatException e) {
-                        // Continue to next element if parsing fails
+                    Optional<BigDecimal> price = PriceTokenizer.parse(text, convention);
+                    if (price.isPresent()) {
+                        return price;
                     }
                 }
             }
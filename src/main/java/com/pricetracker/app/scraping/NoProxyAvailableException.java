@@ -0,0 +1,11 @@
+package com.pricetracker.app.scraping;
+
+/**
+ * Thrown when no egress proxy can take a request, because all are quarantined or busy; the request was not sent.
+ */
+public class NoProxyAvailableException extends ScrapingException {
+    
+    public NoProxyAvailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,172 @@
+package com.pricetracker.app.scraping;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.parser.Parser;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Locale;
+
+/**
+ * Decodes fetched page bytes into a document, with the charset picked the way browsers pick it.
+ *
+ * The charset comes from, in order: a byte order mark, the charset of the Content-Type header, a
+ * {@code <meta charset>} or {@code <meta http-equiv="Content-Type">} in the first 1024 bytes, and UTF-8 if
+ * none of them names one. The bytes are decoded exactly once, streamed through the decoder into the parser,
+ * so a page never reaches extraction as mis-decoded text like "Γé╣" for "₹".
+ */
+public final class PageDecoder {
+
+    // Browsers only look this far into the page for a meta charset
+    private static final int META_PRESCAN_BYTES = 1024;
+
+    private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+
+    private PageDecoder() {
+    }
+
+    /**
+     * Decode and parse a page.
+     *
+     * @param body the page bytes as received
+     * @param contentType the Content-Type header of the response, or null if unknown
+     * @param baseUri the URL of the page, for resolving relative links
+     */
+    public static Document parse(byte[] body, String contentType, String baseUri) {
+        Charset charset = detectCharset(body, contentType);
+        int bom = bomLength(body);
+        // The parser reads through a mark-supporting reader in chunks, so the page is never one big string
+        Reader reader = new BufferedReader(new InputStreamReader(
+            new ByteArrayInputStream(body, bom, body.length - bom),
+            charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)));
+        Document doc = Parser.htmlParser().parseInput(reader, baseUri);
+        doc.outputSettings().charset(charset);
+        return doc;
+    }
+
+    /**
+     * The charset of a page: its byte order mark, then the Content-Type header, then its meta charset, then UTF-8.
+     */
+    static Charset detectCharset(byte[] body, String contentType) {
+        Charset charset = bomCharset(body);
+        if (charset == null) {
+            charset = lookup(charsetParameter(contentType));
+        }
+        if (charset == null) {
+            charset = lookup(metaCharset(body));
+            // A page that is readable as ASCII cannot really be UTF-16, so a meta tag saying so is wrong
+            if (charset != null && charset.name().startsWith("UTF-16")) {
+                charset = StandardCharsets.UTF_8;
+            }
+        }
+        return charset != null ? charset : StandardCharsets.UTF_8;
+    }
+
+    private static Charset bomCharset(byte[] body) {
+        if (startsWith(body, 0xEF, 0xBB, 0xBF)) {
+            return StandardCharsets.UTF_8;
+        }
+        if (startsWith(body, 0xFE, 0xFF)) {
+            return StandardCharsets.UTF_16BE;
+        }
+        if (startsWith(body, 0xFF, 0xFE)) {
+            return StandardCharsets.UTF_16LE;
+        }
+        return null;
+    }
+
+    private static int bomLength(byte[] body) {
+        if (startsWith(body, 0xEF, 0xBB, 0xBF)) {
+            return 3;
+        }
+        return startsWith(body, 0xFE, 0xFF) || startsWith(body, 0xFF, 0xFE) ? 2 : 0;
+    }
+
+    private static boolean startsWith(byte[] body, int... prefix) {
+        if (body.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((body[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The charset named in the meta tags of the first bytes of a page, or null if there is none.
+     */
+    static String metaCharset(byte[] body) {
+        // Meta tags are ASCII in every charset a page can declare this way, so the bytes are read as Latin-1
+        String head = new String(body, 0, Math.min(body.length, META_PRESCAN_BYTES), StandardCharsets.ISO_8859_1)
+            .toLowerCase(Locale.ROOT);
+        int meta = head.indexOf("<meta");
+        while (meta >= 0) {
+            int end = head.indexOf('>', meta);
+            String tag = end >= 0 ? head.substring(meta, end) : head.substring(meta);
+            String charset = charsetParameter(tag);
+            if (charset != null) {
+                return charset;
+            }
+            meta = head.indexOf("<meta", meta + 5);
+        }
+        return null;
+    }
+
+    /**
+     * The value after "charset=" in a header or tag, or null if there is none.
+     */
+    static String charsetParameter(String value) {
+        if (value == null) {
+            return null;
+        }
+        String lower = value.toLowerCase(Locale.ROOT);
+        int index = lower.indexOf("charset");
+        while (index >= 0) {
+            int i = index + "charset".length();
+            while (i < value.length() && value.charAt(i) == ' ') {
+                i++;
+            }
+            if (i < value.length() && value.charAt(i) == '=') {
+                i++;
+                while (i < value.length() && (value.charAt(i) == ' ' || value.charAt(i) == '"' || value.charAt(i) == '\'')) {
+                    i++;
+                }
+                int start = i;
+                while (i < value.length() && " \"';>/".indexOf(value.charAt(i)) < 0) {
+                    i++;
+                }
+                return i > start ? value.substring(start, i) : null;
+            }
+            index = lower.indexOf("charset", index + 1);
+        }
+        return null;
+    }
+
+    private static Charset lookup(String name) {
+        if (name == null) {
+            return null;
+        }
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        // As in browsers, pages labelled Latin-1 or ASCII are decoded as windows-1252, which they really are
+        if (normalized.equals("iso-8859-1") || normalized.equals("latin1") || normalized.equals("us-ascii")
+                || normalized.equals("ascii")) {
+            return WINDOWS_1252;
+        }
+        try {
+            return Charset.forName(normalized);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            return null;
+        }
+    }
+}
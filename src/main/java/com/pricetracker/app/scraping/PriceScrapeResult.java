@@ -0,0 +1,25 @@
+package com.pricetracker.app.scraping;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Outcome of scraping a price: the price, or why there is none.
+ */
+public record PriceScrapeResult(
+    Optional<BigDecimal> price,
+    ScrapeFailureType failureType,
+    String failureReason
+) {
+    public static PriceScrapeResult success(BigDecimal price) {
+        return new PriceScrapeResult(Optional.of(price), null, null);
+    }
+    
+    public static PriceScrapeResult failure(ScrapeFailureType failureType, String failureReason) {
+        return new PriceScrapeResult(Optional.empty(), failureType, failureReason);
+    }
+    
+    public boolean isSuccess() {
+        return price.isPresent();
+    }
+}
@@ -0,0 +1,313 @@
+package com.pricetracker.app.scraping;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Hand-written scanner that reads the price out of a text like "₹1,23,456.00", "1.234,56 €" or "EUR 12,50".
+ *
+ * The text is scanned once, char by char, without creating intermediate strings. A number adjacent to a
+ * currency marker (symbol, "Rs." or an ISO code, before or after the number) wins; without one the first
+ * number does. The price comes back packed into a long, as its unscaled value and scale, so callers on hot
+ * paths can compare or store it without a BigDecimal.
+ *
+ * Separators are read as the grouping and decimal conventions of the marketplace locale say:
+ * <ul>
+ *   <li>when a number has both '.' and ',', the last one is the decimal separator, whatever the locale</li>
+ *   <li>a separator that repeats is a grouping separator, so Indian lakh grouping "1,23,456" reads as 123456</li>
+ *   <li>a single separator is the decimal separator if it is the locale's, and otherwise unless exactly three
+ *       digits follow it, as a group would; "1,299" is 1299 on amazon.in, "1,29" is 1.29</li>
+ *   <li>locales that group with spaces ("1 234,56") accept a space before a group of exactly three digits</li>
+ * </ul>
+ */
+public final class PriceTokenizer {
+
+    /** Returned by {@link #scan} for texts without a price. */
+    public static final long NO_PRICE = -1;
+
+    private static final int SCALE_BITS = 4;
+    private static final int MAX_SCALE = (1 << SCALE_BITS) - 1;
+    // Unscaled values up to this fit next to the scale in a long
+    private static final long MAX_UNSCALED = Long.MAX_VALUE >> SCALE_BITS;
+
+    // ISO codes of the marketplace currencies, matched as whole words
+    private static final String[] CURRENCY_CODES = {
+        "INR", "USD", "EUR", "GBP", "JPY", "CAD", "AUD", "SGD", "AED", "SAR", "EGP", "MXN", "BRL", "TRY",
+        "PLN", "SEK"
+    };
+
+    // Top level domains of the marketplaces that write prices with a decimal comma
+    private static final Set<String> DECIMAL_COMMA_DOMAINS = Set.of(
+        "de", "fr", "it", "es", "nl", "be", "at", "se", "pl", "com.tr", "com.br"
+    );
+
+    /**
+     * Decimal and grouping conventions of a marketplace locale.
+     */
+    public enum Convention {
+        /** "1,234.56" and Indian "1,23,456.00" */
+        DECIMAL_POINT('.', false),
+        /** "1.234,56" and "1 234,56" */
+        DECIMAL_COMMA(',', true);
+
+        private final char decimalSeparator;
+        private final boolean spaceGrouping;
+
+        Convention(char decimalSeparator, boolean spaceGrouping) {
+            this.decimalSeparator = decimalSeparator;
+            this.spaceGrouping = spaceGrouping;
+        }
+    }
+
+    private PriceTokenizer() {
+    }
+
+    /**
+     * The convention of the marketplace a URL belongs to, by its top level domain.
+     */
+    public static Convention conventionFor(String url) {
+        String host = ScraperStrategyIndex.hostOf(url);
+        if (host == null) {
+            return Convention.DECIMAL_POINT;
+        }
+        int last = host.lastIndexOf('.');
+        if (last < 0) {
+            return Convention.DECIMAL_POINT;
+        }
+        if (DECIMAL_COMMA_DOMAINS.contains(host.substring(last + 1))) {
+            return Convention.DECIMAL_COMMA;
+        }
+        int secondLast = host.lastIndexOf('.', last - 1);
+        return secondLast >= 0 && DECIMAL_COMMA_DOMAINS.contains(host.substring(secondLast + 1))
+            ? Convention.DECIMAL_COMMA : Convention.DECIMAL_POINT;
+    }
+
+    /**
+     * Parse the price in a text.
+     */
+    public static Optional<BigDecimal> parse(CharSequence text, Convention convention) {
+        long price = scan(text, convention);
+        return price != NO_PRICE ? Optional.of(toBigDecimal(price)) : Optional.empty();
+    }
+
+    /**
+     * Scan a text for its price, without allocating.
+     *
+     * @return the price packed as by {@link #unscaledValue} and {@link #scale}, or {@link #NO_PRICE}
+     */
+    public static long scan(CharSequence text, Convention convention) {
+        if (text == null) {
+            return NO_PRICE;
+        }
+        int length = text.length();
+        long first = NO_PRICE;
+        // Whether a currency marker precedes, with only spaces since
+        boolean marked = false;
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (isDigit(c)) {
+                int end = numberEnd(text, i, convention);
+                long price = value(text, i, end, convention);
+                if (price != NO_PRICE) {
+                    int next = skipSpaces(text, end);
+                    if (marked || (next < length && markerLength(text, next) > 0)) {
+                        return price;
+                    }
+                    if (first == NO_PRICE) {
+                        first = price;
+                    }
+                }
+                marked = false;
+                i = end;
+                continue;
+            }
+
+            int marker = markerLength(text, i);
+            if (marker > 0) {
+                marked = true;
+                i += marker;
+                continue;
+            }
+            if (!isSpace(c)) {
+                marked = false;
+            }
+            i++;
+        }
+        return first;
+    }
+
+    /**
+     * The unscaled value of a scanned price.
+     */
+    public static long unscaledValue(long price) {
+        return price >>> SCALE_BITS;
+    }
+
+    /**
+     * The scale of a scanned price, the number of digits after its decimal separator.
+     */
+    public static int scale(long price) {
+        return (int) (price & MAX_SCALE);
+    }
+
+    public static BigDecimal toBigDecimal(long price) {
+        return BigDecimal.valueOf(unscaledValue(price), scale(price));
+    }
+
+    /**
+     * End of the number starting at a digit: digits and separators, each separator followed by a digit.
+     * A number switches separator kind at most once ("1.234,56"); a further separator ends it.
+     */
+    private static int numberEnd(CharSequence text, int start, Convention convention) {
+        int length = text.length();
+        char kind = 0;
+        boolean switched = false;
+        int i = start;
+        while (true) {
+            while (i < length && isDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i >= length) {
+                return i;
+            }
+            char c = text.charAt(i);
+            int digits = digitsFrom(text, i + 1);
+            if (digits == 0) {
+                return i;
+            }
+            if (c == '.' || c == ',') {
+                if (switched) {
+                    return i;
+                }
+                if (kind != 0 && c != kind) {
+                    switched = true;
+                }
+                kind = c;
+            } else if (!(isSpace(c) && convention.spaceGrouping && digits == 3 && !switched
+                    && kind != convention.decimalSeparator)) {
+                return i;
+            }
+            i++;
+        }
+    }
+
+    private static long value(CharSequence text, int start, int end, Convention convention) {
+        long unscaled = 0;
+        int dots = 0;
+        int commas = 0;
+        char lastSeparator = 0;
+        int digitsAfterLast = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (isDigit(c)) {
+                if (unscaled > (MAX_UNSCALED - 9) / 10) {
+                    return NO_PRICE;
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                digitsAfterLast++;
+            } else if (c == '.' || c == ',') {
+                if (c == '.') {
+                    dots++;
+                } else {
+                    commas++;
+                }
+                lastSeparator = c;
+                digitsAfterLast = 0;
+            }
+        }
+
+        boolean decimal;
+        if (dots > 0 && commas > 0) {
+            decimal = true;
+        } else if (dots + commas == 1) {
+            decimal = lastSeparator == convention.decimalSeparator || digitsAfterLast != 3;
+        } else {
+            decimal = false;
+        }
+        int scale = decimal ? digitsAfterLast : 0;
+        if (scale > MAX_SCALE) {
+            return NO_PRICE;
+        }
+        return unscaled << SCALE_BITS | scale;
+    }
+
+    /**
+     * Length of the currency marker at a position, or 0 if there is none.
+     */
+    private static int markerLength(CharSequence text, int i) {
+        char c = text.charAt(i);
+        switch (c) {
+            case '₹', '$', '€', '£', '¥':
+                return 1;
+            default:
+                break;
+        }
+        if (!isAsciiLetter(c) || (i > 0 && isAsciiLetter(text.charAt(i - 1)))) {
+            return 0;
+        }
+        if (c == 'R') {
+            if (regionMatches(text, i, "R$")) {
+                return 2;
+            }
+            if (regionMatches(text, i, "Rs")) {
+                return i + 2 < text.length() && text.charAt(i + 2) == '.' ? 3
+                    : isWordEnd(text, i + 2) ? 2 : 0;
+            }
+        }
+        if (c < 'A' || c > 'Z') {
+            return 0;
+        }
+        for (String code : CURRENCY_CODES) {
+            if (regionMatches(text, i, code) && isWordEnd(text, i + code.length())) {
+                return code.length();
+            }
+        }
+        return 0;
+    }
+
+    private static boolean regionMatches(CharSequence text, int offset, String s) {
+        if (offset + s.length() > text.length()) {
+            return false;
+        }
+        for (int k = 0; k < s.length(); k++) {
+            if (text.charAt(offset + k) != s.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWordEnd(CharSequence text, int i) {
+        return i >= text.length() || !isAsciiLetter(text.charAt(i));
+    }
+
+    private static int digitsFrom(CharSequence text, int i) {
+        int count = 0;
+        while (i + count < text.length() && isDigit(text.charAt(i + count))) {
+            count++;
+        }
+        return count;
+    }
+
+    private static int skipSpaces(CharSequence text, int i) {
+        while (i < text.length() && isSpace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    // Including the no-break spaces used for grouping in French and Swedish prices
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\u00A0' || c == '\u202F' || c == '\t';
+    }
+}
@@ -0,0 +1,12 @@
+package com.pricetracker.app.scraping;
+
+/**
+ * Thrown when a request could not get through the egress proxy it was sent through, such as a refused or
+ * timed out connection to the proxy; the host never saw the request.
+ */
+public class ProxyFailureException extends ScrapingException {
+    
+    public ProxyFailureException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,382 @@
+package com.pricetracker.app.scraping;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The egress proxies scrapes are sent through, each with its own concurrency limit and health score.
+ *
+ * Proxies come from the JSON file configured in {@code app.scraper.proxies.location}; without one every
+ * request goes out directly, as before. Each host sticks to the proxy it was assigned for a run of requests
+ * while that proxy is healthy and has a free slot, so the host sees a browsing session rather than a client
+ * hopping between addresses; {@link ScrapeSessions} keeps the cookies of that session. Assignments come from
+ * a weighted round robin over the healthy proxies with a free slot, each proxy's share following its score,
+ * and a run is bounded, so even the sequential scheduler, scraping mostly one host, uses every proxy. A
+ * proxy's score is its success rate discounted by its CAPTCHA rate, both moving averages over its
+ * recent requests; a proxy that keeps getting blocked or failing is quarantined for a while.
+ */
+@Component
+public class ProxyPool {
+
+    private static final Logger log = LoggerFactory.getLogger(ProxyPool.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Weight of the latest request in the moving averages, about the last 10 requests count
+    private static final double SMOOTHING = 0.1;
+
+    // Share of the round robin a proxy keeps however low its score, so it can still earn its way back
+    private static final double MIN_WEIGHT = 0.05;
+
+    /**
+     * How a request through a proxy went, as far as the proxy is concerned.
+     */
+    public enum Outcome {
+        /** The proxy delivered a response, whatever the page said */
+        SUCCESS,
+        /** The host answered with a CAPTCHA page or blocking status */
+        BLOCKED,
+        /** The request did not get through, e.g. a timeout or refused connection */
+        FAILURE
+    }
+
+    private final List<Egress> proxies;
+    private final double blockedRateToQuarantine;
+    private final int failuresToQuarantine;
+    private final Duration quarantine;
+    private final Duration acquireTimeout;
+    private final int stickyRequests;
+
+    // Proxy each host is assigned to, guarded by the pool
+    private final Map<String, Assignment> assignments = new HashMap<>();
+
+    // Whether the last request found no proxy, guarded by the pool
+    private boolean exhausted;
+
+    @Autowired
+    public ProxyPool(
+            @Value("${app.scraper.proxies.location:}") String location,
+            @Value("${app.scraper.proxies.max-concurrency:2}") int defaultMaxConcurrency,
+            @Value("${app.scraper.proxies.blocked-rate-to-quarantine:0.5}") double blockedRateToQuarantine,
+            @Value("${app.scraper.proxies.failures-to-quarantine:5}") int failuresToQuarantine,
+            @Value("${app.scraper.proxies.quarantine-minutes:15}") long quarantineMinutes,
+            @Value("${app.scraper.proxies.acquire-timeout-ms:30000}") long acquireTimeoutMs,
+            @Value("${app.scraper.proxies.sticky-requests:10}") int stickyRequests) {
+        this(load(location), defaultMaxConcurrency, blockedRateToQuarantine, failuresToQuarantine,
+            Duration.ofMinutes(quarantineMinutes), Duration.ofMillis(acquireTimeoutMs), stickyRequests);
+    }
+
+    ProxyPool(List<ProxyDefinition> definitions, int defaultMaxConcurrency, double blockedRateToQuarantine,
+              int failuresToQuarantine, Duration quarantine, Duration acquireTimeout) {
+        this(definitions, defaultMaxConcurrency, blockedRateToQuarantine, failuresToQuarantine, quarantine,
+            acquireTimeout, 1);
+    }
+
+    ProxyPool(List<ProxyDefinition> definitions, int defaultMaxConcurrency, double blockedRateToQuarantine,
+              int failuresToQuarantine, Duration quarantine, Duration acquireTimeout, int stickyRequests) {
+        List<Egress> egresses = new ArrayList<>();
+        for (ProxyDefinition definition : definitions) {
+            if (definition.host() == null || definition.port() <= 0) {
+                throw new IllegalArgumentException("Proxy " + definition.name() + " has no host or port");
+            }
+            int maxConcurrency = definition.maxConcurrency() != null ? definition.maxConcurrency()
+                : defaultMaxConcurrency;
+            if (maxConcurrency < 1) {
+                throw new IllegalArgumentException("Proxy " + definition.name() + " allows no requests");
+            }
+            egresses.add(new Egress(definition, maxConcurrency));
+        }
+        this.proxies = List.copyOf(egresses);
+        this.blockedRateToQuarantine = blockedRateToQuarantine;
+        this.failuresToQuarantine = failuresToQuarantine;
+        this.quarantine = quarantine;
+        this.acquireTimeout = acquireTimeout;
+        this.stickyRequests = Math.max(1, stickyRequests);
+        log.info("Proxy pool initialized with {} proxies", proxies.size());
+    }
+
+    /**
+     * Pool without proxies, sending every request directly.
+     */
+    public static ProxyPool direct() {
+        return new ProxyPool(List.of(), 1, 1, Integer.MAX_VALUE, Duration.ZERO, Duration.ZERO);
+    }
+
+    /**
+     * Number of distinct exits requests leave from: the proxies, or the direct connection without any.
+     */
+    public int egressCount() {
+        return Math.max(1, proxies.size());
+    }
+
+    /**
+     * Take a slot on the proxy the host is assigned to, or on the next proxy in the round robin if the host
+     * used up its run on that proxy or the proxy cannot take the request. Waits for a slot to free up if all
+     * proxies are busy.
+     *
+     * @param host the host the request goes to, which the proxy is assigned to
+     * @return the lease of the slot, to release with the outcome of the request
+     * @throws NoProxyAvailableException if no proxy has a free slot within the acquire timeout, or at once if
+     *         every proxy stays quarantined beyond it
+     */
+    public Lease acquire(String host) {
+        if (proxies.isEmpty()) {
+            return new Lease(this, null);
+        }
+        String key = host != null ? host : "";
+        long deadline = System.nanoTime() + acquireTimeout.toNanos();
+        synchronized (this) {
+            while (true) {
+                Instant now = Instant.now();
+                Egress egress = assigned(key, now);
+                if (egress != null) {
+                    egress.active++;
+                    egress.requests++;
+                    exhausted = false;
+                    return new Lease(this, egress);
+                }
+                long remainingMillis = (deadline - System.nanoTime()) / 1_000_000;
+                if (remainingMillis <= 0 || allQuarantinedBeyond(now.plusMillis(remainingMillis))) {
+                    exhausted = true;
+                    throw new NoProxyAvailableException("No proxy available for " + key);
+                }
+                try {
+                    // Woken by released slots; quarantines end without a notification, so the wait is bounded
+                    wait(Math.min(remainingMillis, 1000));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ScrapingException("Interrupted while waiting for a proxy for " + key, e);
+                }
+            }
+        }
+    }
+
+    // The host's proxy while its run lasts, else a new assignment from the round robin
+    private Egress assigned(String host, Instant now) {
+        Assignment assignment = assignments.get(host);
+        if (assignment != null && assignment.remaining > 0 && isAvailable(assignment.egress, now)) {
+            assignment.remaining--;
+            return assignment.egress;
+        }
+        Egress egress = pick(now);
+        if (egress != null) {
+            assignments.put(host, new Assignment(egress, stickyRequests - 1));
+        }
+        return egress;
+    }
+
+    // No slot frees up before the time, so waiting until then is pointless
+    private boolean allQuarantinedBeyond(Instant time) {
+        for (Egress egress : proxies) {
+            if (!egress.isQuarantined(time)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the last request found no proxy to go through. Further requests are likely to fail the same
+     * way until a proxy comes out of quarantine or frees up.
+     */
+    public synchronized boolean isExhausted() {
+        return exhausted;
+    }
+
+    private static boolean isAvailable(Egress egress, Instant now) {
+        return !egress.isQuarantined(now) && egress.active < egress.maxConcurrency;
+    }
+
+    // Smooth weighted round robin over the proxies that can take a request, weighted by score
+    private Egress pick(Instant now) {
+        Egress best = null;
+        double totalWeight = 0;
+        for (Egress egress : proxies) {
+            if (!isAvailable(egress, now)) {
+                continue;
+            }
+            double weight = Math.max(MIN_WEIGHT, egress.score());
+            egress.currentWeight += weight;
+            totalWeight += weight;
+            if (best == null || egress.currentWeight > best.currentWeight) {
+                best = egress;
+            }
+        }
+        if (best != null) {
+            best.currentWeight -= totalWeight;
+        }
+        return best;
+    }
+
+    private synchronized void release(Egress egress, Outcome outcome) {
+        egress.active--;
+        egress.successRate += SMOOTHING * ((outcome == Outcome.SUCCESS ? 1 : 0) - egress.successRate);
+        egress.blockedRate += SMOOTHING * ((outcome == Outcome.BLOCKED ? 1 : 0) - egress.blockedRate);
+        egress.consecutiveFailures = outcome == Outcome.SUCCESS ? 0 : egress.consecutiveFailures + 1;
+
+        if (egress.blockedRate >= blockedRateToQuarantine || egress.consecutiveFailures >= failuresToQuarantine) {
+            egress.quarantinedUntil = Instant.now().plus(quarantine);
+            egress.quarantines++;
+            log.warn("Quarantining proxy {} until {} (success rate {}, blocked rate {}, {} failures in a row)",
+                egress.definition.name(), egress.quarantinedUntil, String.format("%.2f", egress.successRate),
+                String.format("%.2f", egress.blockedRate), egress.consecutiveFailures);
+            // It comes back on probation, with a clean record
+            egress.successRate = 1;
+            egress.blockedRate = 0;
+            egress.consecutiveFailures = 0;
+            egress.currentWeight = 0;
+            // Hosts on it move on at their next request rather than after their run
+            assignments.values().removeIf(assignment -> assignment.egress == egress);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Load, score and quarantine state of every proxy, for monitoring.
+     */
+    public synchronized List<ProxyStatus> status() {
+        Instant now = Instant.now();
+        return proxies.stream()
+            .map(egress -> new ProxyStatus(egress.definition.name(), egress.definition.host() + ":"
+                + egress.definition.port(), egress.active, egress.maxConcurrency, egress.requests,
+                egress.successRate, egress.blockedRate, egress.score(),
+                egress.isQuarantined(now) ? egress.quarantinedUntil : null, egress.quarantines))
+            .toList();
+    }
+
+    private static List<ProxyDefinition> load(String location) {
+        if (location == null || location.isBlank()) {
+            return List.of();
+        }
+        try (InputStream in = Files.newInputStream(Path.of(location))) {
+            ProxyFile file = objectMapper.readValue(in, ProxyFile.class);
+            return file.proxies() != null ? file.proxies() : List.of();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read proxies from " + location + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * A slot taken on a proxy, or on the direct connection if there are no proxies.
+     */
+    public static final class Lease {
+
+        private final ProxyPool pool;
+        private final Egress egress;
+        private boolean released;
+
+        private Lease(ProxyPool pool, Egress egress) {
+            this.pool = pool;
+            this.egress = egress;
+        }
+
+        /**
+         * The proxy to send the request through, or null to send it directly.
+         */
+        public Proxy proxy() {
+            return egress != null ? egress.proxy : null;
+        }
+
+        /**
+         * The user agent the proxy presents, or null if any will do.
+         */
+        public String userAgent() {
+            return egress != null ? egress.definition.userAgent() : null;
+        }
+
+        public String name() {
+            return egress != null ? egress.definition.name() : "direct";
+        }
+
+        /**
+         * Free the slot and score the proxy by the outcome of the request. Only the first call counts.
+         */
+        public void release(Outcome outcome) {
+            if (released) {
+                return;
+            }
+            released = true;
+            if (egress != null) {
+                pool.release(egress, outcome);
+            }
+        }
+    }
+
+    // State guarded by the pool
+    private static final class Egress {
+
+        final ProxyDefinition definition;
+        final int maxConcurrency;
+        final Proxy proxy;
+        int active;
+        long requests;
+        double successRate = 1;
+        double blockedRate;
+        int consecutiveFailures;
+        int quarantines;
+        Instant quarantinedUntil;
+        // Position in the weighted round robin
+        double currentWeight;
+
+        Egress(ProxyDefinition definition, int maxConcurrency) {
+            this.definition = definition;
+            this.maxConcurrency = maxConcurrency;
+            this.proxy = new Proxy(Proxy.Type.HTTP,
+                InetSocketAddress.createUnresolved(definition.host(), definition.port()));
+        }
+
+        double score() {
+            return successRate * (1 - blockedRate);
+        }
+
+        boolean isQuarantined(Instant now) {
+            return quarantinedUntil != null && now.isBefore(quarantinedUntil);
+        }
+    }
+
+    // A host's current proxy and how many more requests of its run go through it
+    private static final class Assignment {
+
+        final Egress egress;
+        int remaining;
+
+        Assignment(Egress egress, int remaining) {
+            this.egress = egress;
+            this.remaining = remaining;
+        }
+    }
+
+    /**
+     * A proxy of the proxies file.
+     *
+     * @param name name in logs and monitoring
+     * @param maxConcurrency requests through the proxy at a time; app.scraper.proxies.max-concurrency if null
+     * @param userAgent user agent sent through the proxy, so its exit looks like one browser; random if null
+     */
+    public record ProxyDefinition(String name, String host, int port, Integer maxConcurrency, String userAgent) {}
+
+    record ProxyFile(List<ProxyDefinition> proxies) {}
+
+    /**
+     * @param quarantinedUntil end of the proxy's quarantine, or null if it is in use
+     */
+    public record ProxyStatus(String name, String address, int active, int maxConcurrency, long requests,
+                              double successRate, double blockedRate, double score, Instant quarantinedUntil,
+                              int quarantines) {}
+}
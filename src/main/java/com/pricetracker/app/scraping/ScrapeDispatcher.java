@@ -0,0 +1,196 @@
+package com.pricetracker.app.scraping;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs scrapes in the background, with a limit on concurrent scrapes per marketplace host.
+ *
+ * Scrapes of one host run in the order they were submitted, at most {@code per-host-concurrency} at a time,
+ * so a batch never hits a marketplace harder than the sequential scraper did; scrapes of different hosts run
+ * in parallel on a shared pool. With egress proxies both limits apply per proxy, so throughput grows with the
+ * proxy pool. Cancelling the future of a scrape drops it if it has not started yet, and interrupts it if it
+ * has.
+ */
+@Component
+public class ScrapeDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(ScrapeDispatcher.class);
+
+    // Lane of the URLs without a host
+    private static final String NO_HOST = "";
+
+    private final int perHostConcurrency;
+    private final ThreadPoolExecutor executor;
+
+    // Guarded by this; lanes of hosts without running scrapes are removed
+    private final Map<String, Lane> lanes = new HashMap<>();
+
+    @Autowired
+    public ScrapeDispatcher(
+            @Value("${app.scraper.async.threads:4}") int threads,
+            @Value("${app.scraper.async.per-host-concurrency:1}") int perHostConcurrency,
+            ProxyPool proxyPool) {
+        if (threads < 1 || perHostConcurrency < 1) {
+            throw new IllegalArgumentException("Scrape threads and per-host concurrency must be positive");
+        }
+        // Every proxy is a client of its own to the hosts, so the limits apply per exit
+        int egressCount = proxyPool.egressCount();
+        this.perHostConcurrency = perHostConcurrency * egressCount;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("scraper-");
+        threadFactory.setDaemon(true);
+        // The queue holds at most one task per lane slot, the lanes hold the rest
+        executor = new ThreadPoolExecutor(threads * egressCount, threads * egressCount, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Dispatcher sending every scrape directly, without proxies.
+     */
+    public ScrapeDispatcher(int threads, int perHostConcurrency) {
+        this(threads, perHostConcurrency, ProxyPool.direct());
+    }
+
+    /**
+     * Run a scrape of a URL once its host has a free slot.
+     */
+    public <T> CompletableFuture<T> submit(String url, Supplier<T> scrape) {
+        String host = ScraperStrategyIndex.hostOf(url);
+        Task<T> task = new Task<>(host != null ? host : NO_HOST, scrape);
+        task.future.whenComplete((result, e) -> {
+            if (e instanceof CancellationException) {
+                task.interrupt();
+            }
+        });
+        offer(task);
+        return task.future;
+    }
+
+    /**
+     * Scrapes waiting for a slot of their host, for monitoring.
+     */
+    public synchronized int pending() {
+        return lanes.values().stream().mapToInt(lane -> lane.pending.size()).sum();
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+        synchronized (this) {
+            lanes.values().forEach(lane -> lane.pending.forEach(task -> task.future.cancel(false)));
+            lanes.clear();
+        }
+    }
+
+    private synchronized void offer(Task<?> task) {
+        Lane lane = lanes.computeIfAbsent(task.host, host -> new Lane());
+        if (lane.running < perHostConcurrency) {
+            lane.running++;
+            start(task);
+        } else {
+            lane.pending.add(task);
+        }
+    }
+
+    // Called with the lock held, with a slot of the task's lane taken
+    private void start(Task<?> task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    finished(task.host);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Scraper is shut down, dropping scrape of {}", task.host);
+            task.future.completeExceptionally(e);
+            finished(task.host);
+        }
+    }
+
+    // Hands the slot of a finished scrape to the next scrape of its host still wanted
+    private synchronized void finished(String host) {
+        Lane lane = lanes.get(host);
+        if (lane == null) {
+            return;
+        }
+        Task<?> next = lane.pending.poll();
+        while (next != null && next.future.isDone()) {
+            next = lane.pending.poll();
+        }
+        if (next != null) {
+            start(next);
+            return;
+        }
+        lane.running--;
+        if (lane.running == 0) {
+            lanes.remove(host);
+        }
+    }
+
+    private static final class Lane {
+        final ArrayDeque<Task<?>> pending = new ArrayDeque<>();
+        int running;
+    }
+
+    private static final class Task<T> {
+
+        final String host;
+        final Supplier<T> scrape;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        // Guarded by this; the thread running the scrape, so cancelling can interrupt it
+        private Thread runner;
+
+        Task(String host, Supplier<T> scrape) {
+            this.host = host;
+            this.scrape = scrape;
+        }
+
+        void run() {
+            // Cancelled while waiting in the executor queue
+            if (future.isDone()) {
+                return;
+            }
+            synchronized (this) {
+                runner = Thread.currentThread();
+            }
+            try {
+                future.complete(scrape.get());
+            } catch (Throwable e) {
+                // Errors too, or the future would never complete and its caller would wait forever
+                future.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                }
+                // A cancel that came in as the scrape finished must not interrupt the next one on this thread
+                Thread.interrupted();
+            }
+        }
+
+        synchronized void interrupt() {
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+    }
+}
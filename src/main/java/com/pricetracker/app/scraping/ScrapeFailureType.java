@@ -0,0 +1,65 @@
+package com.pricetracker.app.scraping;
+
+import org.jsoup.HttpStatusException;
+
+/**
+ * Classification of a failed scrape, deciding how soon the URL is worth trying again.
+ */
+public enum ScrapeFailureType {
+
+    /**
+     * Timeouts, connection errors and server errors; likely to succeed again shortly.
+     */
+    TRANSIENT,
+
+    /**
+     * CAPTCHA pages and rate limiting; the host is pushing back, so retrying sooner only makes it worse.
+     */
+    BLOCKED,
+
+    /**
+     * The request did not get out: no egress proxy could take it, or the proxy it went through could not be
+     * reached; says nothing about the URL.
+     */
+    EGRESS,
+
+    /**
+     * Pages that loaded but show no price, such as products that are out of stock or unavailable; not worth
+     * retrying early, but they usually come back, so the URL is kept.
+     */
+    NO_PRICE,
+
+    /**
+     * Missing pages; retrying will not help until the product page changes.
+     */
+    PERMANENT;
+
+    /**
+     * Classify the exception a fetch failed with.
+     */
+    public static ScrapeFailureType classify(Exception e) {
+        if (e instanceof CaptchaException) {
+            return BLOCKED;
+        }
+        if (e instanceof NoProxyAvailableException || e instanceof ProxyFailureException) {
+            return EGRESS;
+        }
+        if (e instanceof HttpStatusException httpError) {
+            return classifyStatus(httpError.getStatusCode());
+        }
+        return TRANSIENT;
+    }
+
+    /**
+     * Classify an HTTP error status.
+     */
+    public static ScrapeFailureType classifyStatus(int status) {
+        if (status == 403 || status == 429 || status == 503) {
+            return BLOCKED;
+        }
+        if (status >= 500 || status == 408) {
+            return TRANSIENT;
+        }
+        return PERMANENT;
+    }
+}
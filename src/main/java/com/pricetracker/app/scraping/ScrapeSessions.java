@@ -0,0 +1,137 @@
+package com.pricetracker.app.scraping;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.CookieManager;
+import java.net.CookieStore;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Browser-like sessions for fetching pages: a cookie jar and a user agent kept per host and egress identity.
+ *
+ * A marketplace sees a new visitor on every cookieless request and answers it with redirects, location
+ * interstitials and CAPTCHAs more often than a returning one. Fetches of a host through the same proxy (or the
+ * direct connection) therefore share one session, reused across scheduled checks, that keeps the cookies the
+ * host set and presents the same user agent throughout. A session is rotated for a fresh one when it gets
+ * blocked, when it reaches its maximum age or number of requests, and when it has been idle too long.
+ */
+@Component
+public class ScrapeSessions {
+
+    private static final Logger log = LoggerFactory.getLogger(ScrapeSessions.class);
+
+    private final boolean enabled;
+    private final Duration maxAge;
+    private final long maxRequests;
+
+    // Sessions by host and egress; idle sessions expire
+    private final Cache<String, ScrapeSession> sessions;
+
+    public ScrapeSessions(
+            @Value("${app.scraper.sessions.enabled:true}") boolean enabled,
+            @Value("${app.scraper.sessions.max-age-minutes:120}") long maxAgeMinutes,
+            @Value("${app.scraper.sessions.idle-minutes:30}") long idleMinutes,
+            @Value("${app.scraper.sessions.max-requests:500}") long maxRequests,
+            @Value("${app.scraper.sessions.max-sessions:1000}") long maxSessions) {
+        this.enabled = enabled;
+        this.maxAge = Duration.ofMinutes(maxAgeMinutes);
+        this.maxRequests = maxRequests;
+        this.sessions = Caffeine.newBuilder()
+            .maximumSize(maxSessions)
+            .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+            .build();
+    }
+
+    /**
+     * Sessions that are never reused, so every fetch starts without cookies.
+     */
+    public static ScrapeSessions disabled() {
+        return new ScrapeSessions(false, 0, 1, 0, 0);
+    }
+
+    /**
+     * The session to fetch a page of a host with, starting a new one if there is none still usable.
+     *
+     * @param host the host the request goes to
+     * @param lease the proxy slot the request was given
+     * @param userAgents picks the user agent of a new session, if the proxy has none of its own
+     */
+    public ScrapeSession open(String host, ProxyPool.Lease lease, Supplier<String> userAgents) {
+        String key = (host != null ? host : "") + " via " + lease.name();
+        if (!enabled) {
+            return newSession(key, lease, userAgents);
+        }
+        Instant now = Instant.now();
+        ScrapeSession session = sessions.asMap().compute(key, (k, current) ->
+            current != null && current.isUsable(now, maxAge, maxRequests) ? current : newSession(k, lease, userAgents));
+        session.requests.incrementAndGet();
+        return session;
+    }
+
+    /**
+     * Finish a fetch made with a session. A blocked session is dropped, so the next fetch starts over.
+     */
+    public void close(ScrapeSession session, ProxyPool.Outcome outcome) {
+        if (enabled && outcome == ProxyPool.Outcome.BLOCKED && sessions.asMap().remove(session.key, session)) {
+            log.info("Rotating session {} after it was blocked on request {}", session.key, session.requests.get());
+        }
+    }
+
+    /**
+     * Number of sessions kept for reuse.
+     */
+    public long size() {
+        sessions.cleanUp();
+        return sessions.estimatedSize();
+    }
+
+    private static ScrapeSession newSession(String key, ProxyPool.Lease lease, Supplier<String> userAgents) {
+        String userAgent = lease.userAgent() != null ? lease.userAgent() : userAgents.get();
+        return new ScrapeSession(key, userAgent, Instant.now());
+    }
+
+    /**
+     * Cookie jar and user agent of a session. The cookie store is safe to share between concurrent fetches.
+     */
+    public static final class ScrapeSession {
+
+        private final String key;
+        private final String userAgent;
+        private final Instant createdAt;
+        private final CookieStore cookieStore = new CookieManager().getCookieStore();
+        private final AtomicLong requests = new AtomicLong();
+
+        private ScrapeSession(String key, String userAgent, Instant createdAt) {
+            this.key = key;
+            this.userAgent = userAgent;
+            this.createdAt = createdAt;
+        }
+
+        public String userAgent() {
+            return userAgent;
+        }
+
+        public CookieStore cookieStore() {
+            return cookieStore;
+        }
+
+        /**
+         * Whether the session made requests before this one, so the host has seen it already.
+         */
+        public boolean isReused() {
+            return requests.get() > 1;
+        }
+
+        private boolean isUsable(Instant now, Duration maxAge, long maxRequests) {
+            return requests.get() < maxRequests && now.isBefore(createdAt.plus(maxAge));
+        }
+    }
+}
@@ -4,8 +4,11 @@ import org.jsoup.nodes.Document;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
 
 /**
  * Service interface for scraping product information from retail websites.
@@ -20,6 +23,14 @@ public interface ScraperService {
      */
     Optional<BigDecimal> scrapePrice(String productUrl);
     
+    /**
+     * Scrape the price from a product URL, classifying the failure if there is no price.
+     * 
+     * @param productUrl the product URL to scrape
+     * @return the scraped price, or the type and reason of the failure
+     */
+    PriceScrapeResult scrapePriceResult(String productUrl);
+    
     /**
      * Scrape detailed product information from a product URL.
      * 
@@ -28,6 +39,33 @@ public interface ScraperService {
      */
     Optional<ProductDetails> scrapeProductDetails(String productUrl);
     
+    /**
+     * Scrape the price from a product URL in the background.
+     * Scrapes of one host run in submission order, within the service's per-host limit.
+     * 
+     * @param productUrl the product URL to scrape
+     * @return a future of the scraped price, or the type and reason of the failure;
+     *         cancelling it drops or interrupts the scrape
+     */
+    CompletableFuture<PriceScrapeResult> scrapePriceAsync(String productUrl);
+    
+    /**
+     * Scrape detailed product information from a product URL in the background.
+     * 
+     * @param productUrl the product URL to scrape
+     * @return a future of the product details, empty if scraping failed; cancelling it drops or interrupts the scrape
+     */
+    CompletableFuture<Optional<ProductDetails>> scrapeProductDetailsAsync(String productUrl);
+    
+    /**
+     * Scrape the prices of many product URLs, handing each result over as soon as it is in.
+     * 
+     * @param productUrls the product URLs to scrape
+     * @param onResult called with each URL and its result as the scrape completes, on a scraper thread
+     * @return a future completed once every result was handed over; cancelling it cancels the scrapes not done yet
+     */
+    CompletableFuture<Void> scrapePrices(Collection<String> productUrls, BiConsumer<String, PriceScrapeResult> onResult);
+    
     /**
      * Register a new scraper strategy.
      * 
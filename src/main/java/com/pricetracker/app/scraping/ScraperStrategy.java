@@ -4,6 +4,7 @@ import org.jsoup.nodes.Document;
 
 import java.math.BigDecimal;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Interface defining a scraping strategy for a specific website.
@@ -19,6 +20,27 @@ public interface ScraperStrategy {
      */
     boolean canHandle(String url);
     
+    /**
+     * Host suffixes of the sites this strategy handles, e.g. "amazon.in". A suffix covers the host itself and
+     * its subdomains. URLs are dispatched to strategies by host; strategies without suffixes are asked
+     * through {@link #canHandle(String)} instead.
+     * 
+     * @return the host suffixes owned by this strategy
+     */
+    default Set<String> hostSuffixes() {
+        return Set.of();
+    }
+    
+    /**
+     * Hosts of URL shorteners whose links this strategy expands, e.g. "amzn.in". Only URLs on these hosts
+     * are expanded, as expanding takes a network round trip.
+     * 
+     * @return the shortener hosts owned by this strategy
+     */
+    default Set<String> shortenerHosts() {
+        return Set.of();
+    }
+    
     /**
      * Extract the price from the given document.
      * 
@@ -0,0 +1,182 @@
+package com.pricetracker.app.scraping;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Immutable index of scraper strategies by the hosts they own.
+ *
+ * A URL is dispatched by walking the labels of its host from the full host towards the top level domain
+ * ({@code www.amazon.in}, {@code amazon.in}, {@code in}) with one hash lookup each, so dispatch cost does not
+ * grow with the number of strategies. Shortener hosts map to the strategy that expands them, so short links
+ * are dispatched without expanding them first. Strategies that declare no hosts are asked through
+ * {@link ScraperStrategy#canHandle(String)}, after the indexed ones.
+ */
+public final class ScraperStrategyIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ScraperStrategyIndex.class);
+
+    /** Marketplace of the URLs whose host no strategy claimed */
+    public static final String OTHER_MARKETPLACE = "other";
+
+    private final List<ScraperStrategy> strategies;
+    private final Map<String, ScraperStrategy> bySuffix = new HashMap<>();
+    private final Map<String, ScraperStrategy> byShortener = new HashMap<>();
+    private final List<ScraperStrategy> unindexed = new ArrayList<>();
+
+    /**
+     * @param strategies the strategies in registration order; the first one to claim a host owns it
+     */
+    public ScraperStrategyIndex(List<ScraperStrategy> strategies) {
+        this.strategies = List.copyOf(strategies);
+        for (ScraperStrategy strategy : this.strategies) {
+            Set<String> suffixes = strategy.hostSuffixes();
+            if (suffixes.isEmpty()) {
+                unindexed.add(strategy);
+            }
+            for (String suffix : suffixes) {
+                claim(bySuffix, normalize(suffix), strategy);
+            }
+            for (String shortener : strategy.shortenerHosts()) {
+                claim(byShortener, normalize(shortener), strategy);
+            }
+        }
+    }
+
+    public List<ScraperStrategy> strategies() {
+        return strategies;
+    }
+
+    /**
+     * Find the strategy for a URL.
+     */
+    public Optional<ScraperStrategy> find(String url) {
+        String host = hostOf(url);
+        if (host != null) {
+            ScraperStrategy strategy = byShortener.get(host);
+            if (strategy == null) {
+                strategy = lookupSuffix(bySuffix, host);
+            }
+            if (strategy != null) {
+                return Optional.of(strategy);
+            }
+        }
+
+        for (ScraperStrategy strategy : unindexed) {
+            if (strategy.canHandle(url)) {
+                return Optional.of(strategy);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Find the strategy that expands a URL, if the URL is on a shortener host.
+     */
+    public Optional<ScraperStrategy> findShortener(String url) {
+        String host = hostOf(url);
+        return host != null ? Optional.ofNullable(byShortener.get(host)) : Optional.empty();
+    }
+
+    /**
+     * The marketplace of a URL, for metric tags: the shortener host or host suffix a strategy claimed for it,
+     * e.g. {@code amazon.in} for {@code https://www.amazon.in/dp/...}, or {@link #OTHER_MARKETPLACE} if no
+     * strategy claimed its host. Tag values are thereby bounded by the strategies, whatever URLs users track.
+     */
+    public String marketplaceOf(String url) {
+        String host = hostOf(url);
+        if (host == null) {
+            return OTHER_MARKETPLACE;
+        }
+        if (byShortener.containsKey(host)) {
+            return host;
+        }
+        for (int start = 0; start >= 0 && start < host.length(); ) {
+            String suffix = start == 0 ? host : host.substring(start);
+            if (bySuffix.containsKey(suffix)) {
+                return suffix;
+            }
+            int dot = host.indexOf('.', start);
+            start = dot < 0 ? -1 : dot + 1;
+        }
+        return OTHER_MARKETPLACE;
+    }
+
+    /**
+     * Whether the host of a URL is one of the suffixes or a subdomain of one.
+     */
+    public static boolean hostMatches(String url, Set<String> suffixes) {
+        String host = hostOf(url);
+        if (host == null) {
+            return false;
+        }
+        for (int start = 0; start >= 0 && start < host.length(); ) {
+            if (suffixes.contains(host.substring(start))) {
+                return true;
+            }
+            int dot = host.indexOf('.', start);
+            start = dot < 0 ? -1 : dot + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Lower case host of an absolute URL, or null if it has none. Parsed by hand, as this runs for every
+     * scrape and java.net.URI validates the whole URL.
+     */
+    public static String hostOf(String url) {
+        if (url == null) {
+            return null;
+        }
+        int schemeEnd = url.indexOf("://");
+        if (schemeEnd < 0) {
+            return null;
+        }
+        int start = schemeEnd + 3;
+        int end = start;
+        while (end < url.length() && "/?#".indexOf(url.charAt(end)) < 0) {
+            end++;
+        }
+        String authority = url.substring(start, end);
+        authority = authority.substring(authority.lastIndexOf('@') + 1);
+        int port = authority.lastIndexOf(':');
+        if (port >= 0 && !authority.endsWith("]")) {
+            authority = authority.substring(0, port);
+        }
+        String host = normalize(authority);
+        return host.isEmpty() ? null : host;
+    }
+
+    private static ScraperStrategy lookupSuffix(Map<String, ScraperStrategy> index, String host) {
+        for (int start = 0; start >= 0 && start < host.length(); ) {
+            ScraperStrategy strategy = index.get(start == 0 ? host : host.substring(start));
+            if (strategy != null) {
+                return strategy;
+            }
+            int dot = host.indexOf('.', start);
+            start = dot < 0 ? -1 : dot + 1;
+        }
+        return null;
+    }
+
+    private static void claim(Map<String, ScraperStrategy> index, String host, ScraperStrategy strategy) {
+        ScraperStrategy owner = index.putIfAbsent(host, strategy);
+        if (owner != null && owner != strategy) {
+            log.warn("Host {} is claimed by both {} and {}, keeping {}", host,
+                owner.getClass().getSimpleName(), strategy.getClass().getSimpleName(), owner.getClass().getSimpleName());
+        }
+    }
+
+    private static String normalize(String host) {
+        String normalized = host.trim().toLowerCase(Locale.ROOT);
+        return normalized.endsWith(".") ? normalized.substring(0, normalized.length() - 1) : normalized;
+    }
+}
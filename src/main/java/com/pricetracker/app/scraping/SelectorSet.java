@@ -0,0 +1,261 @@
+package com.pricetracker.app.scraping;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.Collector;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+import org.jsoup.select.QueryParser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A set of CSS selectors matched together in a single walk over a document.
+ *
+ * Running selectors one by one walks the whole document once per selector. A selector set is compiled once,
+ * and indexes its selectors by the id, class or tag their rightmost element must have, so each element is
+ * only tested against the few selectors that can match it. The matches of every selector are recorded in
+ * document order, and extraction picks its winners from them afterwards.
+ */
+public final class SelectorSet {
+
+    // Evaluating against an empty element clears the per-thread match memo of structural evaluators
+    private static final Element EMPTY = new Element("p");
+
+    private final Map<String, Integer> ids = new LinkedHashMap<>();
+    private final Map<String, List<Rule>> byId = new HashMap<>();
+    private final Map<String, List<Rule>> byClass = new HashMap<>();
+    private final Map<String, List<Rule>> byTag = new HashMap<>();
+    private final List<Rule> unindexed = new ArrayList<>();
+    private final List<Rule> rules = new ArrayList<>();
+
+    private SelectorSet(List<String> selectors) {
+        for (String selector : selectors) {
+            if (ids.containsKey(selector)) {
+                continue;
+            }
+            int id = ids.size();
+            ids.put(selector, id);
+            // Each part of a selector group is indexed on its own, and records under the group
+            for (String part : splitGroup(selector)) {
+                Rule rule = new Rule(id, QueryParser.parse(part));
+                rules.add(rule);
+                String key = indexKey(part);
+                switch (key.charAt(0)) {
+                    case '#' -> byId.computeIfAbsent(key.substring(1), k -> new ArrayList<>()).add(rule);
+                    case '.' -> byClass.computeIfAbsent(key.substring(1).toLowerCase(Locale.ROOT), k -> new ArrayList<>())
+                        .add(rule);
+                    case '*' -> unindexed.add(rule);
+                    default -> byTag.computeIfAbsent(key, k -> new ArrayList<>()).add(rule);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compile selectors into a set; compile once and reuse, as parsing the selectors is the expensive part.
+     */
+    public static SelectorSet compile(List<String> selectors) {
+        return new SelectorSet(selectors);
+    }
+
+    /**
+     * Match every selector of the set against the elements under a root, in one walk.
+     */
+    public Matches match(Element root) {
+        List<List<Element>> matches = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            matches.add(new ArrayList<>(1));
+        }
+
+        try {
+            walk(root, matches);
+        } finally {
+            // Structural evaluators (descendant, child) memoize per root; jsoup clears that only through Collector
+            for (Rule rule : rules) {
+                Collector.findFirst(rule.evaluator(), EMPTY);
+            }
+        }
+        return new Matches(ids, matches);
+    }
+
+    private void walk(Element root, List<List<Element>> matches) {
+        NodeTraversor.traverse(new NodeVisitor() {
+            @Override
+            public void head(Node node, int depth) {
+                if (!(node instanceof Element element)) {
+                    return;
+                }
+                test(root, element, byTag.get(element.normalName()), matches);
+                String id = element.id();
+                if (!id.isEmpty()) {
+                    test(root, element, byId.get(id), matches);
+                }
+                String classes = element.className();
+                if (!classes.isEmpty() && !byClass.isEmpty()) {
+                    // Class matching is case insensitive, like jsoup's
+                    forEachClass(classes, className ->
+                        test(root, element, byClass.get(className.toLowerCase(Locale.ROOT)), matches));
+                }
+                test(root, element, unindexed, matches);
+            }
+        }, root);
+    }
+
+    private static void test(Element root, Element element, List<Rule> rules, List<List<Element>> matches) {
+        if (rules == null) {
+            return;
+        }
+        for (Rule rule : rules) {
+            if (rule.evaluator().matches(root, element)) {
+                List<Element> found = matches.get(rule.id());
+                // Two parts of a group can match the same element
+                if (found.isEmpty() || found.get(found.size() - 1) != element) {
+                    found.add(element);
+                }
+            }
+        }
+    }
+
+    private static void forEachClass(String classes, Consumer<String> action) {
+        int start = -1;
+        for (int i = 0; i <= classes.length(); i++) {
+            boolean whitespace = i == classes.length() || Character.isWhitespace(classes.charAt(i));
+            if (whitespace && start >= 0) {
+                action.accept(classes.substring(start, i));
+                start = -1;
+            } else if (!whitespace && start < 0) {
+                start = i;
+            }
+        }
+    }
+
+    /**
+     * Split a selector group at its top level commas.
+     */
+    static List<String> splitGroup(String selector) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        char quote = 0;
+        int start = 0;
+        for (int i = 0; i < selector.length(); i++) {
+            char c = selector.charAt(i);
+            if (quote != 0) {
+                quote = c == quote ? 0 : quote;
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '[' || c == '(') {
+                depth++;
+            } else if (c == ']' || c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                parts.add(selector.substring(start, i).trim());
+                start = i + 1;
+            }
+        }
+        parts.add(selector.substring(start).trim());
+        return parts;
+    }
+
+    /**
+     * What the rightmost element of a selector must have: "#id", ".class", a tag name, or "*" if none of them.
+     * An id is preferred over a class over a tag, as it narrows the candidates the most.
+     */
+    static String indexKey(String selector) {
+        // Start of the rightmost compound selector, after the last top level combinator
+        int depth = 0;
+        char quote = 0;
+        int compoundStart = 0;
+        for (int i = 0; i < selector.length(); i++) {
+            char c = selector.charAt(i);
+            if (quote != 0) {
+                quote = c == quote ? 0 : quote;
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '[' || c == '(') {
+                depth++;
+            } else if (c == ']' || c == ')') {
+                depth--;
+            } else if (depth == 0 && (c == ' ' || c == '>' || c == '+' || c == '~')) {
+                compoundStart = i + 1;
+            }
+        }
+        String compound = selector.substring(compoundStart).trim();
+
+        String tag = null;
+        String className = null;
+        depth = 0;
+        for (int i = 0; i < compound.length(); i++) {
+            char c = compound.charAt(i);
+            if (c == '[' || c == '(') {
+                depth++;
+            } else if (c == ']' || c == ')') {
+                depth--;
+            } else if (depth == 0 && c == '#') {
+                return "#" + identifier(compound, i + 1);
+            } else if (depth == 0 && c == '.' && className == null) {
+                className = identifier(compound, i + 1);
+            } else if (i == 0 && Character.isLetter(c)) {
+                tag = identifier(compound, 0).toLowerCase(Locale.ROOT);
+            }
+        }
+        if (className != null && !className.isEmpty()) {
+            return "." + className;
+        }
+        return tag != null && !tag.isEmpty() ? tag : "*";
+    }
+
+    private static String identifier(String s, int start) {
+        int end = start;
+        while (end < s.length() && (Character.isLetterOrDigit(s.charAt(end)) || s.charAt(end) == '-'
+                || s.charAt(end) == '_')) {
+            end++;
+        }
+        return s.substring(start, end);
+    }
+
+    private record Rule(int id, Evaluator evaluator) {}
+
+    /**
+     * The elements each selector of a set matched, in document order.
+     */
+    public static final class Matches {
+
+        private final Map<String, Integer> ids;
+        private final List<List<Element>> matches;
+
+        private Matches(Map<String, Integer> ids, List<List<Element>> matches) {
+            this.ids = ids;
+            this.matches = matches;
+        }
+
+        /**
+         * The elements a selector matched.
+         *
+         * @throws IllegalArgumentException if the selector is not part of the set
+         */
+        public List<Element> all(String selector) {
+            Integer id = ids.get(selector);
+            if (id == null) {
+                throw new IllegalArgumentException("Selector not compiled into this set: " + selector);
+            }
+            return Collections.unmodifiableList(matches.get(id));
+        }
+
+        /**
+         * The first element a selector matched, or null if none did.
+         */
+        public Element first(String selector) {
+            List<Element> found = all(selector);
+            return found.isEmpty() ? null : found.get(0);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.pricetracker.app.scraping;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Which price selector produced the accepted price, per product and per marketplace.
+ *
+ * For a given product page the same selector wins almost every time, so extraction from a selector set's
+ * matches tries the product's last winner first, then the marketplace's selectors by hits, then the rest in
+ * their fixed priority. A learned selector's price is only accepted when no selector before it in priority
+ * order yields one; when one does, that price is taken, counted as a mismatch and the product's winner is
+ * forgotten, so the learned order never changes a price.
+ */
+@Component
+public class SelectorStats {
+
+    // Set on threads replaying stored pages, whose extractions are not live traffic
+    private static final ThreadLocal<Boolean> REPLAYING = ThreadLocal.withInitial(() -> false);
+
+    private final boolean enabled;
+
+    // Last winning selector by strategy and product URL
+    private final Cache<String, String> productWinners;
+
+    // Hits and mismatches by strategy, marketplace host and selector
+    private final Map<Key, Counts> counts = new ConcurrentHashMap<>();
+
+    public SelectorStats(
+            @Value("${app.scraper.selector-stats.enabled:true}") boolean enabled,
+            @Value("${app.scraper.selector-stats.max-products:100000}") long maxProducts) {
+        this.enabled = enabled;
+        this.productWinners = Caffeine.newBuilder().maximumSize(maxProducts).build();
+    }
+
+    /**
+     * Run an extraction of a replayed page, whose selector hits are not recorded.
+     */
+    public static <T> T replaying(Supplier<T> extraction) {
+        boolean outer = REPLAYING.get();
+        REPLAYING.set(true);
+        try {
+            return extraction.get();
+        } finally {
+            REPLAYING.set(outer);
+        }
+    }
+
+    /**
+     * Whether selector hits on the current thread come from live extractions.
+     */
+    public static boolean isRecording() {
+        return !REPLAYING.get();
+    }
+
+    /**
+     * The order to try selectors in for a page.
+     *
+     * @param strategy name of the strategy extracting
+     * @param url the URL of the page
+     * @param selectors the selectors in their fixed priority order
+     * @return the product's last winner, then the marketplace's selectors by hits, then the rest by priority
+     */
+    public List<String> order(String strategy, String url, List<String> selectors) {
+        List<String> order = new ArrayList<>(selectors);
+        if (!enabled) {
+            return order;
+        }
+
+        String host = hostOf(url);
+        Map<String, Long> hits = new HashMap<>();
+        for (String selector : selectors) {
+            hits.put(selector, hits(strategy, host, selector));
+        }
+        // Stable sort, so selectors without hits keep their priority
+        order.sort(Comparator.comparingLong((String selector) -> -hits.get(selector)));
+
+        String winner = productWinners.getIfPresent(productKey(strategy, url));
+        if (winner != null && order.remove(winner)) {
+            order.add(0, winner);
+        }
+        return order;
+    }
+
+    /**
+     * Record the selector that produced the accepted price of a page.
+     */
+    public void recordHit(String strategy, String url, String selector) {
+        if (!enabled || !isRecording()) {
+            return;
+        }
+        productWinners.put(productKey(strategy, url), selector);
+        counts(strategy, hostOf(url), selector).hits.increment();
+    }
+
+    /**
+     * Record that a learned selector yielded a price while a selector before it in priority order did too.
+     */
+    public void recordMismatch(String strategy, String url, String selector) {
+        if (!enabled || !isRecording()) {
+            return;
+        }
+        productWinners.invalidate(productKey(strategy, url));
+        counts(strategy, hostOf(url), selector).mismatches.increment();
+    }
+
+    /**
+     * Statistics of every selector that produced a price or a mismatch, most hits first within each marketplace.
+     */
+    public List<SelectorStat> snapshot() {
+        Map<String, Long> hostTotals = new ConcurrentHashMap<>();
+        counts.forEach((key, value) ->
+            hostTotals.merge(key.strategy() + " " + key.host(), value.hits.sum(), Long::sum));
+
+        return counts.entrySet().stream()
+            .map(entry -> {
+                Key key = entry.getKey();
+                long hits = entry.getValue().hits.sum();
+                long total = hostTotals.getOrDefault(key.strategy() + " " + key.host(), 0L);
+                return new SelectorStat(key.strategy(), key.host(), key.selector(), hits,
+                    total > 0 ? (double) hits / total : 0, entry.getValue().mismatches.sum());
+            })
+            .sorted(Comparator.comparing(SelectorStat::strategy)
+                .thenComparing(SelectorStat::host)
+                .thenComparing(Comparator.comparingLong(SelectorStat::hits).reversed()))
+            .toList();
+    }
+
+    private long hits(String strategy, String host, String selector) {
+        Counts value = counts.get(new Key(strategy, host, selector));
+        return value != null ? value.hits.sum() : 0;
+    }
+
+    private Counts counts(String strategy, String host, String selector) {
+        return counts.computeIfAbsent(new Key(strategy, host, selector), key -> new Counts());
+    }
+
+    private static String hostOf(String url) {
+        String host = ScraperStrategyIndex.hostOf(url);
+        return host != null ? host : "unknown";
+    }
+
+    private static String productKey(String strategy, String url) {
+        // Tracking parameters and fragments do not make a different product page
+        int end = url.length();
+        int query = url.indexOf('?');
+        int fragment = url.indexOf('#');
+        if (query >= 0) {
+            end = query;
+        }
+        if (fragment >= 0 && fragment < end) {
+            end = fragment;
+        }
+        return strategy + " " + url.substring(0, end);
+    }
+
+    private record Key(String strategy, String host, String selector) {}
+
+    private static final class Counts {
+        final LongAdder hits = new LongAdder();
+        final LongAdder mismatches = new LongAdder();
+    }
+
+    /**
+     * @param share the selector's share of the accepted prices of its marketplace
+     * @param mismatches extractions where the selector, tried first as learned, lost to one before it in
+     *                   priority order
+     */
+    public record SelectorStat(String strategy, String host, String selector, long hits, double share,
+                               long mismatches) {}
+}
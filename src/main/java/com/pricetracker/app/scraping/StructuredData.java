@@ -0,0 +1,205 @@
+package com.pricetracker.app.scraping;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Product data a page declares in machine readable form: schema.org JSON-LD, microdata and price meta tags.
+ *
+ * Most shops embed it for search engines, so reading it first is both cheaper and more accurate than
+ * guessing from the DOM. The sources are collected in one pass over the document, in order of
+ * preference: JSON-LD Product/Offer, then microdata ({@code itemprop}), then Open Graph/product meta tags.
+ */
+public record StructuredData(
+    Optional<String> name,
+    Optional<String> imageUrl,
+    Optional<BigDecimal> price
+) {
+    private static final Logger log = LoggerFactory.getLogger(StructuredData.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final String SOURCES =
+        "script[type=application/ld+json], meta[property], meta[name], [itemprop=price], [itemprop=name], [itemprop=image]";
+
+    /**
+     * Read the structured product data of a document.
+     */
+    public static StructuredData of(Document doc) {
+        String jsonLdName = null, jsonLdImage = null;
+        BigDecimal jsonLdPrice = null;
+        String itemName = null, itemImage = null;
+        BigDecimal itemPrice = null;
+        String metaName = null, metaImage = null;
+        BigDecimal metaPrice = null;
+
+        for (Element element : doc.select(SOURCES)) {
+            if (element.normalName().equals("script")) {
+                if (jsonLdPrice != null) {
+                    continue;
+                }
+                JsonNode product = findProduct(parseJson(element.data()));
+                if (product != null) {
+                    jsonLdName = firstNonNull(jsonLdName, text(product.get("name")));
+                    jsonLdImage = firstNonNull(jsonLdImage, image(product.get("image")));
+                    jsonLdPrice = offerPrice(product.has("offers") ? product.get("offers") : product);
+                }
+                continue;
+            }
+
+            String itemprop = element.attr("itemprop");
+            if (!itemprop.isEmpty()) {
+                String value = element.hasAttr("content") ? element.attr("content")
+                    : itemprop.equals("image") ? element.attr("abs:src") : element.text();
+                switch (itemprop) {
+                    case "price" -> itemPrice = firstNonNull(itemPrice, parsePrice(value));
+                    case "name" -> itemName = firstNonNull(itemName, blankToNull(value));
+                    case "image" -> itemImage = firstNonNull(itemImage, blankToNull(value));
+                    default -> { }
+                }
+                continue;
+            }
+
+            String property = element.hasAttr("property") ? element.attr("property") : element.attr("name");
+            String content = element.attr("content");
+            switch (property) {
+                case "product:price:amount", "og:price:amount", "price" ->
+                    metaPrice = firstNonNull(metaPrice, parsePrice(content));
+                case "og:title" -> metaName = firstNonNull(metaName, blankToNull(content));
+                case "og:image" -> metaImage = firstNonNull(metaImage, blankToNull(content));
+                default -> { }
+            }
+        }
+
+        return new StructuredData(
+            Optional.ofNullable(firstNonNull(jsonLdName, firstNonNull(itemName, metaName))),
+            Optional.ofNullable(firstNonNull(jsonLdImage, firstNonNull(itemImage, metaImage))),
+            Optional.ofNullable(firstNonNull(jsonLdPrice, firstNonNull(itemPrice, metaPrice))));
+    }
+
+    /**
+     * Parse a declared price. Schema.org prices use a dot as decimal separator, but shops also put
+     * formatted prices like "1,299.00" or "1.299,00" in them.
+     */
+    static BigDecimal parsePrice(String value) {
+        long price = PriceTokenizer.scan(value, PriceTokenizer.Convention.DECIMAL_POINT);
+        if (price == PriceTokenizer.NO_PRICE || PriceTokenizer.unscaledValue(price) == 0) {
+            return null;
+        }
+        return PriceTokenizer.toBigDecimal(price);
+    }
+
+    private static JsonNode parseJson(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            log.debug("Skipping malformed JSON-LD block: {}", e.getOriginalMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The first Product node, or a standalone Offer if the page declares no product.
+     */
+    private static JsonNode findProduct(JsonNode node) {
+        if (node == null) {
+            return null;
+        }
+        if (node.isArray()) {
+            JsonNode offer = null;
+            for (JsonNode child : node) {
+                JsonNode found = findProduct(child);
+                if (found != null && isType(found, "Product")) {
+                    return found;
+                }
+                offer = firstNonNull(offer, found);
+            }
+            return offer;
+        }
+        if (!node.isObject()) {
+            return null;
+        }
+        if (isType(node, "Product") || isType(node, "Offer") || isType(node, "AggregateOffer")) {
+            return node;
+        }
+        return findProduct(node.get("@graph"));
+    }
+
+    private static boolean isType(JsonNode node, String type) {
+        JsonNode types = node.get("@type");
+        if (types == null) {
+            return false;
+        }
+        if (types.isArray()) {
+            for (JsonNode t : types) {
+                if (type.equals(t.asText())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return type.equals(types.asText());
+    }
+
+    private static BigDecimal offerPrice(JsonNode offers) {
+        if (offers == null) {
+            return null;
+        }
+        if (offers.isArray()) {
+            for (JsonNode offer : offers) {
+                BigDecimal price = offerPrice(offer);
+                if (price != null) {
+                    return price;
+                }
+            }
+            return null;
+        }
+        BigDecimal price = numeric(offers.get("price"));
+        if (price == null) {
+            price = numeric(offers.get("lowPrice"));
+        }
+        if (price == null && offers.has("priceSpecification")) {
+            price = offerPrice(offers.get("priceSpecification"));
+        }
+        return price;
+    }
+
+    private static BigDecimal numeric(JsonNode node) {
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        if (node.isNumber()) {
+            return node.decimalValue().signum() > 0 ? node.decimalValue() : null;
+        }
+        return parsePrice(node.asText());
+    }
+
+    private static String image(JsonNode node) {
+        if (node == null) {
+            return null;
+        }
+        if (node.isArray()) {
+            return node.isEmpty() ? null : image(node.get(0));
+        }
+        return node.isObject() ? text(node.get("url")) : text(node);
+    }
+
+    private static String text(JsonNode node) {
+        return node != null && node.isValueNode() ? blankToNull(node.asText()) : null;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static <T> T firstNonNull(T first, T second) {
+        return first != null ? first : second;
+    }
+}
@@ -0,0 +1,332 @@
+package com.pricetracker.app.service;
+
+import com.pricetracker.app.dto.response.PriceAnalyticsResponse;
+import com.pricetracker.app.entity.PriceHistory;
+import com.pricetracker.app.entity.PriceStatistics;
+import com.pricetracker.app.entity.Product;
+import com.pricetracker.app.exception.ResourceNotFoundException;
+import com.pricetracker.app.repository.PriceHistoryRepository;
+import com.pricetracker.app.repository.PriceStatisticsRepository;
+import com.pricetracker.app.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Service maintaining per-product price aggregates.
+ * Aggregates are updated incrementally as new price points are recorded, so reading
+ * analytics costs a single primary-key lookup instead of a scan over price history.
+ */
+@Service
+@RequiredArgsConstructor
+public class PriceAnalyticsService {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceAnalyticsService.class);
+
+    private static final Duration WINDOW_30_DAYS = Duration.ofDays(30);
+    private static final Duration WINDOW_90_DAYS = Duration.ofDays(90);
+
+    // Time constants (in seconds) of the exponential moving averages
+    private static final double EWMA_7_DAYS_SECONDS = Duration.ofDays(7).toSeconds();
+    private static final double EWMA_30_DAYS_SECONDS = Duration.ofDays(30).toSeconds();
+
+    // Time constant (in seconds) of the decayed change count behind the change rate estimate
+    private static final double CHANGE_RATE_SECONDS = Duration.ofDays(30).toSeconds();
+
+    private static final double SECONDS_PER_DAY = Duration.ofDays(1).toSeconds();
+
+    private final PriceStatisticsRepository priceStatisticsRepository;
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final ProductRepository productRepository;
+
+    /**
+     * Fold a newly recorded price point into the product's aggregates.
+     *
+     * @param product the product the price was recorded for
+     * @param price the recorded price
+     * @param timestamp the time the price was recorded
+     */
+    @Transactional
+    public void recordPrice(Product product, BigDecimal price, Instant timestamp) {
+        PriceStatistics stats = priceStatisticsRepository.findById(product.getId())
+            .orElseGet(() -> seedFromHistory(product.getId(), timestamp));
+
+        applySample(stats, price, timestamp);
+        refreshWindowLows(stats, timestamp);
+        priceStatisticsRepository.save(stats);
+
+        log.debug("Updated price statistics for product {}: {} samples, low {}, high {}",
+            product.getId(), stats.getSampleCount(), stats.getAllTimeLow(), stats.getAllTimeHigh());
+    }
+
+    /**
+     * Get the aggregated price analytics for a product.
+     *
+     * Reading never writes: the scheduler is the only writer of aggregates, so concurrent reads cannot lose
+     * its updates. Lows that aged out of their window and aggregates of products without any yet are worked
+     * out for the response only, and persisted with the next recorded price.
+     *
+     * @param productId the ID of the product
+     * @return the price analytics
+     * @throws ResourceNotFoundException if the product does not exist
+     */
+    @Transactional(readOnly = true)
+    public PriceAnalyticsResponse getAnalytics(Long productId) {
+        Instant now = Instant.now();
+        PriceStatistics stats = priceStatisticsRepository.findById(productId).orElse(null);
+
+        if (stats == null) {
+            if (!productRepository.existsById(productId)) {
+                throw new ResourceNotFoundException("Product", "id", productId);
+            }
+            // History is only written on price changes, so this is short for products without aggregates
+            stats = seedFromHistory(productId, now);
+        }
+        // Changes to the loaded row are never flushed in a read-only transaction
+        refreshWindowLows(stats, now);
+
+        return toResponse(stats, now);
+    }
+
+    /**
+     * Estimate how many times per day the price of a product changes, weighting recent changes
+     * more than old ones (30-day time constant).
+     *
+     * @param stats the product's aggregates, or null if no change was ever recorded
+     * @param observedSince when observation of the product started
+     * @param now the time to estimate at
+     * @return the estimated number of price changes per day
+     */
+    public double estimateChangesPerDay(PriceStatistics stats, Instant observedSince, Instant now) {
+        if (stats == null || stats.getLastRecordedAt() == null) {
+            return 0.0;
+        }
+
+        double decayedCount = stats.getDecayedChangeCount()
+            * Math.exp(-elapsedSeconds(stats.getLastRecordedAt(), now) / CHANGE_RATE_SECONDS);
+
+        // Normalize by the decayed length of the observation, so young products are not underestimated
+        Instant start = stats.getFirstRecordedAt() != null && stats.getFirstRecordedAt().isBefore(observedSince)
+            ? stats.getFirstRecordedAt()
+            : observedSince;
+        double observedSeconds = CHANGE_RATE_SECONDS
+            * (1.0 - Math.exp(-elapsedSeconds(start, now) / CHANGE_RATE_SECONDS));
+        if (observedSeconds <= 0) {
+            return 0.0;
+        }
+        return decayedCount / observedSeconds * SECONDS_PER_DAY;
+    }
+
+    /**
+     * Build aggregates from the existing price history of a product.
+     * Only happens once per product, for history recorded before statistics were maintained.
+     */
+    private PriceStatistics seedFromHistory(Long productId, Instant before) {
+        PriceStatistics stats = new PriceStatistics();
+        stats.setProductId(productId);
+
+        for (PriceHistory point : priceHistoryRepository.findByProductIdOrderByTimestampAsc(productId)) {
+            if (point.getTimestamp().isBefore(before)) {
+                applySample(stats, point.getPrice(), point.getTimestamp());
+            }
+        }
+
+        log.info("Seeded price statistics for product {} from {} history records",
+            productId, stats.getSampleCount());
+        return stats;
+    }
+
+    private void applySample(PriceStatistics stats, BigDecimal price, Instant timestamp) {
+        double value = price.doubleValue();
+        BigDecimal previous = stats.getLastPrice();
+
+        if (previous == null) {
+            stats.setFirstRecordedAt(timestamp);
+            stats.setEwma7Days(value);
+            stats.setEwma30Days(value);
+        } else {
+            double previousValue = previous.doubleValue();
+            long elapsedSeconds = elapsedSeconds(stats.getLastRecordedAt(), timestamp);
+
+            // The previous price was in effect until now, so the averages decay towards it
+            stats.setEwma7Days(decay(stats.getEwma7Days(), previousValue, elapsedSeconds, EWMA_7_DAYS_SECONDS));
+            stats.setEwma30Days(decay(stats.getEwma30Days(), previousValue, elapsedSeconds, EWMA_30_DAYS_SECONDS));
+
+            if (previousValue > 0) {
+                double change = (value - previousValue) / previousValue;
+                long changeCount = stats.getChangeCount() + 1;
+                double delta = change - stats.getChangeMean();
+                stats.setChangeCount(changeCount);
+                stats.setChangeMean(stats.getChangeMean() + delta / changeCount);
+                stats.setChangeM2(stats.getChangeM2() + delta * (change - stats.getChangeMean()));
+            }
+
+            if (price.compareTo(previous) < 0) {
+                stats.setDropCount(stats.getDropCount() + 1);
+            }
+
+            // Every recorded point after the first is a change
+            stats.setDecayedChangeCount(
+                stats.getDecayedChangeCount() * Math.exp(-elapsedSeconds / CHANGE_RATE_SECONDS) + 1.0);
+
+            // A rolling low held by the previous price was observed up to this point
+            if (stats.getLow30Days() != null && stats.getLow30Days().compareTo(previous) == 0) {
+                stats.setLow30DaysAt(timestamp);
+            }
+            if (stats.getLow90Days() != null && stats.getLow90Days().compareTo(previous) == 0) {
+                stats.setLow90DaysAt(timestamp);
+            }
+        }
+
+        long count = stats.getSampleCount() + 1;
+        double delta = value - stats.getMeanPrice();
+        stats.setSampleCount(count);
+        stats.setMeanPrice(stats.getMeanPrice() + delta / count);
+        stats.setPriceM2(stats.getPriceM2() + delta * (value - stats.getMeanPrice()));
+
+        if (stats.getAllTimeLow() == null || price.compareTo(stats.getAllTimeLow()) <= 0) {
+            stats.setAllTimeLow(price);
+            stats.setAllTimeLowAt(timestamp);
+        }
+        if (stats.getAllTimeHigh() == null || price.compareTo(stats.getAllTimeHigh()) >= 0) {
+            stats.setAllTimeHigh(price);
+            stats.setAllTimeHighAt(timestamp);
+        }
+        if (stats.getLow30Days() == null || price.compareTo(stats.getLow30Days()) <= 0) {
+            stats.setLow30Days(price);
+            stats.setLow30DaysAt(timestamp);
+        }
+        if (stats.getLow90Days() == null || price.compareTo(stats.getLow90Days()) <= 0) {
+            stats.setLow90Days(price);
+            stats.setLow90DaysAt(timestamp);
+        }
+
+        stats.setLastPrice(price);
+        stats.setLastRecordedAt(timestamp);
+    }
+
+    /**
+     * Re-establish rolling lows whose observation has aged out of their window.
+     * This is the only place that queries history, and only once per expired window.
+     */
+    private void refreshWindowLows(PriceStatistics stats, Instant now) {
+
+        WindowLow low30 = refreshedWindowLow(stats, stats.getLow30Days(), stats.getLow30DaysAt(),
+            now.minus(WINDOW_30_DAYS), now);
+        if (low30 != null) {
+            stats.setLow30Days(low30.price());
+            stats.setLow30DaysAt(low30.observedAt());
+        }
+
+        WindowLow low90 = refreshedWindowLow(stats, stats.getLow90Days(), stats.getLow90DaysAt(),
+            now.minus(WINDOW_90_DAYS), now);
+        if (low90 != null) {
+            stats.setLow90Days(low90.price());
+            stats.setLow90DaysAt(low90.observedAt());
+        }
+    }
+
+    private WindowLow refreshedWindowLow(PriceStatistics stats, BigDecimal low, Instant lowAt,
+                                         Instant windowStart, Instant now) {
+        BigDecimal currentPrice = stats.getLastPrice();
+        if (currentPrice == null) {
+            return null;
+        }
+
+        // Still valid if observed inside the window, or held by the price currently in effect
+        if (low != null && (!lowAt.isBefore(windowStart) || low.compareTo(currentPrice) == 0)) {
+            return null;
+        }
+
+        WindowLow windowLow = new WindowLow(currentPrice, now);
+        Optional<PriceHistory> lowestInWindow = priceHistoryRepository
+            .findFirstByProductIdAndTimestampGreaterThanEqualOrderByPriceAscTimestampDesc(
+                stats.getProductId(), windowStart);
+        if (lowestInWindow.isPresent() && lowestInWindow.get().getPrice().compareTo(windowLow.price()) < 0) {
+            windowLow = new WindowLow(lowestInWindow.get().getPrice(), lowestInWindow.get().getTimestamp());
+        }
+
+        // History only has the points where the price changed, so the price in effect when the window
+        // opened was recorded before it; it was observed until the first change inside the window
+        Optional<PriceHistory> inEffectAtStart = priceHistoryRepository
+            .findFirstByProductIdAndTimestampLessThanOrderByTimestampDesc(stats.getProductId(), windowStart);
+        if (inEffectAtStart.isPresent() && inEffectAtStart.get().getPrice().compareTo(windowLow.price()) < 0) {
+            Instant replacedAt = priceHistoryRepository
+                .findFirstByProductIdAndTimestampGreaterThanEqualOrderByTimestampAsc(stats.getProductId(), windowStart)
+                .map(PriceHistory::getTimestamp)
+                .orElse(now);
+            windowLow = new WindowLow(inEffectAtStart.get().getPrice(), replacedAt);
+        }
+        return windowLow;
+    }
+
+    private PriceAnalyticsResponse toResponse(PriceStatistics stats, Instant now) {
+        if (stats.getSampleCount() == 0) {
+            return new PriceAnalyticsResponse(stats.getProductId(), null, 0, null, null, null, null,
+                null, null, null, null, null, null, 0.0, 0, 0.0, null, null);
+        }
+
+        double currentValue = stats.getLastPrice().doubleValue();
+        long sinceLastChange = elapsedSeconds(stats.getLastRecordedAt(), now);
+        double movingAverage7Days = decay(stats.getEwma7Days(), currentValue, sinceLastChange, EWMA_7_DAYS_SECONDS);
+        double movingAverage30Days = decay(stats.getEwma30Days(), currentValue, sinceLastChange, EWMA_30_DAYS_SECONDS);
+
+        double priceStdDev = stats.getSampleCount() > 1
+            ? Math.sqrt(stats.getPriceM2() / (stats.getSampleCount() - 1))
+            : 0.0;
+        double volatility = stats.getChangeCount() > 1
+            ? Math.sqrt(stats.getChangeM2() / (stats.getChangeCount() - 1))
+            : 0.0;
+
+        double observedDays = elapsedSeconds(stats.getFirstRecordedAt(), now) / SECONDS_PER_DAY;
+        double dropsPer30Days = observedDays >= 1.0
+            ? stats.getDropCount() * 30.0 / observedDays
+            : stats.getDropCount();
+
+        return new PriceAnalyticsResponse(
+            stats.getProductId(),
+            stats.getLastPrice(),
+            stats.getSampleCount(),
+            stats.getAllTimeLow(),
+            stats.getAllTimeLowAt(),
+            stats.getAllTimeHigh(),
+            stats.getAllTimeHighAt(),
+            stats.getLow30Days(),
+            stats.getLow90Days(),
+            toMoney(stats.getMeanPrice()),
+            toMoney(movingAverage7Days),
+            toMoney(movingAverage30Days),
+            toMoney(priceStdDev),
+            volatility,
+            stats.getDropCount(),
+            dropsPer30Days,
+            stats.getFirstRecordedAt(),
+            stats.getLastRecordedAt()
+        );
+    }
+
+    /**
+     * Decay a time-weighted moving average towards the value that was in effect for the elapsed time.
+     */
+    private static double decay(double average, double valueInEffect, long elapsedSeconds, double timeConstantSeconds) {
+        return valueInEffect + (average - valueInEffect) * Math.exp(-elapsedSeconds / timeConstantSeconds);
+    }
+
+    private static long elapsedSeconds(Instant from, Instant to) {
+        return Math.max(0, Duration.between(from, to).toSeconds());
+    }
+
+    private static BigDecimal toMoney(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private record WindowLow(BigDecimal price, Instant observedAt) {}
+}
@@ -1,7 +1,9 @@
 package com.pricetracker.app.service;
 
+import com.pricetracker.app.cache.TrackedProductCache;
 import com.pricetracker.app.dto.request.TrackProductRequest;
 import com.pricetracker.app.dto.request.UpdateTrackedProductRequest;
+import com.pricetracker.app.dto.response.TrackedProductResponse;
 import com.pricetracker.app.entity.Product;
 import com.pricetracker.app.entity.TrackedProduct;
 import com.pricetracker.app.exception.ResourceNotFoundException;
@@ -11,20 +13,33 @@ import com.pricetracker.app.repository.TrackedProductRepository;
 import com.pricetracker.app.scraping.ProductDetails;
 import com.pricetracker.app.scraping.ScraperService;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 @RequiredArgsConstructor
 public class ProductTrackingService {
     
+    private static final Logger log = LoggerFactory.getLogger(ProductTrackingService.class);
+    
     private final ProductRepository productRepository;
     private final TrackedProductRepository trackedProductRepository;
     private final ScraperService scraperService;
+    private final TrackedProductCache trackedProductCache;
+    
+    @Value("${app.scraper.onboarding-timeout-ms:30000}")
+    private long onboardingTimeoutMs;
     
     @Transactional
     public TrackedProduct addProductTracking(Long userId, TrackProductRequest request) {
@@ -51,13 +66,14 @@ public class ProductTrackingService {
             trackedProduct.setCheckIntervalMinutes(interval);
         }
         
-        return trackedProductRepository.save(trackedProduct);
+        TrackedProduct saved = trackedProductRepository.save(trackedProduct);
+        trackedProductCache.evictUser(userId);
+        return saved;
     }
     
     private Product createNewProduct(String productUrl) {
         // Try to scrape initial product details
-        ProductDetails details = scraperService.scrapeProductDetails(productUrl)
-            .orElse(ProductDetails.empty());
+        ProductDetails details = scrapeInitialDetails(productUrl);
         
         Product product = new Product();
         product.setProductUrl(productUrl);
@@ -68,6 +84,27 @@ public class ProductTrackingService {
         return productRepository.save(product);
     }
     
+    private ProductDetails scrapeInitialDetails(String productUrl) {
+        // Through the scrape dispatcher, so a burst of new products keeps to the per-host limit of the scrapers
+        CompletableFuture<Optional<ProductDetails>> scrape = scraperService.scrapeProductDetailsAsync(productUrl);
+        try {
+            return scrape.get(onboardingTimeoutMs, TimeUnit.MILLISECONDS).orElse(ProductDetails.empty());
+        } catch (TimeoutException e) {
+            // Tracked with the fallback details, as after a failed scrape
+            log.warn("Scraping details of {} took longer than {}ms, tracking it without them", productUrl,
+                onboardingTimeoutMs);
+            scrape.cancel(true);
+            return ProductDetails.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            scrape.cancel(true);
+            return ProductDetails.empty();
+        } catch (ExecutionException e) {
+            log.warn("Scraping details of {} failed: {}", productUrl, e.getCause().getMessage());
+            return ProductDetails.empty();
+        }
+    }
+    
     @Transactional(readOnly = true)
     public Page<TrackedProduct> getTrackedProductsForUser(Long userId, Pageable pageable) {
         return trackedProductRepository.findByUserId(userId, pageable);
@@ -78,6 +115,21 @@ public class ProductTrackingService {
         return trackedProductRepository.findByIdAndUserId(trackedProductId, userId);
     }
     
+    /**
+     * Get a page of tracked products for a user, mapped to responses by a single JOIN query
+     * so the cost stays flat as the page size grows.
+     * Not transactional on purpose: cache hits must not take a database connection.
+     */
+    public Page<TrackedProductResponse> getTrackedProductResponsesForUser(Long userId, Pageable pageable) {
+        return trackedProductCache.getPage(userId, pageable,
+            () -> trackedProductRepository.findResponsesByUserId(userId, pageable));
+    }
+    
+    public Optional<TrackedProductResponse> getTrackedProductResponseById(Long userId, Long trackedProductId) {
+        return trackedProductCache.getTrackedProduct(userId, trackedProductId,
+            () -> trackedProductRepository.findResponseByIdAndUserId(trackedProductId, userId));
+    }
+    
     @Transactional
     public TrackedProduct updateTrackedProduct(Long userId, Long trackedProductId, 
                                              UpdateTrackedProductRequest request) {
@@ -97,7 +149,9 @@ public class ProductTrackingService {
             trackedProduct.setCheckIntervalMinutes(interval);
         }
         
-        return trackedProductRepository.save(trackedProduct);
+        TrackedProduct saved = trackedProductRepository.save(trackedProduct);
+        trackedProductCache.evictUser(userId);
+        return saved;
     }
     
     @Transactional
@@ -106,5 +160,6 @@ public class ProductTrackingService {
             .orElseThrow(() -> new ResourceNotFoundException("Tracked product not found"));
         
         trackedProductRepository.delete(trackedProduct);
+        trackedProductCache.evictUser(userId);
     }
 } 
\ No newline at end of file
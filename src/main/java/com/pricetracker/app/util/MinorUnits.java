@@ -0,0 +1,51 @@
+package com.pricetracker.app.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+/**
+ * Fixed-point prices as a long count of minor units (e.g. paise for INR) of the application currency.
+ *
+ * Used on the price comparison path, where comparing two prices, or taking their ratio, is plain long
+ * arithmetic. Prices stay BigDecimal where they are persisted or returned by the API; products carry no
+ * currency yet, so all prices are in {@link AppConstants#DEFAULT_CURRENCY}.
+ */
+public final class MinorUnits {
+
+    public static final Currency CURRENCY = Currency.getInstance(AppConstants.DEFAULT_CURRENCY);
+
+    // Pseudo-currencies report -1 fraction digits
+    public static final int SCALE = Math.max(0, CURRENCY.getDefaultFractionDigits());
+
+    private static final double[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000};
+
+    // Below 2^50 minor units a double is off by far less than half a minor unit, so rounding it is exact
+    private static final double MAX_EXACT_MINOR_UNITS = 0x1p50;
+
+    private MinorUnits() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * Convert a decimal amount to minor units, rounding half-up to the currency's minor unit.
+     *
+     * Stored prices already have the currency's scale, and are converted without allocating.
+     *
+     * @throws ArithmeticException if the amount does not fit in a long number of minor units
+     */
+    public static long of(BigDecimal amount) {
+        if (amount.scale() >= 0 && amount.scale() <= SCALE && SCALE < POWERS_OF_TEN.length) {
+            // The amount has no digits below the minor unit, so only the double's own error needs rounding away
+            double minorUnits = amount.doubleValue() * POWERS_OF_TEN[SCALE];
+            if (Math.abs(minorUnits) < MAX_EXACT_MINOR_UNITS) {
+                return Math.round(minorUnits);
+            }
+        }
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).movePointRight(SCALE).longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+}
@@ -0,0 +1,197 @@
+package com.pricetracker.app.archive;
+
+import com.pricetracker.app.entity.Product;
+import com.pricetracker.app.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PageArchiveTest {
+
+    private static final String PRODUCT_URL = "https://www.amazon.in/dp/B0TEST";
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private PageArchive archive;
+
+    @BeforeEach
+    void setUp() {
+        Product product = new Product();
+        product.setId(7L);
+        product.setProductUrl(PRODUCT_URL);
+        when(productRepository.findByProductUrl(PRODUCT_URL)).thenReturn(Optional.of(product));
+        when(productRepository.findByProductUrl("https://example.com/unknown")).thenReturn(Optional.empty());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (archive != null) {
+            archive.close();
+        }
+    }
+
+    @Test
+    void whenPageArchived_thenReadBackAfterReopen() throws IOException {
+        // Given
+        Instant fetchedAt = Instant.parse("2026-01-10T10:15:30.123Z");
+        String html = "<html><body><span class=\"a-offscreen\">₹1,299.00</span></body></html>";
+        archive = openArchive(1000);
+
+        // When
+        archive.archive(PRODUCT_URL, fetchedAt, html.getBytes(StandardCharsets.UTF_8));
+        archive.close();
+        archive = openArchive(1000);
+
+        // Then
+        assertThat(archive.listPages(7L)).containsExactly(fetchedAt);
+        assertThat(archive.read(7L, fetchedAt))
+            .hasValueSatisfying(page -> assertThat(new String(page, StandardCharsets.UTF_8)).isEqualTo(html));
+        assertThat(archive.read(7L, fetchedAt.plusMillis(1))).isEmpty();
+    }
+
+    @Test
+    void whenIndexFull_thenRotateToNewSegment() throws IOException {
+        // Given
+        archive = openArchive(2);
+        Instant start = Instant.parse("2026-01-10T00:00:00Z");
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            archive.archive(PRODUCT_URL, start.plusSeconds(i), ("page " + i).getBytes(StandardCharsets.UTF_8));
+        }
+        archive.close();
+        archive = openArchive(2);
+
+        // Then
+        assertThat(segmentFiles()).isEqualTo(3);
+        assertThat(archive.listPages(7L)).hasSize(5);
+        assertThat(archive.read(7L, start.plusSeconds(4)))
+            .hasValueSatisfying(page -> assertThat(new String(page, StandardCharsets.UTF_8)).isEqualTo("page 4"));
+    }
+
+    @Test
+    void whenArchiveReopened_thenExpiredSegmentsAreDeleted() throws IOException {
+        // Given
+        Instant fetchedAt = Instant.parse("2026-01-10T00:00:00Z");
+        archive = openArchive(1000);
+        archive.archive(PRODUCT_URL, fetchedAt, "old page".getBytes(StandardCharsets.UTF_8));
+        archive.close();
+        ageSegments(15);
+
+        // When
+        archive = openArchive(1000);
+
+        // Then
+        assertThat(segmentFiles()).isZero();
+        assertThat(archive.listPages(7L)).isEmpty();
+    }
+
+    @Test
+    void whenRetentionEnforced_thenIdleExpiredSegmentIsDeletedWithoutRotation() throws IOException {
+        // Given - an open segment that was last written before the retention period
+        Instant fetchedAt = Instant.parse("2026-01-10T00:00:00Z");
+        archive = openArchive(1000);
+        archive.archive(PRODUCT_URL, fetchedAt, "old page".getBytes(StandardCharsets.UTF_8));
+        awaitPages(1);
+        ageSegments(15);
+
+        // When
+        archive.enforceRetention();
+        archive.archive(PRODUCT_URL, fetchedAt.plusSeconds(1), "new page".getBytes(StandardCharsets.UTF_8));
+        archive.close();
+
+        // Then - only the page written after the deletion is left, in a new segment
+        assertThat(archive.listPages(7L)).containsExactly(fetchedAt.plusSeconds(1));
+        assertThat(segmentFiles()).isEqualTo(1);
+    }
+
+    @Test
+    void whenUrlNotTracked_thenPageNotArchived() {
+        // Given
+        archive = openArchive(1000);
+
+        // When
+        archive.archive("https://example.com/unknown", Instant.now(), new byte[] {1, 2, 3});
+        archive.close();
+        archive = openArchive(1000);
+
+        // Then
+        assertThat(archive.listPages(7L)).isEmpty();
+    }
+
+    @Test
+    void whenDisabled_thenNothingWritten() throws IOException {
+        // Given
+        archive = new PageArchive(false, directory.toString(), 64, 1000, 14, 10, productRepository);
+        archive.open();
+
+        // When
+        archive.archive(PRODUCT_URL, Instant.now(), new byte[] {1, 2, 3});
+
+        // Then
+        assertThat(archive.listPages(7L)).isEmpty();
+        assertThat(segmentFiles()).isZero();
+    }
+
+    private PageArchive openArchive(int indexEntriesPerSegment) {
+        PageArchive pageArchive = new PageArchive(
+            true, directory.toString(), 64, indexEntriesPerSegment, 14, 10, productRepository);
+        try {
+            pageArchive.open();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return pageArchive;
+    }
+
+    private void ageSegments(int days) throws IOException {
+        FileTime old = FileTime.from(Instant.now().minus(days, ChronoUnit.DAYS));
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.toList()) {
+                Files.setLastModifiedTime(path, old);
+            }
+        }
+    }
+
+    private void awaitPages(int pages) {
+        for (int i = 0; i < 250 && archive.listPages(7L).size() < pages; i++) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        assertThat(archive.listPages(7L)).hasSize(pages);
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".seg")).count();
+        }
+    }
+}
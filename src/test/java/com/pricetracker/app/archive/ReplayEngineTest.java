@@ -0,0 +1,129 @@
+package com.pricetracker.app.archive;
+
+import com.pricetracker.app.repository.PriceHistoryRepository;
+import com.pricetracker.app.repository.ProductRepository;
+import com.pricetracker.app.scraping.ScraperStrategy;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ReplayEngineTest {
+
+    @TempDir
+    Path fixtures;
+
+    @Mock
+    private PageArchive pageArchive;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private PriceHistoryRepository priceHistoryRepository;
+
+    @Mock
+    private ScraperStrategy strategy;
+
+    private ReplayEngine replayEngine;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        replayEngine = new ReplayEngine(pageArchive, productRepository, priceHistoryRepository, fixtures.toString());
+        Files.createDirectories(fixtures.resolve("amazon"));
+        // The stub strategy reads the price straight from the page title
+        when(strategy.extractPrice(any(Document.class))).thenAnswer(invocation -> {
+            String title = invocation.<Document>getArgument(0).title();
+            return title.isEmpty() ? Optional.empty() : Optional.of(new BigDecimal(title));
+        });
+        when(strategy.extractName(any(Document.class))).thenReturn(Optional.of("USB-C  Power Adapter "));
+        when(strategy.extractImageUrl(any(Document.class))).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void whenReplayFixtures_thenReportAgreementWithRecordedValues() throws IOException {
+        // Given
+        writeFixture("match", "1449.00", "price=1449\nname=USB-C Power Adapter\n");
+        writeFixture("wrong-price", "1299.00", "price=1449.00\n");
+        writeFixture("no-price", "", "price=999.00\nimageUrl=https://m.media-amazon.com/images/I/a.jpg\n");
+        writeFixture("unrecorded", "10.00", null);
+
+        // When
+        List<ReplayPage> pages = replayEngine.fixturePages("amazon");
+        ReplayReport report = replayEngine.replay(strategy, pages, 2);
+
+        // Then
+        assertThat(report.pages()).isEqualTo(4);
+        assertThat(report.failures()).isZero();
+        assertThat(report.price()).isEqualTo(new ReplayReport.FieldAgreement(1, 1, 1));
+        assertThat(report.name()).isEqualTo(new ReplayReport.FieldAgreement(1, 0, 0));
+        assertThat(report.imageUrl()).isEqualTo(new ReplayReport.FieldAgreement(0, 0, 1));
+        assertThat(report.mismatches())
+            .extracting(ReplayReport.Mismatch::label, ReplayReport.Mismatch::field)
+            .containsExactlyInAnyOrder(
+                tuple("wrong-price.html", "price"),
+                tuple("no-price.html", "price"),
+                tuple("no-price.html", "imageUrl"));
+        assertThat(report.latency().maxMicros()).isGreaterThanOrEqualTo(report.latency().p50Micros());
+        assertThat(report.pagesPerSecond()).isPositive();
+    }
+
+    @Test
+    void whenFixturesDirectoryOutsideRoot_thenRejected(@TempDir Path outside) throws IOException {
+        // Given
+        Files.createSymbolicLink(fixtures.resolve("linked"), outside);
+
+        // Then
+        assertThatThrownBy(() -> replayEngine.fixturePages("../" + outside.getFileName()))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> replayEngine.fixturePages(outside.toString()))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> replayEngine.fixturePages("linked"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void whenPageCannotBeLoaded_thenCountedAsFailure() {
+        // Given
+        ReplayPage missing = new ReplayPage("gone", "https://www.amazon.in/dp/B0GONE",
+            () -> { throw new IOException("Page no longer archived"); },
+            new ReplayPage.Recorded(BigDecimal.TEN, null, null));
+
+        // When
+        ReplayReport report = replayEngine.replay(strategy, List.of(missing), 1);
+
+        // Then
+        assertThat(report.failures()).isEqualTo(1);
+        assertThat(report.price().agreement()).isEqualTo(1.0);
+        assertThat(report.mismatches()).singleElement()
+            .satisfies(mismatch -> assertThat(mismatch.field()).isEqualTo("error"));
+    }
+
+    private void writeFixture(String name, String title, String expected) throws IOException {
+        Files.writeString(fixtures.resolve("amazon").resolve(name + ".html"),
+            "<html><head><meta charset=\"utf-8\"><title>" + title + "</title></head><body></body></html>");
+        if (expected != null) {
+            Files.writeString(fixtures.resolve("amazon").resolve(name + ".properties"), expected);
+        }
+    }
+}
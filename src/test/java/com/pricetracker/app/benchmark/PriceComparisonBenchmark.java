@@ -0,0 +1,85 @@
+package com.pricetracker.app.benchmark;
+
+import com.pricetracker.app.util.MinorUnits;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the desired-price matching done by ScrapeBudgetPlanner for every due check: how close the
+ * current price is to the closest desired price of the product's trackers.
+ *
+ * Compares the former BigDecimal division per tracker with the minor-unit ratio.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.pricetracker.app.benchmark.PriceComparisonBenchmark
+ * The GC profiler reports gc.alloc.rate.norm, the bytes allocated per check.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceComparisonBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int trackers;
+
+    private BigDecimal currentPrice;
+    private BigDecimal[] desiredPrices;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        currentPrice = new BigDecimal("1499.00");
+        desiredPrices = new BigDecimal[trackers];
+        for (int i = 0; i < trackers; i++) {
+            desiredPrices[i] = BigDecimal.valueOf(100_000 + random.nextInt(100_000), 2);
+        }
+    }
+
+    @Benchmark
+    public double bigDecimalDivide() {
+        double closest = 0.0;
+        for (BigDecimal desiredPrice : desiredPrices) {
+            double ratio = desiredPrice.divide(currentPrice, 4, RoundingMode.HALF_UP).doubleValue();
+            closest = Math.max(closest, Math.min(1.0, ratio));
+        }
+        return closest;
+    }
+
+    @Benchmark
+    public double minorUnits() {
+        long current = MinorUnits.of(currentPrice);
+        double closest = 0.0;
+        for (BigDecimal desiredPrice : desiredPrices) {
+            double ratio = (double) MinorUnits.of(desiredPrice) / current;
+            closest = Math.max(closest, Math.min(1.0, ratio));
+        }
+        return closest;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(PriceComparisonBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+    }
+}
@@ -0,0 +1,82 @@
+package com.pricetracker.app.benchmark;
+
+import com.pricetracker.app.scraping.PriceTokenizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmark of turning a scraped price text into a price.
+ *
+ * Compares the former regex chain of BaseScraperStrategy.parsePrice with the single pass PriceTokenizer,
+ * both to a packed long and to a BigDecimal.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.pricetracker.app.benchmark.PriceTokenizerBenchmark
+ * The GC profiler reports gc.alloc.rate.norm, the bytes allocated per parse.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceTokenizerBenchmark {
+
+    private static final Pattern GROUPED_DIGITS_PATTERN = Pattern.compile("(\\d{1,3}(,\\d{3})*(\\.\\d+)?)");
+    private static final Pattern COMMON_PRICE_PATTERN =
+        Pattern.compile("(?:[₹$€£¥]|Rs\\.?|USD|EUR|GBP|INR)?\\s*([\\d,]+(?:\\.\\d+)?)");
+
+    @Param({"₹1,299.00", "₹1,23,456.00", "M.R.P.: Γé╣2,499.00"})
+    private String text;
+
+    @Benchmark
+    public BigDecimal regexChain() {
+        String cleanedText = text;
+        if (text.contains("Γé╣")) {
+            cleanedText = text.replace("Γé╣", "Rs.");
+        }
+        Matcher digitMatcher = GROUPED_DIGITS_PATTERN.matcher(cleanedText);
+        if (digitMatcher.find()) {
+            return new BigDecimal(digitMatcher.group(1).replace(",", ""));
+        }
+        Matcher matcher = COMMON_PRICE_PATTERN.matcher(cleanedText);
+        if (matcher.find()) {
+            return new BigDecimal(matcher.group(1).replace(",", ""));
+        }
+        return null;
+    }
+
+    @Benchmark
+    public long tokenizer() {
+        return PriceTokenizer.scan(text, PriceTokenizer.Convention.DECIMAL_POINT);
+    }
+
+    @Benchmark
+    public BigDecimal tokenizerToBigDecimal() {
+        long price = PriceTokenizer.scan(text, PriceTokenizer.Convention.DECIMAL_POINT);
+        return price != PriceTokenizer.NO_PRICE ? PriceTokenizer.toBigDecimal(price) : null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(PriceTokenizerBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+    }
+}
@@ -0,0 +1,116 @@
+package com.pricetracker.app.cache;
+
+import com.pricetracker.app.dto.response.ProductResponse;
+import com.pricetracker.app.dto.response.TrackedProductResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrackedProductCacheTest {
+
+    private TrackedProductCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TrackedProductCache(300, 1000, Optional.empty());
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void whenGetPageTwice_thenLoaderCalledOnce() {
+        // Given
+        Pageable pageable = PageRequest.of(0, 10);
+
+        // When
+        Page<TrackedProductResponse> first = cache.getPage(1L, pageable, () -> loadPage(pageable));
+        Page<TrackedProductResponse> second = cache.getPage(1L, pageable, () -> loadPage(pageable));
+
+        // Then
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void whenEvictUser_thenOnlyThatUserIsReloaded() {
+        // Given
+        Pageable pageable = PageRequest.of(0, 10);
+        cache.getPage(1L, pageable, () -> loadPage(pageable));
+        cache.getPage(2L, pageable, () -> loadPage(pageable));
+        cache.getTrackedProduct(1L, 5L, () -> Optional.of(loadItem()));
+
+        // When
+        cache.evictUser(1L);
+        cache.getPage(1L, pageable, () -> loadPage(pageable));
+        cache.getPage(2L, pageable, () -> loadPage(pageable));
+        cache.getTrackedProduct(1L, 5L, () -> Optional.of(loadItem()));
+
+        // Then - user 1 reloaded both views, user 2 was served from cache
+        assertThat(loads.get()).isEqualTo(5);
+    }
+
+    @Test
+    void whenItemAbsent_thenNotCached() {
+        // When
+        Optional<TrackedProductResponse> first = cache.getTrackedProduct(1L, 99L, () -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+        Optional<TrackedProductResponse> second = cache.getTrackedProduct(1L, 99L, () -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+
+        // Then
+        assertThat(first).isEmpty();
+        assertThat(second).isEmpty();
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void whenDistributedTierConfigured_thenEntriesAndInvalidationsAreShared() {
+        // Given - two nodes sharing one distributed tier
+        ConcurrentMapCacheManager shared = new ConcurrentMapCacheManager();
+        TrackedProductCache nodeA = new TrackedProductCache(300, 1000, Optional.of(shared));
+        TrackedProductCache nodeB = new TrackedProductCache(300, 1000, Optional.of(shared));
+        Pageable pageable = PageRequest.of(0, 10);
+
+        // When
+        nodeA.getPage(1L, pageable, () -> loadPage(pageable));
+        nodeB.getPage(1L, pageable, () -> loadPage(pageable));
+        nodeA.evictUser(1L);
+        nodeB.getPage(1L, pageable, () -> loadPage(pageable));
+
+        // Then - node B hit node A's entry, then saw node A's invalidation
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private Page<TrackedProductResponse> loadPage(Pageable pageable) {
+        loads.incrementAndGet();
+        return new PageImpl<>(List.of(loadItemWithoutCounting()), pageable, 1);
+    }
+
+    private TrackedProductResponse loadItem() {
+        loads.incrementAndGet();
+        return loadItemWithoutCounting();
+    }
+
+    private TrackedProductResponse loadItemWithoutCounting() {
+        ProductResponse product = new ProductResponse(1L, "https://example.com/product", "Test Product",
+            null, new BigDecimal("99.99"), Instant.now(), Instant.now());
+        return new TrackedProductResponse(5L, product, new BigDecimal("89.99"), true, 60,
+            Instant.now(), Instant.now());
+    }
+}
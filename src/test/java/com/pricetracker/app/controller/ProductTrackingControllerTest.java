@@ -3,6 +3,8 @@ package com.pricetracker.app.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pricetracker.app.dto.request.TrackProductRequest;
 import com.pricetracker.app.dto.request.UpdateTrackedProductRequest;
+import com.pricetracker.app.dto.response.ProductResponse;
+import com.pricetracker.app.dto.response.TrackedProductResponse;
 import com.pricetracker.app.entity.PriceHistory;
 import com.pricetracker.app.entity.Product;
 import com.pricetracker.app.entity.TrackedProduct;
@@ -135,9 +137,10 @@ public class ProductTrackingControllerTest {
         
         // Use a specific PageRequest instead of relying on an Unpaged instance
         Pageable pageable = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createdAt"));
-        Page<TrackedProduct> trackedProductPage = new PageImpl<>(List.of(trackedProduct), pageable, 1);
+        Page<TrackedProductResponse> trackedProductPage = 
+                new PageImpl<>(List.of(createTestTrackedProductResponse(trackedProduct)), pageable, 1);
         
-        when(productTrackingService.getTrackedProductsForUser(eq(userId), any(Pageable.class)))
+        when(productTrackingService.getTrackedProductResponsesForUser(eq(userId), any(Pageable.class)))
                 .thenReturn(trackedProductPage);
 
         // Act & Assert
@@ -153,7 +156,7 @@ public class ProductTrackingControllerTest {
                 .andExpect(jsonPath("$.data.content[0].id").value(1))
                 .andExpect(jsonPath("$.data.content[0].product.name").value("PlayStation 5 Console"));
         
-        verify(productTrackingService).getTrackedProductsForUser(eq(userId), any(Pageable.class));
+        verify(productTrackingService).getTrackedProductResponsesForUser(eq(userId), any(Pageable.class));
     }
     
     @Test
@@ -165,8 +168,8 @@ public class ProductTrackingControllerTest {
         Product product = createTestProduct();
         TrackedProduct trackedProduct = createTestTrackedProduct(product);
         
-        when(productTrackingService.getTrackedProductById(userId, trackedProductId))
-                .thenReturn(Optional.of(trackedProduct));
+        when(productTrackingService.getTrackedProductResponseById(userId, trackedProductId))
+                .thenReturn(Optional.of(createTestTrackedProductResponse(trackedProduct)));
 
         // Act & Assert
         mockMvc.perform(get("/track/{trackedProductId}/user/{userId}", trackedProductId, userId))
@@ -179,7 +182,7 @@ public class ProductTrackingControllerTest {
                 .andExpect(jsonPath("$.data.product.productId").value(1))
                 .andExpect(jsonPath("$.data.product.name").value("PlayStation 5 Console"));
         
-        verify(productTrackingService).getTrackedProductById(userId, trackedProductId);
+        verify(productTrackingService).getTrackedProductResponseById(userId, trackedProductId);
     }
     
     @Test
@@ -189,7 +192,7 @@ public class ProductTrackingControllerTest {
         Long userId = 1L;
         Long trackedProductId = 999L;
         
-        when(productTrackingService.getTrackedProductById(userId, trackedProductId))
+        when(productTrackingService.getTrackedProductResponseById(userId, trackedProductId))
                 .thenReturn(Optional.empty());
 
         // Act & Assert
@@ -199,7 +202,7 @@ public class ProductTrackingControllerTest {
                 .andExpect(jsonPath("$.status").value("ERROR"))
                 .andExpect(jsonPath("$.code").value(404));
         
-        verify(productTrackingService).getTrackedProductById(userId, trackedProductId);
+        verify(productTrackingService).getTrackedProductResponseById(userId, trackedProductId);
     }
     
     @Test
@@ -388,6 +391,26 @@ public class ProductTrackingControllerTest {
         return trackedProduct;
     }
     
+    private TrackedProductResponse createTestTrackedProductResponse(TrackedProduct trackedProduct) {
+        Product product = trackedProduct.getProduct();
+        ProductResponse productResponse = new ProductResponse(
+                product.getId(),
+                product.getProductUrl(),
+                product.getName(),
+                product.getImageUrl(),
+                product.getLastCheckedPrice(),
+                product.getCreatedAt(),
+                product.getUpdatedAt());
+        return new TrackedProductResponse(
+                trackedProduct.getId(),
+                productResponse,
+                trackedProduct.getDesiredPrice(),
+                trackedProduct.isNotificationEnabled(),
+                trackedProduct.getCheckIntervalMinutes(),
+                trackedProduct.getCreatedAt(),
+                trackedProduct.getUpdatedAt());
+    }
+    
     private PriceHistory createPriceHistory(Long productId, BigDecimal price, Instant timestamp) {
         PriceHistory priceHistory = new PriceHistory();
         priceHistory.setId(productId * 10 + (int)(Math.random() * 10)); // Generate unique ID
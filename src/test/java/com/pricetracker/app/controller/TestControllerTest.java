@@ -0,0 +1,60 @@
+package com.pricetracker.app.controller;
+
+import com.pricetracker.app.archive.PageArchive;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TestControllerTest {
+
+    @Mock
+    private PageArchive pageArchive;
+
+    @InjectMocks
+    private TestController testController;
+
+    @Test
+    void whenGetArchivedPage_thenServedAsInertDownload() throws Exception {
+        // Given - archived pages are third-party HTML and may carry scripts
+        byte[] page = "<html><script>alert(document.cookie)</script></html>".getBytes(StandardCharsets.UTF_8);
+        when(pageArchive.read(7L, Instant.ofEpochMilli(1000))).thenReturn(Optional.of(page));
+
+        // When
+        ResponseEntity<byte[]> response = testController.getArchivedPage(7L, 1000);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(page);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.TEXT_PLAIN);
+        assertThat(response.getHeaders().getContentDisposition().isAttachment()).isTrue();
+        assertThat(response.getHeaders().getFirst("X-Content-Type-Options")).isEqualTo("nosniff");
+        assertThat(response.getHeaders().getFirst("Content-Security-Policy")).isEqualTo("sandbox");
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION)).contains("product-7-1000.html");
+    }
+
+    @Test
+    void whenArchivedPageMissing_thenNotFound() throws Exception {
+        // Given
+        when(pageArchive.read(7L, Instant.ofEpochMilli(1000))).thenReturn(Optional.empty());
+
+        // When
+        ResponseEntity<byte[]> response = testController.getArchivedPage(7L, 1000);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+}
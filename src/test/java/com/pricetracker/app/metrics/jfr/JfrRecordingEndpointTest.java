@@ -0,0 +1,96 @@
+package com.pricetracker.app.metrics.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JfrRecordingEndpointTest {
+
+    private final JfrRecordingEndpoint endpoint = new JfrRecordingEndpoint(1, 10);
+
+    @Test
+    void whenRecordingFinishes_thenApplicationEventsAreInTheReturnedFile() throws Exception {
+        // Given - a price check cycle completes while the recording runs
+        CompletableFuture<Void> cycle = CompletableFuture.runAsync(() -> {
+            PriceCheckCycleEvent event = new PriceCheckCycleEvent();
+            for (int i = 0; i < 100 && !event.isEnabled(); i++) {
+                sleep(20); // wait for the recording to start
+            }
+            event.begin();
+            event.checked = 3;
+            event.commit();
+        });
+
+        // When - the requested duration is capped at the configured maximum, the start returns at once
+        WebEndpointResponse<Map<String, Object>> started = endpoint.start(60, "default");
+        assertThat(started.getStatus()).isEqualTo(202);
+        assertThat(started.getBody()).containsEntry("durationSeconds", 1);
+        cycle.join();
+        WebEndpointResponse<Resource> response = awaitRecording();
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+        List<RecordedEvent> events = RecordingFile.readAllEvents(response.getBody().getFile().toPath());
+        assertThat(events)
+            .filteredOn(e -> e.getEventType().getName().equals("com.pricetracker.PriceCheckCycle"))
+            .singleElement()
+            .satisfies(e -> assertThat(e.getInt("checked")).isEqualTo(3));
+    }
+
+    @Test
+    void whenRecordingRuns_thenItIsNotReadyAndNoSecondOneStarts() {
+        // Given
+        JfrRecordingEndpoint slowEndpoint = new JfrRecordingEndpoint(60, 10);
+        slowEndpoint.start(60, "default");
+
+        try {
+            // When
+            WebEndpointResponse<Resource> response = slowEndpoint.recording();
+            WebEndpointResponse<Map<String, Object>> second = slowEndpoint.start(1, "default");
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(202);
+            assertThat(second.getStatus()).isEqualTo(WebEndpointResponse.STATUS_TOO_MANY_REQUESTS);
+        } finally {
+            ReflectionTestUtils.invokeMethod(slowEndpoint, "closeCurrent");
+        }
+    }
+
+    @Test
+    void whenNoRecordingTaken_thenNotFound() {
+        assertThat(endpoint.recording().getStatus()).isEqualTo(WebEndpointResponse.STATUS_NOT_FOUND);
+    }
+
+    @Test
+    void whenStart_withUnknownSettings_thenBadRequest() {
+        WebEndpointResponse<Map<String, Object>> response = endpoint.start(1, "everything");
+
+        assertThat(response.getStatus()).isEqualTo(WebEndpointResponse.STATUS_BAD_REQUEST);
+    }
+
+    private WebEndpointResponse<Resource> awaitRecording() {
+        WebEndpointResponse<Resource> response = endpoint.recording();
+        for (int i = 0; i < 250 && response.getStatus() == 202; i++) {
+            sleep(20);
+            response = endpoint.recording();
+        }
+        return response;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -2,11 +2,14 @@ package com.pricetracker.app.notification;
 
 import com.pricetracker.app.entity.Product;
 import com.pricetracker.app.entity.TrackedProduct;
+import com.pricetracker.app.metrics.PipelineMetrics;
+import com.pricetracker.app.repository.TrackedProductRepository.NotificationClaim;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -17,8 +20,11 @@ import org.thymeleaf.context.Context;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -35,6 +41,9 @@ class EmailNotificationServiceTest {
     @Mock
     private MimeMessage mimeMessage;
     
+    @Mock
+    private PipelineMetrics metrics;
+    
     @InjectMocks
     private EmailNotificationService emailNotificationService;
     
@@ -73,6 +82,7 @@ class EmailNotificationServiceTest {
         verify(mailSender).createMimeMessage();
         verify(mailSender).send(mimeMessage);
         verify(templateEngine).process(eq("price-alert"), any(Context.class));
+        verify(metrics).recordNotificationSent(eq(true), anyLong());
     }
     
     @Test
@@ -89,4 +99,43 @@ class EmailNotificationServiceTest {
         verify(mailSender).send(mimeMessage);
         verify(templateEngine).process(eq("price-alert"), any(Context.class));
     }
-} 
\ No newline at end of file
+    
+    @Test
+    void whenSendPriceAlerts_thenSendEmailPerClaimedSubscriber() {
+        // Given
+        BigDecimal currentPrice = new BigDecimal("79.99");
+        List<NotificationClaim> claims = List.of(
+            claim(1L, 1L, new BigDecimal("89.99")),
+            claim(2L, 2L, new BigDecimal("85.00")));
+        
+        // When
+        emailNotificationService.sendPriceAlerts(testProduct, currentPrice, claims);
+        
+        // Then - the claims carry everything the emails need, nothing is loaded
+        ArgumentCaptor<Context> contexts = ArgumentCaptor.forClass(Context.class);
+        verify(mailSender, times(2)).send(mimeMessage);
+        verify(templateEngine, times(2)).process(eq("price-alert"), contexts.capture());
+        assertThat(contexts.getAllValues())
+            .extracting(context -> context.getVariable("desiredPrice"))
+            .containsExactly(new BigDecimal("89.99"), new BigDecimal("85.00"));
+    }
+    
+    private static NotificationClaim claim(Long id, Long userId, BigDecimal desiredPrice) {
+        return new NotificationClaim() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+            
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+            
+            @Override
+            public BigDecimal getDesiredPrice() {
+                return desiredPrice;
+            }
+        };
+    }
+}
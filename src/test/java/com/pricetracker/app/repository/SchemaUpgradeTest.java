@@ -0,0 +1,66 @@
+package com.pricetracker.app.repository;
+
+import com.pricetracker.app.entity.PriceStatistics;
+import com.pricetracker.app.entity.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Schema updates (ddl-auto: update) against tables that already have rows, as on an upgraded installation.
+ * The tables are created as they were before their entities gained columns, then Hibernate updates them.
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.hibernate.ddl-auto=update",
+    "spring.sql.init.mode=always",
+    "spring.sql.init.schema-locations=classpath:db/schema-before-upgrade.sql"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(EmbeddedPostgresConfiguration.class)
+class SchemaUpgradeTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PriceStatisticsRepository priceStatisticsRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void whenPriceStatisticsUpgraded_thenExistingRowsGetADecayedChangeCountOfZero() {
+        // When
+        PriceStatistics statistics = priceStatisticsRepository.findById(1L).orElseThrow();
+
+        // Then
+        assertThat(statistics.getChangeCount()).isEqualTo(2);
+        assertThat(statistics.getDecayedChangeCount()).isZero();
+        assertThat(columnDefault("price_statistics", "decayed_change_count")).isEqualTo("0");
+    }
+
+    @Test
+    void whenProductsUpgraded_thenExistingRowsGetNoFailures() {
+        // When
+        Product product = productRepository.findById(1L).orElseThrow();
+
+        // Then
+        assertThat(product.getName()).isEqualTo("Test Product");
+        assertThat(product.getConsecutiveFailures()).isZero();
+        assertThat(product.getTotalFailures()).isZero();
+        assertThat(product.getDeadLetteredAt()).isNull();
+        assertThat(columnDefault("products", "consecutive_failures")).isEqualTo("0");
+        assertThat(columnDefault("products", "total_failures")).isEqualTo("0");
+    }
+
+    private String columnDefault(String table, String column) {
+        return jdbcTemplate.queryForObject(
+            "SELECT column_default FROM information_schema.columns WHERE table_name = ? AND column_name = ?",
+            String.class, table, column);
+    }
+}
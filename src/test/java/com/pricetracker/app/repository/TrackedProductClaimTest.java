@@ -0,0 +1,160 @@
+package com.pricetracker.app.repository;
+
+import com.pricetracker.app.entity.Product;
+import com.pricetracker.app.entity.TrackedProduct;
+import com.pricetracker.app.repository.TrackedProductRepository.NotificationClaim;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * The notification claim is a PostgreSQL statement, so it runs against PostgreSQL rather than H2. The tests
+ * commit their data, as the claim runs in a transaction of its own and would not see uncommitted rows.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(EmbeddedPostgresConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TrackedProductClaimTest {
+
+    private static final BigDecimal PRICE = new BigDecimal("80.00");
+
+    @Autowired
+    private TrackedProductRepository trackedProductRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    private final Instant cooldownCutoff = now.minus(24, ChronoUnit.HOURS);
+
+    @AfterEach
+    void tearDown() {
+        trackedProductRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void whenClaiming_thenOnlyEligibleSubscribersAreClaimedAndMarked() {
+        // Given
+        Product product = createProduct();
+        TrackedProduct eligible = track(product, 1L, "90.00", true, null);
+        TrackedProduct cooledDown = track(product, 2L, "85.00", true, now.minus(30, ChronoUnit.HOURS));
+        track(product, 3L, "79.99", true, null);
+        track(product, 4L, "90.00", false, null);
+        TrackedProduct inCooldown = track(product, 5L, "90.00", true, now.minus(1, ChronoUnit.HOURS));
+
+        // When
+        List<NotificationClaim> claims = trackedProductRepository.claimForNotification(
+            product.getId(), PRICE, now, cooldownCutoff);
+
+        // Then
+        assertThat(claims)
+            .extracting(NotificationClaim::getId, NotificationClaim::getUserId,
+                claim -> claim.getDesiredPrice().toPlainString())
+            .containsExactlyInAnyOrder(
+                tuple(eligible.getId(), 1L, "90.00"),
+                tuple(cooledDown.getId(), 2L, "85.00"));
+        assertThat(trackedProductRepository.findById(eligible.getId()).orElseThrow().getLastNotifiedAt())
+            .isEqualTo(now);
+        assertThat(trackedProductRepository.findById(inCooldown.getId()).orElseThrow().getLastNotifiedAt())
+            .isEqualTo(now.minus(1, ChronoUnit.HOURS));
+    }
+
+    @Test
+    void whenClaimingInsideATransaction_thenTheClaimCommitsAndReleasesItsLocksRightAway() {
+        // Given
+        Product product = createProduct();
+        TrackedProduct subscriber = track(product, 1L, "90.00", true, null);
+        TransactionTemplate cycle = new TransactionTemplate(transactionManager);
+
+        // When - a claim in a transaction that is still open when another claim of the row comes in
+        List<NotificationClaim> laterClaim = cycle.execute(status -> {
+            trackedProductRepository.claimForNotification(product.getId(), PRICE, now, cooldownCutoff);
+            List<NotificationClaim> other = CompletableFuture.supplyAsync(() ->
+                    trackedProductRepository.claimForNotification(product.getId(), PRICE, now.plusSeconds(1),
+                        now.plusSeconds(1)))
+                .orTimeout(5, TimeUnit.SECONDS)
+                .join();
+            status.setRollbackOnly();
+            return other;
+        });
+
+        // Then - the other claim was not blocked, and the rolled back transaction did not undo the claims
+        assertThat(laterClaim).extracting(NotificationClaim::getId)
+            .containsExactly(subscriber.getId());
+        assertThat(trackedProductRepository.findById(subscriber.getId()).orElseThrow().getLastNotifiedAt())
+            .isEqualTo(now.plusSeconds(1));
+    }
+
+    @Test
+    void whenClaimingConcurrently_thenEachSubscriberIsClaimedOnce() throws Exception {
+        // Given
+        Product product = createProduct();
+        for (long userId = 1; userId <= 20; userId++) {
+            track(product, userId, "90.00", true, null);
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<List<NotificationClaim>>> claims = IntStream.range(0, 4)
+            .mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return trackedProductRepository.claimForNotification(product.getId(), PRICE, now, cooldownCutoff);
+            }))
+            .toList();
+
+        // When
+        start.countDown();
+
+        // Then
+        List<Long> claimedIds = claims.stream()
+            .flatMap(claim -> claim.join().stream())
+            .map(NotificationClaim::getId)
+            .toList();
+        assertThat(claimedIds).hasSize(20).doesNotHaveDuplicates();
+    }
+
+    private Product createProduct() {
+        Product product = new Product();
+        product.setProductUrl("https://example.com/product/" + UUID.randomUUID());
+        product.setName("Test Product");
+        return productRepository.save(product);
+    }
+
+    private TrackedProduct track(Product product, Long userId, String desiredPrice, boolean notificationEnabled,
+                                 Instant lastNotifiedAt) {
+        TrackedProduct trackedProduct = new TrackedProduct();
+        trackedProduct.setUserId(userId);
+        trackedProduct.setProduct(product);
+        trackedProduct.setDesiredPrice(new BigDecimal(desiredPrice));
+        trackedProduct.setNotificationEnabled(notificationEnabled);
+        trackedProduct.setLastNotifiedAt(lastNotifiedAt);
+        return trackedProductRepository.save(trackedProduct);
+    }
+}
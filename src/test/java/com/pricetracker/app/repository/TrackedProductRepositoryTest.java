@@ -1,5 +1,6 @@
 package com.pricetracker.app.repository;
 
+import com.pricetracker.app.dto.response.TrackedProductResponse;
 import com.pricetracker.app.entity.Product;
 import com.pricetracker.app.entity.TrackedProduct;
 import org.junit.jupiter.api.Test;
@@ -8,6 +9,7 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
 import java.util.Optional;
@@ -129,6 +131,60 @@ class TrackedProductRepositoryTest {
             .containsExactlyInAnyOrder(new BigDecimal("89.99"), new BigDecimal("99.99"));
     }
 
+    @Test
+    void whenFindResponsesByUserId_thenReturnsProjectedPageWithProducts() {
+        // Given
+        Product product1 = createTestProduct();
+        Product product2 = createTestProduct();
+        
+        TrackedProduct trackedProduct1 = new TrackedProduct();
+        trackedProduct1.setUserId(TEST_USER_ID);
+        trackedProduct1.setProduct(product1);
+        trackedProduct1.setDesiredPrice(new BigDecimal("89.99"));
+        
+        TrackedProduct trackedProduct2 = new TrackedProduct();
+        trackedProduct2.setUserId(TEST_USER_ID);
+        trackedProduct2.setProduct(product2);
+        trackedProduct2.setDesiredPrice(new BigDecimal("99.99"));
+        
+        entityManager.persist(trackedProduct1);
+        entityManager.persist(trackedProduct2);
+        entityManager.flush();
+        entityManager.clear();
+
+        // When
+        Page<TrackedProductResponse> page = trackedProductRepository.findResponsesByUserId(
+            TEST_USER_ID, PageRequest.of(0, 10, Sort.by("desiredPrice")));
+
+        // Then
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).extracting(TrackedProductResponse::desiredPrice)
+            .containsExactly(new BigDecimal("89.99"), new BigDecimal("99.99"));
+        assertThat(page.getContent().get(0).product().productId()).isEqualTo(product1.getId());
+        assertThat(page.getContent().get(0).product().name()).isEqualTo("Test Product");
+    }
+
+    @Test
+    void whenFindResponseByIdAndUserId_withOtherUser_thenNotFound() {
+        // Given
+        Product product = createTestProduct();
+        TrackedProduct trackedProduct = new TrackedProduct();
+        trackedProduct.setUserId(TEST_USER_ID);
+        trackedProduct.setProduct(product);
+        trackedProduct.setDesiredPrice(new BigDecimal("89.99"));
+        TrackedProduct saved = entityManager.persist(trackedProduct);
+        entityManager.flush();
+
+        // When
+        Optional<TrackedProductResponse> own = trackedProductRepository.findResponseByIdAndUserId(saved.getId(), TEST_USER_ID);
+        Optional<TrackedProductResponse> other = trackedProductRepository.findResponseByIdAndUserId(saved.getId(), 2L);
+
+        // Then
+        assertThat(own).isPresent();
+        assertThat(own.get().product().productUrl()).isEqualTo(product.getProductUrl());
+        assertThat(other).isEmpty();
+    }
+
     private Product createTestProduct() {
         Product product = new Product();
         product.setProductUrl("https://example.com/product/" + java.util.UUID.randomUUID().toString());
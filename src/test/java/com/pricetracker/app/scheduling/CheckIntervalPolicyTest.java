@@ -0,0 +1,108 @@
+package com.pricetracker.app.scheduling;
+
+import com.pricetracker.app.entity.PriceStatistics;
+import com.pricetracker.app.entity.Product;
+import com.pricetracker.app.entity.TrackedProduct;
+import com.pricetracker.app.repository.PriceStatisticsRepository;
+import com.pricetracker.app.service.PriceAnalyticsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CheckIntervalPolicyTest {
+
+    @Mock
+    private PriceStatisticsRepository priceStatisticsRepository;
+
+    @Mock
+    private PriceAnalyticsService priceAnalyticsService;
+
+    @InjectMocks
+    private CheckIntervalPolicy checkIntervalPolicy;
+
+    private final Instant now = Instant.now();
+    private final PriceStatistics stats = new PriceStatistics();
+    private Product product;
+    private List<TrackedProduct> trackers;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(checkIntervalPolicy, "adaptive", true);
+        ReflectionTestUtils.setField(checkIntervalPolicy, "minIntervalMinutes", 5);
+        ReflectionTestUtils.setField(checkIntervalPolicy, "maxIntervalMinutes", 1440);
+        ReflectionTestUtils.setField(checkIntervalPolicy, "targetChangesPerCheck", 0.1);
+        ReflectionTestUtils.setField(checkIntervalPolicy, "minObservationDays", 3L);
+
+        product = new Product();
+        product.setId(1L);
+        ReflectionTestUtils.setField(product, "createdAt", now.minus(Duration.ofDays(60)));
+
+        TrackedProduct hourly = new TrackedProduct();
+        hourly.setCheckIntervalMinutes(60);
+        TrackedProduct daily = new TrackedProduct();
+        daily.setCheckIntervalMinutes(1440);
+        trackers = List.of(hourly, daily);
+    }
+
+    @Test
+    void whenAdaptiveDisabled_thenUseShortestRequestedInterval() {
+        // Given
+        ReflectionTestUtils.setField(checkIntervalPolicy, "adaptive", false);
+
+        // When / Then
+        assertThat(checkIntervalPolicy.intervalMinutes(product, trackers, stats, now)).isEqualTo(60);
+    }
+
+    @Test
+    void whenPriceNeverChanges_thenStretchToCeiling() {
+        // Given
+        when(priceAnalyticsService.estimateChangesPerDay(any(), any(), any())).thenReturn(0.0);
+
+        // When / Then
+        assertThat(checkIntervalPolicy.intervalMinutes(product, trackers, null, now)).isEqualTo(1440);
+    }
+
+    @Test
+    void whenPriceChangesWeekly_thenStretchInterval() {
+        // Given
+        when(priceAnalyticsService.estimateChangesPerDay(any(), any(), any())).thenReturn(1.0 / 7);
+
+        // When / Then (0.1 changes per check at one change a week is about 17 hours)
+        assertThat(checkIntervalPolicy.intervalMinutes(product, trackers, stats, now)).isEqualTo(1008);
+    }
+
+    @Test
+    void whenPriceChangesEveryFewMinutes_thenTightenToFloor() {
+        // Given
+        when(priceAnalyticsService.estimateChangesPerDay(any(), any(), any())).thenReturn(100.0);
+
+        // When / Then
+        assertThat(checkIntervalPolicy.intervalMinutes(product, trackers, stats, now)).isEqualTo(5);
+    }
+
+    @Test
+    void whenProductObservedBriefly_thenUseRequestedInterval() {
+        // Given
+        ReflectionTestUtils.setField(product, "createdAt", now.minus(Duration.ofDays(1)));
+        when(priceAnalyticsService.estimateChangesPerDay(any(), any(), any())).thenReturn(0.0);
+
+        // When / Then
+        assertThat(checkIntervalPolicy.intervalMinutes(product, trackers, stats, now)).isEqualTo(60);
+    }
+}
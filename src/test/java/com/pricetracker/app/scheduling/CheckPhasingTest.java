@@ -0,0 +1,105 @@
+package com.pricetracker.app.scheduling;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CheckPhasingTest {
+
+    private static final int INTERVAL_MINUTES = 60;
+
+    private final Instant now = Instant.parse("2026-03-01T10:00:00Z");
+    private final CheckPhasing checkPhasing = new CheckPhasing(true, 10, 20, 60);
+
+    @Test
+    void whenManyProductsUncheckedAtStartup_thenDueTimesSpreadAcrossInterval() {
+        // Given
+        int products = 6000;
+        int[] perMinute = new int[INTERVAL_MINUTES];
+
+        // When
+        for (long id = 1; id <= products; id++) {
+            Instant dueAt = checkPhasing.dueAt(id, INTERVAL_MINUTES, null, now);
+            long minutesAhead = Duration.between(now, dueAt).toMinutes();
+            assertThat(minutesAhead).isBetween(0L, (long) INTERVAL_MINUTES - 1);
+            perMinute[(int) minutesAhead]++;
+        }
+
+        // Then (100 per minute on average)
+        for (int count : perMinute) {
+            assertThat(count).isBetween(60, 140);
+        }
+    }
+
+    @Test
+    void whenProductChecked_thenNextDueOnSamePhaseOneIntervalLater() {
+        // Given
+        Instant firstDue = checkPhasing.dueAt(42L, INTERVAL_MINUTES, null, now);
+
+        // When
+        Instant nextDue = checkPhasing.dueAt(42L, INTERVAL_MINUTES, firstDue.plusSeconds(20), firstDue.plusSeconds(30));
+
+        // Then
+        assertThat(nextDue).isEqualTo(firstDue.plus(Duration.ofMinutes(INTERVAL_MINUTES)));
+    }
+
+    @Test
+    void whenProductPrefetched_thenNotCheckedAgainAtItsSlot() {
+        // Given
+        Instant slot = checkPhasing.dueAt(7L, INTERVAL_MINUTES, null, now);
+        Instant prefetchedAt = slot.minus(Duration.ofMinutes(5));
+
+        // When
+        Instant nextDue = checkPhasing.dueAt(7L, INTERVAL_MINUTES, prefetchedAt, prefetchedAt);
+
+        // Then
+        assertThat(nextDue).isEqualTo(slot.plus(Duration.ofMinutes(INTERVAL_MINUTES)));
+    }
+
+    @Test
+    void whenLongIntervalUncheckedAtStartup_thenFirstCheckWithinStartupSpread() {
+        // Given - a daily interval, with the last check before the restart unknown
+        int dailyMinutes = 24 * 60;
+        int[] perMinute = new int[60];
+
+        // When
+        for (long id = 1; id <= 6000; id++) {
+            Instant dueAt = checkPhasing.dueAt(id, dailyMinutes, null, now);
+            long minutesAhead = Duration.between(now, dueAt).toMinutes();
+            assertThat(minutesAhead).isBetween(0L, 59L);
+            perMinute[(int) minutesAhead]++;
+        }
+
+        // Then - still spread out, and back on the daily slot after the first check
+        for (int count : perMinute) {
+            assertThat(count).isBetween(60, 140);
+        }
+        Instant firstCheck = checkPhasing.dueAt(42L, dailyMinutes, null, now);
+        Instant nextDue = checkPhasing.dueAt(42L, dailyMinutes, firstCheck, firstCheck);
+        assertThat(nextDue).isEqualTo(CheckPhasing.nextSlot(42L, Duration.ofDays(1), firstCheck.plus(Duration.ofHours(12))));
+        assertThat(Duration.between(firstCheck, nextDue)).isBetween(Duration.ofHours(12), Duration.ofHours(36));
+    }
+
+    @Test
+    void whenDueSoon_thenPrefetchCandidate() {
+        assertThat(checkPhasing.isPrefetchCandidate(now.plus(Duration.ofMinutes(5)), now)).isTrue();
+        assertThat(checkPhasing.isPrefetchCandidate(now.plus(Duration.ofMinutes(30)), now)).isFalse();
+        assertThat(checkPhasing.idleCapacity(15)).isEqualTo(5);
+        assertThat(checkPhasing.idleCapacity(25)).isZero();
+    }
+
+    @Test
+    void whenDisabled_thenDueOneIntervalAfterLastCheck() {
+        // Given
+        CheckPhasing disabled = new CheckPhasing(false, 10, 20, 60);
+        Instant lastCheck = now.minus(Duration.ofMinutes(30));
+
+        // When / Then
+        assertThat(disabled.dueAt(1L, INTERVAL_MINUTES, null, now)).isEqualTo(now);
+        assertThat(disabled.dueAt(1L, INTERVAL_MINUTES, lastCheck, now)).isEqualTo(lastCheck.plus(Duration.ofMinutes(60)));
+        assertThat(disabled.idleCapacity(0)).isZero();
+    }
+}
@@ -1,13 +1,20 @@
 package com.pricetracker.app.scheduling;
 
+import com.pricetracker.app.cache.TrackedProductCache;
 import com.pricetracker.app.entity.PriceHistory;
 import com.pricetracker.app.entity.Product;
 import com.pricetracker.app.entity.TrackedProduct;
+import com.pricetracker.app.metrics.PipelineMetrics;
 import com.pricetracker.app.notification.NotificationService;
 import com.pricetracker.app.repository.PriceHistoryRepository;
 import com.pricetracker.app.repository.ProductRepository;
 import com.pricetracker.app.repository.TrackedProductRepository;
+import com.pricetracker.app.repository.TrackedProductRepository.NotificationClaim;
+import com.pricetracker.app.scraping.PriceScrapeResult;
+import com.pricetracker.app.scraping.ProxyPool;
+import com.pricetracker.app.scraping.ScrapeFailureType;
 import com.pricetracker.app.scraping.ScraperService;
+import com.pricetracker.app.service.PriceAnalyticsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -22,7 +29,7 @@ import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Optional;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -48,6 +55,33 @@ class PriceCheckSchedulerTest {
     @Mock
     private NotificationService notificationService;
     
+    @Mock
+    private PriceAnalyticsService priceAnalyticsService;
+    
+    @Mock
+    private TrackedProductCache trackedProductCache;
+    
+    @Mock
+    private PipelineMetrics metrics;
+    
+    @Mock
+    private CheckIntervalPolicy checkIntervalPolicy;
+    
+    @Mock
+    private ScrapeBudgetPlanner scrapeBudgetPlanner;
+    
+    @Mock
+    private CheckPhasing checkPhasing;
+    
+    @Mock
+    private SchedulerOverloadPolicy overloadPolicy;
+    
+    @Mock
+    private ScrapeRetryQueue retryQueue;
+    
+    @Mock
+    private ProxyPool proxyPool;
+    
     @Captor
     private ArgumentCaptor<Product> productCaptor;
     
@@ -67,6 +101,22 @@ class PriceCheckSchedulerTest {
         // Initialize the lastCheckTimeMap with an empty HashMap to avoid NPE
         ReflectionTestUtils.setField(priceCheckScheduler, "lastCheckTimeMap", new HashMap<>());
         
+        // Check every product at the interval its trackers requested
+        when(checkIntervalPolicy.intervalMinutes(any(), anyList(), any(), any())).thenReturn(5);
+        
+        // No scrape budget, every due check is scheduled
+        when(scrapeBudgetPlanner.plan(anyList(), any()))
+            .thenAnswer(invocation -> new ScrapePlan(invocation.getArgument(0), List.of()));
+        
+        // Every product is due at the start of the run
+        when(checkPhasing.dueAt(anyLong(), anyInt(), any(), any())).thenAnswer(invocation -> invocation.getArgument(3));
+        
+        // Not overloaded: intervals unchanged, every scheduled check runs, no deadline
+        when(overloadPolicy.adjustIntervalMinutes(anyInt())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(overloadPolicy.apply(anyList(), any()))
+            .thenAnswer(invocation -> new SchedulerOverloadPolicy.OverloadDecision(invocation.getArgument(0), List.of()));
+        when(overloadPolicy.deadline(any())).thenReturn(Instant.MAX);
+        
         // Set up test products and tracked products
         testProduct1 = new Product();
         testProduct1.setId(1L);
@@ -100,15 +150,17 @@ class PriceCheckSchedulerTest {
         assertThat(newPrice.compareTo(trackedProduct.getDesiredPrice())).isLessThan(0);
         
         // Set up mocks
-        when(trackedProductRepository.findByProductIdAndNotificationEnabledTrue(testProduct1.getId()))
-                .thenReturn(Collections.singletonList(trackedProduct));
+        NotificationClaim claim = mock(NotificationClaim.class);
+        when(trackedProductRepository.claimForNotification(
+                eq(testProduct1.getId()), eq(newPrice), any(Instant.class), any(Instant.class)))
+                .thenReturn(Collections.singletonList(claim));
         
         // WHEN - directly call the private method
         ReflectionTestUtils.invokeMethod(priceCheckScheduler, "sendNotifications", testProduct1, newPrice);
         
-        // THEN
-        verify(notificationService).sendPriceAlert(eq(trackedProduct), eq(newPrice));
-        verify(trackedProductRepository).save(trackedProduct);
+        // THEN - the claims are dispatched, the claim already recorded the notification
+        verify(notificationService).sendPriceAlerts(eq(testProduct1), eq(newPrice), eq(List.of(claim)));
+        verify(trackedProductRepository, never()).save(any());
     }
     
     @Test
@@ -120,16 +172,19 @@ class PriceCheckSchedulerTest {
         // Verify test setup
         assertThat(newPrice.compareTo(trackedProduct.getDesiredPrice())).isLessThan(0);
         
-        // Set up mocks
-        when(trackedProductRepository.findByProductIdAndNotificationEnabledTrue(testProduct1.getId()))
-                .thenReturn(Collections.singletonList(trackedProduct));
+        // Set up mocks - the claim leaves out subscribers notified after the cooldown cutoff
+        ArgumentCaptor<Instant> cutoffCaptor = ArgumentCaptor.forClass(Instant.class);
+        when(trackedProductRepository.claimForNotification(
+                eq(testProduct1.getId()), eq(newPrice), any(Instant.class), cutoffCaptor.capture()))
+                .thenReturn(Collections.emptyList());
         
         // WHEN - directly call the private method
         ReflectionTestUtils.invokeMethod(priceCheckScheduler, "sendNotifications", testProduct1, newPrice);
         
         // THEN
-        verify(notificationService, never()).sendPriceAlert(any(), any());
-        verify(trackedProductRepository, never()).save(any());
+        assertThat(cutoffCaptor.getValue()).isAfter(trackedProduct.getLastNotifiedAt().minusSeconds(24 * 3600));
+        assertThat(cutoffCaptor.getValue()).isBefore(trackedProduct.getLastNotifiedAt());
+        verify(notificationService, never()).sendPriceAlerts(any(), any(), any());
     }
     
     @Test
@@ -152,7 +207,7 @@ class PriceCheckSchedulerTest {
         when(productRepository.findAll()).thenReturn(Collections.singletonList(testProduct1));
         when(trackedProductRepository.findByProductId(testProduct1.getId()))
                 .thenReturn(Collections.singletonList(trackedProduct));
-        when(scraperService.scrapePrice(testProduct1.getProductUrl())).thenReturn(Optional.of(newPrice));
+        when(scraperService.scrapePriceResult(testProduct1.getProductUrl())).thenReturn(PriceScrapeResult.success(newPrice));
         
         // WHEN
         priceCheckScheduler.checkPrices();
@@ -165,6 +220,17 @@ class PriceCheckSchedulerTest {
         
         // Verify price history was created
         verify(priceHistoryRepository).save(any(PriceHistory.class));
+        
+        // Verify the new point was folded into the price aggregates
+        verify(priceAnalyticsService).recordPrice(eq(testProduct1), eq(newPrice), any(Instant.class));
+        
+        // Verify cached views of the tracking users were invalidated
+        verify(trackedProductCache).evictUsers(List.of(trackedProduct.getUserId()));
+        
+        // Verify the pipeline metrics saw one due product and one price drop
+        verify(metrics).setSchedulerBacklog(1);
+        verify(metrics).setSchedulerBacklog(0);
+        verify(metrics).incrementPriceChange("drop");
     }
     
     @Test
@@ -183,10 +249,10 @@ class PriceCheckSchedulerTest {
         when(trackedProductRepository.findByProductId(testProduct2.getId()))
                 .thenReturn(Collections.singletonList(tp2));
                 
-        when(scraperService.scrapePrice(testProduct1.getProductUrl()))
+        when(scraperService.scrapePriceResult(testProduct1.getProductUrl()))
             .thenThrow(new RuntimeException("Scraping failed"));
-        when(scraperService.scrapePrice(testProduct2.getProductUrl()))
-            .thenReturn(Optional.of(new BigDecimal("149.99"))); // Same price, no change
+        when(scraperService.scrapePriceResult(testProduct2.getProductUrl()))
+            .thenReturn(PriceScrapeResult.success(new BigDecimal("149.99"))); // Same price, no change
         
         // When
         priceCheckScheduler.checkPrices();
@@ -202,8 +268,8 @@ class PriceCheckSchedulerTest {
         when(productRepository.findAll()).thenReturn(Collections.singletonList(testProduct1));
         when(trackedProductRepository.findByProductId(testProduct1.getId()))
                 .thenReturn(Collections.singletonList(trackedProduct));
-        when(scraperService.scrapePrice(testProduct1.getProductUrl()))
-            .thenReturn(Optional.of(testProduct1.getLastCheckedPrice()));
+        when(scraperService.scrapePriceResult(testProduct1.getProductUrl()))
+            .thenReturn(PriceScrapeResult.success(testProduct1.getLastCheckedPrice()));
         
         // When
         priceCheckScheduler.checkPrices();
@@ -211,6 +277,7 @@ class PriceCheckSchedulerTest {
         // Then
         verify(productRepository, never()).save(any(Product.class));
         verify(priceHistoryRepository, never()).save(any(PriceHistory.class));
+        verify(trackedProductCache, never()).evictUsers(any());
     }
     
     @Test
@@ -230,7 +297,7 @@ class PriceCheckSchedulerTest {
         when(productRepository.findAll()).thenReturn(Collections.singletonList(testProduct1));
         when(trackedProductRepository.findByProductId(testProduct1.getId()))
                 .thenReturn(Collections.singletonList(trackedProduct));
-        when(scraperService.scrapePrice(testProduct1.getProductUrl())).thenReturn(Optional.of(newPrice));
+        when(scraperService.scrapePriceResult(testProduct1.getProductUrl())).thenReturn(PriceScrapeResult.success(newPrice));
         
         // WHEN
         priceCheckScheduler.checkPrices();
@@ -251,8 +318,131 @@ class PriceCheckSchedulerTest {
         priceCheckScheduler.checkPrices();
         
         // Then
-        verify(scraperService, never()).scrapePrice(any());
+        verify(scraperService, never()).scrapePriceResult(any());
         verify(productRepository, never()).save(any());
         verify(priceHistoryRepository, never()).save(any());
     }
-} 
\ No newline at end of file
+    
+    @Test
+    void whenCheckPrices_withFailedScrape_thenRecordFailureInRetryLane() {
+        // Given
+        PriceScrapeResult failure = PriceScrapeResult.failure(ScrapeFailureType.TRANSIENT, "SocketTimeoutException");
+        when(productRepository.findAll()).thenReturn(Collections.singletonList(testProduct1));
+        when(trackedProductRepository.findByProductId(testProduct1.getId()))
+                .thenReturn(Collections.singletonList(trackedProduct));
+        when(scraperService.scrapePriceResult(testProduct1.getProductUrl())).thenReturn(failure);
+        
+        // When
+        priceCheckScheduler.checkPrices();
+        
+        // Then
+        verify(retryQueue).recordFailure(eq(testProduct1), eq(failure), any(Instant.class));
+        verify(retryQueue, never()).recordSuccess(any());
+        verify(priceHistoryRepository, never()).save(any(PriceHistory.class));
+    }
+    
+    @Test
+    void whenCheckPrices_withRetryDueBeforeRegularSlot_thenCheckAtRetryTime() {
+        // Given
+        when(productRepository.findAll()).thenReturn(Collections.singletonList(testProduct1));
+        when(trackedProductRepository.findByProductId(testProduct1.getId()))
+                .thenReturn(Collections.singletonList(trackedProduct));
+        when(checkPhasing.dueAt(anyLong(), anyInt(), any(), any())).thenReturn(Instant.now().plusSeconds(3600));
+        when(retryQueue.retryAt(testProduct1.getId())).thenReturn(Instant.now().minusSeconds(1));
+        when(scraperService.scrapePriceResult(testProduct1.getProductUrl()))
+            .thenReturn(PriceScrapeResult.success(testProduct1.getLastCheckedPrice()));
+        
+        // When
+        priceCheckScheduler.checkPrices();
+        
+        // Then
+        verify(scraperService).scrapePriceResult(testProduct1.getProductUrl());
+        verify(retryQueue).recordSuccess(testProduct1);
+    }
+    
+    @Test
+    void whenCheckPrices_withDeadLetteredProduct_thenSkipCheck() {
+        // Given
+        testProduct1.setDeadLetteredAt(Instant.now().minusSeconds(60));
+        when(retryQueue.reprobeAt(testProduct1)).thenReturn(Instant.now().plusSeconds(3600));
+        when(productRepository.findAll()).thenReturn(Collections.singletonList(testProduct1));
+        when(trackedProductRepository.findByProductId(testProduct1.getId()))
+                .thenReturn(Collections.singletonList(trackedProduct));
+        
+        // When
+        priceCheckScheduler.checkPrices();
+        
+        // Then
+        verify(trackedProductRepository, never()).findByProductId(any());
+        verify(scraperService, never()).scrapePriceResult(any());
+    }
+    
+    @Test
+    void whenCheckPrices_withDeadLetteredProductDueForReprobe_thenCheckIt() {
+        // Given - not due on its regular slot, but its re-probe is
+        testProduct1.setDeadLetteredAt(Instant.now().minusSeconds(86400));
+        when(retryQueue.reprobeAt(testProduct1)).thenReturn(Instant.now().minusSeconds(1));
+        when(checkPhasing.dueAt(anyLong(), anyInt(), any(), any())).thenReturn(Instant.now().plusSeconds(3600));
+        when(productRepository.findAll()).thenReturn(Collections.singletonList(testProduct1));
+        when(trackedProductRepository.findByProductId(testProduct1.getId()))
+                .thenReturn(Collections.singletonList(trackedProduct));
+        when(scraperService.scrapePriceResult(testProduct1.getProductUrl()))
+            .thenReturn(PriceScrapeResult.success(testProduct1.getLastCheckedPrice()));
+        
+        // When
+        priceCheckScheduler.checkPrices();
+        
+        // Then
+        verify(scraperService).scrapePriceResult(testProduct1.getProductUrl());
+        verify(retryQueue).recordSuccess(testProduct1);
+    }
+    
+    @Test
+    void whenCheckPrices_withShedAndUnstartedChecks_thenRefundTheirBudget() {
+        // Given - product 2 is shed, and the deadline passes after product 1 has started
+        when(productRepository.findAll()).thenReturn(Arrays.asList(testProduct1, testProduct2));
+        when(trackedProductRepository.findByProductId(anyLong()))
+                .thenReturn(Collections.singletonList(trackedProduct));
+        when(overloadPolicy.apply(anyList(), any())).thenAnswer(invocation -> {
+            List<DueCheck> scheduled = invocation.getArgument(0);
+            DueCheck shed = scheduled.stream().filter(check -> check.product() == testProduct2).findFirst().orElseThrow();
+            DueCheck run = scheduled.stream().filter(check -> check.product() == testProduct1).findFirst().orElseThrow();
+            return new SchedulerOverloadPolicy.OverloadDecision(List.of(run, run), List.of(shed));
+        });
+        when(overloadPolicy.deadline(any())).thenAnswer(invocation -> Instant.now().plusMillis(200));
+        when(scraperService.scrapePriceResult(testProduct1.getProductUrl())).thenAnswer(invocation -> {
+            Thread.sleep(400);
+            return PriceScrapeResult.success(testProduct1.getLastCheckedPrice());
+        });
+        
+        // When
+        priceCheckScheduler.checkPrices();
+        
+        // Then
+        ArgumentCaptor<DueCheck> refunded = ArgumentCaptor.forClass(DueCheck.class);
+        verify(scrapeBudgetPlanner, times(2)).refund(refunded.capture(), any(Instant.class));
+        assertThat(refunded.getAllValues()).extracting(DueCheck::product).containsExactly(testProduct2, testProduct1);
+        verify(scraperService, times(1)).scrapePriceResult(any());
+    }
+    
+    @Test
+    void whenCheckPrices_withProxyPoolExhausted_thenStopRunAndRefundTheRest() {
+        // Given - no proxy can take the first check's request
+        when(productRepository.findAll()).thenReturn(Arrays.asList(testProduct1, testProduct2));
+        when(trackedProductRepository.findByProductId(anyLong()))
+                .thenReturn(Collections.singletonList(trackedProduct));
+        when(scraperService.scrapePriceResult(any()))
+            .thenReturn(PriceScrapeResult.failure(ScrapeFailureType.EGRESS, "NoProxyAvailableException"));
+        when(proxyPool.isExhausted()).thenReturn(true);
+        
+        // When
+        priceCheckScheduler.checkPrices();
+        
+        // Then - the check that found no proxy and the one after it stay due, with their budget given back
+        verify(scraperService, times(1)).scrapePriceResult(any());
+        ArgumentCaptor<DueCheck> refunded = ArgumentCaptor.forClass(DueCheck.class);
+        verify(scrapeBudgetPlanner, times(2)).refund(refunded.capture(), any(Instant.class));
+        assertThat(refunded.getAllValues()).extracting(DueCheck::product).containsExactly(testProduct1, testProduct2);
+        verify(metrics).incrementChecksDropped("no_proxy", 2);
+    }
+}
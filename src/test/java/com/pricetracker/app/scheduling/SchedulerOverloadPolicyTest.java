@@ -0,0 +1,103 @@
+package com.pricetracker.app.scheduling;
+
+import com.pricetracker.app.entity.Product;
+import com.pricetracker.app.entity.TrackedProduct;
+import com.pricetracker.app.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SchedulerOverloadPolicyTest {
+
+    private final Instant now = Instant.parse("2026-03-01T10:00:00Z");
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void whenLagBelowThreshold_thenKeepValueOrder() {
+        // Given
+        SchedulerOverloadPolicy policy = policy("reorder");
+        List<DueCheck> scheduled = List.of(dueCheck(5, 2), dueCheck(1, 10));
+
+        // When
+        SchedulerOverloadPolicy.OverloadDecision decision = policy.apply(scheduled, now);
+
+        // Then
+        assertThat(decision.run()).containsExactlyElementsOf(scheduled);
+        assertThat(policy.isOverloaded()).isFalse();
+    }
+
+    @Test
+    void whenOverloadedWithReorder_thenMostOverdueFirst() {
+        // Given
+        SchedulerOverloadPolicy policy = policy("reorder");
+        DueCheck valuable = dueCheck(10, 2);
+        DueCheck overdue = dueCheck(1, 40);
+
+        // When
+        SchedulerOverloadPolicy.OverloadDecision decision = policy.apply(List.of(valuable, overdue), now);
+
+        // Then
+        assertThat(policy.isOverloaded()).isTrue();
+        assertThat(decision.run()).containsExactly(overdue, valuable);
+        assertThat(meterRegistry.get("scheduler.overloaded").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    void whenOverloadedWithShed_thenSkipLowestValueShare() {
+        // Given
+        SchedulerOverloadPolicy policy = policy("shed");
+        List<DueCheck> scheduled = new ArrayList<>();
+        for (int trackers = 1; trackers <= 8; trackers++) {
+            scheduled.add(dueCheck(trackers, 30));
+        }
+
+        // When
+        SchedulerOverloadPolicy.OverloadDecision decision = policy.apply(scheduled, now);
+
+        // Then
+        assertThat(decision.shed()).containsExactlyInAnyOrder(scheduled.get(0), scheduled.get(1));
+        assertThat(decision.run()).hasSize(6);
+    }
+
+    @Test
+    void whenRunHitsDeadline_thenWidenIntervalsUntilCaughtUp() {
+        // Given
+        SchedulerOverloadPolicy policy = policy("widen");
+
+        // When
+        policy.recordRun(Duration.ZERO, true);
+        int widened = policy.adjustIntervalMinutes(60);
+        policy.recordRun(Duration.ofMinutes(1), false);
+
+        // Then
+        assertThat(widened).isEqualTo(120);
+        assertThat(policy.adjustIntervalMinutes(60)).isEqualTo(60);
+        assertThat(policy.deadline(now)).isEqualTo(now.plusSeconds(54));
+    }
+
+    private SchedulerOverloadPolicy policy(String mode) {
+        return new SchedulerOverloadPolicy(mode, 15, 0.25, 2.0, 0.9, 60000, new PipelineMetrics(meterRegistry));
+    }
+
+    private DueCheck dueCheck(int trackers, int overdueMinutes) {
+        Product product = new Product();
+        product.setProductUrl("https://www.amazon.in/dp/B0" + trackers);
+        product.setLastCheckedPrice(new BigDecimal("100.00"));
+
+        List<TrackedProduct> trackedProducts = new ArrayList<>();
+        for (int i = 0; i < trackers; i++) {
+            TrackedProduct trackedProduct = new TrackedProduct();
+            trackedProduct.setDesiredPrice(new BigDecimal("50.00"));
+            trackedProduct.setNotificationEnabled(true);
+            trackedProducts.add(trackedProduct);
+        }
+        return new DueCheck(product, trackedProducts, now.minus(Duration.ofMinutes(overdueMinutes)), 60);
+    }
+}
@@ -0,0 +1,136 @@
+package com.pricetracker.app.scheduling;
+
+import com.pricetracker.app.config.ScrapeBudgetProperties;
+import com.pricetracker.app.entity.Product;
+import com.pricetracker.app.entity.TrackedProduct;
+import com.pricetracker.app.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScrapeBudgetPlannerTest {
+
+    private static final String AMAZON = "https://www.amazon.in/dp/";
+    private static final String FLIPKART = "https://www.flipkart.com/p/";
+
+    private final Instant now = Instant.now();
+    private ScrapeBudgetProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private ScrapeBudgetPlanner planner;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ScrapeBudgetProperties();
+        properties.setEnabled(true);
+        properties.setWindowMinutes(60);
+        properties.setHosts(Map.of("www.amazon.in", 2));
+        meterRegistry = new SimpleMeterRegistry();
+        planner = new ScrapeBudgetPlanner(properties, new PipelineMetrics(meterRegistry));
+    }
+
+    @Test
+    void whenBudgetDisabled_thenScheduleEverything() {
+        // Given
+        properties.setEnabled(false);
+        List<DueCheck> due = List.of(dueCheck(AMAZON + "1", 1, "100.00", "50.00", 0),
+            dueCheck(AMAZON + "2", 1, "100.00", "50.00", 0), dueCheck(AMAZON + "3", 1, "100.00", "50.00", 0));
+
+        // When
+        ScrapePlan plan = planner.plan(due, now);
+
+        // Then
+        assertThat(plan.scheduled()).hasSize(3);
+        assertThat(plan.deferred()).isEmpty();
+    }
+
+    @Test
+    void whenMoreDueThanBudget_thenScheduleMostValuableAndDeferRest() {
+        // Given
+        DueCheck manyTrackers = dueCheck(AMAZON + "1", 10, "100.00", "50.00", 0);
+        DueCheck closeToDesired = dueCheck(AMAZON + "2", 1, "100.00", "99.00", 0);
+        DueCheck farFromDesired = dueCheck(AMAZON + "3", 1, "100.00", "10.00", 0);
+        DueCheck otherHost = dueCheck(FLIPKART + "4", 1, "100.00", "10.00", 0);
+
+        // When
+        ScrapePlan plan = planner.plan(List.of(farFromDesired, closeToDesired, otherHost, manyTrackers), now);
+
+        // Then
+        assertThat(plan.scheduled()).containsExactlyInAnyOrder(manyTrackers, closeToDesired, otherHost);
+        assertThat(plan.scheduled().get(0)).isEqualTo(manyTrackers);
+        assertThat(plan.deferred()).containsExactly(farFromDesired);
+        assertThat(meterRegistry.get("scheduler.budget.deferred").tag("host", "www.amazon.in").counter().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get("scheduler.budget.remaining").tag("host", "www.amazon.in").gauge().value())
+            .isZero();
+        assertThat(meterRegistry.get("scheduler.budget.granted").tag("host", "other").counter().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void whenWindowPasses_thenBudgetIsAvailableAgain() {
+        // Given
+        planner.plan(List.of(dueCheck(AMAZON + "1", 1, "100.00", "50.00", 0),
+            dueCheck(AMAZON + "2", 1, "100.00", "50.00", 0)), now);
+
+        // When
+        ScrapePlan sameWindow = planner.plan(List.of(dueCheck(AMAZON + "3", 1, "100.00", "50.00", 0)),
+            now.plus(Duration.ofMinutes(30)));
+        ScrapePlan nextWindow = planner.plan(List.of(dueCheck(AMAZON + "3", 1, "100.00", "50.00", 0)),
+            now.plus(Duration.ofMinutes(61)));
+
+        // Then
+        assertThat(sameWindow.scheduled()).isEmpty();
+        assertThat(nextWindow.scheduled()).hasSize(1);
+    }
+
+    @Test
+    void whenGrantedCheckRefunded_thenBudgetIsAvailableAgain() {
+        // Given - the whole budget granted, one check of which did not run
+        DueCheck notRun = dueCheck(AMAZON + "1", 1, "100.00", "50.00", 0);
+        planner.plan(List.of(notRun, dueCheck(AMAZON + "2", 1, "100.00", "50.00", 0)), now);
+
+        // When
+        planner.refund(notRun, now);
+        ScrapePlan next = planner.plan(List.of(dueCheck(AMAZON + "3", 1, "100.00", "50.00", 0),
+            dueCheck(AMAZON + "4", 1, "100.00", "50.00", 0)), now.plus(Duration.ofMinutes(5)));
+
+        // Then
+        assertThat(next.scheduled()).hasSize(1);
+        assertThat(next.deferred()).hasSize(1);
+    }
+
+    @Test
+    void whenCheckIsOverdue_thenValueGrows() {
+        // Given
+        DueCheck onTime = dueCheck(AMAZON + "1", 1, "100.00", "50.00", 0);
+        DueCheck overdue = dueCheck(AMAZON + "1", 1, "100.00", "50.00", 180);
+
+        // When / Then
+        assertThat(ScrapeBudgetPlanner.value(overdue, now)).isGreaterThan(ScrapeBudgetPlanner.value(onTime, now));
+    }
+
+    private DueCheck dueCheck(String url, int trackers, String price, String desiredPrice, int overdueMinutes) {
+        Product product = new Product();
+        product.setProductUrl(url);
+        product.setLastCheckedPrice(new BigDecimal(price));
+
+        List<TrackedProduct> trackedProducts = new ArrayList<>();
+        for (int i = 0; i < trackers; i++) {
+            TrackedProduct trackedProduct = new TrackedProduct();
+            trackedProduct.setProduct(product);
+            trackedProduct.setDesiredPrice(new BigDecimal(desiredPrice));
+            trackedProduct.setNotificationEnabled(true);
+            trackedProducts.add(trackedProduct);
+        }
+        return new DueCheck(product, trackedProducts, now.minus(Duration.ofMinutes(overdueMinutes)), 60);
+    }
+}
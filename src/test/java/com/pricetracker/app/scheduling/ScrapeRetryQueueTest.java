@@ -0,0 +1,189 @@
+package com.pricetracker.app.scheduling;
+
+import com.pricetracker.app.entity.Product;
+import com.pricetracker.app.metrics.PipelineMetrics;
+import com.pricetracker.app.repository.ProductRepository;
+import com.pricetracker.app.scraping.PriceScrapeResult;
+import com.pricetracker.app.scraping.ScrapeFailureType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ScrapeRetryQueueTest {
+
+    private static final PriceScrapeResult TIMEOUT =
+        PriceScrapeResult.failure(ScrapeFailureType.TRANSIENT, "SocketTimeoutException: Read timed out");
+    private static final PriceScrapeResult CAPTCHA = PriceScrapeResult.failure(ScrapeFailureType.BLOCKED, "CAPTCHA");
+    private static final PriceScrapeResult NOT_FOUND = PriceScrapeResult.failure(ScrapeFailureType.PERMANENT, "HTTP 404");
+    private static final PriceScrapeResult NO_PROXY =
+        PriceScrapeResult.failure(ScrapeFailureType.EGRESS, "NoProxyAvailableException: No proxy available");
+    private static final PriceScrapeResult NO_PRICE = PriceScrapeResult.failure(ScrapeFailureType.NO_PRICE, "no price found");
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private final Instant now = Instant.parse("2026-03-01T10:00:00Z");
+    private SimpleMeterRegistry meterRegistry;
+    private ScrapeRetryQueue retryQueue;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        retryQueue = new ScrapeRetryQueue(productRepository, new PipelineMetrics(meterRegistry), true, 3, 60, 30, 3, 20, 24);
+        product = new Product();
+        product.setId(1L);
+        product.setProductUrl("https://www.amazon.in/dp/B01");
+    }
+
+    @Test
+    void whenTransientFailures_thenRetryWithExponentialBackoffUpToMaxAttempts() {
+        // When
+        ScrapeRetryQueue.Action first = retryQueue.recordFailure(product, TIMEOUT, now);
+        Instant firstRetry = retryQueue.retryAt(product.getId());
+        retryQueue.recordFailure(product, TIMEOUT, firstRetry);
+        Instant secondRetry = retryQueue.retryAt(product.getId());
+        retryQueue.recordFailure(product, TIMEOUT, secondRetry);
+        Instant thirdRetry = retryQueue.retryAt(product.getId());
+        ScrapeRetryQueue.Action fourth = retryQueue.recordFailure(product, TIMEOUT, thirdRetry);
+
+        // Then
+        assertThat(first).isEqualTo(ScrapeRetryQueue.Action.RETRY);
+        assertThat(firstRetry).isEqualTo(now.plus(Duration.ofMinutes(1)));
+        assertThat(secondRetry).isEqualTo(firstRetry.plus(Duration.ofMinutes(2)));
+        assertThat(thirdRetry).isEqualTo(secondRetry.plus(Duration.ofMinutes(4)));
+        assertThat(fourth).isEqualTo(ScrapeRetryQueue.Action.WAIT);
+        assertThat(retryQueue.retryAt(product.getId())).isNull();
+        assertThat(product.getConsecutiveFailures()).isEqualTo(4);
+        assertThat(product.getTotalFailures()).isEqualTo(4);
+        assertThat(meterRegistry.get("scheduler.scrape.failures")
+            .tag("type", "transient").tag("action", "retry").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void whenSuccessAfterFailure_thenRetryCancelledAndStreakReset() {
+        // Given
+        retryQueue.recordFailure(product, TIMEOUT, now);
+
+        // When
+        retryQueue.recordSuccess(product);
+
+        // Then
+        assertThat(retryQueue.retryAt(product.getId())).isNull();
+        assertThat(product.getConsecutiveFailures()).isZero();
+        assertThat(product.getTotalFailures()).isEqualTo(1);
+        assertThat(product.getLastFailureReason()).isEqualTo("SocketTimeoutException: Read timed out");
+    }
+
+    @Test
+    void whenBlocked_thenNoRetryAndNoStreak() {
+        // When
+        ScrapeRetryQueue.Action action = retryQueue.recordFailure(product, CAPTCHA, now);
+
+        // Then
+        assertThat(action).isEqualTo(ScrapeRetryQueue.Action.WAIT);
+        assertThat(retryQueue.retryAt(product.getId())).isNull();
+        assertThat(product.getConsecutiveFailures()).isZero();
+        assertThat(product.getTotalFailures()).isEqualTo(1);
+    }
+
+    @Test
+    void whenNoProxyGetsTheRequestOut_thenNoRetryAndNoStreak() {
+        // When - longer than the streak that would dead-letter the product
+        ScrapeRetryQueue.Action action = null;
+        for (int i = 0; i < 25; i++) {
+            action = retryQueue.recordFailure(product, NO_PROXY, now);
+        }
+
+        // Then
+        assertThat(action).isEqualTo(ScrapeRetryQueue.Action.WAIT);
+        assertThat(product.getDeadLetteredAt()).isNull();
+        assertThat(product.getConsecutiveFailures()).isZero();
+        assertThat(product.getTotalFailures()).isEqualTo(25);
+    }
+
+    @Test
+    void whenPermanentFailuresInARow_thenDeadLetter() {
+        // When
+        retryQueue.recordFailure(product, NOT_FOUND, now);
+        retryQueue.recordFailure(product, NOT_FOUND, now.plus(Duration.ofHours(1)));
+        ScrapeRetryQueue.Action third = retryQueue.recordFailure(product, NOT_FOUND, now.plus(Duration.ofHours(2)));
+
+        // Then
+        assertThat(third).isEqualTo(ScrapeRetryQueue.Action.DEAD_LETTER);
+        assertThat(product.getDeadLetteredAt()).isEqualTo(now.plus(Duration.ofHours(2)));
+    }
+
+    @Test
+    void whenUnavailableForLong_thenNotDeadLetteredAndRecoversOnSuccess() {
+        // Given - a product out of stock for more checks than any dead-letter threshold
+        for (int check = 0; check < 25; check++) {
+            ScrapeRetryQueue.Action action = retryQueue.recordFailure(product, NO_PRICE, now.plus(Duration.ofHours(check)));
+            assertThat(action).isEqualTo(ScrapeRetryQueue.Action.WAIT);
+        }
+        assertThat(product.getDeadLetteredAt()).isNull();
+        assertThat(retryQueue.retryAt(product.getId())).isNull();
+
+        // When - back in stock
+        retryQueue.recordSuccess(product);
+
+        // Then
+        assertThat(product.getConsecutiveFailures()).isZero();
+        assertThat(product.getTotalFailures()).isEqualTo(25);
+        assertThat(meterRegistry.get("scheduler.scrape.failures")
+            .tag("type", "no_price").tag("action", "wait").counter().count()).isEqualTo(25);
+    }
+
+    @Test
+    void whenDeadLettered_thenReprobedAfterInterval() {
+        // Given
+        product.setDeadLetteredAt(now);
+        product.setConsecutiveFailures(3);
+
+        // When - the first re-probe fails, the second succeeds
+        Instant firstReprobe = retryQueue.reprobeAt(product);
+        ScrapeRetryQueue.Action failed = retryQueue.recordFailure(product, CAPTCHA, firstReprobe);
+        Instant secondReprobe = retryQueue.reprobeAt(product);
+        retryQueue.recordSuccess(product);
+
+        // Then
+        assertThat(firstReprobe).isEqualTo(now.plus(Duration.ofHours(24)));
+        assertThat(failed).isEqualTo(ScrapeRetryQueue.Action.DEAD_LETTER);
+        assertThat(secondReprobe).isEqualTo(firstReprobe.plus(Duration.ofHours(24)));
+        assertThat(product.getDeadLetteredAt()).isNull();
+        assertThat(product.getConsecutiveFailures()).isZero();
+        assertThat(retryQueue.reprobeAt(product)).isNull();
+    }
+
+    @Test
+    void whenRevived_thenDeadLetterCleared() {
+        // Given
+        product.setDeadLetteredAt(now);
+        product.setConsecutiveFailures(3);
+
+        // When
+        retryQueue.revive(product);
+
+        // Then
+        assertThat(product.getDeadLetteredAt()).isNull();
+        assertThat(product.getConsecutiveFailures()).isZero();
+        verify(productRepository).save(product);
+    }
+
+    @Test
+    void whenBackoffExceedsMaximum_thenCapped() {
+        assertThat(retryQueue.backoff(1)).isEqualTo(Duration.ofMinutes(1));
+        assertThat(retryQueue.backoff(4)).isEqualTo(Duration.ofMinutes(8));
+        assertThat(retryQueue.backoff(10)).isEqualTo(Duration.ofMinutes(30));
+    }
+}
@@ -0,0 +1,104 @@
+package com.pricetracker.app.scraping;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExtractionRuleStoreTest {
+
+    private static final String PAGE =
+        "<span class='new-price'>₹1,499</span><span class='a-price'><span class='a-offscreen'>₹1,299</span></span>";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void whenNoRulesFile_thenBuiltInRulesUsed() {
+        // When
+        ExtractionRuleStore store = new ExtractionRuleStore("");
+
+        // Then
+        assertThat(store.status().source()).isEqualTo("classpath:extraction-rules.json");
+        assertThat(store.plan("amazon").getPriceSelectors()).contains(".a-price .a-offscreen");
+        assertThat(store.plan("unknown")).isSameAs(store.plan(ExtractionRules.DEFAULT));
+    }
+
+    @Test
+    void whenRulesFileChanges_thenNewSelectorsUsedWithoutRestart() throws IOException {
+        // Given
+        Path file = dir.resolve("rules.json");
+        write(file, rules(1, ".a-price .a-offscreen"), 1);
+        ExtractionRuleStore store = new ExtractionRuleStore(file.toString());
+        AmazonScraperStrategy strategy = new AmazonScraperStrategy();
+        strategy.setRuleStore(store);
+        Document doc = Jsoup.parse(PAGE, "https://www.amazon.com/dp/B01");
+        assertThat(strategy.extractPrice(doc)).contains(new BigDecimal("1299"));
+
+        // When
+        write(file, rules(2, ".new-price"), 2);
+        store.reloadIfChanged();
+
+        // Then
+        assertThat(store.status().version()).isEqualTo(2);
+        assertThat(strategy.extractPrice(doc)).contains(new BigDecimal("1499"));
+    }
+
+    @Test
+    void whenRulesDoNotCompile_thenPreviousRulesKept() throws IOException {
+        // Given
+        Path file = dir.resolve("rules.json");
+        write(file, rules(1, ".new-price"), 1);
+        ExtractionRuleStore store = new ExtractionRuleStore(file.toString());
+
+        // When
+        write(file, rules(2, ".new-price >"), 2);
+        ExtractionRuleStore.Status status = store.reload();
+
+        // Then
+        assertThat(status.version()).isEqualTo(1);
+        assertThat(status.lastError()).contains("amazon");
+        assertThat(store.plan("amazon").getPriceSelectors()).containsExactly(".new-price");
+    }
+
+    @Test
+    void whenRulesHaveUnknownField_thenRejected() throws IOException {
+        // Given
+        Path file = dir.resolve("rules.json");
+        write(file, "{\"version\": 3, \"strategies\": {\"default\": {\"priceSelector\": \".price\"}}}", 1);
+
+        // When
+        ExtractionRuleStore store = new ExtractionRuleStore(file.toString());
+
+        // Then: the built-in rules stay in use
+        assertThat(store.status().lastError()).contains("priceSelector");
+        assertThat(store.status().source()).isEqualTo("classpath:extraction-rules.json");
+    }
+
+    private static String rules(int version, String priceSelector) {
+        return """
+            {
+              "version": %d,
+              "strategies": {
+                "default": {},
+                "amazon": {"priceSelectors": ["%s"]}
+              }
+            }
+            """.formatted(version, priceSelector);
+    }
+
+    private static void write(Path file, String content, int second) throws IOException {
+        Files.writeString(file, content);
+        // File systems with coarse timestamps would miss a change within the same second
+        Files.setLastModifiedTime(file, FileTime.from(Instant.ofEpochSecond(1_700_000_000L + second)));
+    }
+}
@@ -1,6 +1,11 @@
 package com.pricetracker.app.scraping;
 
+import com.pricetracker.app.archive.PageArchive;
+import com.pricetracker.app.metrics.PipelineMetrics;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,10 +18,19 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -26,19 +40,27 @@ class JsoupScraperServiceTest {
     @Mock
     private AmazonScraperStrategy amazonScraperStrategy;
 
+    @Mock
+    private PageArchive pageArchive;
+
     // Don't use @InjectMocks here since we need to manually inject the constructor
     private JsoupScraperService scraperService;
+    
+    private SimpleMeterRegistry meterRegistry;
 
     private static final String TEST_URL = "https://example.com/product";
+    private static final byte[] PAGE = "<html><body><span class=\"a-offscreen\">$99.99</span></body></html>"
+        .getBytes(StandardCharsets.UTF_8);
 
     @BeforeEach
     void setUp() {
-        // Mock the expandShortenedUrl method to return the same URL to avoid NPE
-        when(amazonScraperStrategy.expandShortenedUrl(anyString())).thenReturn(TEST_URL);
-        when(amazonScraperStrategy.canHandle(anyString())).thenReturn(true);
+        // The mocked strategy declares no hosts, so it is asked through canHandle
+        lenient().when(amazonScraperStrategy.canHandle(anyString())).thenReturn(true);
         
         // Manually create the service using the constructor
-        scraperService = new JsoupScraperService(amazonScraperStrategy);
+        meterRegistry = new SimpleMeterRegistry();
+        scraperService = new JsoupScraperService(List.of(amazonScraperStrategy), new PipelineMetrics(meterRegistry), pageArchive,
+            new ScrapeDispatcher(2, 1), ProxyPool.direct(), ScrapeSessions.disabled());
         
         // Set a positive value for defaultDelayMs to avoid IllegalArgumentException
         ReflectionTestUtils.setField(scraperService, "defaultDelayMs", 100);
@@ -47,7 +69,6 @@ class JsoupScraperServiceTest {
     @Test
     void whenScrapePrice_withValidDocument_thenReturnPrice() throws IOException {
         // Given
-        Document mockDocument = mock(Document.class);
         Connection mockConnection = mock(Connection.class);
 
         try (MockedStatic<Jsoup> jsoup = Mockito.mockStatic(Jsoup.class)) {
@@ -59,9 +80,13 @@ class JsoupScraperServiceTest {
             when(mockConnection.maxBodySize(anyInt())).thenReturn(mockConnection);
             when(mockConnection.ignoreContentType(anyBoolean())).thenReturn(mockConnection);
             when(mockConnection.ignoreHttpErrors(anyBoolean())).thenReturn(mockConnection);
-            when(mockConnection.get()).thenReturn(mockDocument);
+            Connection.Response mockResponse = mock(Connection.Response.class);
+            when(mockConnection.execute()).thenReturn(mockResponse);
+            when(mockResponse.bodyAsBytes()).thenReturn(PAGE);
+            when(mockResponse.contentType()).thenReturn("text/html; charset=UTF-8");
+            when(mockResponse.url()).thenReturn(new URL(TEST_URL));
             
-            when(amazonScraperStrategy.extractPrice(mockDocument)).thenReturn(Optional.of(new BigDecimal("99.99")));
+            when(amazonScraperStrategy.extractPrice(any(Document.class))).thenReturn(Optional.of(new BigDecimal("99.99")));
 
             // When
             Optional<BigDecimal> result = scraperService.scrapePrice(TEST_URL);
@@ -69,13 +94,36 @@ class JsoupScraperServiceTest {
             // Then
             assertThat(result).isPresent();
             assertThat(result.get()).isEqualTo(new BigDecimal("99.99"));
+            assertThat(meterRegistry.get("scraper.fetch")
+                .tag("marketplace", ScraperStrategyIndex.OTHER_MARKETPLACE).tag("outcome", PipelineMetrics.OUTCOME_SUCCESS)
+                .timer().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("scraper.parse").timer().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("scraper.extraction").tag("found", "true").timer().count()).isEqualTo(1);
+            verify(pageArchive).archive(eq(TEST_URL), any(), any());
+        }
+    }
+
+    @Test
+    void whenInterruptedBeforeFetch_thenNoRequestAndInterruptKept() {
+        try (MockedStatic<Jsoup> jsoup = Mockito.mockStatic(Jsoup.class)) {
+            // Given
+            Thread.currentThread().interrupt();
+
+            // When / Then
+            try {
+                assertThatThrownBy(() -> scraperService.fetchDocument(TEST_URL))
+                    .isInstanceOf(InterruptedIOException.class);
+                assertThat(Thread.currentThread().isInterrupted()).isTrue();
+                jsoup.verify(() -> Jsoup.connect(anyString()), never());
+            } finally {
+                Thread.interrupted();
+            }
         }
     }
 
     @Test
     void whenScrapeProductDetails_withValidDocument_thenReturnDetails() throws IOException {
         // Given
-        Document mockDocument = mock(Document.class);
         Connection mockConnection = mock(Connection.class);
         ProductDetails mockDetails = new ProductDetails(
             Optional.of("Test Product"),
@@ -92,9 +140,13 @@ class JsoupScraperServiceTest {
             when(mockConnection.maxBodySize(anyInt())).thenReturn(mockConnection);
             when(mockConnection.ignoreContentType(anyBoolean())).thenReturn(mockConnection);
             when(mockConnection.ignoreHttpErrors(anyBoolean())).thenReturn(mockConnection);
-            when(mockConnection.get()).thenReturn(mockDocument);
+            Connection.Response mockResponse = mock(Connection.Response.class);
+            when(mockConnection.execute()).thenReturn(mockResponse);
+            when(mockResponse.bodyAsBytes()).thenReturn(PAGE);
+            when(mockResponse.contentType()).thenReturn("text/html; charset=UTF-8");
+            when(mockResponse.url()).thenReturn(new URL(TEST_URL));
             
-            when(amazonScraperStrategy.scrapeProductDetails(mockDocument)).thenReturn(Optional.of(mockDetails));
+            when(amazonScraperStrategy.scrapeProductDetails(any(Document.class))).thenReturn(Optional.of(mockDetails));
 
             // When
             Optional<ProductDetails> result = scraperService.scrapeProductDetails(TEST_URL);
@@ -126,13 +178,197 @@ class JsoupScraperServiceTest {
             lenient().when(mockConnection.ignoreHttpErrors(anyBoolean())).thenReturn(mockConnection);
             
             // This is the only stub that will actually be used
-            when(mockConnection.get()).thenThrow(new IOException("Connection failed"));
+            when(mockConnection.execute()).thenThrow(new IOException("Connection failed"));
 
             // When
             Optional<BigDecimal> result = scraperService.scrapePrice(TEST_URL);
 
             // Then
             assertThat(result).isEmpty();
+            assertThat(meterRegistry.get("scraper.fetch")
+                .tag("outcome", PipelineMetrics.OUTCOME_IO_ERROR).timer().count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void whenScrapePriceResult_withHttpErrors_thenClassifyFailure() throws IOException {
+        // Given
+        Connection mockConnection = mock(Connection.class);
+
+        try (MockedStatic<Jsoup> jsoup = Mockito.mockStatic(Jsoup.class)) {
+            jsoup.when(() -> Jsoup.connect(anyString())).thenReturn(mockConnection);
+            lenient().when(mockConnection.userAgent(anyString())).thenReturn(mockConnection);
+            lenient().when(mockConnection.timeout(anyInt())).thenReturn(mockConnection);
+            lenient().when(mockConnection.headers(anyMap())).thenReturn(mockConnection);
+            lenient().when(mockConnection.followRedirects(anyBoolean())).thenReturn(mockConnection);
+            lenient().when(mockConnection.maxBodySize(anyInt())).thenReturn(mockConnection);
+            lenient().when(mockConnection.ignoreContentType(anyBoolean())).thenReturn(mockConnection);
+            lenient().when(mockConnection.ignoreHttpErrors(anyBoolean())).thenReturn(mockConnection);
+            when(mockConnection.execute())
+                .thenThrow(new HttpStatusException("Not Found", 404, TEST_URL))
+                .thenThrow(new HttpStatusException("Too Many Requests", 429, TEST_URL))
+                .thenThrow(new HttpStatusException("Bad Gateway", 502, TEST_URL));
+
+            // When
+            PriceScrapeResult notFound = scraperService.scrapePriceResult(TEST_URL);
+            PriceScrapeResult rateLimited = scraperService.scrapePriceResult(TEST_URL);
+            PriceScrapeResult badGateway = scraperService.scrapePriceResult(TEST_URL);
+
+            // Then
+            assertThat(notFound.failureType()).isEqualTo(ScrapeFailureType.PERMANENT);
+            assertThat(notFound.failureReason()).isEqualTo("HTTP 404");
+            assertThat(rateLimited.failureType()).isEqualTo(ScrapeFailureType.BLOCKED);
+            assertThat(badGateway.failureType()).isEqualTo(ScrapeFailureType.TRANSIENT);
+            assertThat(badGateway.isSuccess()).isFalse();
+        }
+    }
+
+    @Test
+    void whenProxiesConfigured_thenFetchGoesThroughProxy() throws Exception {
+        // Given a local stand-in proxy, answering the forwarded requests itself
+        List<String> forwarded = new CopyOnWriteArrayList<>();
+        HttpServer proxy = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        proxy.createContext("/", exchange -> {
+            forwarded.add(exchange.getRequestURI() + " " + exchange.getRequestHeaders().getFirst("User-Agent"));
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+            exchange.sendResponseHeaders(200, PAGE.length);
+            exchange.getResponseBody().write(PAGE);
+            exchange.close();
+        });
+        proxy.start();
+        try {
+            ProxyPool proxyPool = new ProxyPool(List.of(new ProxyPool.ProxyDefinition("local", "127.0.0.1",
+                proxy.getAddress().getPort(), 1, "Mozilla/5.0 Proxy")), 1, 0.5, 5, Duration.ofMinutes(1),
+                Duration.ofSeconds(1));
+            JsoupScraperService service = new JsoupScraperService(List.of(amazonScraperStrategy),
+                new PipelineMetrics(meterRegistry), pageArchive, new ScrapeDispatcher(1, 1, proxyPool), proxyPool,
+                ScrapeSessions.disabled());
+            ReflectionTestUtils.setField(service, "defaultDelayMs", 1);
+
+            // When
+            Document doc = service.fetchDocument("http://shop.example/product");
+
+            // Then
+            assertThat(doc.select(".a-offscreen").text()).isEqualTo("$99.99");
+            assertThat(forwarded).containsExactly("http://shop.example/product Mozilla/5.0 Proxy");
+            ProxyPool.ProxyStatus status = proxyPool.status().get(0);
+            assertThat(status.requests()).isEqualTo(1);
+            assertThat(status.active()).isZero();
+        } finally {
+            proxy.stop(0);
+        }
+    }
+
+    @Test
+    void whenProxiesConfigured_thenShortenedUrlIsExpandedThroughProxy() throws Exception {
+        // Given a local stand-in proxy, answering as the shortener
+        List<String> forwarded = new CopyOnWriteArrayList<>();
+        HttpServer proxy = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        proxy.createContext("/", exchange -> {
+            forwarded.add(exchange.getRequestMethod() + " " + exchange.getRequestURI());
+            exchange.getResponseHeaders().add("Location", "https://www.amazon.in/dp/B0TEST0001");
+            exchange.sendResponseHeaders(301, -1);
+            exchange.close();
+        });
+        proxy.start();
+        try {
+            ProxyPool proxyPool = new ProxyPool(List.of(new ProxyPool.ProxyDefinition("local", "127.0.0.1",
+                proxy.getAddress().getPort(), 1, null)), 1, 0.5, 5, Duration.ofMinutes(1), Duration.ofSeconds(1));
+            AmazonScraperStrategy strategy = new AmazonScraperStrategy();
+            strategy.setProxyPool(proxyPool);
+
+            // When
+            String expanded = strategy.expandShortenedUrl("http://amzn.to/abc");
+
+            // Then
+            assertThat(expanded).isEqualTo("https://www.amazon.in/dp/B0TEST0001");
+            assertThat(forwarded).containsExactly("HEAD http://amzn.to/abc");
+            assertThat(proxyPool.status().get(0).requests()).isEqualTo(1);
+            assertThat(proxyPool.status().get(0).active()).isZero();
+        } finally {
+            proxy.stop(0);
+        }
+    }
+
+    @Test
+    void whenProxyRefusesConnection_thenFailureIsTheEgressNotTheUrl() throws Exception {
+        // Given a proxy on a port nothing listens on
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        ProxyPool proxyPool = new ProxyPool(List.of(new ProxyPool.ProxyDefinition("down", "127.0.0.1", closedPort, 1,
+            null)), 1, 0.5, 5, Duration.ofMinutes(1), Duration.ofSeconds(1));
+        JsoupScraperService service = new JsoupScraperService(List.of(amazonScraperStrategy),
+            new PipelineMetrics(meterRegistry), pageArchive, new ScrapeDispatcher(1, 1, proxyPool), proxyPool,
+            ScrapeSessions.disabled());
+        ReflectionTestUtils.setField(service, "defaultDelayMs", 1);
+
+        // When
+        PriceScrapeResult result = service.scrapePriceResult("http://shop.example/product");
+
+        // Then
+        assertThat(result.failureType()).isEqualTo(ScrapeFailureType.EGRESS);
+        assertThat(proxyPool.status().get(0).successRate()).isLessThan(1.0);
+        assertThat(proxyPool.status().get(0).active()).isZero();
+    }
+
+    @Test
+    void whenSessionCannotBeOpened_thenProxySlotIsReleased() {
+        // Given a proxy pool with a single slot and sessions that fail to open
+        ProxyPool proxyPool = new ProxyPool(List.of(new ProxyPool.ProxyDefinition("local", "127.0.0.1", 3128, 1,
+            null)), 1, 0.5, 5, Duration.ofMinutes(1), Duration.ofSeconds(1));
+        ScrapeSessions sessions = mock(ScrapeSessions.class);
+        when(sessions.open(anyString(), any(), any())).thenThrow(new IllegalStateException("session store broken"));
+        JsoupScraperService service = new JsoupScraperService(List.of(amazonScraperStrategy),
+            new PipelineMetrics(meterRegistry), pageArchive, new ScrapeDispatcher(1, 1, proxyPool), proxyPool,
+            sessions);
+        ReflectionTestUtils.setField(service, "defaultDelayMs", 1);
+
+        // When
+        assertThatThrownBy(() -> service.fetchDocument("http://shop.example/product"))
+            .isInstanceOf(IllegalStateException.class);
+
+        // Then the slot is free again
+        assertThat(proxyPool.status().get(0).active()).isZero();
+    }
+
+    @Test
+    void whenSessionsEnabled_thenCookiesAndUserAgentAreKeptAcrossFetches() throws Exception {
+        // Given a local stand-in proxy, answering as a marketplace that sets a session cookie
+        List<String> cookies = new CopyOnWriteArrayList<>();
+        List<String> userAgents = new CopyOnWriteArrayList<>();
+        HttpServer proxy = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        proxy.createContext("/", exchange -> {
+            cookies.add(String.valueOf(exchange.getRequestHeaders().getFirst("Cookie")));
+            userAgents.add(exchange.getRequestHeaders().getFirst("User-Agent"));
+            exchange.getResponseHeaders().add("Set-Cookie", "session-id=123-456; Path=/");
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+            exchange.sendResponseHeaders(200, PAGE.length);
+            exchange.getResponseBody().write(PAGE);
+            exchange.close();
+        });
+        proxy.start();
+        try {
+            ProxyPool proxyPool = new ProxyPool(List.of(new ProxyPool.ProxyDefinition("local", "127.0.0.1",
+                proxy.getAddress().getPort(), 1, null)), 1, 0.5, 5, Duration.ofMinutes(1), Duration.ofSeconds(1));
+            JsoupScraperService service = new JsoupScraperService(List.of(amazonScraperStrategy),
+                new PipelineMetrics(meterRegistry), pageArchive, new ScrapeDispatcher(1, 1, proxyPool), proxyPool,
+                new ScrapeSessions(true, 120, 30, 500, 1000));
+            ReflectionTestUtils.setField(service, "defaultDelayMs", 1);
+
+            // When
+            service.fetchDocument("http://shop.example/product/1");
+            service.fetchDocument("http://shop.example/product/2");
+
+            // Then
+            assertThat(cookies).containsExactly("null", "session-id=123-456");
+            assertThat(userAgents).hasSize(2);
+            assertThat(userAgents.get(1)).isEqualTo(userAgents.get(0));
+            assertThat(meterRegistry.get("scraper.session.fetches").tag("session", "reused")
+                .tag("outcome", "success").counter().count()).isEqualTo(1);
+        } finally {
+            proxy.stop(0);
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,93 @@
+package com.pricetracker.app.scraping;
+
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageDecoderTest {
+
+    private static final String URL = "https://www.amazon.in/dp/B01";
+    private static final String PRICE_PAGE =
+        "<html><head>%s</head><body><span class='a-price'><span class='a-offscreen'>₹1,299.00</span></span></body></html>";
+
+    @Test
+    void whenUtf8PageWithoutDeclaration_thenRupeeDecodedAndPriceExtracted() {
+        // Given: the page that used to reach extraction as "Γé╣1,299.00"
+        byte[] body = PRICE_PAGE.formatted("").getBytes(StandardCharsets.UTF_8);
+
+        // When
+        Document doc = PageDecoder.parse(body, "text/html", URL);
+
+        // Then
+        assertThat(doc.text()).contains("₹1,299.00").doesNotContain("Γé╣");
+        assertThat(new AmazonScraperStrategy().extractPrice(doc)).contains(new BigDecimal("1299.00"));
+    }
+
+    @Test
+    void whenByteOrderMark_thenItWinsOverHeaderAndMeta() {
+        // Given
+        byte[] body = concat(new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF},
+            PRICE_PAGE.formatted("<meta charset=\"windows-1252\">").getBytes(StandardCharsets.UTF_8));
+
+        // When
+        Document doc = PageDecoder.parse(body, "text/html; charset=ISO-8859-1", URL);
+
+        // Then
+        assertThat(doc.text()).startsWith("₹1,299.00");
+    }
+
+    @Test
+    void whenUtf16ByteOrderMark_thenDecodedAsUtf16() {
+        // Given
+        byte[] body = concat(new byte[] {(byte) 0xFF, (byte) 0xFE},
+            PRICE_PAGE.formatted("").getBytes(StandardCharsets.UTF_16LE));
+
+        // When / Then
+        assertThat(PageDecoder.parse(body, null, URL).text()).isEqualTo("₹1,299.00");
+    }
+
+    @Test
+    void whenHeaderCharset_thenItWinsOverMeta() {
+        // Given
+        byte[] body = PRICE_PAGE.formatted("<meta charset=\"iso-8859-1\">").getBytes(StandardCharsets.UTF_8);
+
+        // When / Then
+        assertThat(PageDecoder.parse(body, "text/html; charset=\"UTF-8\"", URL).text()).isEqualTo("₹1,299.00");
+    }
+
+    @Test
+    void whenOnlyMetaCharset_thenMetaUsed() {
+        // Given: a windows-1252 page, where 0x80 is the euro sign
+        Charset windows1252 = Charset.forName("windows-1252");
+        byte[] charsetMeta = "<html><head><meta charset=windows-1252><body>12,50 €</body></html>".getBytes(windows1252);
+        byte[] httpEquiv = ("<html><head><meta http-equiv=\"Content-Type\" content=\"text/html; charset=windows-1252\">"
+            + "<body>12,50 €</body></html>").getBytes(windows1252);
+
+        // When / Then
+        assertThat(PageDecoder.parse(charsetMeta, "text/html", URL).text()).isEqualTo("12,50 €");
+        assertThat(PageDecoder.parse(httpEquiv, null, URL).text()).isEqualTo("12,50 €");
+    }
+
+    @Test
+    void whenDeclarationUnusable_thenUtf8() {
+        assertThat(PageDecoder.detectCharset("<meta charset=utf-16>".getBytes(StandardCharsets.US_ASCII), null))
+            .isEqualTo(StandardCharsets.UTF_8);
+        assertThat(PageDecoder.detectCharset(new byte[0], "text/html; charset=no-such-charset"))
+            .isEqualTo(StandardCharsets.UTF_8);
+        assertThat(PageDecoder.detectCharset(new byte[0], "text/html; charset=latin1"))
+            .isEqualTo(Charset.forName("windows-1252"));
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(first);
+        out.writeBytes(second);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,52 @@
+package com.pricetracker.app.scraping;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvFileSource;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceTokenizerTest {
+
+    /**
+     * Price texts as scraped from marketplace pages, with the price each must read as, including its scale.
+     */
+    @ParameterizedTest(name = "{0} ({1})")
+    @CsvFileSource(resources = "/price-fixtures.csv", delimiter = '|', numLinesToSkip = 1, encoding = "UTF-8")
+    void whenFixtureScanned_thenExpectedPrice(String text, PriceTokenizer.Convention convention, String expected) {
+        // When
+        long price = PriceTokenizer.scan(text, convention);
+
+        // Then
+        if (expected.equals("none")) {
+            assertThat(price).isEqualTo(PriceTokenizer.NO_PRICE);
+        } else {
+            assertThat(PriceTokenizer.toBigDecimal(price)).isEqualTo(new BigDecimal(expected));
+        }
+    }
+
+    @Test
+    void whenPriceScanned_thenUnscaledValueAndScalePacked() {
+        // When
+        long price = PriceTokenizer.scan("₹1,23,456.78", PriceTokenizer.Convention.DECIMAL_POINT);
+
+        // Then
+        assertThat(PriceTokenizer.unscaledValue(price)).isEqualTo(12345678L);
+        assertThat(PriceTokenizer.scale(price)).isEqualTo(2);
+    }
+
+    @Test
+    void whenMarketplaceUrl_thenConventionOfItsLocale() {
+        assertThat(PriceTokenizer.conventionFor("https://www.amazon.in/dp/B01"))
+            .isEqualTo(PriceTokenizer.Convention.DECIMAL_POINT);
+        assertThat(PriceTokenizer.conventionFor("https://www.amazon.de/dp/B01"))
+            .isEqualTo(PriceTokenizer.Convention.DECIMAL_COMMA);
+        assertThat(PriceTokenizer.conventionFor("https://www.amazon.com.br/dp/B01"))
+            .isEqualTo(PriceTokenizer.Convention.DECIMAL_COMMA);
+        assertThat(PriceTokenizer.conventionFor("https://www.amazon.com/dp/B01"))
+            .isEqualTo(PriceTokenizer.Convention.DECIMAL_POINT);
+        assertThat(PriceTokenizer.conventionFor("not a url")).isEqualTo(PriceTokenizer.Convention.DECIMAL_POINT);
+    }
+}
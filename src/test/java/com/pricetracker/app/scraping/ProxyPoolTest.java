@@ -0,0 +1,236 @@
+package com.pricetracker.app.scraping;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class ProxyPoolTest {
+
+    private static final String HOST = "www.amazon.in";
+
+    @Test
+    void whenNoProxiesConfigured_thenRequestsGoDirect() {
+        // Given
+        ProxyPool pool = ProxyPool.direct();
+
+        // When
+        ProxyPool.Lease lease = pool.acquire(HOST);
+
+        // Then
+        assertThat(lease.proxy()).isNull();
+        assertThat(lease.name()).isEqualTo("direct");
+        assertThat(pool.egressCount()).isEqualTo(1);
+        assertThat(pool.status()).isEmpty();
+    }
+
+    @Test
+    void whenOneHostIsScrapedSequentially_thenRequestsAreSpreadOverTheProxies() {
+        // Given
+        ProxyPool pool = pool(Duration.ofMinutes(15), proxy("a"), proxy("b"), proxy("c"));
+
+        // When
+        for (int i = 0; i < 30; i++) {
+            pool.acquire(HOST).release(ProxyPool.Outcome.SUCCESS);
+        }
+
+        // Then
+        assertThat(pool.status()).extracting(ProxyPool.ProxyStatus::requests).containsExactly(10L, 10L, 10L);
+        assertThat(pool.egressCount()).isEqualTo(3);
+    }
+
+    @Test
+    void whenHostsAreScrapedSequentially_thenEachKeepsItsProxyForARun() {
+        // Given - runs of 3 requests
+        ProxyPool pool = new ProxyPool(List.of(proxy("a"), proxy("b")), 1, 0.3, 5, Duration.ofMinutes(15),
+            Duration.ofMillis(50), 3);
+        List<String> amazon = new ArrayList<>();
+        List<String> flipkart = new ArrayList<>();
+
+        // When - the hosts take turns
+        for (int i = 0; i < 6; i++) {
+            ProxyPool.Lease lease = pool.acquire(HOST);
+            amazon.add(lease.name());
+            lease.release(ProxyPool.Outcome.SUCCESS);
+            lease = pool.acquire("www.flipkart.com");
+            flipkart.add(lease.name());
+            lease.release(ProxyPool.Outcome.SUCCESS);
+        }
+
+        // Then
+        assertThat(amazon).containsExactly("a", "a", "a", "a", "a", "a");
+        assertThat(flipkart).containsExactly("b", "b", "b", "b", "b", "b");
+    }
+
+    @Test
+    void whenOneHostIsScrapedSequentially_thenItMovesToTheNextProxyAfterItsRun() {
+        // Given - runs of 3 requests
+        ProxyPool pool = new ProxyPool(List.of(proxy("a"), proxy("b")), 1, 0.3, 5, Duration.ofMinutes(15),
+            Duration.ofMillis(50), 3);
+        List<String> names = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 9; i++) {
+            ProxyPool.Lease lease = pool.acquire(HOST);
+            names.add(lease.name());
+            lease.release(ProxyPool.Outcome.SUCCESS);
+        }
+
+        // Then
+        assertThat(names).containsExactly("a", "a", "a", "b", "b", "b", "a", "a", "a");
+    }
+
+    @Test
+    void whenAssignedProxyIsQuarantined_thenHostMovesOnAtOnce() {
+        // Given - long runs, and the host's first proxy fails every request
+        ProxyPool pool = new ProxyPool(List.of(proxy("a"), proxy("b")), 1, 0.3, 5, Duration.ofMinutes(15),
+            Duration.ofMillis(50), 100);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            ProxyPool.Lease lease = pool.acquire(HOST);
+            assertThat(lease.name()).isEqualTo("a");
+            lease.release(ProxyPool.Outcome.FAILURE);
+        }
+        ProxyPool.Lease next = pool.acquire(HOST);
+
+        // Then
+        assertThat(pool.status().get(0).quarantinedUntil()).isNotNull();
+        assertThat(next.name()).isEqualTo("b");
+    }
+
+    @Test
+    void whenProxyScoresLower_thenItGetsAProportionallySmallerShare() {
+        // Given - every other request through a fails
+        ProxyPool pool = pool(Duration.ofMinutes(15), proxy("a"), proxy("b"));
+        int failures = 0;
+
+        // When
+        for (int i = 0; i < 200; i++) {
+            ProxyPool.Lease lease = pool.acquire(HOST);
+            boolean fail = lease.name().equals("a") && failures++ % 2 == 0;
+            lease.release(fail ? ProxyPool.Outcome.FAILURE : ProxyPool.Outcome.SUCCESS);
+        }
+
+        // Then
+        List<ProxyPool.ProxyStatus> status = pool.status();
+        assertThat(status.get(0).requests()).isBetween(50L, 90L);
+        assertThat(status.get(1).requests()).isEqualTo(200 - status.get(0).requests());
+        assertThat(status.get(0).quarantinedUntil()).isNull();
+    }
+
+    @Test
+    void whenProxyIsBusy_thenRequestGoesToAnotherProxy() {
+        // Given
+        ProxyPool pool = pool(Duration.ofMinutes(15), proxy("a"), proxy("b"));
+        ProxyPool.Lease first = pool.acquire(HOST);
+
+        // When
+        ProxyPool.Lease second = pool.acquire(HOST);
+
+        // Then
+        assertThat(second.name()).isNotEqualTo(first.name());
+        assertThatThrownBy(() -> pool.acquire(HOST))
+            .isInstanceOf(NoProxyAvailableException.class)
+            .hasMessageContaining("No proxy available");
+    }
+
+    @Test
+    void whenProxyKeepsGettingBlocked_thenItIsQuarantinedAndRequestsMoveOn() {
+        // Given - the host blocks everything through a
+        ProxyPool pool = pool(Duration.ofMinutes(15), proxy("a"), proxy("b"));
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            ProxyPool.Lease lease = pool.acquire(HOST);
+            lease.release(lease.name().equals("a") ? ProxyPool.Outcome.BLOCKED : ProxyPool.Outcome.SUCCESS);
+        }
+
+        // Then
+        ProxyPool.ProxyStatus status = pool.status().get(0);
+        assertThat(status.quarantinedUntil()).isNotNull();
+        assertThat(status.quarantines()).isEqualTo(1);
+        for (int i = 0; i < 3; i++) {
+            ProxyPool.Lease next = pool.acquire(HOST);
+            assertThat(next.name()).isEqualTo("b");
+            next.release(ProxyPool.Outcome.SUCCESS);
+        }
+    }
+
+    @Test
+    void whenEveryProxyIsQuarantined_thenNoProxyAvailableAtOnceAndPoolExhausted() {
+        // Given - quarantined far beyond the acquire timeout
+        ProxyPool pool = new ProxyPool(List.of(proxy("a")), 1, 0.3, 5, Duration.ofMinutes(15),
+            Duration.ofSeconds(30));
+        for (int i = 0; i < 5; i++) {
+            pool.acquire(HOST).release(ProxyPool.Outcome.FAILURE);
+        }
+        assertThat(pool.isExhausted()).isFalse();
+
+        // When
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> pool.acquire(HOST)).isInstanceOf(NoProxyAvailableException.class);
+
+        // Then
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+        assertThat(pool.isExhausted()).isTrue();
+    }
+
+    @Test
+    void whenQuarantineEnds_thenProxyIsUsedAgain() throws Exception {
+        // Given
+        ProxyPool pool = pool(Duration.ofMillis(50), proxy("a"));
+        for (int i = 0; i < 5; i++) {
+            pool.acquire(HOST).release(ProxyPool.Outcome.FAILURE);
+        }
+        assertThat(pool.status().get(0).quarantinedUntil()).isNotNull();
+
+        // When
+        Thread.sleep(100);
+        ProxyPool.Lease lease = pool.acquire(HOST);
+
+        // Then
+        assertThat(lease.name()).isEqualTo("a");
+        assertThat(pool.status().get(0).quarantinedUntil()).isNull();
+        assertThat(pool.isExhausted()).isFalse();
+    }
+
+    @Test
+    void whenProxiesFileIsConfigured_thenProxiesAreLoaded(@TempDir Path dir) throws Exception {
+        // Given
+        Path file = dir.resolve("proxies.json");
+        Files.writeString(file, """
+            {"proxies": [
+              {"name": "eu-1", "host": "10.0.0.1", "port": 3128, "maxConcurrency": 4},
+              {"name": "eu-2", "host": "10.0.0.2", "port": 3128, "userAgent": "Mozilla/5.0 Test"}
+            ]}
+            """);
+
+        // When
+        ProxyPool pool = new ProxyPool(file.toString(), 2, 0.5, 5, 15, 1000, 10);
+
+        // Then
+        assertThat(pool.status())
+            .extracting(ProxyPool.ProxyStatus::name, ProxyPool.ProxyStatus::address,
+                ProxyPool.ProxyStatus::maxConcurrency)
+            .containsExactly(
+                tuple("eu-1", "10.0.0.1:3128", 4),
+                tuple("eu-2", "10.0.0.2:3128", 2));
+    }
+
+    private static ProxyPool pool(Duration quarantine, ProxyPool.ProxyDefinition... proxies) {
+        return new ProxyPool(List.of(proxies), 1, 0.3, 5, quarantine, Duration.ofMillis(50));
+    }
+
+    private static ProxyPool.ProxyDefinition proxy(String name) {
+        return new ProxyPool.ProxyDefinition(name, "127.0.0.1", 3128, null, null);
+    }
+}
@@ -0,0 +1,171 @@
+package com.pricetracker.app.scraping;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ScrapeDispatcherTest {
+
+    private final ScrapeDispatcher dispatcher = new ScrapeDispatcher(4, 1);
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.close();
+    }
+
+    @Test
+    void whenSubmittingToOneHost_thenScrapesRunOneAtATimeInOrder() throws Exception {
+        // Given
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        // When
+        CompletableFuture<?>[] scrapes = new CompletableFuture<?>[5];
+        for (int i = 0; i < scrapes.length; i++) {
+            int n = i;
+            scrapes[i] = dispatcher.submit("https://www.amazon.in/dp/" + i, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(20);
+                order.add(n);
+                running.decrementAndGet();
+                return n;
+            });
+        }
+        CompletableFuture.allOf(scrapes).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(order).containsExactly(0, 1, 2, 3, 4);
+        assertThat(maxRunning.get()).isEqualTo(1);
+        assertThat(dispatcher.pending()).isZero();
+    }
+
+    @Test
+    void whenSubmittingToDifferentHosts_thenScrapesRunInParallel() throws Exception {
+        // Given
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        // When
+        CompletableFuture<Boolean> first = dispatcher.submit("https://www.amazon.in/dp/1", () -> await(bothStarted));
+        CompletableFuture<Boolean> second = dispatcher.submit("https://www.example.com/p/1", () -> await(bothStarted));
+
+        // Then
+        assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void whenProxiesConfigured_thenOneHostGetsAScrapePerProxy() throws Exception {
+        // Given
+        ProxyPool proxyPool = new ProxyPool(List.of(
+            new ProxyPool.ProxyDefinition("a", "127.0.0.1", 3128, null, null),
+            new ProxyPool.ProxyDefinition("b", "127.0.0.1", 3129, null, null)),
+            1, 0.5, 5, Duration.ofMinutes(1), Duration.ofSeconds(1));
+        ScrapeDispatcher proxied = new ScrapeDispatcher(1, 1, proxyPool);
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        try {
+            // When
+            CompletableFuture<Boolean> first = proxied.submit("https://www.amazon.in/dp/1", () -> await(bothStarted));
+            CompletableFuture<Boolean> second = proxied.submit("https://www.amazon.in/dp/2", () -> await(bothStarted));
+
+            // Then
+            assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(second.get(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            proxied.close();
+        }
+    }
+
+    @Test
+    void whenCancellingPendingScrape_thenItNeverRuns() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean cancelledRan = new AtomicBoolean();
+        CompletableFuture<Boolean> blocking = dispatcher.submit("https://www.amazon.in/dp/1", () -> await(release));
+        CompletableFuture<Boolean> pending = dispatcher.submit("https://www.amazon.in/dp/2", () -> {
+            cancelledRan.set(true);
+            return true;
+        });
+        CompletableFuture<Boolean> next = dispatcher.submit("https://www.amazon.in/dp/3", () -> true);
+
+        // When
+        pending.cancel(true);
+        release.countDown();
+
+        // Then
+        assertThat(blocking.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(next.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(pending.isCancelled()).isTrue();
+        assertThat(cancelledRan.get()).isFalse();
+    }
+
+    @Test
+    void whenCancellingRunningScrape_thenItIsInterruptedAndTheHostMovesOn() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = dispatcher.submit("https://www.amazon.in/dp/1", () -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return true;
+        });
+        CompletableFuture<Boolean> next = dispatcher.submit("https://www.amazon.in/dp/2",
+            () -> !Thread.currentThread().isInterrupted());
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        running.cancel(true);
+
+        // Then
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(next.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void whenScrapeThrowsError_thenFutureFailsAndTheHostMovesOn() throws Exception {
+        // Given
+        CompletableFuture<Boolean> failing = dispatcher.submit("https://www.amazon.in/dp/1", () -> {
+            throw new StackOverflowError();
+        });
+        CompletableFuture<Boolean> next = dispatcher.submit("https://www.amazon.in/dp/2", () -> true);
+
+        // When / Then
+        assertThat(next.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(failing).isCompletedExceptionally();
+        assertThatThrownBy(failing::join).hasCauseInstanceOf(StackOverflowError.class);
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
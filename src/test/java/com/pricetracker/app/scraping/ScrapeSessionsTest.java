@@ -0,0 +1,86 @@
+package com.pricetracker.app.scraping;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScrapeSessionsTest {
+
+    private static final String HOST = "www.amazon.in";
+
+    private final ProxyPool proxyPool = new ProxyPool(List.of(
+        new ProxyPool.ProxyDefinition("a", "127.0.0.1", 3128, 10, "Mozilla/5.0 A"),
+        new ProxyPool.ProxyDefinition("b", "127.0.0.1", 3129, 10, null)),
+        10, 0.5, 5, Duration.ofMinutes(1), Duration.ofSeconds(1));
+
+    @Test
+    void whenFetchingHostAgainThroughSameProxy_thenSessionIsReused() {
+        // Given
+        ScrapeSessions sessions = new ScrapeSessions(true, 120, 30, 500, 1000);
+        ProxyPool.Lease lease = proxyPool.acquire(HOST);
+        ScrapeSessions.ScrapeSession first = sessions.open(HOST, lease, () -> "Mozilla/5.0 Random");
+        sessions.close(first, ProxyPool.Outcome.SUCCESS);
+
+        // When
+        ScrapeSessions.ScrapeSession second = sessions.open(HOST, lease, () -> "Mozilla/5.0 Other");
+
+        // Then
+        assertThat(second).isSameAs(first);
+        assertThat(second.isReused()).isTrue();
+        // The proxy presents its own user agent
+        assertThat(first.userAgent()).isEqualTo("Mozilla/5.0 A");
+        assertThat(sessions.open("www.example.com", lease, () -> "Mozilla/5.0 Random")).isNotSameAs(first);
+    }
+
+    @Test
+    void whenSessionIsBlocked_thenNextFetchGetsAFreshSession() {
+        // Given
+        ScrapeSessions sessions = new ScrapeSessions(true, 120, 30, 500, 1000);
+        ProxyPool.Lease lease = proxyPool.acquire(HOST);
+        ScrapeSessions.ScrapeSession blocked = sessions.open(HOST, lease, () -> "Mozilla/5.0 Random");
+
+        // When
+        sessions.close(blocked, ProxyPool.Outcome.BLOCKED);
+        ScrapeSessions.ScrapeSession next = sessions.open(HOST, lease, () -> "Mozilla/5.0 Random");
+
+        // Then
+        assertThat(next).isNotSameAs(blocked);
+        assertThat(next.isReused()).isFalse();
+    }
+
+    @Test
+    void whenSessionReachesMaxRequests_thenItIsRotated() {
+        // Given
+        ScrapeSessions sessions = new ScrapeSessions(true, 120, 30, 2, 1000);
+        ProxyPool.Lease lease = proxyPool.acquire(HOST);
+        ScrapeSessions.ScrapeSession first = sessions.open(HOST, lease, () -> "Mozilla/5.0 Random");
+
+        // When
+        ScrapeSessions.ScrapeSession second = sessions.open(HOST, lease, () -> "Mozilla/5.0 Random");
+        ScrapeSessions.ScrapeSession third = sessions.open(HOST, lease, () -> "Mozilla/5.0 Random");
+
+        // Then
+        assertThat(second).isSameAs(first);
+        assertThat(third).isNotSameAs(first);
+        assertThat(sessions.size()).isEqualTo(1);
+    }
+
+    @Test
+    void whenSessionsDisabled_thenEveryFetchStartsOver() {
+        // Given
+        ScrapeSessions sessions = ScrapeSessions.disabled();
+        ProxyPool.Lease lease = ProxyPool.direct().acquire(HOST);
+
+        // When
+        ScrapeSessions.ScrapeSession first = sessions.open(HOST, lease, () -> "Mozilla/5.0 Random");
+        ScrapeSessions.ScrapeSession second = sessions.open(HOST, lease, () -> "Mozilla/5.0 Random");
+
+        // Then
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.isReused()).isFalse();
+        assertThat(second.userAgent()).isEqualTo("Mozilla/5.0 Random");
+    }
+}
@@ -0,0 +1,119 @@
+package com.pricetracker.app.scraping;
+
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScraperStrategyIndexTest {
+
+    private final AmazonScraperStrategy amazon = new AmazonScraperStrategy();
+    private final HostStrategy flipkart = new HostStrategy(Set.of("flipkart.com"), Set.of("dl.flipkart.com"));
+    private final LegacyStrategy legacy = new LegacyStrategy();
+    private final ScraperStrategyIndex index = new ScraperStrategyIndex(List.of(amazon, flipkart, legacy));
+
+    @Test
+    void whenHostOrSubdomainOfOwnedSuffix_thenDispatchToOwner() {
+        assertThat(index.find("https://www.amazon.in/dp/B0CX1?th=1")).containsSame(amazon);
+        assertThat(index.find("https://AMAZON.COM./gp/product/B0CX1")).containsSame(amazon);
+        assertThat(index.find("https://www.flipkart.com/p/itm123")).containsSame(flipkart);
+    }
+
+    @Test
+    void whenHostOnlyContainsOwnedName_thenNoMatch() {
+        assertThat(index.find("https://data.com/product")).isEmpty();
+        assertThat(index.find("https://amazon.in.example.org/dp/B0CX1")).isEmpty();
+        assertThat(index.find("https://shop.example.com/?ref=www.amazon.in")).isEmpty();
+        assertThat(amazon.canHandle("https://metadata.co/item")).isFalse();
+    }
+
+    @Test
+    void whenShortenerHost_thenDispatchWithoutExpanding() {
+        assertThat(index.find("https://amzn.in/d/abc123")).containsSame(amazon);
+        assertThat(index.findShortener("https://a.co/d/abc123")).containsSame(amazon);
+        assertThat(index.findShortener("https://www.amazon.in/dp/B0CX1")).isEmpty();
+        assertThat(index.find("https://dl.flipkart.com/s/xyz")).containsSame(flipkart);
+    }
+
+    @Test
+    void whenStrategyDeclaresNoHosts_thenAskedThroughCanHandle() {
+        assertThat(index.find("https://legacy.example.net/item/1")).containsSame(legacy);
+        assertThat(legacy.canHandleCalls).isEqualTo(1);
+
+        index.find("https://www.amazon.in/dp/B0CX1");
+        assertThat(legacy.canHandleCalls).isEqualTo(1);
+    }
+
+    @Test
+    void whenTaggingByMarketplace_thenOnlyClaimedHostsAreUsed() {
+        assertThat(index.marketplaceOf("https://www.amazon.in/dp/B0CX1")).isEqualTo("amazon.in");
+        assertThat(index.marketplaceOf("https://any-subdomain.amazon.in/dp/B0CX1")).isEqualTo("amazon.in");
+        assertThat(index.marketplaceOf("https://dl.flipkart.com/s/xyz")).isEqualTo("dl.flipkart.com");
+        assertThat(index.marketplaceOf("https://legacy.example.net/item/1"))
+            .isEqualTo(ScraperStrategyIndex.OTHER_MARKETPLACE);
+        assertThat(index.marketplaceOf("not a url")).isEqualTo(ScraperStrategyIndex.OTHER_MARKETPLACE);
+    }
+
+    @Test
+    void whenUrlHasPortOrUserInfo_thenHostExtracted() {
+        assertThat(ScraperStrategyIndex.hostOf("https://user:pw@www.amazon.in:8443/dp/B0")).isEqualTo("www.amazon.in");
+        assertThat(ScraperStrategyIndex.hostOf("https://www.amazon.in#top")).isEqualTo("www.amazon.in");
+        assertThat(ScraperStrategyIndex.hostOf("not a url")).isNull();
+        assertThat(ScraperStrategyIndex.hostOf(null)).isNull();
+    }
+
+    private static class HostStrategy extends LegacyStrategy {
+        private final Set<String> hosts;
+        private final Set<String> shorteners;
+
+        HostStrategy(Set<String> hosts, Set<String> shorteners) {
+            this.hosts = hosts;
+            this.shorteners = shorteners;
+        }
+
+        @Override
+        public Set<String> hostSuffixes() {
+            return hosts;
+        }
+
+        @Override
+        public Set<String> shortenerHosts() {
+            return shorteners;
+        }
+    }
+
+    private static class LegacyStrategy implements ScraperStrategy {
+        int canHandleCalls;
+
+        @Override
+        public boolean canHandle(String url) {
+            canHandleCalls++;
+            return url.contains("legacy.example.net");
+        }
+
+        @Override
+        public Optional<BigDecimal> extractPrice(Document doc) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<String> extractName(Document doc) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<String> extractImageUrl(Document doc) {
+            return Optional.empty();
+        }
+
+        @Override
+        public boolean isCaptchaPage(Document doc) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.pricetracker.app.scraping;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SelectorSetTest {
+
+    private static final String PAGE = """
+        <html><head><title>Wireless Mouse</title></head><body>
+          <h1 class="a-size-large"><span id="productTitle"> Wireless Mouse </span></h1>
+          <div id="corePrice_desktop">
+            <span class="a-price"><span class="a-offscreen">₹1,299.00</span></span>
+          </div>
+          <div class="a-section a-spacing-none aok-align-center">
+            <span class="a-price"><span class="A-Offscreen">₹1,199.00</span><span class="a-price-whole">1,199</span></span>
+          </div>
+          <span class="a-color-price">₹49 delivery</span>
+          <div id="imgTagWrapperId"><img id="landingImage" data-old-hires="https://m.media-amazon.com/images/I/mouse.jpg"></div>
+          <img width="500" height="400" src="https://m.media-amazon.com/images/I/big.jpg">
+          <span data-feature-name="title">Feature title</span>
+        </body></html>
+        """;
+
+    private static final List<String> SELECTORS = List.of(
+        ".a-price .a-offscreen",
+        ".a-section.a-spacing-none.aok-align-center .a-price .a-offscreen",
+        ".a-price-whole",
+        "#corePrice_desktop .a-offscreen, .priceToPay .a-offscreen",
+        "span.a-price span.a-offscreen",
+        ".a-color-price",
+        "#productTitle",
+        "h1.a-size-large",
+        "[data-feature-name='title']",
+        "#imgTagWrapperId img",
+        "img[width][height]",
+        "[class*=price], [class*=Price], [id*=price], [id*=Price]",
+        "h1");
+
+    @Test
+    void whenMatchedInOneWalk_thenSameElementsAsSelectingOneByOne() {
+        // Given
+        Document doc = Jsoup.parse(PAGE);
+        SelectorSet selectorSet = SelectorSet.compile(SELECTORS);
+
+        // When
+        SelectorSet.Matches matches = selectorSet.match(doc);
+
+        // Then
+        for (String selector : SELECTORS) {
+            assertThat(matches.all(selector)).as(selector).containsExactlyElementsOf(doc.select(selector));
+        }
+    }
+
+    @Test
+    void whenSetReusedAcrossDocuments_thenMatchesBelongToEachDocument() {
+        // Given
+        SelectorSet selectorSet = SelectorSet.compile(SELECTORS);
+        Document first = Jsoup.parse(PAGE);
+        Document second = Jsoup.parse("<div class='priceToPay'><span class='a-offscreen'>$5</span></div>");
+
+        // When
+        selectorSet.match(first);
+        SelectorSet.Matches matches = selectorSet.match(second);
+
+        // Then
+        assertThat(matches.first("#corePrice_desktop .a-offscreen, .priceToPay .a-offscreen").text()).isEqualTo("$5");
+        assertThat(matches.all("#productTitle")).isEmpty();
+    }
+
+    @Test
+    void whenSelectorIndexed_thenKeyedByRightmostIdClassOrTag() {
+        assertThat(SelectorSet.indexKey("#imgTagWrapperId img")).isEqualTo("img");
+        assertThat(SelectorSet.indexKey(".a-price .a-offscreen")).isEqualTo(".a-offscreen");
+        assertThat(SelectorSet.indexKey("h1.a-size-large")).isEqualTo(".a-size-large");
+        assertThat(SelectorSet.indexKey("div > span#price.big")).isEqualTo("#price");
+        assertThat(SelectorSet.indexKey(".priceToPay span[data-a-size='xl']")).isEqualTo("span");
+        assertThat(SelectorSet.indexKey("[data-feature-name='title']")).isEqualTo("*");
+        assertThat(SelectorSet.splitGroup("a[title='x, y'], b")).containsExactly("a[title='x, y']", "b");
+    }
+
+    @Test
+    void whenAmazonPage_thenDetailsExtractedFromSharedMatches() {
+        // Given
+        Document doc = Jsoup.parse(PAGE, "https://www.amazon.in/dp/B0MOUSE");
+
+        // When
+        ProductDetails details = new AmazonScraperStrategy().scrapeProductDetails(doc).orElseThrow();
+
+        // Then
+        assertThat(details.name()).contains("Wireless Mouse");
+        assertThat(details.imageUrl()).contains("https://m.media-amazon.com/images/I/mouse.jpg");
+        assertThat(details.price()).contains(new BigDecimal("1199.00"));
+    }
+}
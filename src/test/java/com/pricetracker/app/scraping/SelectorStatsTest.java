@@ -0,0 +1,179 @@
+package com.pricetracker.app.scraping;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class SelectorStatsTest {
+
+    private static final String STRATEGY = "AmazonScraperStrategy";
+    private static final String PRODUCT = "https://www.amazon.in/dp/B01";
+
+    @Test
+    void whenHitsRecorded_thenCountedPerMarketplaceWithShare() {
+        // Given
+        SelectorStats stats = new SelectorStats(true, 1000);
+        stats.recordHit(STRATEGY, "https://www.amazon.in/dp/B02", ".c");
+        stats.recordHit(STRATEGY, "https://www.amazon.in/dp/B03", ".c");
+        stats.recordHit(STRATEGY, PRODUCT + "?ref=abc", ".d");
+        stats.recordHit(STRATEGY, "https://www.amazon.com/dp/B01", ".a");
+
+        // When
+        List<SelectorStats.SelectorStat> snapshot = stats.snapshot();
+
+        // Then
+        assertThat(snapshot)
+            .extracting(SelectorStats.SelectorStat::host, SelectorStats.SelectorStat::selector,
+                SelectorStats.SelectorStat::hits)
+            .containsExactly(
+                tuple("www.amazon.com", ".a", 1L),
+                tuple("www.amazon.in", ".c", 2L),
+                tuple("www.amazon.in", ".d", 1L));
+        assertThat(snapshot.get(1).share()).isEqualTo(2.0 / 3);
+    }
+
+    @Test
+    void whenLaterSelectorWonBefore_thenPriorityOrderStillDecidesThePrice() {
+        // Given: the product's price came from .b before, and the page now also has .a
+        SelectorStats stats = new SelectorStats(true, 1000);
+        TestStrategy strategy = new TestStrategy();
+        strategy.setSelectorStats(stats);
+        strategy.extract(Jsoup.parse("<span class='b'>₹40</span>", PRODUCT));
+        Document doc = Jsoup.parse("<span class='a'>₹1,299</span><span class='b'>₹40</span>", PRODUCT);
+
+        // When
+        Optional<BigDecimal> price = strategy.extract(doc);
+
+        // Then
+        assertThat(price).contains(new BigDecimal("1299"));
+        assertThat(stats.snapshot()).extracting(SelectorStats.SelectorStat::selector).containsExactlyInAnyOrder(".a", ".b");
+    }
+
+    @Test
+    void whenProductWonWithASelectorBefore_thenItIsTriedFirstAndItsPriceAccepted() {
+        // Given: the marketplace mostly prices with .c, and this product with .b
+        SelectorStats stats = new SelectorStats(true, 1000);
+        MatchesStrategy strategy = new MatchesStrategy();
+        strategy.setSelectorStats(stats);
+        strategy.extract(Jsoup.parse("<span class='c'>₹10</span>", "https://www.amazon.in/dp/B02"));
+        strategy.extract(Jsoup.parse("<span class='c'>₹20</span>", "https://www.amazon.in/dp/B03"));
+        strategy.extract(Jsoup.parse("<span class='b'>₹40</span>", PRODUCT));
+
+        // When
+        List<String> order = stats.order(MatchesStrategy.NAME, PRODUCT + "?ref=abc", MatchesStrategy.SELECTORS);
+        Optional<BigDecimal> price = strategy.extract(
+            Jsoup.parse("<span class='b'>₹45</span><span class='c'>₹50</span>", PRODUCT));
+
+        // Then
+        assertThat(order).containsExactly(".b", ".c", ".a");
+        assertThat(price).contains(new BigDecimal("45"));
+        assertThat(stats.snapshot()).extracting(SelectorStats.SelectorStat::mismatches).containsOnly(0L);
+    }
+
+    @Test
+    void whenSelectorBeforeTheWinnerYieldsAPrice_thenPriorityPriceTakenAndMismatchCounted() {
+        // Given: the product's price came from .b before, and the page now also has .a
+        SelectorStats stats = new SelectorStats(true, 1000);
+        MatchesStrategy strategy = new MatchesStrategy();
+        strategy.setSelectorStats(stats);
+        strategy.extract(Jsoup.parse("<span class='b'>₹40</span>", PRODUCT));
+
+        // When
+        Optional<BigDecimal> price = strategy.extract(
+            Jsoup.parse("<span class='a'>₹1,299</span><span class='b'>₹40</span>", PRODUCT));
+
+        // Then
+        assertThat(price).contains(new BigDecimal("1299"));
+        assertThat(stats.snapshot())
+            .extracting(SelectorStats.SelectorStat::selector, SelectorStats.SelectorStat::hits,
+                SelectorStats.SelectorStat::mismatches)
+            .containsExactlyInAnyOrder(tuple(".a", 1L, 0L), tuple(".b", 1L, 1L));
+        assertThat(stats.order(MatchesStrategy.NAME, PRODUCT, MatchesStrategy.SELECTORS).get(0)).isEqualTo(".a");
+    }
+
+    @Test
+    void whenLearnedSelectorsMiss_thenPriorityOrderFindsThePrice() {
+        // Given: .c won for the product, but the page now only prices with .a
+        SelectorStats stats = new SelectorStats(true, 1000);
+        MatchesStrategy strategy = new MatchesStrategy();
+        strategy.setSelectorStats(stats);
+        strategy.extract(Jsoup.parse("<span class='c'>₹10</span>", PRODUCT));
+
+        // When
+        Optional<BigDecimal> price = strategy.extract(Jsoup.parse("<span class='a'>₹15</span>", PRODUCT));
+
+        // Then
+        assertThat(price).contains(new BigDecimal("15"));
+        assertThat(stats.order(MatchesStrategy.NAME, PRODUCT, MatchesStrategy.SELECTORS).get(0)).isEqualTo(".a");
+    }
+
+    @Test
+    void whenReplaying_thenHitsNotRecorded() {
+        // Given
+        SelectorStats stats = new SelectorStats(true, 1000);
+        TestStrategy strategy = new TestStrategy();
+        strategy.setSelectorStats(stats);
+        Document doc = Jsoup.parse("<span class='a'>₹1,299</span>", PRODUCT);
+
+        // When
+        Optional<BigDecimal> price = SelectorStats.replaying(() -> strategy.extract(doc));
+
+        // Then
+        assertThat(price).contains(new BigDecimal("1299"));
+        assertThat(stats.snapshot()).isEmpty();
+        assertThat(SelectorStats.isRecording()).isTrue();
+    }
+
+    @Test
+    void whenDisabled_thenNothingRecorded() {
+        // Given
+        SelectorStats stats = new SelectorStats(false, 1000);
+
+        // When
+        stats.recordHit(STRATEGY, PRODUCT, ".d");
+
+        // Then
+        assertThat(stats.snapshot()).isEmpty();
+    }
+
+    private static class MatchesStrategy extends TestStrategy {
+
+        static final String NAME = "MatchesStrategy";
+        static final List<String> SELECTORS = List.of(".a", ".b", ".c");
+        private static final SelectorSet SELECTOR_SET = SelectorSet.compile(SELECTORS);
+
+        @Override
+        Optional<BigDecimal> extract(Document doc) {
+            return extractPriceWithSelectors(doc, SELECTOR_SET.match(doc), SELECTORS);
+        }
+    }
+
+    private static class TestStrategy extends BaseScraperStrategy {
+
+        Optional<BigDecimal> extract(Document doc) {
+            return extractPriceWithSelectors(doc, new String[] {".a", ".b"});
+        }
+
+        @Override
+        public Optional<BigDecimal> extractPrice(Document doc) {
+            return extract(doc);
+        }
+
+        @Override
+        public Optional<String> extractName(Document doc) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<String> extractImageUrl(Document doc) {
+            return Optional.empty();
+        }
+    }
+}
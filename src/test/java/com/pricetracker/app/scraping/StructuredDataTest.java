@@ -0,0 +1,103 @@
+package com.pricetracker.app.scraping;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StructuredDataTest {
+
+    @Test
+    void whenJsonLdProductWithOffer_thenReadPriceNameAndImage() {
+        // Given
+        Document doc = Jsoup.parse("""
+            <html><head>
+            <script type="application/ld+json">{"@context":"https://schema.org","@type":"BreadcrumbList"}</script>
+            <script type="application/ld+json">
+              {"@context":"https://schema.org","@graph":[
+                {"@type":"WebPage","name":"Shop"},
+                {"@type":["Product"],"name":"Noise Cancelling Headphones",
+                 "image":["https://cdn.example.com/h1.jpg","https://cdn.example.com/h2.jpg"],
+                 "offers":[{"@type":"Offer","price":"24,990.00","priceCurrency":"INR"}]}
+              ]}
+            </script>
+            <meta property="product:price:amount" content="19990">
+            </head><body><span class="price">₹ 1</span></body></html>
+            """);
+
+        // When
+        StructuredData data = StructuredData.of(doc);
+
+        // Then
+        assertThat(data.price()).contains(new BigDecimal("24990.00"));
+        assertThat(data.name()).contains("Noise Cancelling Headphones");
+        assertThat(data.imageUrl()).contains("https://cdn.example.com/h1.jpg");
+    }
+
+    @Test
+    void whenAggregateOfferOrPriceSpecification_thenReadLowPrice() {
+        // Given
+        Document aggregate = Jsoup.parse("""
+            <script type="application/ld+json">
+              {"@type":"Product","name":"Kettle","offers":{"@type":"AggregateOffer","lowPrice":1499,"highPrice":1999}}
+            </script>""");
+        Document specification = Jsoup.parse("""
+            <script type="application/ld+json">
+              {"@type":"Offer","priceSpecification":{"@type":"UnitPriceSpecification","price":12.5}}
+            </script>""");
+
+        // When / Then
+        assertThat(StructuredData.of(aggregate).price()).contains(new BigDecimal("1499"));
+        assertThat(StructuredData.of(specification).price()).contains(new BigDecimal("12.5"));
+    }
+
+    @Test
+    void whenNoJsonLd_thenFallBackToMicrodataThenMeta() {
+        // Given
+        Document microdata = Jsoup.parse("""
+            <head><meta property="og:price:amount" content="99.00"><meta property="og:title" content="OG title"></head>
+            <body><div itemscope itemtype="https://schema.org/Product">
+              <h1 itemprop="name">Desk Lamp</h1>
+              <span itemprop="price" content="89.50">$89.50</span>
+            </div></body>""");
+        Document metaOnly = Jsoup.parse("""
+            <head><meta property="og:price:amount" content="99.00"><meta property="og:title" content="OG title">
+            <meta property="og:image" content="https://cdn.example.com/lamp.jpg"></head>""");
+
+        // When
+        StructuredData fromMicrodata = StructuredData.of(microdata);
+        StructuredData fromMeta = StructuredData.of(metaOnly);
+
+        // Then
+        assertThat(fromMicrodata.price()).contains(new BigDecimal("89.50"));
+        assertThat(fromMicrodata.name()).contains("Desk Lamp");
+        assertThat(fromMeta.price()).contains(new BigDecimal("99.00"));
+        assertThat(fromMeta.name()).contains("OG title");
+        assertThat(fromMeta.imageUrl()).contains("https://cdn.example.com/lamp.jpg");
+    }
+
+    @Test
+    void whenMalformedJsonLdOrNoData_thenEmpty() {
+        // Given
+        Document doc = Jsoup.parse("""
+            <script type="application/ld+json">{"@type":"Product", "offers": </script>
+            <div class="price">$10</div>""");
+
+        // When / Then
+        assertThat(StructuredData.of(doc).price()).isEmpty();
+    }
+
+    @Test
+    void whenPriceFormatted_thenParseSeparators() {
+        assertThat(StructuredData.parsePrice("1299")).isEqualByComparingTo("1299");
+        assertThat(StructuredData.parsePrice("1,299.00")).isEqualByComparingTo("1299.00");
+        assertThat(StructuredData.parsePrice("1.299,00")).isEqualByComparingTo("1299.00");
+        assertThat(StructuredData.parsePrice("₹ 1,299")).isEqualByComparingTo("1299");
+        assertThat(StructuredData.parsePrice("12,50 €")).isEqualByComparingTo("12.50");
+        assertThat(StructuredData.parsePrice("0.00")).isNull();
+        assertThat(StructuredData.parsePrice("call for price")).isNull();
+    }
+}
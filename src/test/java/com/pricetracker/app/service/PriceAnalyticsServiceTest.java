@@ -0,0 +1,264 @@
+package com.pricetracker.app.service;
+
+import com.pricetracker.app.dto.response.PriceAnalyticsResponse;
+import com.pricetracker.app.entity.PriceHistory;
+import com.pricetracker.app.entity.PriceStatistics;
+import com.pricetracker.app.entity.Product;
+import com.pricetracker.app.exception.ResourceNotFoundException;
+import com.pricetracker.app.repository.PriceHistoryRepository;
+import com.pricetracker.app.repository.PriceStatisticsRepository;
+import com.pricetracker.app.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PriceAnalyticsServiceTest {
+
+    @Mock
+    private PriceStatisticsRepository priceStatisticsRepository;
+
+    @Mock
+    private PriceHistoryRepository priceHistoryRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private PriceAnalyticsService priceAnalyticsService;
+
+    private Product product;
+    private PriceStatistics storedStatistics;
+
+    @BeforeEach
+    void setUp() {
+        product = new Product();
+        product.setId(1L);
+        product.setName("Test Product");
+        product.setProductUrl("https://example.com/product");
+
+        // Keep whatever the service saves so the next call sees it
+        when(priceStatisticsRepository.findById(1L)).thenAnswer(invocation -> Optional.ofNullable(storedStatistics));
+        when(priceStatisticsRepository.save(any(PriceStatistics.class))).thenAnswer(invocation -> {
+            storedStatistics = invocation.getArgument(0);
+            return storedStatistics;
+        });
+        when(priceHistoryRepository.findByProductIdOrderByTimestampAsc(anyLong())).thenReturn(Collections.emptyList());
+        when(priceHistoryRepository.findFirstByProductIdAndTimestampGreaterThanEqualOrderByPriceAscTimestampDesc(
+            anyLong(), any(Instant.class))).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void whenRecordPrices_thenAggregatesAreUpdatedIncrementally() {
+        // Given
+        Instant start = Instant.now().minus(Duration.ofDays(10));
+
+        // When
+        priceAnalyticsService.recordPrice(product, new BigDecimal("100.00"), start);
+        priceAnalyticsService.recordPrice(product, new BigDecimal("80.00"), start.plus(Duration.ofDays(2)));
+        priceAnalyticsService.recordPrice(product, new BigDecimal("120.00"), start.plus(Duration.ofDays(4)));
+        priceAnalyticsService.recordPrice(product, new BigDecimal("90.00"), start.plus(Duration.ofDays(6)));
+        PriceAnalyticsResponse analytics = priceAnalyticsService.getAnalytics(1L);
+
+        // Then
+        assertThat(analytics.sampleCount()).isEqualTo(4);
+        assertThat(analytics.currentPrice()).isEqualByComparingTo("90.00");
+        assertThat(analytics.allTimeLow()).isEqualByComparingTo("80.00");
+        assertThat(analytics.allTimeHigh()).isEqualByComparingTo("120.00");
+        assertThat(analytics.lowest30Days()).isEqualByComparingTo("80.00");
+        assertThat(analytics.averagePrice()).isEqualByComparingTo("97.50");
+        assertThat(analytics.dropCount()).isEqualTo(2);
+        assertThat(analytics.volatility()).isGreaterThan(0.0);
+        assertThat(analytics.movingAverage7Days().doubleValue()).isBetween(80.0, 120.0);
+
+        // History is never scanned once aggregates exist
+        verify(priceHistoryRepository, times(1)).findByProductIdOrderByTimestampAsc(1L);
+    }
+
+    @Test
+    void whenPriceChangesDaily_thenEstimateAboutOneChangePerDay() {
+        // Given
+        Instant start = Instant.now().minus(Duration.ofDays(20));
+        for (int day = 0; day <= 20; day++) {
+            BigDecimal price = day % 2 == 0 ? new BigDecimal("100.00") : new BigDecimal("90.00");
+            priceAnalyticsService.recordPrice(product, price, start.plus(Duration.ofDays(day)));
+        }
+
+        // When
+        double changesPerDay = priceAnalyticsService.estimateChangesPerDay(storedStatistics, start, Instant.now());
+
+        // Then
+        assertThat(changesPerDay).isBetween(0.9, 1.1);
+        assertThat(priceAnalyticsService.estimateChangesPerDay(null, start, Instant.now())).isZero();
+    }
+
+    @Test
+    void whenPriceStopsChanging_thenEstimateDecays() {
+        // Given
+        Instant start = Instant.now().minus(Duration.ofDays(120));
+        for (int day = 0; day <= 20; day++) {
+            BigDecimal price = day % 2 == 0 ? new BigDecimal("100.00") : new BigDecimal("90.00");
+            priceAnalyticsService.recordPrice(product, price, start.plus(Duration.ofDays(day)));
+        }
+
+        // When
+        double changesPerDay = priceAnalyticsService.estimateChangesPerDay(storedStatistics, start, Instant.now());
+
+        // Then
+        assertThat(changesPerDay).isLessThan(0.1);
+    }
+
+    @Test
+    void whenRollingLowAgesOutOfWindow_thenLowIsReestablishedFromHistory() {
+        // Given - the 30-day low was observed 40 days ago and the price has since recovered
+        Instant now = Instant.now();
+        priceAnalyticsService.recordPrice(product, new BigDecimal("50.00"), now.minus(Duration.ofDays(45)));
+        priceAnalyticsService.recordPrice(product, new BigDecimal("70.00"), now.minus(Duration.ofDays(40)));
+
+        // When
+        PriceAnalyticsResponse analytics = priceAnalyticsService.getAnalytics(1L);
+
+        // Then
+        assertThat(analytics.allTimeLow()).isEqualByComparingTo("50.00");
+        assertThat(analytics.lowest30Days()).isEqualByComparingTo("70.00");
+        assertThat(analytics.lowest90Days()).isEqualByComparingTo("50.00");
+    }
+
+    @Test
+    void whenGetAnalytics_withoutStatistics_thenSeedFromHistoryWithoutWriting() {
+        // Given
+        Instant now = Instant.now();
+        when(productRepository.existsById(1L)).thenReturn(true);
+        when(priceHistoryRepository.findByProductIdOrderByTimestampAsc(1L)).thenReturn(List.of(
+            createHistory(new BigDecimal("60.00"), now.minus(Duration.ofDays(3))),
+            createHistory(new BigDecimal("55.00"), now.minus(Duration.ofDays(1)))
+        ));
+
+        // When
+        PriceAnalyticsResponse analytics = priceAnalyticsService.getAnalytics(1L);
+
+        // Then - the scheduler persists the aggregates with the next recorded price
+        assertThat(analytics.sampleCount()).isEqualTo(2);
+        assertThat(analytics.allTimeLow()).isEqualByComparingTo("55.00");
+        verify(priceStatisticsRepository, never()).save(any());
+    }
+
+    @Test
+    void whenGetAnalytics_withLowAgedOut_thenLowIsRefreshedWithoutWriting() {
+        // Given
+        Instant now = Instant.now();
+        priceAnalyticsService.recordPrice(product, new BigDecimal("50.00"), now.minus(Duration.ofDays(45)));
+        priceAnalyticsService.recordPrice(product, new BigDecimal("70.00"), now.minus(Duration.ofDays(40)));
+        clearInvocations(priceStatisticsRepository);
+
+        // When
+        PriceAnalyticsResponse analytics = priceAnalyticsService.getAnalytics(1L);
+
+        // Then
+        assertThat(analytics.lowest30Days()).isEqualByComparingTo("70.00");
+        verify(priceStatisticsRepository, never()).save(any());
+    }
+
+    @Test
+    void whenLowWasInEffectAtWindowStart_thenItCountsForTheWindow() {
+        // Given - 80 until day -40, 100 from day -40, 120 from day -10; history holds only the changes
+        Instant now = Instant.now();
+        List<PriceHistory> history = List.of(
+            createHistory(new BigDecimal("80.00"), now.minus(Duration.ofDays(100))),
+            createHistory(new BigDecimal("100.00"), now.minus(Duration.ofDays(40))),
+            createHistory(new BigDecimal("120.00"), now.minus(Duration.ofDays(10))));
+        answerFromHistory(history);
+        for (PriceHistory point : history) {
+            priceAnalyticsService.recordPrice(product, point.getPrice(), point.getTimestamp());
+        }
+
+        // When
+        PriceAnalyticsResponse analytics = priceAnalyticsService.getAnalytics(1L);
+
+        // Then - 100 was the price from day -30 to day -10
+        assertThat(analytics.lowest30Days()).isEqualByComparingTo("100.00");
+        assertThat(analytics.lowest90Days()).isEqualByComparingTo("80.00");
+    }
+
+    @Test
+    void whenGetAnalytics_withUnknownProduct_thenThrowResourceNotFound() {
+        // Given
+        when(productRepository.existsById(99L)).thenReturn(false);
+
+        // When/Then
+        assertThatThrownBy(() -> priceAnalyticsService.getAnalytics(99L))
+            .isInstanceOf(ResourceNotFoundException.class);
+        verify(priceStatisticsRepository, never()).save(any());
+    }
+
+    @Test
+    void whenGetAnalytics_withNoPricesRecorded_thenReturnEmptyAnalytics() {
+        // Given
+        when(productRepository.existsById(1L)).thenReturn(true);
+
+        // When
+        PriceAnalyticsResponse analytics = priceAnalyticsService.getAnalytics(1L);
+
+        // Then
+        assertThat(analytics.sampleCount()).isZero();
+        assertThat(analytics.currentPrice()).isNull();
+        verify(priceStatisticsRepository, never()).save(any());
+        verify(priceHistoryRepository, never())
+            .findFirstByProductIdAndTimestampGreaterThanEqualOrderByPriceAscTimestampDesc(eq(1L), any());
+    }
+
+    // Answer the window queries from a product's history, as the database would
+    private void answerFromHistory(List<PriceHistory> history) {
+        when(priceHistoryRepository.findFirstByProductIdAndTimestampGreaterThanEqualOrderByPriceAscTimestampDesc(
+            eq(1L), any(Instant.class))).thenAnswer(invocation -> {
+                Instant since = invocation.getArgument(1);
+                return history.stream()
+                    .filter(point -> !point.getTimestamp().isBefore(since))
+                    .min(Comparator.comparing(PriceHistory::getPrice)
+                        .thenComparing(PriceHistory::getTimestamp, Comparator.reverseOrder()));
+            });
+        when(priceHistoryRepository.findFirstByProductIdAndTimestampLessThanOrderByTimestampDesc(
+            eq(1L), any(Instant.class))).thenAnswer(invocation -> {
+                Instant before = invocation.getArgument(1);
+                return history.stream()
+                    .filter(point -> point.getTimestamp().isBefore(before))
+                    .max(Comparator.comparing(PriceHistory::getTimestamp));
+            });
+        when(priceHistoryRepository.findFirstByProductIdAndTimestampGreaterThanEqualOrderByTimestampAsc(
+            eq(1L), any(Instant.class))).thenAnswer(invocation -> {
+                Instant since = invocation.getArgument(1);
+                return history.stream()
+                    .filter(point -> !point.getTimestamp().isBefore(since))
+                    .min(Comparator.comparing(PriceHistory::getTimestamp));
+            });
+    }
+
+    private PriceHistory createHistory(BigDecimal price, Instant timestamp) {
+        PriceHistory priceHistory = new PriceHistory();
+        priceHistory.setProduct(product);
+        priceHistory.setPrice(price);
+        priceHistory.setTimestamp(timestamp);
+        return priceHistory;
+    }
+}
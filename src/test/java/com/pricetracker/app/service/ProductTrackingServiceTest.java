@@ -1,5 +1,6 @@
 package com.pricetracker.app.service;
 
+import com.pricetracker.app.cache.TrackedProductCache;
 import com.pricetracker.app.dto.request.TrackProductRequest;
 import com.pricetracker.app.dto.request.UpdateTrackedProductRequest;
 import com.pricetracker.app.entity.Product;
@@ -19,10 +20,12 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -41,6 +44,9 @@ class ProductTrackingServiceTest {
     @Mock
     private ScraperService scraperService;
     
+    @Mock
+    private TrackedProductCache trackedProductCache;
+    
     @InjectMocks
     private ProductTrackingService productTrackingService;
     
@@ -54,6 +60,8 @@ class ProductTrackingServiceTest {
     
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(productTrackingService, "onboardingTimeoutMs", 100L);
+        
         testProduct = new Product();
         testProduct.setId(1L);
         testProduct.setProductUrl(PRODUCT_URL);
@@ -80,7 +88,8 @@ class ProductTrackingServiceTest {
         TrackProductRequest request = new TrackProductRequest(PRODUCT_URL, DESIRED_PRICE, 60);
         
         when(productRepository.findByProductUrl(PRODUCT_URL)).thenReturn(Optional.empty());
-        when(scraperService.scrapeProductDetails(PRODUCT_URL)).thenReturn(Optional.of(testProductDetails));
+        when(scraperService.scrapeProductDetailsAsync(PRODUCT_URL))
+            .thenReturn(CompletableFuture.completedFuture(Optional.of(testProductDetails)));
         when(productRepository.save(any(Product.class))).thenReturn(testProduct);
         when(trackedProductRepository.save(any(TrackedProduct.class))).thenReturn(testTrackedProduct);
         
@@ -94,11 +103,31 @@ class ProductTrackingServiceTest {
         assertThat(result.getDesiredPrice()).isEqualTo(DESIRED_PRICE);
         
         verify(productRepository).findByProductUrl(PRODUCT_URL);
-        verify(scraperService).scrapeProductDetails(PRODUCT_URL);
+        verify(scraperService).scrapeProductDetailsAsync(PRODUCT_URL);
         verify(productRepository).save(any(Product.class));
         verify(trackedProductRepository).save(any(TrackedProduct.class));
     }
     
+    @Test
+    void whenAddProductTracking_withSlowScrape_thenTrackWithoutDetailsAndCancelScrape() {
+        // Given
+        TrackProductRequest request = new TrackProductRequest(PRODUCT_URL, DESIRED_PRICE, 60);
+        CompletableFuture<Optional<ProductDetails>> scrape = new CompletableFuture<>();
+        
+        when(productRepository.findByProductUrl(PRODUCT_URL)).thenReturn(Optional.empty());
+        when(scraperService.scrapeProductDetailsAsync(PRODUCT_URL)).thenReturn(scrape);
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(trackedProductRepository.save(any(TrackedProduct.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        // When
+        TrackedProduct result = productTrackingService.addProductTracking(USER_ID, request);
+        
+        // Then
+        assertThat(result.getProduct().getName()).isEqualTo("Unknown Product");
+        assertThat(result.getProduct().getLastCheckedPrice()).isNull();
+        assertThat(scrape).isCancelled();
+    }
+    
     @Test
     void whenAddProductTracking_withExistingProduct_thenOnlyCreateTracking() {
         // Given
@@ -114,7 +143,7 @@ class ProductTrackingServiceTest {
         // Then
         assertThat(result).isNotNull();
         verify(productRepository).findByProductUrl(PRODUCT_URL);
-        verify(scraperService, never()).scrapeProductDetails(any());
+        verify(scraperService, never()).scrapeProductDetailsAsync(any());
         verify(trackedProductRepository).save(any(TrackedProduct.class));
     }
     
@@ -168,6 +197,7 @@ class ProductTrackingServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getDesiredPrice()).isEqualTo(new BigDecimal("89.99"));
         assertThat(result.isNotificationEnabled()).isFalse();
+        verify(trackedProductCache).evictUser(USER_ID);
     }
     
     @Test
@@ -180,6 +210,7 @@ class ProductTrackingServiceTest {
         // When/Then
         assertThatThrownBy(() -> productTrackingService.updateTrackedProduct(USER_ID, 99L, request))
             .isInstanceOf(ResourceNotFoundException.class);
+        verify(trackedProductCache, never()).evictUser(any());
     }
     
     @Test
@@ -193,6 +224,7 @@ class ProductTrackingServiceTest {
         
         // Then
         verify(trackedProductRepository).delete(testTrackedProduct);
+        verify(trackedProductCache).evictUser(USER_ID);
     }
     
     @Test
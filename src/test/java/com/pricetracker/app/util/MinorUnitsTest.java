@@ -0,0 +1,51 @@
+package com.pricetracker.app.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MinorUnitsTest {
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource({
+        "1299.00, 129900",
+        "1299.99, 129999",
+        "0.01, 1",
+        "1299, 129900",
+        "1299.9, 129990",
+        "-5.50, -550",
+        "99999999.99, 9999999999",
+        "1299.995, 130000",
+        "1299.994, 129999",
+        "1.3E+3, 130000",
+        "1234567890123.45, 123456789012345"
+    })
+    void whenAmountConverted_thenMinorUnitsRoundedHalfUp(String amount, long expected) {
+        // When
+        long minorUnits = MinorUnits.of(new BigDecimal(amount));
+
+        // Then
+        assertThat(minorUnits).isEqualTo(expected);
+    }
+
+    @Test
+    void whenMinorUnitsConvertedBack_thenSameAmountAtCurrencyScale() {
+        // When
+        BigDecimal amount = MinorUnits.toBigDecimal(129999);
+
+        // Then
+        assertThat(amount).isEqualTo(new BigDecimal("1299.99"));
+        assertThat(MinorUnits.of(amount)).isEqualTo(129999);
+    }
+
+    @Test
+    void whenAmountDoesNotFitInLong_thenArithmeticException() {
+        assertThatThrownBy(() -> MinorUnits.of(new BigDecimal("1E+30")))
+            .isInstanceOf(ArithmeticException.class);
+    }
+}
@@ -0,0 +1,43 @@
+-- Tables as they were before columns were added to their entities, with rows in them,
+-- for SchemaUpgradeTest to check that a schema update can still add the columns.
+
+CREATE TABLE products (
+    id bigserial PRIMARY KEY,
+    product_url varchar(1024) NOT NULL UNIQUE,
+    name varchar(255) NOT NULL,
+    image_url varchar(1024),
+    last_checked_price numeric(10, 2),
+    created_at timestamp with time zone DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    updated_at timestamp with time zone DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+INSERT INTO products (id, product_url, name, last_checked_price)
+VALUES (1, 'https://www.amazon.in/dp/B0TEST0001', 'Test Product', 1299.00);
+
+CREATE TABLE price_statistics (
+    product_id bigint PRIMARY KEY,
+    sample_count bigint DEFAULT 0 NOT NULL,
+    first_recorded_at timestamp with time zone,
+    last_price numeric(10, 2),
+    last_recorded_at timestamp with time zone,
+    all_time_low numeric(10, 2),
+    all_time_low_at timestamp with time zone,
+    all_time_high numeric(10, 2),
+    all_time_high_at timestamp with time zone,
+    low_30_days numeric(10, 2),
+    low_30_days_at timestamp with time zone,
+    low_90_days numeric(10, 2),
+    low_90_days_at timestamp with time zone,
+    mean_price double precision DEFAULT 0 NOT NULL,
+    price_m2 double precision DEFAULT 0 NOT NULL,
+    ewma_7_days double precision DEFAULT 0 NOT NULL,
+    ewma_30_days double precision DEFAULT 0 NOT NULL,
+    change_count bigint DEFAULT 0 NOT NULL,
+    change_mean double precision DEFAULT 0 NOT NULL,
+    change_m2 double precision DEFAULT 0 NOT NULL,
+    drop_count bigint DEFAULT 0 NOT NULL,
+    updated_at timestamp with time zone DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+INSERT INTO price_statistics (product_id, sample_count, last_price, change_count)
+VALUES (1, 3, 1299.00, 2);